@@ -0,0 +1,26 @@
+package um.prog2.trabajo.businessservice.client;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Grupo de concurrencia de un método de {@link DataServiceClient} en {@link ResilienciaDatos}. Sin la
+ * anotación, los GET son {@link Grupo#CONSULTAS} y el resto {@link Grupo#ESCRITURAS}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Aislamiento {
+
+    Grupo value();
+
+    enum Grupo {
+        CONSULTAS,
+        // Lecturas pesadas: con su propio límite no dejan sin lugar a las consultas de productos
+        REPORTES,
+        ESCRITURAS,
+        // Llamadas que esperan a propósito (long polling): ni circuito, ni límite, ni duplicado
+        SIN_RESILIENCIA
+    }
+}
@@ -0,0 +1,82 @@
+package um.prog2.trabajo.businessservice.client;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import um.prog2.trabajo.dataservice.dto.CategoriaVista;
+
+import java.time.Duration;
+
+/**
+ * Categorías del servicio de datos por ID y por nombre, guardadas en memoria hasta
+ * {@code business.cache-categorias.vencimiento-segundos} después de leerlas y con a lo sumo
+ * {@code entradas} por índice. Los fallos concurrentes de una misma clave esperan a una única consulta, y
+ * los errores (incluido el 404) no se guardan.
+ * <p>
+ * Las escrituras de categorías de esta instancia la invalidan con {@link #invalidar}; las de otras instancias
+ * se ven al vencer la entrada. La cantidad de productos de la vista guardada puede estar desactualizada.
+ * <p>
+ * Métricas por índice ({@code cache} = {@code categorias.por-id} o {@code categorias.por-nombre}):
+ * {@code cache.gets} (aciertos y fallos), {@code cache.tasa.aciertos}, {@code cache.load} (consultas al servicio
+ * de datos) con su tiempo acumulado en {@code cache.load.duration}, y {@code cache.evictions}.
+ */
+@Component
+public class CacheCategorias {
+
+    private final LoadingCache<Long, CategoriaVista> porId;
+    private final LoadingCache<String, CategoriaVista> porNombre;
+
+    public CacheCategorias(DataServiceClient dataServiceClient,
+                           @Value("${business.cache-categorias.entradas:1000}") long entradas,
+                           @Value("${business.cache-categorias.vencimiento-segundos:60}") long vencimientoSegundos,
+                           MeterRegistry registro) {
+        Duration vencimiento = Duration.ofSeconds(vencimientoSegundos);
+        this.porId = registrar(Caffeine.newBuilder()
+                .maximumSize(entradas)
+                .expireAfterWrite(vencimiento)
+                .recordStats()
+                .build(dataServiceClient::obtenerCategoriaPorId), "categorias.por-id", registro);
+        this.porNombre = registrar(Caffeine.newBuilder()
+                .maximumSize(entradas)
+                .expireAfterWrite(vencimiento)
+                .recordStats()
+                .build(dataServiceClient::obtenerCategoriaPorNombre), "categorias.por-nombre", registro);
+    }
+
+    /**
+     * @throws feign.FeignException la de la consulta al servicio de datos, si la categoría no estaba guardada
+     */
+    public CategoriaVista porId(Long id) {
+        return porId.get(id);
+    }
+
+    /**
+     * @throws feign.FeignException la de la consulta al servicio de datos, si la categoría no estaba guardada
+     */
+    public CategoriaVista porNombre(String nombre) {
+        return porNombre.get(nombre);
+    }
+
+    /**
+     * Descarta la categoría de los dos índices; en el de nombres se busca por ID porque al renombrarla el
+     * nombre anterior ya no se conoce.
+     */
+    public void invalidar(Long id) {
+        porId.invalidate(id);
+        porNombre.asMap().values().removeIf(categoria -> categoria.id().equals(id));
+    }
+
+    private static <K> LoadingCache<K, CategoriaVista> registrar(LoadingCache<K, CategoriaVista> cache, String nombre,
+                                                               MeterRegistry registro) {
+        CaffeineCacheMetrics.monitor(registro, cache, nombre);
+        Gauge.builder("cache.tasa.aciertos", cache, c -> c.stats().hitRate())
+                .tag("cache", nombre)
+                .description("Proporción de lecturas resueltas sin consultar al servicio de datos")
+                .register(registro);
+        return cache;
+    }
+}
@@ -0,0 +1,168 @@
+package um.prog2.trabajo.businessservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Agrupa las consultas por clave que llegan dentro de una misma ventana de tiempo en una única
+ * consulta por lote al servicio de datos.
+ * <p>
+ * El primer hilo que abre un lote es su líder: espera la ventana (o a que el lote se llene), hace la
+ * consulta y reparte los resultados; los demás hilos sólo esperan su parte. Así no hace falta un pool
+ * propio y el plazo de la solicitud que abrió el lote se propaga a la llamada. Las claves repetidas
+ * dentro de la ventana comparten un único resultado. Los errores de la consulta se relanzan tal cual
+ * en todos los hilos del lote.
+ * <p>
+ * Métricas (etiqueta {@code nombre}): {@code colapsador.solicitudes}, {@code colapsador.duplicadas}
+ * (claves ya pedidas en el mismo lote), {@code colapsador.lotes}, {@code colapsador.lote.claves} y
+ * {@code colapsador.fusion}, el promedio de solicitudes atendidas por cada llamada al servicio de datos.
+ */
+public class ColapsadorSolicitudes<K, V> {
+
+    private final boolean habilitado;
+    private final Duration ventana;
+    private final int tamanoMaximo;
+    private final Function<K, V> consultaIndividual;
+    private final Function<List<K>, Map<K, V>> consultaPorLote;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition loteLleno = lock.newCondition();
+    private Lote<K, V> loteAbierto;
+
+    private final Counter solicitudes;
+    private final Counter duplicadas;
+    private final Counter lotes;
+    private final DistributionSummary clavesPorLote;
+
+    /**
+     * @param consultaIndividual se usa cuando el colapsado está deshabilitado
+     * @param consultaPorLote    devuelve los valores encontrados; las claves ausentes se resuelven con {@code null}
+     */
+    public ColapsadorSolicitudes(String nombre,
+                                 boolean habilitado,
+                                 Duration ventana,
+                                 int tamanoMaximo,
+                                 Function<K, V> consultaIndividual,
+                                 Function<List<K>, Map<K, V>> consultaPorLote,
+                                 MeterRegistry registro) {
+        if (tamanoMaximo < 1) {
+            throw new IllegalArgumentException("El tamaño máximo del lote debe ser mayor a cero");
+        }
+        this.habilitado = habilitado;
+        this.ventana = ventana;
+        this.tamanoMaximo = tamanoMaximo;
+        this.consultaIndividual = consultaIndividual;
+        this.consultaPorLote = consultaPorLote;
+
+        this.solicitudes = Counter.builder("colapsador.solicitudes").tag("nombre", nombre).register(registro);
+        this.duplicadas = Counter.builder("colapsador.duplicadas").tag("nombre", nombre).register(registro);
+        this.lotes = Counter.builder("colapsador.lotes").tag("nombre", nombre).register(registro);
+        this.clavesPorLote = DistributionSummary.builder("colapsador.lote.claves").tag("nombre", nombre)
+                .register(registro);
+        Gauge.builder("colapsador.fusion", this,
+                        colapsador -> colapsador.lotes.count() == 0 ? 0
+                                : colapsador.solicitudes.count() / colapsador.lotes.count())
+                .tag("nombre", nombre)
+                .register(registro);
+    }
+
+    /**
+     * Devuelve el valor de la clave, o {@code null} si el servicio de datos no lo encontró.
+     */
+    public V obtener(K clave) {
+        solicitudes.increment();
+        if (!habilitado) {
+            lotes.increment();
+            clavesPorLote.record(1);
+            return consultaIndividual.apply(clave);
+        }
+
+        Lote<K, V> lote;
+        CompletableFuture<V> resultado;
+        boolean lider = false;
+        lock.lock();
+        try {
+            if (loteAbierto == null) {
+                loteAbierto = new Lote<>();
+                lider = true;
+            }
+            lote = loteAbierto;
+            resultado = lote.pendientes.get(clave);
+            if (resultado == null) {
+                resultado = new CompletableFuture<>();
+                lote.pendientes.put(clave, resultado);
+                if (lote.pendientes.size() >= tamanoMaximo) {
+                    loteAbierto = null;
+                    loteLleno.signalAll();
+                }
+            } else {
+                duplicadas.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (lider) {
+            esperarCierre(lote);
+            ejecutar(lote);
+        }
+        return esperar(resultado);
+    }
+
+    private void esperarCierre(Lote<K, V> lote) {
+        lock.lock();
+        try {
+            long restante = ventana.toNanos();
+            while (loteAbierto == lote && restante > 0) {
+                restante = loteLleno.awaitNanos(restante);
+            }
+        } catch (InterruptedException e) {
+            // Se consulta de inmediato con lo acumulado hasta ahora
+            Thread.currentThread().interrupt();
+        } finally {
+            if (loteAbierto == lote) {
+                loteAbierto = null;
+            }
+            lock.unlock();
+        }
+    }
+
+    private void ejecutar(Lote<K, V> lote) {
+        // Una vez cerrado, ningún otro hilo modifica el lote
+        lotes.increment();
+        clavesPorLote.record(lote.pendientes.size());
+        try {
+            Map<K, V> encontrados = consultaPorLote.apply(List.copyOf(lote.pendientes.keySet()));
+            lote.pendientes.forEach((clave, resultado) -> resultado.complete(encontrados.get(clave)));
+        } catch (RuntimeException | Error e) {
+            lote.pendientes.values().forEach(resultado -> resultado.completeExceptionally(e));
+        }
+    }
+
+    private V esperar(CompletableFuture<V> resultado) {
+        try {
+            return resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Lote<K, V> {
+        private final Map<K, CompletableFuture<V>> pendientes = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,51 @@
+package um.prog2.trabajo.businessservice.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import um.prog2.trabajo.dataservice.dto.InventarioVista;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Colapsadores de las consultas por ID más frecuentes hacia el servicio de datos.
+ */
+@Configuration
+public class ColapsadoresConfiguracion {
+
+    private final boolean habilitado;
+    private final Duration ventana;
+    private final int tamanoMaximo;
+
+    public ColapsadoresConfiguracion(@Value("${business.colapsador.habilitado:true}") boolean habilitado,
+                                     @Value("${business.colapsador.ventana-ms:2}") long ventanaMs,
+                                     @Value("${business.colapsador.tamano-maximo:100}") int tamanoMaximo) {
+        this.habilitado = habilitado;
+        this.ventana = Duration.ofMillis(ventanaMs);
+        this.tamanoMaximo = tamanoMaximo;
+    }
+
+    @Bean
+    public ColapsadorSolicitudes<Long, ProductoVista> colapsadorProductos(DataServiceClient dataServiceClient,
+                                                                          MeterRegistry registro) {
+        return new ColapsadorSolicitudes<>("productos", habilitado, ventana, tamanoMaximo,
+                dataServiceClient::obtenerProductoPorId,
+                ids -> dataServiceClient.obtenerProductosPorIds(ids).stream()
+                        .collect(Collectors.toMap(ProductoVista::id, Function.identity())),
+                registro);
+    }
+
+    @Bean
+    public ColapsadorSolicitudes<Long, InventarioVista> colapsadorInventario(DataServiceClient dataServiceClient,
+                                                                             MeterRegistry registro) {
+        return new ColapsadorSolicitudes<>("inventario", habilitado, ventana, tamanoMaximo,
+                dataServiceClient::obtenerInventarioPorProductoId,
+                productoIds -> dataServiceClient.obtenerInventarioPorProductoIds(productoIds).stream()
+                        .collect(Collectors.toMap(InventarioVista::productoId, Function.identity())),
+                registro);
+    }
+}
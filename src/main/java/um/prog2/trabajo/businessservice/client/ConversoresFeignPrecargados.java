@@ -0,0 +1,33 @@
+package um.prog2.trabajo.businessservice.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.cloud.openfeign.FeignClientFactory;
+import org.springframework.cloud.openfeign.support.FeignHttpMessageConverters;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inicializa los conversores de Feign del cliente del servicio de datos al arrancar.
+ * <p>
+ * {@link FeignHttpMessageConverters} arma su lista la primera vez que se le pide y la publica vacía antes de
+ * llenarla, así que las primeras llamadas en paralelo podían no encontrar conversor para el cuerpo y fallar.
+ */
+@Component
+@Slf4j
+public class ConversoresFeignPrecargados implements SmartInitializingSingleton {
+
+    private final FeignClientFactory feignClientFactory;
+
+    public ConversoresFeignPrecargados(FeignClientFactory feignClientFactory) {
+        this.feignClientFactory = feignClientFactory;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        FeignHttpMessageConverters conversores =
+                feignClientFactory.getInstance("data-service", FeignHttpMessageConverters.class);
+        if (conversores != null) {
+            log.debug("Conversores de Feign para el servicio de datos: {}", conversores.getConverters().size());
+        }
+    }
+}
@@ -1,12 +1,26 @@
 package um.prog2.trabajo.businessservice.client;
 
+import feign.Request;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
+import um.prog2.trabajo.dataservice.dto.CategoriaVista;
+import um.prog2.trabajo.dataservice.dto.InventarioVista;
+import um.prog2.trabajo.dataservice.dto.LoteEventosStock;
+import um.prog2.trabajo.dataservice.dto.PaginaKeyset;
+import um.prog2.trabajo.dataservice.dto.ProductoConInventarioRequest;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+import um.prog2.trabajo.dataservice.dto.PuntoValuacion;
+import um.prog2.trabajo.dataservice.dto.ResultadoImportacion;
+import um.prog2.trabajo.dataservice.dto.ResumenInventario;
+import um.prog2.trabajo.dataservice.dto.ValuacionInventarioVista;
 import um.prog2.trabajo.dataservice.entity.Categoria;
 import um.prog2.trabajo.dataservice.entity.Inventario;
 import um.prog2.trabajo.dataservice.entity.Producto;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @FeignClient(name = "data-service", url = "${data.service.url}")
@@ -15,45 +29,67 @@ public interface DataServiceClient {
     // ========== ENDPOINTS DE PRODUCTOS ==========
     
     @GetMapping("/data/productos")
-    List<Producto> obtenerTodosLosProductos();
+    PaginaKeyset<ProductoVista> obtenerTodosLosProductos(@RequestParam(name = "after", required = false) String cursor,
+                                                    @RequestParam("limit") int limite);
+
+    @GetMapping("/data/productos")
+    List<ProductoVista> obtenerProductosPorIds(@RequestParam("ids") Collection<Long> ids);
 
     @GetMapping("/data/productos/{id}")
-    Producto obtenerProductoPorId(@PathVariable Long id);
+    ProductoVista obtenerProductoPorId(@PathVariable Long id);
 
     @PostMapping("/data/productos")
-    Producto crearProducto(@RequestBody Producto producto);
+    ProductoVista crearProducto(@RequestBody Producto producto);
+
+    @PostMapping("/data/productos/con-inventario")
+    ProductoVista crearProductoConInventario(@RequestBody ProductoConInventarioRequest request);
+
+    // Se envía como arreglo: el encoder de Feign no serializa cuerpos con tipo genérico (List<T>)
+    @PostMapping("/data/productos/batch")
+    ResultadoImportacion importarProductos(@RequestBody ProductoConInventarioRequest[] filas);
 
     @PutMapping("/data/productos/{id}")
-    Producto actualizarProducto(@PathVariable Long id, @RequestBody Producto producto);
+    ProductoVista actualizarProducto(@PathVariable Long id, @RequestBody Producto producto);
+
+    @PutMapping("/data/productos/{id}/con-inventario")
+    ProductoVista actualizarProductoConInventario(@PathVariable Long id, @RequestBody ProductoConInventarioRequest request);
 
     @DeleteMapping("/data/productos/{id}")
     void eliminarProducto(@PathVariable Long id);
 
     @GetMapping("/data/productos/categoria/{nombre}")
-    List<Producto> obtenerProductosPorCategoria(@PathVariable String nombre);
+    List<ProductoVista> obtenerProductosPorCategoria(@PathVariable String nombre);
 
     @GetMapping("/data/productos/buscar")
-    List<Producto> buscarProductosPorNombre(@RequestParam String nombre);
+    List<ProductoVista> buscarProductosPorNombre(@RequestParam("nombre") String nombre,
+                                                 @RequestParam("limit") int limite);
 
     @GetMapping("/data/productos/precio")
-    List<Producto> buscarProductosPorRangoPrecio(@RequestParam BigDecimal min, @RequestParam BigDecimal max);
+    PaginaKeyset<ProductoVista> buscarProductosPorRangoPrecio(@RequestParam("min") BigDecimal min,
+                                                              @RequestParam("max") BigDecimal max,
+                                                              @RequestParam(name = "after", required = false) String cursor,
+                                                              @RequestParam("limit") int limite);
 
     // ========== ENDPOINTS DE CATEGORÍAS ==========
 
     @GetMapping("/data/categorias")
-    List<Categoria> obtenerTodasLasCategorias();
+    PaginaKeyset<CategoriaVista> obtenerTodasLasCategorias(@RequestParam(name = "after", required = false) String cursor,
+                                                      @RequestParam("limit") int limite);
 
     @GetMapping("/data/categorias/{id}")
-    Categoria obtenerCategoriaPorId(@PathVariable Long id);
+    CategoriaVista obtenerCategoriaPorId(@PathVariable Long id);
 
     @GetMapping("/data/categorias/nombre/{nombre}")
-    Categoria obtenerCategoriaPorNombre(@PathVariable String nombre);
+    CategoriaVista obtenerCategoriaPorNombre(@PathVariable String nombre);
+
+    @GetMapping("/data/categorias/{id}/productos")
+    List<ProductoVista> obtenerProductosDeCategoria(@PathVariable Long id);
 
     @PostMapping("/data/categorias")
-    Categoria crearCategoria(@RequestBody Categoria categoria);
+    CategoriaVista crearCategoria(@RequestBody Categoria categoria);
 
     @PutMapping("/data/categorias/{id}")
-    Categoria actualizarCategoria(@PathVariable Long id, @RequestBody Categoria categoria);
+    CategoriaVista actualizarCategoria(@PathVariable Long id, @RequestBody Categoria categoria);
 
     @DeleteMapping("/data/categorias/{id}")
     void eliminarCategoria(@PathVariable Long id);
@@ -61,28 +97,65 @@ public interface DataServiceClient {
     // ========== ENDPOINTS DE INVENTARIO ==========
 
     @GetMapping("/data/inventario")
-    List<Inventario> obtenerTodoElInventario();
+    PaginaKeyset<InventarioVista> obtenerTodoElInventario(@RequestParam(name = "after", required = false) String cursor,
+                                                     @RequestParam("limit") int limite);
+
+    @GetMapping("/data/inventario")
+    List<InventarioVista> obtenerInventarioPorProductoIds(@RequestParam("productoIds") Collection<Long> productoIds);
 
     @GetMapping("/data/inventario/{id}")
-    Inventario obtenerInventarioPorId(@PathVariable Long id);
+    InventarioVista obtenerInventarioPorId(@PathVariable Long id);
 
     @GetMapping("/data/inventario/producto/{productoId}")
-    Inventario obtenerInventarioPorProductoId(@PathVariable Long productoId);
+    InventarioVista obtenerInventarioPorProductoId(@PathVariable Long productoId);
 
     @GetMapping("/data/inventario/stock-bajo")
-    List<Inventario> obtenerProductosConStockBajo();
+    @Aislamiento(Aislamiento.Grupo.REPORTES)
+    List<ProductoVista> obtenerProductosConStockBajo();
 
     @GetMapping("/data/inventario/sin-stock")
-    List<Inventario> obtenerProductosSinStock();
+    @Aislamiento(Aislamiento.Grupo.REPORTES)
+    List<ProductoVista> obtenerProductosSinStock();
+
+    // Long polling: las opciones llevan un readTimeout mayor que la espera pedida
+    @GetMapping("/data/inventario/eventos")
+    @Aislamiento(Aislamiento.Grupo.SIN_RESILIENCIA)
+    LoteEventosStock obtenerEventosStock(@RequestParam(name = "after", required = false) Long despuesDeId,
+                                         @RequestParam("limit") int limite,
+                                         @RequestParam("esperaMs") long esperaMs,
+                                         Request.Options opciones);
+
+    @GetMapping("/data/inventario/resumen")
+    @Aislamiento(Aislamiento.Grupo.REPORTES)
+    ResumenInventario obtenerResumenInventario();
+
+    @GetMapping("/data/inventario/valuaciones/ultima")
+    @Aislamiento(Aislamiento.Grupo.REPORTES)
+    ValuacionInventarioVista obtenerUltimaValuacion();
+
+    @GetMapping("/data/inventario/valuaciones")
+    @Aislamiento(Aislamiento.Grupo.REPORTES)
+    List<PuntoValuacion> obtenerHistorialValuaciones(
+            @RequestParam("desde") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam("hasta") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(name = "categoriaId", required = false) Long categoriaId,
+            @RequestParam("limit") int limite);
 
     @PostMapping("/data/inventario")
-    Inventario crearInventario(@RequestBody Inventario inventario);
+    InventarioVista crearInventario(@RequestBody Inventario inventario);
 
     @PutMapping("/data/inventario/{id}")
-    Inventario actualizarInventario(@PathVariable Long id, @RequestBody Inventario inventario);
+    InventarioVista actualizarInventario(@PathVariable Long id, @RequestBody Inventario inventario);
 
     @PutMapping("/data/inventario/{id}/stock")
-    Inventario actualizarStock(@PathVariable Long id, @RequestParam Integer cantidad);
+    InventarioVista actualizarStock(@PathVariable Long id, @RequestParam Integer cantidad,
+                                    @RequestParam Long version);
+
+    @PostMapping("/data/inventario/producto/{productoId}/incrementar")
+    InventarioVista incrementarStock(@PathVariable Long productoId, @RequestParam Integer cantidad);
+
+    @PostMapping("/data/inventario/producto/{productoId}/decrementar")
+    InventarioVista decrementarStock(@PathVariable Long productoId, @RequestParam Integer cantidad);
 
     @DeleteMapping("/data/inventario/{id}")
     void eliminarInventario(@PathVariable Long id);
@@ -0,0 +1,36 @@
+package um.prog2.trabajo.businessservice.client;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pide las respuestas del servicio de datos en el formato de {@code business.transporte-datos.formato}
+ * (Smile por defecto), con JSON como alternativa. Los cuerpos que se envían siguen siendo JSON.
+ * <p>
+ * El decoder de Feign elige el conversor por el {@code Content-Type} de la respuesta: los de CBOR y Smile
+ * están entre los predeterminados de Spring porque sus módulos de Jackson están en el classpath. La
+ * compresión gzip la pide {@code spring.cloud.openfeign.compression.response} y la deshace el cliente HTTP.
+ */
+@Component
+public class FormatoDatosRequestInterceptor implements RequestInterceptor {
+
+    private final String aceptados;
+
+    public FormatoDatosRequestInterceptor(
+            @Value("${business.transporte-datos.formato:application/x-jackson-smile}") String formato) {
+        this.aceptados = MediaType.APPLICATION_JSON_VALUE.equals(formato)
+                ? formato
+                : formato + ", " + MediaType.APPLICATION_JSON_VALUE + ";q=0.9";
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        if (!template.headers().containsKey(HttpHeaders.ACCEPT)) {
+            template.header(HttpHeaders.ACCEPT, aceptados);
+        }
+    }
+}
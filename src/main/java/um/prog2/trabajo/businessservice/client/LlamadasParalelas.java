@@ -0,0 +1,231 @@
+package um.prog2.trabajo.businessservice.client;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import um.prog2.trabajo.businessservice.exception.MicroserviceCommunicationException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta en paralelo llamadas independientes al servicio de datos, de modo que la latencia total sea la
+ * de la llamada más lenta y no la suma de todas.
+ * <p>
+ * Todas las llamadas comparten un plazo límite. Si una falla, se cancelan las demás y su excepción se
+ * relanza tal cual, así los servicios siguen traduciendo las {@code FeignException} como hasta ahora.
+ * Si se vence el plazo o el pool está saturado se lanza {@link MicroserviceCommunicationException}: una
+ * llamada que no entra en la cola se rechaza en lugar de ejecutarse en el hilo que la pidió, donde nada
+ * podría interrumpirla al vencer el plazo.
+ */
+@Component
+@Slf4j
+public class LlamadasParalelas {
+
+    private final ExecutorService executor;
+    // Con hilos virtuales el límite de llamadas simultáneas lo impone este semáforo y no el tamaño del pool
+    private final Semaphore permisos;
+    private final Duration plazoPorDefecto;
+
+    public LlamadasParalelas(@Value("${business.llamadas-paralelas.hilos:16}") int hilos,
+                             @Value("${business.llamadas-paralelas.cola:256}") int capacidadCola,
+                             @Value("${business.llamadas-paralelas.plazo-ms:10000}") long plazoMs,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean hilosVirtuales) {
+        if (hilosVirtuales) {
+            this.executor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("llamadas-datos-", 1).factory());
+            this.permisos = new Semaphore(hilos);
+        } else {
+            AtomicInteger contador = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(capacidadCola),
+                    tarea -> {
+                        Thread hilo = new Thread(tarea, "llamadas-datos-" + contador.incrementAndGet());
+                        hilo.setDaemon(true);
+                        return hilo;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+            this.permisos = null;
+        }
+        this.plazoPorDefecto = Duration.ofMillis(plazoMs);
+    }
+
+    public <T> List<T> ejecutar(List<Supplier<T>> llamadas) {
+        return ejecutar(llamadas, plazoPorDefecto);
+    }
+
+    public <T> List<T> ejecutarCadaUna(List<Supplier<T>> llamadas, Function<RuntimeException, T> siFalla) {
+        return ejecutarCadaUna(llamadas, plazoPorDefecto, siFalla);
+    }
+
+    /**
+     * Ejecuta en paralelo dos llamadas de distinto tipo y combina sus resultados.
+     */
+    @SuppressWarnings("unchecked")
+    public <A, B, R> R combinar(Supplier<A> primera, Supplier<B> segunda, BiFunction<A, B, R> combinacion) {
+        List<Object> resultados = ejecutar(List.<Supplier<Object>>of(primera::get, segunda::get));
+        return combinacion.apply((A) resultados.get(0), (B) resultados.get(1));
+    }
+
+    /**
+     * Ejecuta las llamadas y devuelve sus resultados en el mismo orden en que se recibieron.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> ejecutar(List<Supplier<T>> llamadas, Duration plazo) {
+        if (llamadas.isEmpty()) {
+            return List.of();
+        }
+        Instant limite = PlazoLlamada.combinar(plazo);
+        CompletionService<Indexado<T>> completadas = new ExecutorCompletionService<>(executor);
+        List<Future<Indexado<T>>> futuros = new ArrayList<>(llamadas.size());
+        try {
+            for (int i = 0; i < llamadas.size(); i++) {
+                futuros.add(enviar(completadas, i, llamadas.get(i), limite));
+            }
+            Object[] resultados = new Object[llamadas.size()];
+            for (int pendientes = llamadas.size(); pendientes > 0; pendientes--) {
+                Future<Indexado<T>> completada = completadas.poll(
+                        PlazoLlamada.restante(limite).toNanos(), TimeUnit.NANOSECONDS);
+                if (completada == null) {
+                    log.error("Se venció el plazo de {} ms esperando al servicio de datos", plazo.toMillis());
+                    throw plazoVencido();
+                }
+                Indexado<T> resultado = completada.get();
+                if (resultado.error() != null) {
+                    throw resultado.error();
+                }
+                resultados[resultado.indice()] = resultado.valor();
+            }
+            return (List<T>) Arrays.asList(resultados);
+        } catch (ExecutionException e) {
+            throw causa(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos", e);
+        } finally {
+            // Ante un error o un plazo vencido no se siguen esperando las llamadas restantes
+            futuros.forEach(futuro -> futuro.cancel(true));
+        }
+    }
+
+    /**
+     * Como {@link #ejecutar(List, Duration)}, pero una llamada que falla, se rechaza o no termina dentro del
+     * plazo no afecta a las demás: su resultado es el que devuelve {@code siFalla} para esa excepción.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> ejecutarCadaUna(List<Supplier<T>> llamadas, Duration plazo,
+                                       Function<RuntimeException, T> siFalla) {
+        if (llamadas.isEmpty()) {
+            return List.of();
+        }
+        Instant limite = PlazoLlamada.combinar(plazo);
+        CompletionService<Indexado<T>> completadas = new ExecutorCompletionService<>(executor);
+        List<Future<Indexado<T>>> futuros = new ArrayList<>(llamadas.size());
+        Object[] resultados = new Object[llamadas.size()];
+        boolean[] resueltas = new boolean[llamadas.size()];
+        try {
+            for (int i = 0; i < llamadas.size(); i++) {
+                try {
+                    futuros.add(enviar(completadas, i, llamadas.get(i), limite));
+                } catch (MicroserviceCommunicationException e) {
+                    resultados[i] = siFalla.apply(e);
+                    resueltas[i] = true;
+                }
+            }
+            for (int pendientes = futuros.size(); pendientes > 0; pendientes--) {
+                Future<Indexado<T>> completada = completadas.poll(
+                        PlazoLlamada.restante(limite).toNanos(), TimeUnit.NANOSECONDS);
+                if (completada == null) {
+                    log.error("Se venció el plazo de {} ms con {} llamadas al servicio de datos pendientes",
+                            plazo.toMillis(), pendientes);
+                    break;
+                }
+                Indexado<T> resultado = completada.get();
+                resultados[resultado.indice()] = resultado.error() != null
+                        ? siFalla.apply(resultado.error())
+                        : resultado.valor();
+                resueltas[resultado.indice()] = true;
+            }
+        } catch (ExecutionException e) {
+            throw causa(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos", e);
+        } finally {
+            futuros.forEach(futuro -> futuro.cancel(true));
+        }
+        for (int i = 0; i < resultados.length; i++) {
+            if (!resueltas[i]) {
+                resultados[i] = siFalla.apply(plazoVencido());
+            }
+        }
+        return (List<T>) Arrays.asList(resultados);
+    }
+
+    private <T> Future<Indexado<T>> enviar(CompletionService<Indexado<T>> completadas, int indice,
+                                           Supplier<T> llamada, Instant limite) {
+        try {
+            return completadas.submit(() -> {
+                try {
+                    if (permisos == null) {
+                        return new Indexado<>(indice, PlazoLlamada.ejecutarCon(limite, llamada), null);
+                    }
+                    if (!permisos.tryAcquire(PlazoLlamada.restante(limite).toNanos(), TimeUnit.NANOSECONDS)) {
+                        throw plazoVencido();
+                    }
+                    try {
+                        return new Indexado<>(indice, PlazoLlamada.ejecutarCon(limite, llamada), null);
+                    } finally {
+                        permisos.release();
+                    }
+                } catch (RuntimeException e) {
+                    return new Indexado<>(indice, null, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.error("Llamadas al servicio de datos saturadas, se rechaza la llamada {}", indice);
+            throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos: "
+                    + "demasiadas llamadas en curso", e);
+        }
+    }
+
+    private static MicroserviceCommunicationException plazoVencido() {
+        return new MicroserviceCommunicationException("Error de comunicación con el servicio de datos: "
+                + "se agotó el tiempo de espera");
+    }
+
+    private static RuntimeException causa(ExecutionException e) {
+        Throwable causa = e.getCause();
+        if (causa instanceof Error error) {
+            throw error;
+        }
+        return new MicroserviceCommunicationException("Error de comunicación con el servicio de datos", causa);
+    }
+
+    @PreDestroy
+    void detener() {
+        executor.shutdownNow();
+    }
+
+    private record Indexado<T>(int indice, T valor, RuntimeException error) {
+    }
+}
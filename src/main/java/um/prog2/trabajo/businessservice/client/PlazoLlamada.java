@@ -0,0 +1,49 @@
+package um.prog2.trabajo.businessservice.client;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Plazo límite de la operación de negocio en curso. Lo fijan las llamadas en paralelo y se propaga a los
+ * hilos que ejecutan cada llamada y, como cabecera, al servicio de datos.
+ */
+final class PlazoLlamada {
+
+    static final String CABECERA_PLAZO_RESTANTE = "X-Plazo-Restante-Ms";
+
+    private static final ThreadLocal<Instant> PLAZO = new ThreadLocal<>();
+
+    private PlazoLlamada() {
+    }
+
+    static Instant actual() {
+        return PLAZO.get();
+    }
+
+    // Un plazo anidado nunca puede extender el de la operación que lo contiene
+    static Instant combinar(Duration duracion) {
+        Instant propuesto = Instant.now().plus(duracion);
+        Instant vigente = PLAZO.get();
+        return vigente != null && vigente.isBefore(propuesto) ? vigente : propuesto;
+    }
+
+    static Duration restante(Instant plazo) {
+        Duration restante = Duration.between(Instant.now(), plazo);
+        return restante.isNegative() ? Duration.ZERO : restante;
+    }
+
+    static <T> T ejecutarCon(Instant plazo, Supplier<T> llamada) {
+        Instant anterior = PLAZO.get();
+        PLAZO.set(plazo);
+        try {
+            return llamada.get();
+        } finally {
+            if (anterior == null) {
+                PLAZO.remove();
+            } else {
+                PLAZO.set(anterior);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package um.prog2.trabajo.businessservice.client;
+
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.springframework.stereotype.Component;
+import um.prog2.trabajo.businessservice.exception.MicroserviceCommunicationException;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aplica a cada llamada al servicio de datos el plazo de la operación de negocio que la originó: el tiempo
+ * de lectura de Feign se acota a lo que resta del plazo y ese resto viaja en {@code X-Plazo-Restante-Ms}
+ * para que el servicio de datos deje de trabajar cuando ya nadie espera la respuesta.
+ * <p>
+ * Con el plazo vencido la llamada ni se envía. El tiempo de conexión no se acota porque el cliente HTTP/2
+ * guarda un cliente por cada valor distinto de ese tiempo.
+ */
+@Component
+public class PlazoPropagado implements Capability {
+
+    @Override
+    public Client enrich(Client client) {
+        return new ClienteConPlazo(client);
+    }
+
+    private static final class ClienteConPlazo implements Client {
+
+        private final Client delegado;
+
+        ClienteConPlazo(Client delegado) {
+            this.delegado = delegado;
+        }
+
+        @Override
+        public Response execute(Request request, Request.Options options) throws IOException {
+            Instant plazo = PlazoLlamada.actual();
+            if (plazo == null) {
+                return delegado.execute(request, options);
+            }
+            long restanteMs = PlazoLlamada.restante(plazo).toMillis();
+            if (restanteMs <= 0) {
+                throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos: "
+                        + "se agotó el tiempo de espera");
+            }
+
+            Map<String, Collection<String>> cabeceras = new LinkedHashMap<>(request.headers());
+            cabeceras.put(PlazoLlamada.CABECERA_PLAZO_RESTANTE, List.of(String.valueOf(restanteMs)));
+            Request conPlazo = Request.create(request.httpMethod(), request.url(), cabeceras, request.body(),
+                    request.charset(), request.requestTemplate());
+            Request.Options acotadas = new Request.Options(
+                    options.connectTimeoutMillis(), TimeUnit.MILLISECONDS,
+                    Math.min(options.readTimeoutMillis(), restanteMs), TimeUnit.MILLISECONDS,
+                    options.isFollowRedirects());
+            return delegado.execute(conPlazo, acotadas);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package um.prog2.trabajo.businessservice.client;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Circuitos y límites de concurrencia que usa {@link ResilienciaDatos}, con sus métricas.
+ */
+@Configuration
+public class ResilienciaConfiguracion {
+
+    @Bean
+    public CircuitBreakerRegistry circuitosDatos(
+            @Value("${business.resiliencia.circuito.umbral-fallos:50}") float umbralFallos,
+            @Value("${business.resiliencia.circuito.umbral-lentas:80}") float umbralLentas,
+            @Value("${business.resiliencia.circuito.lenta-ms:2000}") long lentaMs,
+            @Value("${business.resiliencia.circuito.ventana:20}") int ventana,
+            @Value("${business.resiliencia.circuito.abierto-ms:5000}") long abiertoMs,
+            MeterRegistry registro) {
+        CircuitBreakerRegistry circuitos = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(umbralFallos)
+                .slowCallRateThreshold(umbralLentas)
+                .slowCallDurationThreshold(Duration.ofMillis(lentaMs))
+                .slidingWindowSize(ventana)
+                // Con pocas llamadas una sola falla no abre el circuito
+                .minimumNumberOfCalls(Math.max(1, ventana / 2))
+                .waitDurationInOpenState(Duration.ofMillis(abiertoMs))
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitos).bindTo(registro);
+        return circuitos;
+    }
+
+    @Bean
+    public BulkheadRegistry limitesDatos(
+            @Value("${business.resiliencia.concurrencia.consultas:64}") int consultas,
+            @Value("${business.resiliencia.concurrencia.reportes:8}") int reportes,
+            @Value("${business.resiliencia.concurrencia.escrituras:32}") int escrituras,
+            MeterRegistry registro) {
+        BulkheadRegistry limites = limites(Map.of(
+                Aislamiento.Grupo.CONSULTAS, consultas,
+                Aislamiento.Grupo.REPORTES, reportes,
+                Aislamiento.Grupo.ESCRITURAS, escrituras));
+        TaggedBulkheadMetrics.ofBulkheadRegistry(limites).bindTo(registro);
+        return limites;
+    }
+
+    /**
+     * Un límite por grupo, con el nombre del grupo. Sin espera: una llamada que no entra se rechaza en el
+     * momento.
+     */
+    static BulkheadRegistry limites(Map<Aislamiento.Grupo, Integer> maximos) {
+        BulkheadRegistry limites = BulkheadRegistry.ofDefaults();
+        maximos.forEach((grupo, maximo) -> limites.bulkhead(grupo.name(), BulkheadConfig.custom()
+                .maxConcurrentCalls(maximo)
+                .maxWaitDuration(Duration.ZERO)
+                .build()));
+        return limites;
+    }
+}
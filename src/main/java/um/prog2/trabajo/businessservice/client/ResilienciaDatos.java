@@ -0,0 +1,324 @@
+package um.prog2.trabajo.businessservice.client;
+
+import feign.Capability;
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Protege las llamadas al servicio de datos cuando se pone lento o falla:
+ * <ul>
+ *   <li>un circuito por endpoint (método de {@link DataServiceClient}) que, con demasiados errores (de red o
+ *   5xx) o demasiadas llamadas lentas en la ventana, deja de enviar llamadas por un rato;</li>
+ *   <li>un límite de llamadas simultáneas por {@link Aislamiento.Grupo}, que rechaza en lugar de encolar, así
+ *   los reportes no ocupan el lugar de las consultas de productos;</li>
+ *   <li>en las consultas, un segundo intento si el primero no respondió en {@code duplicar-despues-ms}: se
+ *   usa la primera respuesta y se cancela la otra. El segundo intento necesita lugar en el límite del grupo,
+ *   así que con el servicio de datos saturado no se duplica nada;</li>
+ *   <li>si una lectura no se puede hacer o falla, la última respuesta 200 de esa URL.</li>
+ * </ul>
+ * Es el cliente más cercano a la red: recibe la llamada ya acotada por {@link PlazoPropagado} y con el
+ * {@code If-None-Match} de {@link RespuestasCondicionales}, así que el intento duplicado, que corre en otro
+ * hilo, no necesita el plazo del hilo que lo originó. Los rechazos se lanzan como {@link IOException}, que
+ * Feign informa como cualquier error de red.
+ * <p>
+ * {@code duplicar-despues-ms} conviene cerca del percentil 95 de las consultas: más bajo duplica demasiadas
+ * llamadas, más alto deja de recortar la cola de latencia. Métricas: las de Resilience4j
+ * ({@code resilience4j.circuitbreaker.*}, {@code resilience4j.bulkhead.*}), {@code feign.llamadas.duplicadas}
+ * y {@code feign.respuestas.respaldo}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class ResilienciaDatos implements Capability {
+
+    private final boolean habilitado;
+    private final CircuitBreakerRegistry circuitos;
+    private final BulkheadRegistry limites;
+    private final long duplicarDespuesMs;
+    private final int bytesMaximos;
+    private final Map<String, RespuestaGuardada> ultimasRespuestas;
+    private final ExecutorService intentos = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("datos-intento-", 1).factory());
+
+    private final Counter duplicadas;
+    private final Counter respaldos;
+
+    public ResilienciaDatos(@Value("${business.resiliencia.habilitado:true}") boolean habilitado,
+                            CircuitBreakerRegistry circuitos,
+                            BulkheadRegistry limites,
+                            @Value("${business.resiliencia.duplicar-despues-ms:200}") long duplicarDespuesMs,
+                            @Value("${business.resiliencia.respaldo.entradas:1000}") int entradas,
+                            @Value("${business.resiliencia.respaldo.bytes-maximos:1048576}") int bytesMaximos,
+                            MeterRegistry registro) {
+        this.habilitado = habilitado;
+        this.circuitos = circuitos;
+        this.limites = limites;
+        this.duplicarDespuesMs = duplicarDespuesMs;
+        this.bytesMaximos = bytesMaximos;
+        this.ultimasRespuestas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RespuestaGuardada> eldest) {
+                return size() > entradas;
+            }
+        };
+        this.duplicadas = Counter.builder("feign.llamadas.duplicadas").register(registro);
+        this.respaldos = Counter.builder("feign.respuestas.respaldo").register(registro);
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return habilitado ? new ClienteResiliente(client) : client;
+    }
+
+    private RespuestaGuardada obtener(String url) {
+        synchronized (ultimasRespuestas) {
+            return ultimasRespuestas.get(url);
+        }
+    }
+
+    private void guardar(String url, RespuestaGuardada respuesta) {
+        synchronized (ultimasRespuestas) {
+            ultimasRespuestas.put(url, respuesta);
+        }
+    }
+
+    private static Aislamiento.Grupo grupo(Request request, MethodMetadata metadata) {
+        Aislamiento aislamiento = metadata != null && metadata.method() != null
+                ? metadata.method().getAnnotation(Aislamiento.class) : null;
+        if (aislamiento != null) {
+            return aislamiento.value();
+        }
+        return request.httpMethod() == Request.HttpMethod.GET
+                ? Aislamiento.Grupo.CONSULTAS : Aislamiento.Grupo.ESCRITURAS;
+    }
+
+    private final class ClienteResiliente implements Client {
+
+        private final Client delegado;
+
+        ClienteResiliente(Client delegado) {
+            this.delegado = delegado;
+        }
+
+        @Override
+        public Response execute(Request request, Request.Options options) throws IOException {
+            MethodMetadata metadata = request.requestTemplate() != null ? request.requestTemplate().methodMetadata() : null;
+            Aislamiento.Grupo grupo = grupo(request, metadata);
+            if (grupo == Aislamiento.Grupo.SIN_RESILIENCIA) {
+                return delegado.execute(request, options);
+            }
+
+            CircuitBreaker circuito = circuitos.circuitBreaker(metadata != null ? metadata.configKey() : "data-service");
+            Bulkhead limite = limites.bulkhead(grupo.name());
+            if (!circuito.tryAcquirePermission()) {
+                return respaldo(request, new IOException("Circuito abierto hacia el servicio de datos: "
+                        + circuito.getName()));
+            }
+            if (!limite.tryAcquirePermission()) {
+                circuito.releasePermission();
+                return respaldo(request, new IOException("Demasiadas llamadas en curso al servicio de datos ("
+                        + grupo + ")"));
+            }
+
+            long inicio = System.nanoTime();
+            Response respuesta;
+            try {
+                respuesta = grupo == Aislamiento.Grupo.CONSULTAS && duplicarDespuesMs > 0
+                        ? conDuplicado(request, options, limite)
+                        : ejecutar(request, options, limite);
+            } catch (IOException | RuntimeException e) {
+                circuito.onError(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, e);
+                return respaldo(request, e);
+            }
+
+            long duracion = System.nanoTime() - inicio;
+            if (respuesta.status() >= 500) {
+                IOException error = new IOException("El servicio de datos respondió " + respuesta.status());
+                circuito.onError(duracion, TimeUnit.NANOSECONDS, error);
+                RespuestaGuardada guardada = request.httpMethod() == Request.HttpMethod.GET ? obtener(request.url()) : null;
+                if (guardada == null) {
+                    return respuesta;
+                }
+                respuesta.close();
+                return respaldo(request, guardada, error);
+            }
+            circuito.onSuccess(duracion, TimeUnit.NANOSECONDS);
+            return request.httpMethod() == Request.HttpMethod.GET && respuesta.status() == 200
+                    ? guardarCuerpo(request, respuesta) : respuesta;
+        }
+
+        private Response ejecutar(Request request, Request.Options options, Bulkhead limite) throws IOException {
+            try {
+                return delegado.execute(request, options);
+            } finally {
+                limite.onComplete();
+            }
+        }
+
+        private Response conDuplicado(Request request, Request.Options options, Bulkhead limite) throws IOException {
+            Carrera carrera = new Carrera();
+            carrera.lanzar(() -> ejecutar(request, options, limite));
+            try {
+                try {
+                    return carrera.resultado.get(duplicarDespuesMs, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (limite.tryAcquirePermission()) {
+                        if (carrera.lanzar(() -> ejecutar(request, options, limite))) {
+                            duplicadas.increment();
+                            log.debug("Sin respuesta en {} ms, se duplica la consulta {}", duplicarDespuesMs, request.url());
+                        } else {
+                            limite.onComplete();
+                        }
+                    }
+                    return carrera.resultado.get();
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Se interrumpió la espera del servicio de datos");
+            } finally {
+                carrera.cancelar();
+            }
+        }
+
+        private Response guardarCuerpo(Request request, Response respuesta) throws IOException {
+            Integer largo = respuesta.body() != null ? respuesta.body().length() : null;
+            if (respuesta.body() == null || (largo != null && largo > bytesMaximos)) {
+                return respuesta;
+            }
+            byte[] cuerpo;
+            try (InputStream entrada = respuesta.body().asInputStream()) {
+                cuerpo = Util.toByteArray(entrada);
+            }
+            if (cuerpo.length <= bytesMaximos) {
+                guardar(request.url(), new RespuestaGuardada(respuesta.headers(), cuerpo));
+            }
+            return respuesta.toBuilder().body(cuerpo).build();
+        }
+
+        private Response respaldo(Request request, Exception error) throws IOException {
+            RespuestaGuardada guardada = request.httpMethod() == Request.HttpMethod.GET ? obtener(request.url()) : null;
+            if (guardada == null) {
+                if (error instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw (IOException) error;
+            }
+            return respaldo(request, guardada, error);
+        }
+
+        private Response respaldo(Request request, RespuestaGuardada guardada, Exception error) {
+            log.warn("Se responde {} con la última respuesta guardada: {}", request.url(), error.getMessage());
+            respaldos.increment();
+            return Response.builder()
+                    .status(200)
+                    .reason("OK")
+                    .request(request)
+                    .headers(guardada.cabeceras())
+                    .body(guardada.cuerpo())
+                    .build();
+        }
+    }
+
+    /**
+     * Intentos de una misma consulta: gana la primera respuesta que no sea un error del servidor, y sólo si
+     * fallan todos se informa el último fallo.
+     */
+    private final class Carrera {
+
+        private final CompletableFuture<Response> resultado = new CompletableFuture<>();
+        private final List<Future<?>> enCurso = new ArrayList<>(2);
+        private int pendientes;
+        private Response ultimoError;
+
+        synchronized boolean lanzar(LlamadaDatos llamada) {
+            if (resultado.isDone()) {
+                return false;
+            }
+            pendientes++;
+            enCurso.add(intentos.submit(() -> {
+                try {
+                    terminar(llamada.ejecutar(), null);
+                } catch (IOException | RuntimeException e) {
+                    terminar(null, e);
+                }
+            }));
+            return true;
+        }
+
+        synchronized void cancelar() {
+            enCurso.forEach(intento -> intento.cancel(true));
+        }
+
+        private synchronized void terminar(Response respuesta, Exception error) {
+            if (resultado.isDone()) {
+                if (respuesta != null) {
+                    respuesta.close();
+                }
+                return;
+            }
+            if (respuesta != null && respuesta.status() < 500) {
+                resultado.complete(respuesta);
+                if (ultimoError != null) {
+                    ultimoError.close();
+                }
+                return;
+            }
+            pendientes--;
+            if (ultimoError != null) {
+                ultimoError.close();
+            }
+            ultimoError = respuesta;
+            if (pendientes > 0) {
+                return;
+            }
+            if (respuesta != null) {
+                resultado.complete(respuesta);
+            } else {
+                resultado.completeExceptionally(error);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface LlamadaDatos {
+        Response ejecutar() throws IOException;
+    }
+
+    private record RespuestaGuardada(Map<String, Collection<String>> cabeceras, byte[] cuerpo) {
+    }
+}
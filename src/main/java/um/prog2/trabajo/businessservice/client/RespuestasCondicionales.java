@@ -0,0 +1,135 @@
+package um.prog2.trabajo.businessservice.client;
+
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hace condicionales los GET de Feign al servicio de datos: guarda el último cuerpo con ETag de cada URL,
+ * lo envía como {@code If-None-Match} y, si el servicio de datos responde 304, devuelve el cuerpo guardado
+ * como si fuera un 200. Así un catálogo sin cambios no se vuelve a leer ni a transferir.
+ * <p>
+ * Al superar {@code business.respuestas-condicionales.entradas} se descarta la URL usada hace más tiempo, y
+ * no se guardan los cuerpos de más de {@code bytes-maximos} bytes.
+ */
+@Component
+public class RespuestasCondicionales implements Capability {
+
+    private final boolean habilitado;
+    private final int bytesMaximos;
+    private final Map<String, RespuestaGuardada> respuestas;
+    private final Counter reutilizadas;
+
+    public RespuestasCondicionales(@Value("${business.respuestas-condicionales.habilitado:true}") boolean habilitado,
+                                   @Value("${business.respuestas-condicionales.entradas:1000}") int entradas,
+                                   @Value("${business.respuestas-condicionales.bytes-maximos:1048576}") int bytesMaximos,
+                                   MeterRegistry registro) {
+        this.habilitado = habilitado;
+        this.bytesMaximos = bytesMaximos;
+        this.respuestas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RespuestaGuardada> eldest) {
+                return size() > entradas;
+            }
+        };
+        this.reutilizadas = Counter.builder("feign.respuestas.reutilizadas").register(registro);
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return habilitado ? new ClienteCondicional(client) : client;
+    }
+
+    private RespuestaGuardada obtener(String url) {
+        synchronized (respuestas) {
+            return respuestas.get(url);
+        }
+    }
+
+    private void guardar(String url, RespuestaGuardada respuesta) {
+        synchronized (respuestas) {
+            respuestas.put(url, respuesta);
+        }
+    }
+
+    private final class ClienteCondicional implements Client {
+
+        private final Client delegado;
+
+        ClienteCondicional(Client delegado) {
+            this.delegado = delegado;
+        }
+
+        @Override
+        public Response execute(Request request, Request.Options options) throws IOException {
+            if (request.httpMethod() != Request.HttpMethod.GET) {
+                return delegado.execute(request, options);
+            }
+
+            RespuestaGuardada guardada = obtener(request.url());
+            Request enviada = guardada == null ? request : conEtag(request, guardada.etag());
+            Response respuesta = delegado.execute(enviada, options);
+
+            if (respuesta.status() == 304 && guardada != null) {
+                respuesta.close();
+                reutilizadas.increment();
+                return Response.builder()
+                        .status(200)
+                        .reason("OK")
+                        .request(request)
+                        .headers(guardada.cabeceras())
+                        .body(guardada.cuerpo())
+                        .build();
+            }
+
+            String etag = primerValor(respuesta.headers(), HttpHeaders.ETAG);
+            Integer largo = respuesta.body() != null ? respuesta.body().length() : null;
+            if (respuesta.status() != 200 || etag == null || respuesta.body() == null
+                    || (largo != null && largo > bytesMaximos)) {
+                return respuesta;
+            }
+            // Las respuestas JSON suelen venir sin Content-Length: el tamaño se conoce al leerlas
+            byte[] cuerpo;
+            try (InputStream entrada = respuesta.body().asInputStream()) {
+                cuerpo = Util.toByteArray(entrada);
+            }
+            if (cuerpo.length <= bytesMaximos) {
+                guardar(request.url(), new RespuestaGuardada(etag, respuesta.headers(), cuerpo));
+            }
+            return respuesta.toBuilder().body(cuerpo).build();
+        }
+
+        private Request conEtag(Request request, String etag) {
+            Map<String, Collection<String>> cabeceras = new LinkedHashMap<>(request.headers());
+            cabeceras.put(HttpHeaders.IF_NONE_MATCH, List.of(etag));
+            return Request.create(request.httpMethod(), request.url(), cabeceras, request.body(),
+                    request.charset(), request.requestTemplate());
+        }
+
+        private String primerValor(Map<String, Collection<String>> cabeceras, String nombre) {
+            for (Map.Entry<String, Collection<String>> cabecera : cabeceras.entrySet()) {
+                if (cabecera.getKey().equalsIgnoreCase(nombre) && !cabecera.getValue().isEmpty()) {
+                    return cabecera.getValue().iterator().next();
+                }
+            }
+            return null;
+        }
+    }
+
+    private record RespuestaGuardada(String etag, Map<String, Collection<String>> cabeceras, byte[] cuerpo) {
+    }
+}
@@ -1,17 +1,25 @@
 package um.prog2.trabajo.businessservice.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import um.prog2.trabajo.businessservice.dto.*;
 import um.prog2.trabajo.businessservice.service.CategoriaBusinessService;
+import um.prog2.trabajo.businessservice.service.DifusorEventosStock;
 import um.prog2.trabajo.businessservice.service.InventarioBusinessService;
 import um.prog2.trabajo.businessservice.service.ProductoBusinessService;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -23,21 +31,26 @@ public class BusinessController {
     private final ProductoBusinessService productoBusinessService;
     private final CategoriaBusinessService categoriaBusinessService;
     private final InventarioBusinessService inventarioBusinessService;
+    private final DifusorEventosStock difusorEventosStock;
 
     public BusinessController(ProductoBusinessService productoBusinessService,
                              CategoriaBusinessService categoriaBusinessService,
-                             InventarioBusinessService inventarioBusinessService) {
+                             InventarioBusinessService inventarioBusinessService,
+                             DifusorEventosStock difusorEventosStock) {
         this.productoBusinessService = productoBusinessService;
         this.categoriaBusinessService = categoriaBusinessService;
         this.inventarioBusinessService = inventarioBusinessService;
+        this.difusorEventosStock = difusorEventosStock;
     }
 
     // ========== ENDPOINTS DE PRODUCTOS ==========
 
     @GetMapping("/productos")
-    public ResponseEntity<List<ProductoDTO>> obtenerTodosLosProductos() {
-        log.info("GET /api/productos - Obteniendo todos los productos");
-        List<ProductoDTO> productos = productoBusinessService.obtenerTodosLosProductos();
+    public ResponseEntity<PaginaDTO<ProductoDTO>> obtenerTodosLosProductos(
+            @RequestParam(name = "after", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limite) {
+        log.info("GET /api/productos?after={}&limit={} - Obteniendo página de productos", cursor, limite);
+        PaginaDTO<ProductoDTO> productos = productoBusinessService.obtenerTodosLosProductos(cursor, limite);
         return ResponseEntity.ok(productos);
     }
 
@@ -55,6 +68,13 @@ public class BusinessController {
         return ResponseEntity.status(HttpStatus.CREATED).body(producto);
     }
 
+    @PostMapping("/productos/batch")
+    public ResponseEntity<ResultadoImportacionDTO> importarProductos(@RequestBody List<ProductoRequest> requests) {
+        log.info("POST /api/productos/batch - Importando {} productos", requests.size());
+        ResultadoImportacionDTO resultado = productoBusinessService.importarProductos(requests);
+        return ResponseEntity.ok(resultado);
+    }
+
     @PutMapping("/productos/{id}")
     public ResponseEntity<ProductoDTO> actualizarProducto(@PathVariable Long id,
                                                           @Valid @RequestBody ProductoRequest request) {
@@ -78,27 +98,34 @@ public class BusinessController {
     }
 
     @GetMapping("/productos/buscar")
-    public ResponseEntity<List<ProductoDTO>> buscarProductosPorNombre(@RequestParam String nombre) {
-        log.info("GET /api/productos/buscar?nombre={} - Buscando productos por nombre", nombre);
-        List<ProductoDTO> productos = productoBusinessService.buscarProductosPorNombre(nombre);
+    public ResponseEntity<List<ProductoDTO>> buscarProductosPorNombre(
+            @RequestParam String nombre,
+            @RequestParam(name = "limit", defaultValue = "50") int limite) {
+        log.info("GET /api/productos/buscar?nombre={}&limit={} - Buscando productos por nombre", nombre, limite);
+        List<ProductoDTO> productos = productoBusinessService.buscarProductosPorNombre(nombre, limite);
         return ResponseEntity.ok(productos);
     }
 
     @GetMapping("/productos/precio")
-    public ResponseEntity<List<ProductoDTO>> buscarProductosPorRangoPrecio(
+    public ResponseEntity<PaginaDTO<ProductoDTO>> buscarProductosPorRangoPrecio(
             @RequestParam BigDecimal min,
-            @RequestParam BigDecimal max) {
-        log.info("GET /api/productos/precio?min={}&max={} - Buscando productos por rango de precio", min, max);
-        List<ProductoDTO> productos = productoBusinessService.buscarProductosPorRangoPrecio(min, max);
+            @RequestParam BigDecimal max,
+            @RequestParam(name = "after", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limite) {
+        log.info("GET /api/productos/precio?min={}&max={}&after={}&limit={} - Buscando productos por rango de precio",
+                min, max, cursor, limite);
+        PaginaDTO<ProductoDTO> productos = productoBusinessService.buscarProductosPorRangoPrecio(min, max, cursor, limite);
         return ResponseEntity.ok(productos);
     }
 
     // ========== ENDPOINTS DE CATEGORÍAS ==========
 
     @GetMapping("/categorias")
-    public ResponseEntity<List<CategoriaDTO>> obtenerTodasLasCategorias() {
-        log.info("GET /api/categorias - Obteniendo todas las categorías");
-        List<CategoriaDTO> categorias = categoriaBusinessService.obtenerTodasLasCategorias();
+    public ResponseEntity<PaginaDTO<CategoriaDTO>> obtenerTodasLasCategorias(
+            @RequestParam(name = "after", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limite) {
+        log.info("GET /api/categorias?after={}&limit={} - Obteniendo página de categorías", cursor, limite);
+        PaginaDTO<CategoriaDTO> categorias = categoriaBusinessService.obtenerTodasLasCategorias(cursor, limite);
         return ResponseEntity.ok(categorias);
     }
 
@@ -148,9 +175,11 @@ public class BusinessController {
     // ========== ENDPOINTS DE INVENTARIO ==========
 
     @GetMapping("/inventario")
-    public ResponseEntity<List<InventarioDTO>> obtenerTodoElInventario() {
-        log.info("GET /api/inventario - Obteniendo todo el inventario");
-        List<InventarioDTO> inventarios = inventarioBusinessService.obtenerTodoElInventario();
+    public ResponseEntity<PaginaDTO<InventarioDTO>> obtenerTodoElInventario(
+            @RequestParam(name = "after", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limite) {
+        log.info("GET /api/inventario?after={}&limit={} - Obteniendo página de inventario", cursor, limite);
+        PaginaDTO<InventarioDTO> inventarios = inventarioBusinessService.obtenerTodoElInventario(cursor, limite);
         return ResponseEntity.ok(inventarios);
     }
 
@@ -169,6 +198,22 @@ public class BusinessController {
         return ResponseEntity.ok(inventario);
     }
 
+    @PostMapping("/inventario/producto/{productoId}/stock/incrementar")
+    public ResponseEntity<InventarioDTO> incrementarStock(@PathVariable Long productoId,
+                                                          @RequestParam Integer cantidad) {
+        log.info("POST /api/inventario/producto/{}/stock/incrementar?cantidad={} - Incrementando stock", productoId, cantidad);
+        InventarioDTO inventario = inventarioBusinessService.incrementarStock(productoId, cantidad);
+        return ResponseEntity.ok(inventario);
+    }
+
+    @PostMapping("/inventario/producto/{productoId}/stock/decrementar")
+    public ResponseEntity<InventarioDTO> decrementarStock(@PathVariable Long productoId,
+                                                          @RequestParam Integer cantidad) {
+        log.info("POST /api/inventario/producto/{}/stock/decrementar?cantidad={} - Decrementando stock", productoId, cantidad);
+        InventarioDTO inventario = inventarioBusinessService.decrementarStock(productoId, cantidad);
+        return ResponseEntity.ok(inventario);
+    }
+
     // ========== ENDPOINTS DE REPORTES ==========
 
     @GetMapping("/reportes/stock-bajo")
@@ -185,17 +230,54 @@ public class BusinessController {
         return ResponseEntity.ok(productos);
     }
 
+    /**
+     * Eventos de stock bajo y sin stock a medida que ocurren. El navegador reenvía {@code Last-Event-ID} al
+     * reconectarse; {@code after} permite reanudar desde un cliente que no lo hace.
+     */
+    @GetMapping(value = "/reportes/eventos-stock", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribirEventosStock(
+            @RequestHeader(name = "Last-Event-ID", required = false) Long ultimoEventoId,
+            @RequestParam(name = "after", required = false) Long despuesDeId,
+            HttpServletRequest request) {
+        log.info("GET /api/reportes/eventos-stock - Suscribiendo a eventos de stock (Last-Event-ID: {}, after: {})",
+                ultimoEventoId, despuesDeId);
+        // El filtro de ETags retendría los eventos hasta el final de la respuesta
+        ShallowEtagHeaderFilter.disableContentCaching(request);
+        return difusorEventosStock.suscribir(ultimoEventoId != null ? ultimoEventoId : despuesDeId);
+    }
+
+    /**
+     * Los reportes de valor salen de la última valuación precalculada; el encabezado {@code Age} lleva su
+     * antigüedad en segundos.
+     */
     @GetMapping("/reportes/valor-inventario")
     public ResponseEntity<BigDecimal> obtenerValorTotalInventario() {
-        log.info("GET /api/reportes/valor-inventario - Calculando valor total del inventario");
-        BigDecimal valorTotal = productoBusinessService.calcularValorTotalInventario();
-        return ResponseEntity.ok(valorTotal);
+        log.info("GET /api/reportes/valor-inventario - Obteniendo valor total del inventario");
+        ReporteInventarioDTO reporte = inventarioBusinessService.generarReporteInventario();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.AGE, String.valueOf(reporte.getAntiguedadSegundos()))
+                .body(reporte.getValorTotalInventario());
+    }
+
+    @GetMapping("/reportes/valor-inventario/historial")
+    public ResponseEntity<List<PuntoValuacionDTO>> obtenerHistorialValorInventario(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) Long categoriaId,
+            @RequestParam(name = "limit", defaultValue = "500") int limite) {
+        log.info("GET /api/reportes/valor-inventario/historial?desde={}&hasta={}&categoriaId={} - Obteniendo historial de valuaciones",
+                desde, hasta, categoriaId);
+        List<PuntoValuacionDTO> historial = inventarioBusinessService.obtenerHistorialValuaciones(desde, hasta,
+                categoriaId, limite);
+        return ResponseEntity.ok(historial);
     }
 
     @GetMapping("/reportes/inventario-completo")
     public ResponseEntity<ReporteInventarioDTO> generarReporteInventario() {
         log.info("GET /api/reportes/inventario-completo - Generando reporte completo de inventario");
         ReporteInventarioDTO reporte = inventarioBusinessService.generarReporteInventario();
-        return ResponseEntity.ok(reporte);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.AGE, String.valueOf(reporte.getAntiguedadSegundos()))
+                .body(reporte);
     }
 }
@@ -8,15 +8,17 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import um.prog2.trabajo.businessservice.exception.CategoriaNoEncontradaException;
+import um.prog2.trabajo.businessservice.exception.ConflictoConcurrenciaException;
 import um.prog2.trabajo.businessservice.exception.MicroserviceCommunicationException;
 import um.prog2.trabajo.businessservice.exception.ProductoNoEncontradoException;
+import um.prog2.trabajo.businessservice.exception.StockInsuficienteException;
 import um.prog2.trabajo.businessservice.exception.ValidacionNegocioException;
 
 import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-@RestControllerAdvice
+@RestControllerAdvice(basePackageClasses = BusinessController.class)
 @Slf4j
 public class BusinessExceptionHandler {
 
@@ -65,6 +67,36 @@ public class BusinessExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ConflictoConcurrenciaException.class)
+    public ResponseEntity<Object> handleConflictoConcurrencia(
+            ConflictoConcurrenciaException ex, WebRequest request) {
+        log.error("Conflicto de concurrencia: {}", ex.getMessage());
+        
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("error", "Conflict");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(StockInsuficienteException.class)
+    public ResponseEntity<Object> handleStockInsuficiente(
+            StockInsuficienteException ex, WebRequest request) {
+        log.error("Stock insuficiente: {}", ex.getMessage());
+        
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("error", "Conflict");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(MicroserviceCommunicationException.class)
     public ResponseEntity<Object> handleMicroserviceCommunication(
             MicroserviceCommunicationException ex, WebRequest request) {
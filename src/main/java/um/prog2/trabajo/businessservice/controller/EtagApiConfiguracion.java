@@ -0,0 +1,30 @@
+package um.prog2.trabajo.businessservice.controller;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * ETags de las lecturas de {@code /api}, calculados sobre el cuerpo de la respuesta. El servicio de negocio
+ * no guarda versiones propias: con las lecturas condicionales al servicio de datos
+ * ({@link um.prog2.trabajo.businessservice.client.RespuestasCondicionales}) un 304 no toca la base de datos,
+ * y éste evita además reenviar el cuerpo al cliente.
+ * <p>
+ * A diferencia de {@code /data}, acá un 304 no se decide antes de ejecutar el controlador: cada GET condicional
+ * sigue haciendo el salto Feign (que el servicio de datos contesta con su propio 304, sin consulta ni cuerpo)
+ * y arma la respuesta para calcularle el hash. Decidirlo antes exigiría conocer las versiones del servicio de
+ * datos sin preguntarle, y como puede correr en otro proceso el negocio sólo podría confiar en una copia que
+ * quedaría desactualizada.
+ */
+@Configuration
+public class EtagApiConfiguracion {
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> filtroEtagApi() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registro =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registro.addUrlPatterns("/api/*");
+        return registro;
+    }
+}
@@ -0,0 +1,20 @@
+package um.prog2.trabajo.businessservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import um.prog2.trabajo.dataservice.dto.TipoEventoStock;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoStockDTO {
+    private Long id;
+    private Long productoId;
+    private TipoEventoStock tipo;
+    private Integer cantidad;
+    private Integer stockMinimo;
+    private LocalDateTime fecha;
+}
@@ -0,0 +1,17 @@
+package um.prog2.trabajo.businessservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaDTO<T> {
+    private List<T> contenido = new ArrayList<>();
+    private String siguienteCursor;
+    private boolean hayMas;
+}
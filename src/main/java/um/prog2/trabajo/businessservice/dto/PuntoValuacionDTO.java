@@ -0,0 +1,19 @@
+package um.prog2.trabajo.businessservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PuntoValuacionDTO {
+    private LocalDateTime fechaValuacion;
+    private Integer totalProductos;
+    private Integer productosConStockBajo;
+    private Integer productosSinStock;
+    private BigDecimal valorTotalInventario;
+}
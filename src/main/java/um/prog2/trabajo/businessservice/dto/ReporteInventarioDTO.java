@@ -5,6 +5,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -14,4 +16,8 @@ public class ReporteInventarioDTO {
     private Integer productosConStockBajo;
     private Integer productosSinStock;
     private BigDecimal valorTotalInventario;
+    // Cuándo se tomó la valuación de la que sale el reporte y cuántos segundos tenía al responder
+    private LocalDateTime fechaValuacion;
+    private Long antiguedadSegundos;
+    private List<ValorCategoriaDTO> categorias;
 }
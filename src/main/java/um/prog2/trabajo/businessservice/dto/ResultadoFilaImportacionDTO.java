@@ -0,0 +1,15 @@
+package um.prog2.trabajo.businessservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoFilaImportacionDTO {
+    private Integer indice;
+    private boolean exito;
+    private Long productoId;
+    private String error;
+}
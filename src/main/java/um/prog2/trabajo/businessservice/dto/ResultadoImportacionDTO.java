@@ -0,0 +1,18 @@
+package um.prog2.trabajo.businessservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoImportacionDTO {
+    private Integer total;
+    private Integer exitosos;
+    private Integer fallidos;
+    private List<ResultadoFilaImportacionDTO> filas = new ArrayList<>();
+}
@@ -0,0 +1,20 @@
+package um.prog2.trabajo.businessservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValorCategoriaDTO {
+    // null agrupa los productos sin categoría
+    private Long categoriaId;
+    private String categoriaNombre;
+    private Integer totalProductos;
+    private Integer productosConStockBajo;
+    private Integer productosSinStock;
+    private BigDecimal valorTotalInventario;
+}
@@ -0,0 +1,7 @@
+package um.prog2.trabajo.businessservice.exception;
+
+public class ConflictoConcurrenciaException extends RuntimeException {
+    public ConflictoConcurrenciaException(String mensaje) {
+        super(mensaje);
+    }
+}
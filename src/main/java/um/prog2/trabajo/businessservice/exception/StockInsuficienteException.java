@@ -0,0 +1,7 @@
+package um.prog2.trabajo.businessservice.exception;
+
+public class StockInsuficienteException extends RuntimeException {
+    public StockInsuficienteException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -3,15 +3,21 @@ package um.prog2.trabajo.businessservice.service;
 import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import um.prog2.trabajo.businessservice.client.CacheCategorias;
 import um.prog2.trabajo.businessservice.client.DataServiceClient;
+import um.prog2.trabajo.businessservice.client.LlamadasParalelas;
 import um.prog2.trabajo.businessservice.dto.CategoriaDTO;
 import um.prog2.trabajo.businessservice.dto.CategoriaRequest;
+import um.prog2.trabajo.businessservice.dto.PaginaDTO;
 import um.prog2.trabajo.businessservice.dto.ProductoDTO;
 import um.prog2.trabajo.businessservice.exception.CategoriaNoEncontradaException;
 import um.prog2.trabajo.businessservice.exception.MicroserviceCommunicationException;
 import um.prog2.trabajo.businessservice.exception.ValidacionNegocioException;
+import um.prog2.trabajo.dataservice.dto.CategoriaVista;
+import um.prog2.trabajo.dataservice.dto.PaginaKeyset;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
 import um.prog2.trabajo.dataservice.entity.Categoria;
-import um.prog2.trabajo.dataservice.entity.Producto;
+import um.prog2.trabajo.dataservice.entity.Inventario;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,18 +27,30 @@ import java.util.stream.Collectors;
 public class CategoriaBusinessService {
 
     private final DataServiceClient dataServiceClient;
+    private final LlamadasParalelas llamadasParalelas;
+    private final CacheCategorias cacheCategorias;
 
-    public CategoriaBusinessService(DataServiceClient dataServiceClient) {
+    public CategoriaBusinessService(DataServiceClient dataServiceClient, LlamadasParalelas llamadasParalelas,
+                                    CacheCategorias cacheCategorias) {
         this.dataServiceClient = dataServiceClient;
+        this.llamadasParalelas = llamadasParalelas;
+        this.cacheCategorias = cacheCategorias;
     }
 
-    public List<CategoriaDTO> obtenerTodasLasCategorias() {
+    public PaginaDTO<CategoriaDTO> obtenerTodasLasCategorias(String cursor, int limite) {
+        if (limite < 1 || limite > PaginaKeyset.LIMITE_MAXIMO) {
+            throw new ValidacionNegocioException("El límite de la página debe estar entre 1 y " + PaginaKeyset.LIMITE_MAXIMO);
+        }
+
         try {
-            log.info("Obteniendo todas las categorías desde el microservicio de datos");
-            List<Categoria> categorias = dataServiceClient.obtenerTodasLasCategorias();
-            return categorias.stream()
-                    .map(this::convertirACategoriaDTO)
+            log.info("Obteniendo página de categorías desde el microservicio de datos");
+            PaginaKeyset<CategoriaVista> pagina = dataServiceClient.obtenerTodasLasCategorias(cursor, limite);
+            List<CategoriaDTO> categorias = pagina.getContenido().stream()
+                    .map(categoria -> convertirACategoriaDTO(categoria, null))
                     .collect(Collectors.toList());
+            return new PaginaDTO<>(categorias, pagina.getSiguienteCursor(), pagina.isHayMas());
+        } catch (FeignException.BadRequest e) {
+            throw new ValidacionNegocioException("El cursor de la página no es válido");
         } catch (FeignException e) {
             log.error("Error al obtener categorías del microservicio de datos", e);
             throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
@@ -42,8 +60,12 @@ public class CategoriaBusinessService {
     public CategoriaDTO obtenerCategoriaPorId(Long id) {
         try {
             log.info("Obteniendo categoría por ID: {}", id);
-            Categoria categoria = dataServiceClient.obtenerCategoriaPorId(id);
-            return convertirACategoriaDTO(categoria);
+            // La categoría y sus productos viajan por separado: se piden en paralelo, salvo que la categoría
+            // ya esté en la caché
+            return llamadasParalelas.combinar(
+                    () -> cacheCategorias.porId(id),
+                    () -> dataServiceClient.obtenerProductosDeCategoria(id),
+                    CategoriaBusinessService::convertirACategoriaDTO);
         } catch (FeignException.NotFound e) {
             log.error("Categoría no encontrada con ID: {}", id);
             throw new CategoriaNoEncontradaException("Categoría no encontrada con ID: " + id);
@@ -56,8 +78,10 @@ public class CategoriaBusinessService {
     public CategoriaDTO obtenerCategoriaPorNombre(String nombre) {
         try {
             log.info("Obteniendo categoría por nombre: {}", nombre);
-            Categoria categoria = dataServiceClient.obtenerCategoriaPorNombre(nombre);
-            return convertirACategoriaDTO(categoria);
+            return llamadasParalelas.combinar(
+                    () -> cacheCategorias.porNombre(nombre),
+                    () -> dataServiceClient.obtenerProductosPorCategoria(nombre),
+                    CategoriaBusinessService::convertirACategoriaDTO);
         } catch (FeignException.NotFound e) {
             log.error("Categoría no encontrada con nombre: {}", nombre);
             throw new CategoriaNoEncontradaException("Categoría no encontrada con nombre: " + nombre);
@@ -78,8 +102,8 @@ public class CategoriaBusinessService {
             categoria.setNombre(request.getNombre());
             categoria.setDescripcion(request.getDescripcion());
             
-            Categoria categoriaCreada = dataServiceClient.crearCategoria(categoria);
-            return convertirACategoriaDTO(categoriaCreada);
+            CategoriaVista categoriaCreada = dataServiceClient.crearCategoria(categoria);
+            return convertirACategoriaDTO(categoriaCreada, null);
         } catch (FeignException e) {
             log.error("Error al crear categoría en el microservicio de datos", e);
             throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
@@ -93,19 +117,22 @@ public class CategoriaBusinessService {
         validarCategoria(request);
 
         try {
-            Categoria categoriaExistente = dataServiceClient.obtenerCategoriaPorId(id);
-            
-            categoriaExistente.setNombre(request.getNombre());
-            categoriaExistente.setDescripcion(request.getDescripcion());
+            // El servicio de datos solo actualiza nombre y descripción y responde 404 si no existe
+            Categoria categoria = new Categoria();
+            categoria.setNombre(request.getNombre());
+            categoria.setDescripcion(request.getDescripcion());
             
-            Categoria categoriaActualizada = dataServiceClient.actualizarCategoria(id, categoriaExistente);
-            return convertirACategoriaDTO(categoriaActualizada);
+            CategoriaVista categoriaActualizada = dataServiceClient.actualizarCategoria(id, categoria);
+            return convertirACategoriaDTO(categoriaActualizada, null);
         } catch (FeignException.NotFound e) {
             log.error("Categoría no encontrada con ID: {}", id);
             throw new CategoriaNoEncontradaException("Categoría no encontrada con ID: " + id);
         } catch (FeignException e) {
             log.error("Error al actualizar categoría en el microservicio de datos", e);
             throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
+        } finally {
+            // Después de escribir, y también si falló: un timeout no asegura que la escritura no se aplicó
+            cacheCategorias.invalidar(id);
         }
     }
 
@@ -114,8 +141,8 @@ public class CategoriaBusinessService {
         
         try {
             // Validar que la categoría no tenga productos antes de eliminar
-            Categoria categoria = dataServiceClient.obtenerCategoriaPorId(id);
-            if (categoria.getProductos() != null && !categoria.getProductos().isEmpty()) {
+            CategoriaVista categoria = dataServiceClient.obtenerCategoriaPorId(id);
+            if (categoria.cantidadProductos() > 0) {
                 throw new ValidacionNegocioException(
                     "No se puede eliminar la categoría porque tiene productos asociados");
             }
@@ -129,6 +156,8 @@ public class CategoriaBusinessService {
         } catch (FeignException e) {
             log.error("Error al eliminar categoría del microservicio de datos", e);
             throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
+        } finally {
+            cacheCategorias.invalidar(id);
         }
     }
 
@@ -136,11 +165,14 @@ public class CategoriaBusinessService {
         log.info("Obteniendo productos de la categoría con ID: {}", categoriaId);
         
         try {
-            Categoria categoria = dataServiceClient.obtenerCategoriaPorId(categoriaId);
-            List<Producto> productos = dataServiceClient.obtenerProductosPorCategoria(categoria.getNombre());
+            // La consulta de la categoría solo confirma que existe (404 en caso contrario)
+            List<ProductoVista> productos = llamadasParalelas.combinar(
+                    () -> cacheCategorias.porId(categoriaId),
+                    () -> dataServiceClient.obtenerProductosDeCategoria(categoriaId),
+                    (categoria, productosCategoria) -> productosCategoria);
             
             return productos.stream()
-                    .map(this::convertirProductoADTO)
+                    .map(CategoriaBusinessService::convertirProductoADTO)
                     .collect(Collectors.toList());
         } catch (FeignException.NotFound e) {
             log.error("Categoría no encontrada con ID: {}", categoriaId);
@@ -161,38 +193,35 @@ public class CategoriaBusinessService {
         }
     }
 
-    private CategoriaDTO convertirACategoriaDTO(Categoria categoria) {
+    static CategoriaDTO convertirACategoriaDTO(CategoriaVista categoria, List<ProductoVista> productos) {
         CategoriaDTO dto = new CategoriaDTO();
-        dto.setId(categoria.getId());
-        dto.setNombre(categoria.getNombre());
-        dto.setDescripcion(categoria.getDescripcion());
+        dto.setId(categoria.id());
+        dto.setNombre(categoria.nombre());
+        dto.setDescripcion(categoria.descripcion());
+        dto.setCantidadProductos(categoria.cantidadProductos().intValue());
         
-        if (categoria.getProductos() != null) {
-            dto.setCantidadProductos(categoria.getProductos().size());
-            dto.setProductos(categoria.getProductos().stream()
-                    .map(this::convertirProductoADTO)
+        if (productos != null) {
+            // La vista puede venir de la caché; los productos se leyeron recién
+            dto.setCantidadProductos(productos.size());
+            dto.setProductos(productos.stream()
+                    .map(CategoriaBusinessService::convertirProductoADTO)
                     .collect(Collectors.toList()));
-        } else {
-            dto.setCantidadProductos(0);
         }
         
         return dto;
     }
 
-    private ProductoDTO convertirProductoADTO(Producto producto) {
+    private static ProductoDTO convertirProductoADTO(ProductoVista producto) {
         ProductoDTO dto = new ProductoDTO();
-        dto.setId(producto.getId());
-        dto.setNombre(producto.getNombre());
-        dto.setDescripcion(producto.getDescripcion());
-        dto.setPrecio(producto.getPrecio());
-        
-        if (producto.getCategoria() != null) {
-            dto.setCategoriaNombre(producto.getCategoria().getNombre());
-        }
+        dto.setId(producto.id());
+        dto.setNombre(producto.nombre());
+        dto.setDescripcion(producto.descripcion());
+        dto.setPrecio(producto.precio());
+        dto.setCategoriaNombre(producto.categoriaNombre());
         
-        if (producto.getInventario() != null) {
-            dto.setStock(producto.getInventario().getCantidad());
-            dto.setStockBajo(producto.getInventario().getCantidad() <= producto.getInventario().getStockMinimo());
+        if (producto.stock() != null) {
+            dto.setStock(producto.stock());
+            dto.setStockBajo(Inventario.esStockBajo(producto.stock(), producto.stockMinimo()));
         }
         
         return dto;
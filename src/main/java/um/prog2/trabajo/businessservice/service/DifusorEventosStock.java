@@ -0,0 +1,326 @@
+package um.prog2.trabajo.businessservice.service;
+
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import um.prog2.trabajo.businessservice.client.DataServiceClient;
+import um.prog2.trabajo.businessservice.dto.EventoStockDTO;
+import um.prog2.trabajo.dataservice.dto.EventoStock;
+import um.prog2.trabajo.dataservice.dto.LoteEventosStock;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Difunde por Server-Sent Events los cruces de umbral de stock (stock bajo, sin stock y sus reposiciones).
+ * <p>
+ * Un único hilo consulta al servicio de datos con long polling mientras haya suscriptores, y reparte cada
+ * evento en la cola acotada de cada suscriptor. Un suscriptor que no alcanza a vaciar su cola se desconecta
+ * en lugar de frenar a los demás o acumular memoria; al reconectarse con {@code Last-Event-ID} recibe lo que
+ * siga en el historial. Si eso ya no es posible (historial agotado, reinicio del servicio de datos) se le
+ * envía un evento {@code resincronizar} para que vuelva a leer los reportes de stock.
+ */
+@Service
+@Slf4j
+public class DifusorEventosStock {
+
+    static final String EVENTO_RESINCRONIZAR = "resincronizar";
+
+    private static final int EVENTOS_POR_CONSULTA = 100;
+    private static final long ESPERA_REINTENTO_MAXIMA_MS = 30_000;
+
+    private final DataServiceClient dataServiceClient;
+    private final int bufferPorSuscriptor;
+    private final int tamanoHistorial;
+    private final long esperaMs;
+    private final long timeoutSseMs;
+    private final Request.Options opcionesLongPolling;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Eventos contiguos ya difundidos, para reanudar a quien se reconecta
+    private final ArrayDeque<EventoStockDTO> historial;
+    private final List<Suscriptor> suscriptores = new CopyOnWriteArrayList<>();
+    private final ExecutorService envios = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("eventos-stock-envio-", 1).factory());
+    private Long ultimoId;
+    private Thread consultor;
+    private volatile boolean detenido;
+
+    private final Counter difundidos;
+    private final Counter descartados;
+
+    public DifusorEventosStock(DataServiceClient dataServiceClient,
+                               MeterRegistry registro,
+                               @Value("${business.eventos-stock.buffer-suscriptor:256}") int bufferPorSuscriptor,
+                               @Value("${business.eventos-stock.historial:1000}") int tamanoHistorial,
+                               @Value("${business.eventos-stock.espera-ms:20000}") long esperaMs,
+                               @Value("${business.eventos-stock.timeout-sse-ms:1800000}") long timeoutSseMs,
+                               @Value("${feign.client.config.default.connectTimeout:5000}") int connectTimeoutMs) {
+        if (bufferPorSuscriptor < 1 || tamanoHistorial < 1) {
+            throw new IllegalArgumentException("El buffer por suscriptor y el historial deben ser mayores a cero");
+        }
+        this.dataServiceClient = dataServiceClient;
+        this.bufferPorSuscriptor = bufferPorSuscriptor;
+        this.tamanoHistorial = tamanoHistorial;
+        this.esperaMs = esperaMs;
+        this.timeoutSseMs = timeoutSseMs;
+        this.historial = new ArrayDeque<>(tamanoHistorial);
+        this.opcionesLongPolling = new Request.Options(connectTimeoutMs, TimeUnit.MILLISECONDS,
+                (int) esperaMs + 5_000, TimeUnit.MILLISECONDS, true);
+
+        this.difundidos = Counter.builder("eventos.stock.difundidos").register(registro);
+        this.descartados = Counter.builder("eventos.stock.suscriptores.descartados").register(registro);
+        Gauge.builder("eventos.stock.suscriptores", suscriptores, List::size).register(registro);
+    }
+
+    /**
+     * Abre una suscripción. Con {@code ultimoEventoId} se reanuda después de ese evento.
+     */
+    public SseEmitter suscribir(Long ultimoEventoId) {
+        SseEmitter emitter = new SseEmitter(timeoutSseMs);
+        Suscriptor suscriptor = new Suscriptor(emitter, new ArrayBlockingQueue<>(bufferPorSuscriptor));
+        emitter.onCompletion(() -> quitar(suscriptor));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> quitar(suscriptor));
+
+        lock.lock();
+        try {
+            if (consultor == null) {
+                // Sin consultas en curso se arranca desde el evento pedido (el servicio de datos reenvía
+                // desde su propio registro) o desde el próximo
+                historial.clear();
+                ultimoId = ultimoEventoId;
+                suscriptores.add(suscriptor);
+                consultor = Thread.ofVirtual().name("eventos-stock-consultor").start(this::consultar);
+            } else {
+                if (ultimoEventoId != null) {
+                    reanudar(suscriptor, ultimoEventoId);
+                }
+                suscriptores.add(suscriptor);
+            }
+        } finally {
+            lock.unlock();
+        }
+        log.info("Nuevo suscriptor de eventos de stock (último evento: {}); suscriptores: {}",
+                ultimoEventoId, suscriptores.size());
+        programarEnvio(suscriptor);
+        return emitter;
+    }
+
+    // Antes del apagado ordenado del servidor web, que si no esperaría a que terminen las conexiones SSE
+    @EventListener(ContextClosedEvent.class)
+    void detener() {
+        detenido = true;
+        lock.lock();
+        try {
+            if (consultor != null) {
+                consultor.interrupt();
+            }
+        } finally {
+            lock.unlock();
+        }
+        suscriptores.forEach(suscriptor -> suscriptor.emitter.complete());
+        envios.shutdownNow();
+    }
+
+    // Se llama con el lock tomado, antes de agregar el suscriptor
+    private void reanudar(Suscriptor suscriptor, long ultimoEventoId) {
+        boolean alDia = ultimoId != null && ultimoEventoId == ultimoId;
+        boolean enHistorial = !historial.isEmpty() && ultimoEventoId >= historial.peekFirst().getId() - 1
+                && ultimoEventoId < historial.peekLast().getId();
+        if (alDia) {
+            return;
+        }
+        if (!enHistorial) {
+            suscriptor.cola.offer(Mensaje.resincronizar());
+            return;
+        }
+        for (EventoStockDTO evento : historial) {
+            if (evento.getId() > ultimoEventoId && !suscriptor.cola.offer(Mensaje.de(evento))) {
+                // Se pidió más historial del que entra en su cola
+                suscriptor.cola.clear();
+                suscriptor.cola.offer(Mensaje.resincronizar());
+                return;
+            }
+        }
+    }
+
+    private void consultar() {
+        long esperaReintento = 1_000;
+        while (true) {
+            Long desde;
+            lock.lock();
+            try {
+                if (suscriptores.isEmpty() || detenido) {
+                    consultor = null;
+                    log.info("Sin suscriptores de eventos de stock, se deja de consultar al servicio de datos");
+                    return;
+                }
+                desde = ultimoId;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                LoteEventosStock lote = dataServiceClient.obtenerEventosStock(desde, EVENTOS_POR_CONSULTA, esperaMs,
+                        opcionesLongPolling);
+                difundir(lote);
+                esperaReintento = 1_000;
+            } catch (FeignException e) {
+                log.warn("Error al consultar eventos de stock en el servicio de datos; reintento en {} ms: {}",
+                        esperaReintento, e.getMessage());
+                difundirLatido();
+                try {
+                    Thread.sleep(esperaReintento);
+                } catch (InterruptedException interrupcion) {
+                    Thread.currentThread().interrupt();
+                }
+                esperaReintento = Math.min(esperaReintento * 2, ESPERA_REINTENTO_MAXIMA_MS);
+            }
+        }
+    }
+
+    private void difundir(LoteEventosStock lote) {
+        lock.lock();
+        try {
+            if (lote.incompleto()) {
+                log.warn("Se perdieron eventos de stock antes del {}; se pide resincronizar", lote.ultimoId());
+                historial.clear();
+                entregar(Mensaje.resincronizar());
+            }
+            for (EventoStock evento : lote.eventos()) {
+                EventoStockDTO dto = convertirAEventoStockDTO(evento);
+                if (historial.size() == tamanoHistorial) {
+                    historial.pollFirst();
+                }
+                historial.addLast(dto);
+                entregar(Mensaje.de(dto));
+                difundidos.increment();
+            }
+            if (lote.eventos().isEmpty()) {
+                entregar(Mensaje.LATIDO);
+            }
+            ultimoId = lote.ultimoId();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Comentario SSE para que proxies y clientes no den por muerta una conexión sin eventos
+    private void difundirLatido() {
+        lock.lock();
+        try {
+            entregar(Mensaje.LATIDO);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void entregar(Mensaje mensaje) {
+        for (Suscriptor suscriptor : suscriptores) {
+            if (suscriptor.cola.offer(mensaje)) {
+                programarEnvio(suscriptor);
+            } else {
+                log.warn("Suscriptor de eventos de stock con {} mensajes sin enviar, se lo desconecta",
+                        bufferPorSuscriptor);
+                descartados.increment();
+                quitar(suscriptor);
+                suscriptor.emitter.complete();
+            }
+        }
+    }
+
+    // Un solo envío en curso por suscriptor, así los eventos salen en orden
+    private void programarEnvio(Suscriptor suscriptor) {
+        if (suscriptor.enviando.compareAndSet(false, true)) {
+            envios.execute(() -> enviarPendientes(suscriptor));
+        }
+    }
+
+    private void enviarPendientes(Suscriptor suscriptor) {
+        while (true) {
+            Mensaje mensaje = suscriptor.cola.poll();
+            if (mensaje == null) {
+                suscriptor.enviando.set(false);
+                // Un mensaje encolado justo después del poll no programó otro envío: se retoma acá
+                if (suscriptor.cola.isEmpty() || !suscriptor.enviando.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                suscriptor.emitter.send(mensaje.construir());
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Suscriptor de eventos de stock desconectado: {}", e.getMessage());
+                quitar(suscriptor);
+                return;
+            }
+        }
+    }
+
+    private void quitar(Suscriptor suscriptor) {
+        suscriptores.remove(suscriptor);
+        suscriptor.cola.clear();
+    }
+
+    private EventoStockDTO convertirAEventoStockDTO(EventoStock evento) {
+        EventoStockDTO dto = new EventoStockDTO();
+        dto.setId(evento.id());
+        dto.setProductoId(evento.productoId());
+        dto.setTipo(evento.tipo());
+        dto.setCantidad(evento.cantidad());
+        dto.setStockMinimo(evento.stockMinimo());
+        dto.setFecha(evento.fecha());
+        return dto;
+    }
+
+    private record Suscriptor(SseEmitter emitter, BlockingQueue<Mensaje> cola, AtomicBoolean enviando) {
+        Suscriptor(SseEmitter emitter, BlockingQueue<Mensaje> cola) {
+            this(emitter, cola, new AtomicBoolean());
+        }
+    }
+
+    // El builder de SseEmitter acumula estado al enviarse, así que se arma uno por envío
+    private record Mensaje(EventoStockDTO evento, String nombre) {
+
+        static final Mensaje LATIDO = new Mensaje(null, null);
+
+        static Mensaje de(EventoStockDTO evento) {
+            return new Mensaje(evento, evento.getTipo().name());
+        }
+
+        static Mensaje resincronizar() {
+            return new Mensaje(null, EVENTO_RESINCRONIZAR);
+        }
+
+        SseEmitter.SseEventBuilder construir() {
+            if (nombre == null) {
+                return SseEmitter.event().comment("latido");
+            }
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().name(nombre);
+            if (evento != null) {
+                builder.id(String.valueOf(evento.getId())).data(evento);
+            } else {
+                builder.data("");
+            }
+            return builder;
+        }
+    }
+}
@@ -3,16 +3,27 @@ package um.prog2.trabajo.businessservice.service;
 import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import um.prog2.trabajo.businessservice.client.ColapsadorSolicitudes;
 import um.prog2.trabajo.businessservice.client.DataServiceClient;
 import um.prog2.trabajo.businessservice.dto.InventarioDTO;
+import um.prog2.trabajo.businessservice.dto.PaginaDTO;
 import um.prog2.trabajo.businessservice.dto.ProductoDTO;
+import um.prog2.trabajo.businessservice.dto.PuntoValuacionDTO;
 import um.prog2.trabajo.businessservice.dto.ReporteInventarioDTO;
+import um.prog2.trabajo.businessservice.dto.ValorCategoriaDTO;
+import um.prog2.trabajo.businessservice.exception.ConflictoConcurrenciaException;
 import um.prog2.trabajo.businessservice.exception.MicroserviceCommunicationException;
+import um.prog2.trabajo.businessservice.exception.StockInsuficienteException;
 import um.prog2.trabajo.businessservice.exception.ValidacionNegocioException;
+import um.prog2.trabajo.dataservice.dto.InventarioVista;
+import um.prog2.trabajo.dataservice.dto.PaginaKeyset;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+import um.prog2.trabajo.dataservice.dto.PuntoValuacion;
+import um.prog2.trabajo.dataservice.dto.ValuacionInventarioVista;
 import um.prog2.trabajo.dataservice.entity.Inventario;
-import um.prog2.trabajo.dataservice.entity.Producto;
+import um.prog2.trabajo.dataservice.entity.ValuacionCategoria;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -21,18 +32,28 @@ import java.util.stream.Collectors;
 public class InventarioBusinessService {
 
     private final DataServiceClient dataServiceClient;
+    private final ColapsadorSolicitudes<Long, InventarioVista> colapsadorInventario;
 
-    public InventarioBusinessService(DataServiceClient dataServiceClient) {
+    public InventarioBusinessService(DataServiceClient dataServiceClient,
+                                     ColapsadorSolicitudes<Long, InventarioVista> colapsadorInventario) {
         this.dataServiceClient = dataServiceClient;
+        this.colapsadorInventario = colapsadorInventario;
     }
 
-    public List<InventarioDTO> obtenerTodoElInventario() {
+    public PaginaDTO<InventarioDTO> obtenerTodoElInventario(String cursor, int limite) {
+        if (limite < 1 || limite > PaginaKeyset.LIMITE_MAXIMO) {
+            throw new ValidacionNegocioException("El límite de la página debe estar entre 1 y " + PaginaKeyset.LIMITE_MAXIMO);
+        }
+
         try {
-            log.info("Obteniendo todo el inventario desde el microservicio de datos");
-            List<Inventario> inventarios = dataServiceClient.obtenerTodoElInventario();
-            return inventarios.stream()
-                    .map(this::convertirAInventarioDTO)
+            log.info("Obteniendo página de inventario desde el microservicio de datos");
+            PaginaKeyset<InventarioVista> pagina = dataServiceClient.obtenerTodoElInventario(cursor, limite);
+            List<InventarioDTO> inventarios = pagina.getContenido().stream()
+                    .map(InventarioBusinessService::convertirAInventarioDTO)
                     .collect(Collectors.toList());
+            return new PaginaDTO<>(inventarios, pagina.getSiguienteCursor(), pagina.isHayMas());
+        } catch (FeignException.BadRequest e) {
+            throw new ValidacionNegocioException("El cursor de la página no es válido");
         } catch (FeignException e) {
             log.error("Error al obtener inventario del microservicio de datos", e);
             throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
@@ -40,30 +61,29 @@ public class InventarioBusinessService {
     }
 
     public InventarioDTO obtenerInventarioPorProductoId(Long productoId) {
+        InventarioVista inventario;
         try {
             log.info("Obteniendo inventario del producto con ID: {}", productoId);
-            Inventario inventario = dataServiceClient.obtenerInventarioPorProductoId(productoId);
-            return convertirAInventarioDTO(inventario);
+            inventario = colapsadorInventario.obtener(productoId);
         } catch (FeignException.NotFound e) {
-            log.error("Inventario no encontrado para producto ID: {}", productoId);
-            throw new ValidacionNegocioException("Inventario no encontrado para el producto con ID: " + productoId);
+            inventario = null;
         } catch (FeignException e) {
             log.error("Error al obtener inventario del microservicio de datos", e);
             throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
         }
+        if (inventario == null) {
+            log.error("Inventario no encontrado para producto ID: {}", productoId);
+            throw new ValidacionNegocioException("Inventario no encontrado para el producto con ID: " + productoId);
+        }
+        return convertirAInventarioDTO(inventario);
     }
 
     public List<ProductoDTO> obtenerProductosConStockBajo() {
         try {
             log.info("Obteniendo productos con stock bajo");
-            List<Inventario> inventarios = dataServiceClient.obtenerProductosConStockBajo();
-            return inventarios.stream()
-                    .map(inv -> {
-                        ProductoDTO dto = convertirProductoADTO(inv.getProducto());
-                        dto.setStock(inv.getCantidad());
-                        dto.setStockBajo(true);
-                        return dto;
-                    })
+            List<ProductoVista> productos = dataServiceClient.obtenerProductosConStockBajo();
+            return productos.stream()
+                    .map(this::convertirProductoADTO)
                     .collect(Collectors.toList());
         } catch (FeignException e) {
             log.error("Error al obtener productos con stock bajo del microservicio de datos", e);
@@ -74,14 +94,9 @@ public class InventarioBusinessService {
     public List<ProductoDTO> obtenerProductosSinStock() {
         try {
             log.info("Obteniendo productos sin stock");
-            List<Inventario> inventarios = dataServiceClient.obtenerProductosSinStock();
-            return inventarios.stream()
-                    .map(inv -> {
-                        ProductoDTO dto = convertirProductoADTO(inv.getProducto());
-                        dto.setStock(0);
-                        dto.setStockBajo(true);
-                        return dto;
-                    })
+            List<ProductoVista> productos = dataServiceClient.obtenerProductosSinStock();
+            return productos.stream()
+                    .map(this::convertirProductoADTO)
                     .collect(Collectors.toList());
         } catch (FeignException e) {
             log.error("Error al obtener productos sin stock del microservicio de datos", e);
@@ -98,39 +113,80 @@ public class InventarioBusinessService {
         }
 
         try {
-            Inventario inventario = dataServiceClient.obtenerInventarioPorProductoId(productoId);
-            Inventario inventarioActualizado = dataServiceClient.actualizarStock(inventario.getId(), nuevaCantidad);
+            InventarioVista inventario = dataServiceClient.obtenerInventarioPorProductoId(productoId);
+            // Con la versión leída el servicio de datos rechaza la escritura si el stock cambió en el medio
+            InventarioVista inventarioActualizado = dataServiceClient.actualizarStock(
+                    inventario.id(), nuevaCantidad, inventario.version());
             return convertirAInventarioDTO(inventarioActualizado);
         } catch (FeignException.NotFound e) {
             log.error("Inventario no encontrado para producto ID: {}", productoId);
             throw new ValidacionNegocioException("Inventario no encontrado para el producto con ID: " + productoId);
+        } catch (FeignException.Conflict e) {
+            log.error("El stock del producto ID: {} cambió durante la actualización", productoId);
+            throw new ConflictoConcurrenciaException("El stock del producto con ID: " + productoId
+                    + " fue modificado por otra operación, vuelva a consultarlo e intente nuevamente");
         } catch (FeignException e) {
             log.error("Error al actualizar stock del microservicio de datos", e);
             throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
         }
     }
 
+    public InventarioDTO incrementarStock(Long productoId, Integer cantidad) {
+        log.info("Incrementando en {} el stock del producto ID: {}", cantidad, productoId);
+        validarCantidadMovimiento(cantidad);
+
+        try {
+            InventarioVista inventario = dataServiceClient.incrementarStock(productoId, cantidad);
+            return convertirAInventarioDTO(inventario);
+        } catch (FeignException.NotFound e) {
+            log.error("Inventario no encontrado para producto ID: {}", productoId);
+            throw new ValidacionNegocioException("Inventario no encontrado para el producto con ID: " + productoId);
+        } catch (FeignException e) {
+            log.error("Error al incrementar stock en el microservicio de datos", e);
+            throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
+        }
+    }
+
+    public InventarioDTO decrementarStock(Long productoId, Integer cantidad) {
+        log.info("Decrementando en {} el stock del producto ID: {}", cantidad, productoId);
+        validarCantidadMovimiento(cantidad);
+
+        try {
+            // El servicio de datos descuenta con un UPDATE condicional, sin lectura previa
+            InventarioVista inventario = dataServiceClient.decrementarStock(productoId, cantidad);
+            return convertirAInventarioDTO(inventario);
+        } catch (FeignException.NotFound e) {
+            log.error("Inventario no encontrado para producto ID: {}", productoId);
+            throw new ValidacionNegocioException("Inventario no encontrado para el producto con ID: " + productoId);
+        } catch (FeignException.Conflict e) {
+            log.error("Stock insuficiente para producto ID: {}", productoId);
+            throw new StockInsuficienteException("Stock insuficiente para el producto con ID: " + productoId);
+        } catch (FeignException e) {
+            log.error("Error al decrementar stock en el microservicio de datos", e);
+            throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
+        }
+    }
+
+    /**
+     * El reporte sale de la última valuación precalculada por el servicio de datos, no del inventario en
+     * el momento: {@code fechaValuacion} y {@code antiguedadSegundos} indican qué tan actual es.
+     */
     public ReporteInventarioDTO generarReporteInventario() {
         log.info("Generando reporte completo de inventario");
         
         try {
-            List<Inventario> inventarios = dataServiceClient.obtenerTodoElInventario();
-            List<Inventario> stockBajo = dataServiceClient.obtenerProductosConStockBajo();
-            List<Inventario> sinStock = dataServiceClient.obtenerProductosSinStock();
-            
-            BigDecimal valorTotal = inventarios.stream()
-                    .map(inv -> {
-                        BigDecimal precio = inv.getProducto().getPrecio();
-                        BigDecimal cantidad = BigDecimal.valueOf(inv.getCantidad());
-                        return precio.multiply(cantidad);
-                    })
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            ValuacionInventarioVista valuacion = dataServiceClient.obtenerUltimaValuacion();
             
             ReporteInventarioDTO reporte = new ReporteInventarioDTO();
-            reporte.setTotalProductos(inventarios.size());
-            reporte.setProductosConStockBajo(stockBajo.size());
-            reporte.setProductosSinStock(sinStock.size());
-            reporte.setValorTotalInventario(valorTotal);
+            reporte.setTotalProductos(Math.toIntExact(valuacion.totalProductos()));
+            reporte.setProductosConStockBajo(Math.toIntExact(valuacion.productosConStockBajo()));
+            reporte.setProductosSinStock(Math.toIntExact(valuacion.productosSinStock()));
+            reporte.setValorTotalInventario(valuacion.valorTotal());
+            reporte.setFechaValuacion(valuacion.tomadaEn());
+            reporte.setAntiguedadSegundos(valuacion.antiguedadSegundos());
+            reporte.setCategorias(valuacion.categorias().stream()
+                    .map(InventarioBusinessService::convertirAValorCategoriaDTO)
+                    .collect(Collectors.toList()));
             
             return reporte;
         } catch (FeignException e) {
@@ -139,37 +195,76 @@ public class InventarioBusinessService {
         }
     }
 
-    private InventarioDTO convertirAInventarioDTO(Inventario inventario) {
-        InventarioDTO dto = new InventarioDTO();
-        dto.setId(inventario.getId());
-        dto.setCantidad(inventario.getCantidad());
-        dto.setStockMinimo(inventario.getStockMinimo());
-        dto.setFechaActualizacion(inventario.getFechaActualizacion());
-        
-        if (inventario.getProducto() != null) {
-            dto.setProductoId(inventario.getProducto().getId());
-            dto.setProductoNombre(inventario.getProducto().getNombre());
+    /**
+     * Evolución del valor del inventario (o de una categoría) según las valuaciones guardadas; por defecto,
+     * la última semana.
+     */
+    public List<PuntoValuacionDTO> obtenerHistorialValuaciones(LocalDateTime desde, LocalDateTime hasta,
+                                                               Long categoriaId, int limite) {
+        if (limite < 1 || limite > PaginaKeyset.LIMITE_MAXIMO) {
+            throw new ValidacionNegocioException("El límite debe estar entre 1 y " + PaginaKeyset.LIMITE_MAXIMO);
         }
-        
-        dto.setStockBajo(inventario.getCantidad() <= inventario.getStockMinimo());
+        LocalDateTime fin = hasta != null ? hasta : LocalDateTime.now();
+        LocalDateTime inicio = desde != null ? desde : fin.minusDays(7);
+        if (inicio.isAfter(fin)) {
+            throw new ValidacionNegocioException("La fecha desde no puede ser posterior a hasta");
+        }
+
+        try {
+            log.info("Obteniendo historial de valuaciones entre {} y {} (categoría {})", inicio, fin, categoriaId);
+            return dataServiceClient.obtenerHistorialValuaciones(inicio, fin, categoriaId, limite).stream()
+                    .map(InventarioBusinessService::convertirAPuntoValuacionDTO)
+                    .collect(Collectors.toList());
+        } catch (FeignException e) {
+            log.error("Error al obtener el historial de valuaciones", e);
+            throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
+        }
+    }
+
+    private void validarCantidadMovimiento(Integer cantidad) {
+        if (cantidad == null || cantidad <= 0) {
+            throw new ValidacionNegocioException("La cantidad debe ser mayor a cero");
+        }
+    }
+
+    private static ValorCategoriaDTO convertirAValorCategoriaDTO(ValuacionCategoria categoria) {
+        return new ValorCategoriaDTO(categoria.getCategoriaId(), categoria.getCategoriaNombre(),
+                Math.toIntExact(categoria.getTotalProductos()),
+                Math.toIntExact(categoria.getProductosConStockBajo()),
+                Math.toIntExact(categoria.getProductosSinStock()),
+                categoria.getValorTotal());
+    }
+
+    private static PuntoValuacionDTO convertirAPuntoValuacionDTO(PuntoValuacion punto) {
+        return new PuntoValuacionDTO(punto.tomadaEn(), Math.toIntExact(punto.totalProductos()),
+                Math.toIntExact(punto.productosConStockBajo()), Math.toIntExact(punto.productosSinStock()),
+                punto.valorTotal());
+    }
+
+    static InventarioDTO convertirAInventarioDTO(InventarioVista inventario) {
+        InventarioDTO dto = new InventarioDTO();
+        dto.setId(inventario.id());
+        dto.setProductoId(inventario.productoId());
+        dto.setProductoNombre(inventario.productoNombre());
+        dto.setCantidad(inventario.cantidad());
+        dto.setStockMinimo(inventario.stockMinimo());
+        dto.setFechaActualizacion(inventario.fechaActualizacion());
+        dto.setStockBajo(Inventario.esStockBajo(inventario.cantidad(), inventario.stockMinimo()));
         
         return dto;
     }
 
-    private ProductoDTO convertirProductoADTO(Producto producto) {
+    private ProductoDTO convertirProductoADTO(ProductoVista producto) {
         ProductoDTO dto = new ProductoDTO();
-        dto.setId(producto.getId());
-        dto.setNombre(producto.getNombre());
-        dto.setDescripcion(producto.getDescripcion());
-        dto.setPrecio(producto.getPrecio());
-        
-        if (producto.getCategoria() != null) {
-            dto.setCategoriaNombre(producto.getCategoria().getNombre());
-        }
+        dto.setId(producto.id());
+        dto.setNombre(producto.nombre());
+        dto.setDescripcion(producto.descripcion());
+        dto.setPrecio(producto.precio());
+        dto.setCategoriaNombre(producto.categoriaNombre());
         
-        if (producto.getInventario() != null) {
-            dto.setStock(producto.getInventario().getCantidad());
-            dto.setStockBajo(producto.getInventario().getCantidad() <= producto.getInventario().getStockMinimo());
+        if (producto.stock() != null) {
+            dto.setStock(producto.stock());
+            dto.setStockBajo(Inventario.esStockBajo(producto.stock(), producto.stockMinimo()));
         }
         
         return dto;
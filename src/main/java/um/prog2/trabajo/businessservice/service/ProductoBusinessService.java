@@ -1,21 +1,36 @@
 package um.prog2.trabajo.businessservice.service;
 
 import feign.FeignException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import um.prog2.trabajo.businessservice.client.ColapsadorSolicitudes;
 import um.prog2.trabajo.businessservice.client.DataServiceClient;
+import um.prog2.trabajo.businessservice.client.LlamadasParalelas;
+import um.prog2.trabajo.businessservice.dto.PaginaDTO;
 import um.prog2.trabajo.businessservice.dto.ProductoDTO;
 import um.prog2.trabajo.businessservice.dto.ProductoRequest;
+import um.prog2.trabajo.businessservice.dto.ResultadoFilaImportacionDTO;
+import um.prog2.trabajo.businessservice.dto.ResultadoImportacionDTO;
+import um.prog2.trabajo.businessservice.exception.CategoriaNoEncontradaException;
 import um.prog2.trabajo.businessservice.exception.MicroserviceCommunicationException;
 import um.prog2.trabajo.businessservice.exception.ProductoNoEncontradoException;
 import um.prog2.trabajo.businessservice.exception.ValidacionNegocioException;
-import um.prog2.trabajo.dataservice.entity.Categoria;
+import um.prog2.trabajo.dataservice.dto.PaginaKeyset;
+import um.prog2.trabajo.dataservice.dto.ProductoConInventarioRequest;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+import um.prog2.trabajo.dataservice.dto.ResultadoFilaImportacion;
+import um.prog2.trabajo.dataservice.dto.ResultadoImportacion;
 import um.prog2.trabajo.dataservice.entity.Inventario;
-import um.prog2.trabajo.dataservice.entity.Producto;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,18 +38,36 @@ import java.util.stream.Collectors;
 public class ProductoBusinessService {
 
     private final DataServiceClient dataServiceClient;
+    private final Validator validator;
+    private final LlamadasParalelas llamadasParalelas;
+    private final ColapsadorSolicitudes<Long, ProductoVista> colapsadorProductos;
+    private final int tamanoEnvio;
 
-    public ProductoBusinessService(DataServiceClient dataServiceClient) {
+    public ProductoBusinessService(DataServiceClient dataServiceClient, Validator validator,
+                                   LlamadasParalelas llamadasParalelas,
+                                   ColapsadorSolicitudes<Long, ProductoVista> colapsadorProductos,
+                                   @Value("${business.importacion.tamano-envio:500}") int tamanoEnvio) {
         this.dataServiceClient = dataServiceClient;
+        this.validator = validator;
+        this.llamadasParalelas = llamadasParalelas;
+        this.colapsadorProductos = colapsadorProductos;
+        this.tamanoEnvio = tamanoEnvio;
     }
 
-    public List<ProductoDTO> obtenerTodosLosProductos() {
+    public PaginaDTO<ProductoDTO> obtenerTodosLosProductos(String cursor, int limite) {
+        if (limite < 1 || limite > PaginaKeyset.LIMITE_MAXIMO) {
+            throw new ValidacionNegocioException("El límite de la página debe estar entre 1 y " + PaginaKeyset.LIMITE_MAXIMO);
+        }
+
         try {
-            log.info("Obteniendo todos los productos desde el microservicio de datos");
-            List<Producto> productos = dataServiceClient.obtenerTodosLosProductos();
-            return productos.stream()
-                    .map(this::convertirAProductoDTO)
+            log.info("Obteniendo página de productos desde el microservicio de datos");
+            PaginaKeyset<ProductoVista> pagina = dataServiceClient.obtenerTodosLosProductos(cursor, limite);
+            List<ProductoDTO> productos = pagina.getContenido().stream()
+                    .map(ProductoBusinessService::convertirAProductoDTO)
                     .collect(Collectors.toList());
+            return new PaginaDTO<>(productos, pagina.getSiguienteCursor(), pagina.isHayMas());
+        } catch (FeignException.BadRequest e) {
+            throw new ValidacionNegocioException("El cursor de la página no es válido");
         } catch (FeignException e) {
             log.error("Error al obtener productos del microservicio de datos", e);
             throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
@@ -42,17 +75,22 @@ public class ProductoBusinessService {
     }
 
     public ProductoDTO obtenerProductoPorId(Long id) {
+        ProductoVista producto;
         try {
             log.info("Obteniendo producto por ID: {}", id);
-            Producto producto = dataServiceClient.obtenerProductoPorId(id);
-            return convertirAProductoDTO(producto);
+            // Las consultas concurrentes se agrupan en un multi-get, que omite los IDs inexistentes
+            producto = colapsadorProductos.obtener(id);
         } catch (FeignException.NotFound e) {
-            log.error("Producto no encontrado con ID: {}", id);
-            throw new ProductoNoEncontradoException("Producto no encontrado con ID: " + id);
+            producto = null;
         } catch (FeignException e) {
             log.error("Error al obtener producto del microservicio de datos", e);
             throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
         }
+        if (producto == null) {
+            log.error("Producto no encontrado con ID: {}", id);
+            throw new ProductoNoEncontradoException("Producto no encontrado con ID: " + id);
+        }
+        return convertirAProductoDTO(producto);
     }
 
     public ProductoDTO crearProducto(ProductoRequest request) {
@@ -62,28 +100,12 @@ public class ProductoBusinessService {
         validarProducto(request);
 
         try {
-            // Obtener la categoría
-            Categoria categoria = dataServiceClient.obtenerCategoriaPorId(request.getCategoriaId());
-            
-            // Crear el producto
-            Producto producto = new Producto();
-            producto.setNombre(request.getNombre());
-            producto.setDescripcion(request.getDescripcion());
-            producto.setPrecio(request.getPrecio());
-            producto.setCategoria(categoria);
-            
-            Producto productoCreado = dataServiceClient.crearProducto(producto);
-            
-            // Crear el inventario asociado
-            Inventario inventario = new Inventario();
-            inventario.setProducto(productoCreado);
-            inventario.setCantidad(request.getStock());
-            inventario.setStockMinimo(request.getStockMinimo() != null ? request.getStockMinimo() : 10);
-            inventario.setFechaActualizacion(LocalDateTime.now());
-            
-            dataServiceClient.crearInventario(inventario);
-            
+            // Producto e inventario se crean en una única transacción del servicio de datos
+            ProductoVista productoCreado = dataServiceClient.crearProductoConInventario(convertirAProductoConInventario(request));
             return convertirAProductoDTO(productoCreado);
+        } catch (FeignException.NotFound e) {
+            log.error("Categoría no encontrada con ID: {}", request.getCategoriaId());
+            throw new CategoriaNoEncontradaException("Categoría no encontrada con ID: " + request.getCategoriaId());
         } catch (FeignException e) {
             log.error("Error al crear producto en el microservicio de datos", e);
             throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
@@ -97,40 +119,9 @@ public class ProductoBusinessService {
         validarProducto(request);
 
         try {
-            // Verificar que el producto existe
-            Producto productoExistente = dataServiceClient.obtenerProductoPorId(id);
-            
-            // Obtener la categoría
-            Categoria categoria = dataServiceClient.obtenerCategoriaPorId(request.getCategoriaId());
-            
-            // Actualizar el producto
-            productoExistente.setNombre(request.getNombre());
-            productoExistente.setDescripcion(request.getDescripcion());
-            productoExistente.setPrecio(request.getPrecio());
-            productoExistente.setCategoria(categoria);
-            
-            Producto productoActualizado = dataServiceClient.actualizarProducto(id, productoExistente);
-            
-            // Actualizar el inventario si se proporcionó stock
-            if (request.getStock() != null) {
-                try {
-                    Inventario inventario = dataServiceClient.obtenerInventarioPorProductoId(id);
-                    inventario.setCantidad(request.getStock());
-                    if (request.getStockMinimo() != null) {
-                        inventario.setStockMinimo(request.getStockMinimo());
-                    }
-                    dataServiceClient.actualizarInventario(inventario.getId(), inventario);
-                } catch (FeignException.NotFound e) {
-                    // Si no existe inventario, crear uno nuevo
-                    Inventario nuevoInventario = new Inventario();
-                    nuevoInventario.setProducto(productoActualizado);
-                    nuevoInventario.setCantidad(request.getStock());
-                    nuevoInventario.setStockMinimo(request.getStockMinimo() != null ? request.getStockMinimo() : 10);
-                    nuevoInventario.setFechaActualizacion(LocalDateTime.now());
-                    dataServiceClient.crearInventario(nuevoInventario);
-                }
-            }
-            
+            // El servicio de datos actualiza producto e inventario (o lo crea si no existe) en una transacción
+            ProductoVista productoActualizado = dataServiceClient.actualizarProductoConInventario(
+                    id, convertirAProductoConInventario(request));
             return convertirAProductoDTO(productoActualizado);
         } catch (FeignException.NotFound e) {
             log.error("Producto o categoría no encontrada");
@@ -141,6 +132,58 @@ public class ProductoBusinessService {
         }
     }
 
+    public ResultadoImportacionDTO importarProductos(List<ProductoRequest> requests) {
+        log.info("Importando lote de {} productos", requests.size());
+        ResultadoFilaImportacionDTO[] resultados = new ResultadoFilaImportacionDTO[requests.size()];
+        
+        // Las filas que no pasan las validaciones de negocio se informan sin enviarse al servicio de datos
+        List<Integer> indicesEnviados = new ArrayList<>();
+        List<ProductoConInventarioRequest> filasEnviadas = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String error = validarFilaImportacion(requests.get(i));
+            if (error != null) {
+                resultados[i] = new ResultadoFilaImportacionDTO(i, false, null, error);
+            } else {
+                indicesEnviados.add(i);
+                filasEnviadas.add(convertirAProductoConInventario(requests.get(i)));
+            }
+        }
+        
+        // Los lotes son independientes entre sí: se envían en paralelo y se reubican por su desplazamiento
+        List<Supplier<ResultadoImportacion>> envios = new ArrayList<>();
+        for (int desde = 0; desde < filasEnviadas.size(); desde += tamanoEnvio) {
+            ProductoConInventarioRequest[] lote = filasEnviadas.subList(
+                    desde, Math.min(desde + tamanoEnvio, filasEnviadas.size())).toArray(new ProductoConInventarioRequest[0]);
+            envios.add(() -> dataServiceClient.importarProductos(lote));
+        }
+        // Un lote que falla no descarta los demás: sólo sus filas se informan como fallidas
+        List<ResultadoImportacion> resultadosLotes = llamadasParalelas.ejecutarCadaUna(envios, e -> {
+            log.error("Falló el envío de un lote de la importación al microservicio de datos", e);
+            return null;
+        });
+        for (int lote = 0; lote < resultadosLotes.size(); lote++) {
+            int desde = lote * tamanoEnvio;
+            ResultadoImportacion resultadoLote = resultadosLotes.get(lote);
+            if (resultadoLote == null) {
+                // El servicio de datos pudo haber guardado parte del lote antes de la falla o del plazo vencido
+                for (int fila = desde; fila < Math.min(desde + tamanoEnvio, indicesEnviados.size()); fila++) {
+                    int indice = indicesEnviados.get(fila);
+                    resultados[indice] = new ResultadoFilaImportacionDTO(indice, false, null,
+                            "No se pudo confirmar la importación: error de comunicación con el servicio de datos");
+                }
+                continue;
+            }
+            for (ResultadoFilaImportacion fila : resultadoLote.getFilas()) {
+                int indice = indicesEnviados.get(desde + fila.getIndice());
+                resultados[indice] = new ResultadoFilaImportacionDTO(
+                        indice, fila.isExito(), fila.getProductoId(), fila.getError());
+            }
+        }
+        
+        int exitosos = (int) Arrays.stream(resultados).filter(ResultadoFilaImportacionDTO::isExito).count();
+        return new ResultadoImportacionDTO(requests.size(), exitosos, requests.size() - exitosos, Arrays.asList(resultados));
+    }
+
     public void eliminarProducto(Long id) {
         log.info("Eliminando producto con ID: {}", id);
         try {
@@ -157,9 +200,9 @@ public class ProductoBusinessService {
     public List<ProductoDTO> obtenerProductosPorCategoria(String categoriaNombre) {
         log.info("Obteniendo productos por categoría: {}", categoriaNombre);
         try {
-            List<Producto> productos = dataServiceClient.obtenerProductosPorCategoria(categoriaNombre);
+            List<ProductoVista> productos = dataServiceClient.obtenerProductosPorCategoria(categoriaNombre);
             return productos.stream()
-                    .map(this::convertirAProductoDTO)
+                    .map(ProductoBusinessService::convertirAProductoDTO)
                     .collect(Collectors.toList());
         } catch (FeignException e) {
             log.error("Error al obtener productos por categoría del microservicio de datos", e);
@@ -167,12 +210,15 @@ public class ProductoBusinessService {
         }
     }
 
-    public List<ProductoDTO> buscarProductosPorNombre(String nombre) {
+    public List<ProductoDTO> buscarProductosPorNombre(String nombre, int limite) {
         log.info("Buscando productos por nombre: {}", nombre);
+        if (limite < 1 || limite > PaginaKeyset.LIMITE_MAXIMO) {
+            throw new ValidacionNegocioException("El límite de resultados debe estar entre 1 y " + PaginaKeyset.LIMITE_MAXIMO);
+        }
         try {
-            List<Producto> productos = dataServiceClient.buscarProductosPorNombre(nombre);
+            List<ProductoVista> productos = dataServiceClient.buscarProductosPorNombre(nombre, limite);
             return productos.stream()
-                    .map(this::convertirAProductoDTO)
+                    .map(ProductoBusinessService::convertirAProductoDTO)
                     .collect(Collectors.toList());
         } catch (FeignException e) {
             log.error("Error al buscar productos por nombre del microservicio de datos", e);
@@ -180,8 +226,11 @@ public class ProductoBusinessService {
         }
     }
 
-    public List<ProductoDTO> buscarProductosPorRangoPrecio(BigDecimal min, BigDecimal max) {
+    public PaginaDTO<ProductoDTO> buscarProductosPorRangoPrecio(BigDecimal min, BigDecimal max, String cursor, int limite) {
         log.info("Buscando productos por rango de precio: {} - {}", min, max);
+        if (limite < 1 || limite > PaginaKeyset.LIMITE_MAXIMO) {
+            throw new ValidacionNegocioException("El límite de la página debe estar entre 1 y " + PaginaKeyset.LIMITE_MAXIMO);
+        }
         
         // Validación de negocio
         if (min.compareTo(BigDecimal.ZERO) < 0 || max.compareTo(BigDecimal.ZERO) < 0) {
@@ -192,10 +241,13 @@ public class ProductoBusinessService {
         }
         
         try {
-            List<Producto> productos = dataServiceClient.buscarProductosPorRangoPrecio(min, max);
-            return productos.stream()
-                    .map(this::convertirAProductoDTO)
+            PaginaKeyset<ProductoVista> pagina = dataServiceClient.buscarProductosPorRangoPrecio(min, max, cursor, limite);
+            List<ProductoDTO> productos = pagina.getContenido().stream()
+                    .map(ProductoBusinessService::convertirAProductoDTO)
                     .collect(Collectors.toList());
+            return new PaginaDTO<>(productos, pagina.getSiguienteCursor(), pagina.isHayMas());
+        } catch (FeignException.BadRequest e) {
+            throw new ValidacionNegocioException("El cursor de la página no es válido");
         } catch (FeignException e) {
             log.error("Error al buscar productos por rango de precio del microservicio de datos", e);
             throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
@@ -205,14 +257,9 @@ public class ProductoBusinessService {
     public List<ProductoDTO> obtenerProductosConStockBajo() {
         log.info("Obteniendo productos con stock bajo");
         try {
-            List<Inventario> inventarios = dataServiceClient.obtenerProductosConStockBajo();
-            return inventarios.stream()
-                    .map(inventario -> {
-                        ProductoDTO dto = convertirAProductoDTO(inventario.getProducto());
-                        dto.setStock(inventario.getCantidad());
-                        dto.setStockBajo(true);
-                        return dto;
-                    })
+            List<ProductoVista> productos = dataServiceClient.obtenerProductosConStockBajo();
+            return productos.stream()
+                    .map(ProductoBusinessService::convertirAProductoDTO)
                     .collect(Collectors.toList());
         } catch (FeignException e) {
             log.error("Error al obtener productos con stock bajo del microservicio de datos", e);
@@ -220,23 +267,6 @@ public class ProductoBusinessService {
         }
     }
 
-    public BigDecimal calcularValorTotalInventario() {
-        log.info("Calculando valor total del inventario");
-        try {
-            List<Inventario> inventarios = dataServiceClient.obtenerTodoElInventario();
-            return inventarios.stream()
-                    .map(inv -> {
-                        BigDecimal precio = inv.getProducto().getPrecio();
-                        BigDecimal cantidad = BigDecimal.valueOf(inv.getCantidad());
-                        return precio.multiply(cantidad);
-                    })
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-        } catch (FeignException e) {
-            log.error("Error al calcular valor total del inventario", e);
-            throw new MicroserviceCommunicationException("Error de comunicación con el servicio de datos");
-        }
-    }
-
     private void validarProducto(ProductoRequest request) {
         if (request.getPrecio().compareTo(BigDecimal.ZERO) <= 0) {
             throw new ValidacionNegocioException("El precio debe ser mayor a cero");
@@ -251,20 +281,47 @@ public class ProductoBusinessService {
         }
     }
 
-    private ProductoDTO convertirAProductoDTO(Producto producto) {
-        ProductoDTO dto = new ProductoDTO();
-        dto.setId(producto.getId());
-        dto.setNombre(producto.getNombre());
-        dto.setDescripcion(producto.getDescripcion());
-        dto.setPrecio(producto.getPrecio());
-        
-        if (producto.getCategoria() != null) {
-            dto.setCategoriaNombre(producto.getCategoria().getNombre());
+    private String validarFilaImportacion(ProductoRequest request) {
+        if (request == null) {
+            return "La fila está vacía";
+        }
+        Set<ConstraintViolation<ProductoRequest>> violaciones = validator.validate(request);
+        if (!violaciones.isEmpty()) {
+            return violaciones.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        try {
+            validarProducto(request);
+        } catch (ValidacionNegocioException e) {
+            return e.getMessage();
         }
+        return null;
+    }
+
+    private ProductoConInventarioRequest convertirAProductoConInventario(ProductoRequest request) {
+        return new ProductoConInventarioRequest(
+                request.getNombre(),
+                request.getDescripcion(),
+                request.getPrecio(),
+                request.getCategoriaId(),
+                request.getStock(),
+                request.getStockMinimo());
+    }
+
+    // Sin estado: el benchmark de conversiones la llama directamente
+    static ProductoDTO convertirAProductoDTO(ProductoVista producto) {
+        ProductoDTO dto = new ProductoDTO();
+        dto.setId(producto.id());
+        dto.setNombre(producto.nombre());
+        dto.setDescripcion(producto.descripcion());
+        dto.setPrecio(producto.precio());
+        dto.setCategoriaNombre(producto.categoriaNombre());
         
-        if (producto.getInventario() != null) {
-            dto.setStock(producto.getInventario().getCantidad());
-            dto.setStockBajo(producto.getInventario().getCantidad() <= producto.getInventario().getStockMinimo());
+        if (producto.stock() != null) {
+            dto.setStock(producto.stock());
+            dto.setStockBajo(Inventario.esStockBajo(producto.stock(), producto.stockMinimo()));
         }
         
         return dto;
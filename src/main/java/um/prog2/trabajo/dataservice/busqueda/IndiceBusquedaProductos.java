@@ -0,0 +1,203 @@
+package um.prog2.trabajo.dataservice.busqueda;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import um.prog2.trabajo.dataservice.dto.CursorPrecio;
+import um.prog2.trabajo.dataservice.entity.Producto;
+import um.prog2.trabajo.dataservice.repository.ProductoRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Búsqueda de productos por texto (índice de trigramas) y por rango de precio (precios ordenados) en
+ * memoria, en lugar de consultas que recorren la tabla completa.
+ * <p>
+ * El índice se carga al iniciar la aplicación y {@link ProductoIndiceListener} le aplica las escrituras
+ * de esta instancia después del commit. Mientras no está cargado (o si {@code data.busqueda.indice-habilitado}
+ * es falso) {@link #disponible()} devuelve {@code false} y la búsqueda se resuelve en la base de datos.
+ * Las escrituras hechas por otras instancias o directamente en la base no se ven hasta el próximo
+ * {@link #reconstruir()}.
+ */
+@Component
+@Slf4j
+public class IndiceBusquedaProductos {
+
+    private static final int TAMANO_CARGA = 10_000;
+
+    private final ProductoRepository productoRepository;
+    private final boolean habilitado;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Indices indices = new Indices(new IndiceTrigramas(), new PreciosOrdenados());
+    // Cambios confirmados mientras se reconstruye: se reaplican sobre los índices nuevos antes de publicarlos
+    private List<Consumer<Indices>> cambiosDuranteCarga;
+    private volatile boolean listo;
+
+    public IndiceBusquedaProductos(ProductoRepository productoRepository,
+                                   @Value("${data.busqueda.indice-habilitado:true}") boolean habilitado) {
+        this.productoRepository = productoRepository;
+        this.habilitado = habilitado;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void cargarAlIniciar() {
+        if (habilitado) {
+            reconstruir();
+        }
+    }
+
+    /**
+     * Vuelve a leer todos los productos de la base de datos y reemplaza el índice. Las búsquedas siguen
+     * usando el índice anterior hasta que el nuevo está completo.
+     */
+    public void reconstruir() {
+        long comienzo = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            cambiosDuranteCarga = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        IndiceTrigramas textos = new IndiceTrigramas();
+        long[] ids = new long[TAMANO_CARGA];
+        long[] centavos = new long[TAMANO_CARGA];
+        int cantidad = 0;
+        try {
+            long ultimoId = 0L;
+            List<ProductoIndexado> bloque;
+            do {
+                bloque = productoRepository.findIndexadosDespuesDe(ultimoId, Limit.of(TAMANO_CARGA));
+                if (cantidad + bloque.size() > ids.length) {
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                    centavos = Arrays.copyOf(centavos, centavos.length * 2);
+                }
+                for (ProductoIndexado producto : bloque) {
+                    textos.poner(producto.id(), producto.nombre(), producto.descripcion());
+                    ids[cantidad] = producto.id();
+                    centavos[cantidad] = PreciosOrdenados.aCentavos(producto.precio(), RoundingMode.HALF_UP);
+                    cantidad++;
+                    ultimoId = producto.id();
+                }
+            } while (bloque.size() == TAMANO_CARGA);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                cambiosDuranteCarga = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        Indices nuevos = new Indices(textos, PreciosOrdenados.ordenar(ids, centavos, cantidad));
+        lock.writeLock().lock();
+        try {
+            cambiosDuranteCarga.forEach(cambio -> cambio.accept(nuevos));
+            cambiosDuranteCarga = null;
+            indices = nuevos;
+            listo = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de búsqueda cargado con {} productos en {} ms",
+                textos.tamano(), (System.nanoTime() - comienzo) / 1_000_000);
+    }
+
+    public boolean disponible() {
+        return habilitado && listo;
+    }
+
+    /**
+     * IDs de los productos que contienen todos los términos en su nombre o descripción (sin distinguir
+     * mayúsculas ni acentos), del más relevante al menos relevante.
+     */
+    public List<Long> buscar(String texto, int limite) {
+        lock.readLock().lock();
+        try {
+            return indices.textos().buscar(texto, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copia en {@code destino} los IDs de los productos con precio entre {@code minPrecio} y
+     * {@code maxPrecio}, ordenados por precio y después por ID, a partir del cursor. Devuelve cuántos
+     * copió, como máximo {@code destino.length}.
+     */
+    public int buscarPorPrecio(BigDecimal minPrecio, BigDecimal maxPrecio, CursorPrecio despuesDe, long[] destino) {
+        long minCentavos = PreciosOrdenados.aCentavos(minPrecio, RoundingMode.CEILING);
+        long maxCentavos = PreciosOrdenados.aCentavos(maxPrecio, RoundingMode.FLOOR);
+        long despuesDeCentavos = despuesDe.precio() == null ? Long.MIN_VALUE
+                : PreciosOrdenados.aCentavos(despuesDe.precio(), RoundingMode.HALF_UP);
+        lock.readLock().lock();
+        try {
+            return indices.precios().buscar(minCentavos, maxCentavos, despuesDeCentavos, despuesDe.id(), destino);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void indexar(Producto producto) {
+        // Se copian los textos ahora: la entidad puede cambiar antes del commit
+        long id = producto.getId();
+        String nombre = producto.getNombre();
+        String descripcion = producto.getDescripcion();
+        long centavos = PreciosOrdenados.aCentavos(producto.getPrecio(), RoundingMode.HALF_UP);
+        despuesDelCommit(destino -> {
+            destino.textos().poner(id, nombre, descripcion);
+            destino.precios().poner(id, centavos);
+        });
+    }
+
+    public void quitar(Long productoId) {
+        despuesDelCommit(destino -> {
+            destino.textos().quitar(productoId);
+            destino.precios().quitar(productoId);
+        });
+    }
+
+    private void despuesDelCommit(Consumer<Indices> cambio) {
+        if (!habilitado) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar(cambio);
+                }
+            });
+        } else {
+            aplicar(cambio);
+        }
+    }
+
+    private void aplicar(Consumer<Indices> cambio) {
+        lock.writeLock().lock();
+        try {
+            cambio.accept(indices);
+            if (cambiosDuranteCarga != null) {
+                cambiosDuranteCarga.add(cambio);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record Indices(IndiceTrigramas textos, PreciosOrdenados precios) {
+    }
+}
@@ -0,0 +1,244 @@
+package um.prog2.trabajo.dataservice.busqueda;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas sobre el nombre y la descripción de los productos. No es seguro para
+ * hilos: {@link IndiceBusquedaProductos} lo protege con un lock de lectura/escritura.
+ * <p>
+ * Cada producto ocupa una posición (slot) y las listas de trigramas guardan posiciones como {@code int}
+ * para que el índice entre en memoria con millones de productos. Los textos se guardan normalizados
+ * (minúsculas, sin acentos ni signos). Una consulta recorre sólo la lista más corta de sus trigramas y
+ * verifica cada candidato contra el texto, así que el resultado es exacto.
+ */
+class IndiceTrigramas {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Puntaje por término según dónde aparece
+    private static final int AL_INICIO_DEL_NOMBRE = 4;
+    private static final int PALABRA_DEL_NOMBRE = 3;
+    private static final int DENTRO_DEL_NOMBRE = 2;
+    private static final int EN_LA_DESCRIPCION = 1;
+
+    private long[] ids = new long[1024];
+    private String[] nombres = new String[1024];
+    private String[] descripciones = new String[1024];
+    private int posicionesUsadas;
+    private int[] libres = new int[64];
+    private int cantidadLibres;
+
+    private final Map<Long, Integer> posicionPorId = new HashMap<>();
+    private final Map<Long, ListaPosiciones> posicionesPorTrigrama = new HashMap<>();
+
+    int tamano() {
+        return posicionPorId.size();
+    }
+
+    /**
+     * Agrega el producto o reemplaza sus textos; sólo se tocan las listas de los trigramas que cambiaron.
+     */
+    void poner(long id, String nombre, String descripcion) {
+        String nombreNormalizado = normalizar(nombre);
+        String descripcionNormalizada = normalizar(descripcion);
+        Set<Long> nuevos = trigramas(nombreNormalizado, descripcionNormalizada);
+
+        Integer existente = posicionPorId.get(id);
+        if (existente == null) {
+            int posicion = reservarPosicion();
+            ids[posicion] = id;
+            nombres[posicion] = nombreNormalizado;
+            descripciones[posicion] = descripcionNormalizada;
+            posicionPorId.put(id, posicion);
+            for (Long trigrama : nuevos) {
+                posicionesPorTrigrama.computeIfAbsent(trigrama, t -> new ListaPosiciones()).agregar(posicion);
+            }
+            return;
+        }
+
+        int posicion = existente;
+        Set<Long> anteriores = trigramas(nombres[posicion], descripciones[posicion]);
+        for (Long trigrama : anteriores) {
+            if (!nuevos.contains(trigrama)) {
+                quitarDeLista(trigrama, posicion);
+            }
+        }
+        for (Long trigrama : nuevos) {
+            if (!anteriores.contains(trigrama)) {
+                posicionesPorTrigrama.computeIfAbsent(trigrama, t -> new ListaPosiciones()).agregar(posicion);
+            }
+        }
+        nombres[posicion] = nombreNormalizado;
+        descripciones[posicion] = descripcionNormalizada;
+    }
+
+    void quitar(long id) {
+        Integer posicion = posicionPorId.remove(id);
+        if (posicion == null) {
+            return;
+        }
+        for (Long trigrama : trigramas(nombres[posicion], descripciones[posicion])) {
+            quitarDeLista(trigrama, posicion);
+        }
+        nombres[posicion] = null;
+        descripciones[posicion] = null;
+        if (cantidadLibres == libres.length) {
+            libres = Arrays.copyOf(libres, libres.length * 2);
+        }
+        libres[cantidadLibres++] = posicion;
+    }
+
+    /**
+     * Devuelve los IDs de los productos cuyo nombre o descripción contiene todos los términos de la
+     * consulta, del más relevante al menos relevante. Un término en el nombre pesa más que en la
+     * descripción, y más aún si el nombre empieza con él; a igual puntaje gana el nombre más corto.
+     */
+    List<Long> buscar(String consulta, int limite) {
+        String normalizada = normalizar(consulta);
+        if (normalizada.isEmpty() || limite < 1) {
+            return List.of();
+        }
+        String[] terminos = normalizada.split(" ");
+
+        // Basta con recorrer la lista más corta: un texto que contiene el término contiene todos sus trigramas
+        ListaPosiciones menor = null;
+        for (String termino : terminos) {
+            for (Long trigrama : trigramas(termino)) {
+                ListaPosiciones lista = posicionesPorTrigrama.get(trigrama);
+                if (lista == null) {
+                    return List.of();
+                }
+                if (menor == null || lista.tamano < menor.tamano) {
+                    menor = lista;
+                }
+            }
+        }
+
+        Comparator<Coincidencia> peorPrimero = Comparator.comparingInt(Coincidencia::puntaje)
+                .thenComparing(Comparator.comparingInt(Coincidencia::largoNombre).reversed())
+                .thenComparing(Comparator.comparingLong(Coincidencia::id).reversed());
+        PriorityQueue<Coincidencia> mejores = new PriorityQueue<>(limite, peorPrimero);
+        if (menor != null) {
+            for (int i = 0; i < menor.tamano; i++) {
+                evaluar(menor.posiciones[i], terminos, mejores, limite);
+            }
+        } else {
+            // Términos de menos de tres letras: no hay trigramas, se recorren todos los productos
+            for (int posicion = 0; posicion < posicionesUsadas; posicion++) {
+                if (nombres[posicion] != null) {
+                    evaluar(posicion, terminos, mejores, limite);
+                }
+            }
+        }
+
+        List<Coincidencia> ordenadas = new ArrayList<>(mejores);
+        ordenadas.sort(peorPrimero.reversed());
+        return ordenadas.stream().map(Coincidencia::id).toList();
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+        String sinAcentos = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return NO_ALFANUMERICO.matcher(sinAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private void evaluar(int posicion, String[] terminos, PriorityQueue<Coincidencia> mejores, int limite) {
+        String nombre = nombres[posicion];
+        String descripcion = descripciones[posicion];
+        int puntaje = 0;
+        for (String termino : terminos) {
+            int indice = nombre.indexOf(termino);
+            if (indice == 0) {
+                puntaje += AL_INICIO_DEL_NOMBRE;
+            } else if (indice > 0) {
+                puntaje += nombre.contains(" " + termino) ? PALABRA_DEL_NOMBRE : DENTRO_DEL_NOMBRE;
+            } else if (descripcion.contains(termino)) {
+                puntaje += EN_LA_DESCRIPCION;
+            } else {
+                return;
+            }
+        }
+        Coincidencia coincidencia = new Coincidencia(ids[posicion], puntaje, nombre.length());
+        if (mejores.size() < limite) {
+            mejores.offer(coincidencia);
+        } else if (mejores.comparator().compare(coincidencia, mejores.peek()) > 0) {
+            mejores.poll();
+            mejores.offer(coincidencia);
+        }
+    }
+
+    private int reservarPosicion() {
+        if (cantidadLibres > 0) {
+            return libres[--cantidadLibres];
+        }
+        if (posicionesUsadas == ids.length) {
+            int capacidad = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacidad);
+            nombres = Arrays.copyOf(nombres, capacidad);
+            descripciones = Arrays.copyOf(descripciones, capacidad);
+        }
+        return posicionesUsadas++;
+    }
+
+    private void quitarDeLista(Long trigrama, int posicion) {
+        ListaPosiciones lista = posicionesPorTrigrama.get(trigrama);
+        if (lista != null && lista.quitar(posicion) && lista.tamano == 0) {
+            posicionesPorTrigrama.remove(trigrama);
+        }
+    }
+
+    private static Set<Long> trigramas(String... textos) {
+        Set<Long> trigramas = new HashSet<>();
+        for (String texto : textos) {
+            for (int i = 0; i + 3 <= texto.length(); i++) {
+                char a = texto.charAt(i);
+                char b = texto.charAt(i + 1);
+                char c = texto.charAt(i + 2);
+                // Los términos de búsqueda no tienen espacios, así que esos trigramas nunca se consultan
+                if (a != ' ' && b != ' ' && c != ' ') {
+                    trigramas.add(((long) a << 32) | ((long) b << 16) | c);
+                }
+            }
+        }
+        return trigramas;
+    }
+
+    private static final class ListaPosiciones {
+        private int[] posiciones = new int[4];
+        private int tamano;
+
+        void agregar(int posicion) {
+            if (tamano == posiciones.length) {
+                posiciones = Arrays.copyOf(posiciones, tamano + (tamano >> 1) + 1);
+            }
+            posiciones[tamano++] = posicion;
+        }
+
+        boolean quitar(int posicion) {
+            for (int i = 0; i < tamano; i++) {
+                if (posiciones[i] == posicion) {
+                    posiciones[i] = posiciones[--tamano];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private record Coincidencia(long id, int puntaje, int largoNombre) {
+    }
+}
@@ -0,0 +1,143 @@
+package um.prog2.trabajo.dataservice.busqueda;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Precios de los productos en centavos, ordenados por (precio, id) en dos arreglos paralelos de
+ * {@code long}. Un rango de precios se resuelve con dos búsquedas binarias y una copia, sin objetos
+ * intermedios. No es seguro para hilos: {@link IndiceBusquedaProductos} lo protege con su lock.
+ * <p>
+ * Cada alta, baja o cambio de precio desplaza la cola de los arreglos (O(n)); con un millón de
+ * productos son unos pocos milisegundos por escritura, a cambio de lecturas sin asignaciones.
+ */
+class PreciosOrdenados {
+
+    private long[] centavos;
+    private long[] ids;
+    private int tamano;
+    // Sólo se usa al escribir, para ubicar la entrada anterior del producto
+    private final Map<Long, Long> centavosPorId;
+
+    PreciosOrdenados() {
+        this(new long[1024], new long[1024], 0, new HashMap<>());
+    }
+
+    private PreciosOrdenados(long[] centavos, long[] ids, int tamano, Map<Long, Long> centavosPorId) {
+        this.centavos = centavos;
+        this.ids = ids;
+        this.tamano = tamano;
+        this.centavosPorId = centavosPorId;
+    }
+
+    /**
+     * Arma el índice de una vez a partir de arreglos sin ordenar, en lugar de insertar uno por uno.
+     */
+    static PreciosOrdenados ordenar(long[] idsSinOrdenar, long[] centavosSinOrdenar, int cantidad) {
+        Integer[] orden = new Integer[cantidad];
+        Map<Long, Long> centavosPorId = new HashMap<>(cantidad * 2);
+        for (int i = 0; i < cantidad; i++) {
+            orden[i] = i;
+            centavosPorId.put(idsSinOrdenar[i], centavosSinOrdenar[i]);
+        }
+        Arrays.sort(orden, (a, b) -> comparar(centavosSinOrdenar[a], idsSinOrdenar[a],
+                centavosSinOrdenar[b], idsSinOrdenar[b]));
+
+        int capacidad = Math.max(1024, cantidad + (cantidad >> 3));
+        long[] centavos = new long[capacidad];
+        long[] ids = new long[capacidad];
+        for (int i = 0; i < cantidad; i++) {
+            centavos[i] = centavosSinOrdenar[orden[i]];
+            ids[i] = idsSinOrdenar[orden[i]];
+        }
+        return new PreciosOrdenados(centavos, ids, cantidad, centavosPorId);
+    }
+
+    int tamano() {
+        return tamano;
+    }
+
+    void poner(long id, long precioCentavos) {
+        Long anterior = centavosPorId.put(id, precioCentavos);
+        if (anterior != null) {
+            if (anterior == precioCentavos) {
+                return;
+            }
+            eliminarEn(buscarPosicion(anterior, id));
+        }
+        int posicion = -buscarPosicion(precioCentavos, id) - 1;
+        if (tamano == ids.length) {
+            int capacidad = tamano + (tamano >> 1);
+            centavos = Arrays.copyOf(centavos, capacidad);
+            ids = Arrays.copyOf(ids, capacidad);
+        }
+        System.arraycopy(centavos, posicion, centavos, posicion + 1, tamano - posicion);
+        System.arraycopy(ids, posicion, ids, posicion + 1, tamano - posicion);
+        centavos[posicion] = precioCentavos;
+        ids[posicion] = id;
+        tamano++;
+    }
+
+    void quitar(long id) {
+        Long anterior = centavosPorId.remove(id);
+        if (anterior != null) {
+            eliminarEn(buscarPosicion(anterior, id));
+        }
+    }
+
+    /**
+     * Copia en {@code destino} los IDs con precio entre {@code minCentavos} y {@code maxCentavos} (ambos
+     * incluidos), ordenados por (precio, id) y posteriores a la clave ({@code despuesDeCentavos},
+     * {@code despuesDeId}). Devuelve cuántos copió: como máximo {@code destino.length}.
+     */
+    int buscar(long minCentavos, long maxCentavos, long despuesDeCentavos, long despuesDeId, long[] destino) {
+        int desde = -buscarPosicion(minCentavos, Long.MIN_VALUE) - 1;
+        if (comparar(despuesDeCentavos, despuesDeId, minCentavos, Long.MIN_VALUE) > 0) {
+            int despuesDelCursor = buscarPosicion(despuesDeCentavos, despuesDeId);
+            desde = Math.max(desde, despuesDelCursor >= 0 ? despuesDelCursor + 1 : -despuesDelCursor - 1);
+        }
+        int hasta = -buscarPosicion(maxCentavos, Long.MAX_VALUE) - 1;
+        int cantidad = Math.max(0, Math.min(hasta - desde, destino.length));
+        System.arraycopy(ids, desde, destino, 0, cantidad);
+        return cantidad;
+    }
+
+    static long aCentavos(BigDecimal precio, RoundingMode redondeo) {
+        return precio.setScale(2, redondeo).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Igual que {@link Arrays#binarySearch}: la posición de la clave, o {@code -(punto de inserción) - 1}.
+     * Las claves con {@code Long.MIN_VALUE} o {@code Long.MAX_VALUE} como ID sirven de cotas del precio.
+     */
+    private int buscarPosicion(long precioCentavos, long id) {
+        int bajo = 0;
+        int alto = tamano - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int comparacion = comparar(centavos[medio], ids[medio], precioCentavos, id);
+            if (comparacion < 0) {
+                bajo = medio + 1;
+            } else if (comparacion > 0) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -(bajo + 1);
+    }
+
+    private void eliminarEn(int posicion) {
+        System.arraycopy(centavos, posicion + 1, centavos, posicion, tamano - posicion - 1);
+        System.arraycopy(ids, posicion + 1, ids, posicion, tamano - posicion - 1);
+        tamano--;
+    }
+
+    private static int comparar(long centavosA, long idA, long centavosB, long idB) {
+        int porPrecio = Long.compare(centavosA, centavosB);
+        return porPrecio != 0 ? porPrecio : Long.compare(idA, idB);
+    }
+}
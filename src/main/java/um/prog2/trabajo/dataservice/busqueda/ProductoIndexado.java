@@ -0,0 +1,9 @@
+package um.prog2.trabajo.dataservice.busqueda;
+
+import java.math.BigDecimal;
+
+/**
+ * Campos de un producto que alimentan el índice de búsqueda.
+ */
+public record ProductoIndexado(Long id, String nombre, String descripcion, BigDecimal precio) {
+}
@@ -0,0 +1,32 @@
+package um.prog2.trabajo.dataservice.busqueda;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import um.prog2.trabajo.dataservice.entity.Producto;
+
+/**
+ * Mantiene {@link IndiceBusquedaProductos} al día con cualquier escritura de {@link Producto} hecha por
+ * JPA en esta instancia (servicios, importación o repositorios). Hibernate lo crea a través de Spring.
+ */
+public class ProductoIndiceListener {
+
+    // Se resuelve al usarlo: el índice depende del repositorio y éste de la unidad de persistencia
+    private final ObjectProvider<IndiceBusquedaProductos> indiceBusqueda;
+
+    public ProductoIndiceListener(ObjectProvider<IndiceBusquedaProductos> indiceBusqueda) {
+        this.indiceBusqueda = indiceBusqueda;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void indexar(Producto producto) {
+        indiceBusqueda.getObject().indexar(producto);
+    }
+
+    @PostRemove
+    void quitar(Producto producto) {
+        indiceBusqueda.getObject().quitar(producto.getId());
+    }
+}
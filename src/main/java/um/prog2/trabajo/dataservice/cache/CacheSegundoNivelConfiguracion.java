@@ -0,0 +1,90 @@
+package um.prog2.trabajo.dataservice.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché de segundo nivel de Hibernate para el catálogo: las entidades {@code Categoria} y {@code Producto},
+ * la colección {@code Categoria.productos} y las consultas marcadas con {@code org.hibernate.cacheable} en los
+ * repositorios. Cada región es una caché JCache de Caffeine en la memoria de la instancia, con tamaño máximo
+ * y vencimiento; el vencimiento acota cuánto tarda una instancia en ver lo que escribió otra.
+ * <p>
+ * Por región se publican {@code cache.gets} (aciertos y fallos), {@code cache.puts}, {@code cache.removals} y
+ * {@code cache.evictions}, junto con {@code cache.entradas} y el máximo configurado en
+ * {@code cache.entradas.maximas}.
+ */
+@Configuration
+public class CacheSegundoNivelConfiguracion {
+
+    public static final String CATEGORIAS = "categorias";
+    public static final String PRODUCTOS = "productos";
+    public static final String PRODUCTOS_DE_CATEGORIA = "categorias.productos";
+
+    @Bean
+    public CacheManager cacheSegundoNivel(MeterRegistry registro,
+                                          @Value("${data.cache-segundo-nivel.categorias:1000}") long categorias,
+                                          @Value("${data.cache-segundo-nivel.productos:100000}") long productos,
+                                          @Value("${data.cache-segundo-nivel.productos-de-categoria:1000}") long productosDeCategoria,
+                                          @Value("${data.cache-segundo-nivel.consultas:10000}") long consultas,
+                                          @Value("${data.cache-segundo-nivel.vencimiento-minutos:10}") long vencimientoMinutos) {
+        // Un CacheManager por contexto de Spring: las pruebas levantan varios en la misma JVM
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("cache-segundo-nivel-" + UUID.randomUUID()), getClass().getClassLoader());
+        OptionalLong vencimiento = OptionalLong.of(TimeUnit.MINUTES.toNanos(vencimientoMinutos));
+        crearRegion(cacheManager, registro, CATEGORIAS, OptionalLong.of(categorias), vencimiento);
+        crearRegion(cacheManager, registro, PRODUCTOS, OptionalLong.of(productos), vencimiento);
+        crearRegion(cacheManager, registro, PRODUCTOS_DE_CATEGORIA, OptionalLong.of(productosDeCategoria), vencimiento);
+        crearRegion(cacheManager, registro, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                OptionalLong.of(consultas), vencimiento);
+        // La última modificación de cada tabla no se desaloja ni vence: sin ella una consulta cacheada pasaría por vigente
+        crearRegion(cacheManager, registro, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                OptionalLong.empty(), OptionalLong.empty());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivelHibernate(CacheManager cacheSegundoNivel) {
+        return propiedades -> propiedades.put(ConfigSettings.CACHE_MANAGER, cacheSegundoNivel);
+    }
+
+    private static void crearRegion(CacheManager cacheManager, MeterRegistry registro, String nombre,
+                                    OptionalLong maximo, OptionalLong vencimiento) {
+        CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>();
+        configuracion.setMaximumSize(maximo);
+        configuracion.setExpireAfterWrite(vencimiento);
+        // Hibernate guarda entradas que no modifica: copiarlas con serialización en cada lectura no aporta
+        configuracion.setStoreByValue(false);
+        configuracion.setStatisticsEnabled(true);
+        Cache<Object, Object> region = cacheManager.createCache(nombre, configuracion);
+
+        JCacheMetrics.monitor(registro, region, Tags.empty());
+        com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine =
+                region.unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+        Gauge.builder("cache.entradas", caffeine, com.github.benmanes.caffeine.cache.Cache::estimatedSize)
+                .tag("cache", nombre)
+                .description("Entradas en la región de la caché de segundo nivel")
+                .register(registro);
+        maximo.ifPresent(entradas -> Gauge.builder("cache.entradas.maximas", () -> entradas)
+                .tag("cache", nombre)
+                .description("Entradas que admite la región antes de desalojar")
+                .register(registro));
+    }
+}
@@ -2,19 +2,41 @@ package um.prog2.trabajo.dataservice.controller;
 
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import um.prog2.trabajo.dataservice.dto.CategoriaVista;
+import um.prog2.trabajo.dataservice.dto.DisponibilidadStock;
+import um.prog2.trabajo.dataservice.dto.InventarioVista;
+import um.prog2.trabajo.dataservice.dto.LoteEventosStock;
+import um.prog2.trabajo.dataservice.dto.PaginaKeyset;
+import um.prog2.trabajo.dataservice.dto.ProductoConInventarioRequest;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+import um.prog2.trabajo.dataservice.dto.PuntoValuacion;
+import um.prog2.trabajo.dataservice.dto.Reserva;
+import um.prog2.trabajo.dataservice.dto.ResultadoImportacion;
+import um.prog2.trabajo.dataservice.dto.ResumenInventario;
+import um.prog2.trabajo.dataservice.dto.ValuacionInventarioVista;
 import um.prog2.trabajo.dataservice.entity.Categoria;
 import um.prog2.trabajo.dataservice.entity.Inventario;
 import um.prog2.trabajo.dataservice.entity.Producto;
+import um.prog2.trabajo.dataservice.eventos.RegistroEventosStock;
+import um.prog2.trabajo.dataservice.reserva.MotorReservasStock;
 import um.prog2.trabajo.dataservice.service.CategoriaService;
+import um.prog2.trabajo.dataservice.service.ImportacionProductoService;
 import um.prog2.trabajo.dataservice.service.InventarioService;
 import um.prog2.trabajo.dataservice.service.ProductoService;
+import um.prog2.trabajo.dataservice.service.ValuacionInventarioService;
+import um.prog2.trabajo.dataservice.versiones.Coleccion;
+import um.prog2.trabajo.dataservice.versiones.Versionado;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/data")
@@ -25,44 +47,90 @@ public class DataController {
     private final ProductoService productoService;
     private final CategoriaService categoriaService;
     private final InventarioService inventarioService;
+    private final ImportacionProductoService importacionProductoService;
+    private final MotorReservasStock motorReservasStock;
+    private final RegistroEventosStock registroEventosStock;
+    private final ValuacionInventarioService valuacionInventarioService;
 
     public DataController(ProductoService productoService,
                          CategoriaService categoriaService,
-                         InventarioService inventarioService) {
+                         InventarioService inventarioService,
+                         ImportacionProductoService importacionProductoService,
+                         MotorReservasStock motorReservasStock,
+                         RegistroEventosStock registroEventosStock,
+                         ValuacionInventarioService valuacionInventarioService) {
         this.productoService = productoService;
         this.categoriaService = categoriaService;
         this.inventarioService = inventarioService;
+        this.importacionProductoService = importacionProductoService;
+        this.motorReservasStock = motorReservasStock;
+        this.registroEventosStock = registroEventosStock;
+        this.valuacionInventarioService = valuacionInventarioService;
     }
 
     // ========== ENDPOINTS DE PRODUCTOS ==========
     
     @GetMapping("/productos")
-    public ResponseEntity<List<Producto>> obtenerTodosLosProductos() {
-        log.info("GET /data/productos - Obteniendo todos los productos");
-        List<Producto> productos = productoService.obtenerTodos();
+    @Versionado(colecciones = {Coleccion.PRODUCTOS, Coleccion.CATEGORIAS, Coleccion.INVENTARIO})
+    public ResponseEntity<PaginaKeyset<ProductoVista>> obtenerTodosLosProductos(
+            @RequestParam(name = "after", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limite) {
+        log.info("GET /data/productos?after={}&limit={} - Obteniendo página de productos", cursor, limite);
+        PaginaKeyset<ProductoVista> pagina = productoService.obtenerPagina(cursor, limite);
+        return ResponseEntity.ok(pagina);
+    }
+
+    // Multi-get: GET /data/productos?ids=1,2,3 (los IDs inexistentes se omiten)
+    @GetMapping(value = "/productos", params = "ids")
+    public ResponseEntity<List<ProductoVista>> obtenerProductosPorIds(@RequestParam Set<Long> ids) {
+        log.info("GET /data/productos?ids= - Obteniendo {} productos por ID", ids.size());
+        List<ProductoVista> productos = productoService.buscarVistasPorIds(ids);
         return ResponseEntity.ok(productos);
     }
 
     @GetMapping("/productos/{id}")
-    public ResponseEntity<Producto> obtenerProductoPorId(@PathVariable Long id) {
+    @Versionado(colecciones = Coleccion.CATEGORIAS, filas = {Coleccion.PRODUCTOS, Coleccion.INVENTARIO}, id = "id")
+    public ResponseEntity<ProductoVista> obtenerProductoPorId(@PathVariable Long id) {
         log.info("GET /data/productos/{} - Obteniendo producto por ID", id);
-        Producto producto = productoService.buscarPorId(id);
+        ProductoVista producto = productoService.buscarVistaPorId(id);
         return ResponseEntity.ok(producto);
     }
 
     @PostMapping("/productos")
-    public ResponseEntity<Producto> crearProducto(@Valid @RequestBody Producto producto) {
+    public ResponseEntity<ProductoVista> crearProducto(@Valid @RequestBody Producto producto) {
         log.info("POST /data/productos - Creando nuevo producto: {}", producto.getNombre());
         Producto nuevoProducto = productoService.guardar(producto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(nuevoProducto);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ProductoVista.desde(nuevoProducto));
+    }
+
+    @PostMapping("/productos/con-inventario")
+    public ResponseEntity<ProductoVista> crearProductoConInventario(@Valid @RequestBody ProductoConInventarioRequest request) {
+        log.info("POST /data/productos/con-inventario - Creando producto con inventario: {}", request.getNombre());
+        Producto nuevoProducto = productoService.crearConInventario(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ProductoVista.desde(nuevoProducto));
+    }
+
+    @PostMapping("/productos/batch")
+    public ResponseEntity<ResultadoImportacion> importarProductos(@RequestBody List<ProductoConInventarioRequest> filas) {
+        log.info("POST /data/productos/batch - Importando {} productos", filas.size());
+        ResultadoImportacion resultado = importacionProductoService.importar(filas);
+        return ResponseEntity.ok(resultado);
     }
 
     @PutMapping("/productos/{id}")
-    public ResponseEntity<Producto> actualizarProducto(@PathVariable Long id, 
-                                                       @Valid @RequestBody Producto producto) {
+    public ResponseEntity<ProductoVista> actualizarProducto(@PathVariable Long id, 
+                                                            @Valid @RequestBody Producto producto) {
         log.info("PUT /data/productos/{} - Actualizando producto", id);
         Producto productoActualizado = productoService.actualizar(id, producto);
-        return ResponseEntity.ok(productoActualizado);
+        return ResponseEntity.ok(ProductoVista.desde(productoActualizado));
+    }
+
+    @PutMapping("/productos/{id}/con-inventario")
+    public ResponseEntity<ProductoVista> actualizarProductoConInventario(@PathVariable Long id,
+                                                                         @Valid @RequestBody ProductoConInventarioRequest request) {
+        log.info("PUT /data/productos/{}/con-inventario - Actualizando producto con inventario", id);
+        Producto productoActualizado = productoService.actualizarConInventario(id, request);
+        return ResponseEntity.ok(ProductoVista.desde(productoActualizado));
     }
 
     @DeleteMapping("/productos/{id}")
@@ -73,64 +141,85 @@ public class DataController {
     }
 
     @GetMapping("/productos/categoria/{nombre}")
-    public ResponseEntity<List<Producto>> obtenerProductosPorCategoria(@PathVariable String nombre) {
+    @Versionado(colecciones = {Coleccion.PRODUCTOS, Coleccion.CATEGORIAS, Coleccion.INVENTARIO})
+    public ResponseEntity<List<ProductoVista>> obtenerProductosPorCategoria(@PathVariable String nombre) {
         log.info("GET /data/productos/categoria/{} - Obteniendo productos por categoría", nombre);
-        List<Producto> productos = productoService.buscarPorCategoria(nombre);
+        List<ProductoVista> productos = productoService.buscarPorCategoria(nombre);
         return ResponseEntity.ok(productos);
     }
 
     @GetMapping("/productos/buscar")
-    public ResponseEntity<List<Producto>> buscarProductosPorNombre(@RequestParam String nombre) {
-        log.info("GET /data/productos/buscar?nombre={} - Buscando productos por nombre", nombre);
-        List<Producto> productos = productoService.buscarPorNombre(nombre);
+    @Versionado(colecciones = {Coleccion.PRODUCTOS, Coleccion.CATEGORIAS, Coleccion.INVENTARIO})
+    public ResponseEntity<List<ProductoVista>> buscarProductosPorNombre(
+            @RequestParam String nombre,
+            @RequestParam(name = "limit", defaultValue = "50") int limite) {
+        log.info("GET /data/productos/buscar?nombre={}&limit={} - Buscando productos por nombre", nombre, limite);
+        List<ProductoVista> productos = productoService.buscarPorNombre(nombre, limite);
         return ResponseEntity.ok(productos);
     }
 
     @GetMapping("/productos/precio")
-    public ResponseEntity<List<Producto>> buscarProductosPorRangoPrecio(
+    @Versionado(colecciones = {Coleccion.PRODUCTOS, Coleccion.CATEGORIAS, Coleccion.INVENTARIO})
+    public ResponseEntity<PaginaKeyset<ProductoVista>> buscarProductosPorRangoPrecio(
             @RequestParam BigDecimal min, 
-            @RequestParam BigDecimal max) {
-        log.info("GET /data/productos/precio?min={}&max={} - Buscando productos por rango de precio", min, max);
-        List<Producto> productos = productoService.buscarPorRangoPrecio(min, max);
-        return ResponseEntity.ok(productos);
+            @RequestParam BigDecimal max,
+            @RequestParam(name = "after", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limite) {
+        log.info("GET /data/productos/precio?min={}&max={}&after={}&limit={} - Buscando productos por rango de precio",
+                min, max, cursor, limite);
+        PaginaKeyset<ProductoVista> pagina = productoService.buscarPorRangoPrecio(min, max, cursor, limite);
+        return ResponseEntity.ok(pagina);
     }
 
     // ========== ENDPOINTS DE CATEGORÍAS ==========
 
     @GetMapping("/categorias")
-    public ResponseEntity<List<Categoria>> obtenerTodasLasCategorias() {
-        log.info("GET /data/categorias - Obteniendo todas las categorías");
-        List<Categoria> categorias = categoriaService.obtenerTodas();
-        return ResponseEntity.ok(categorias);
+    @Versionado(colecciones = {Coleccion.CATEGORIAS, Coleccion.PRODUCTOS})
+    public ResponseEntity<PaginaKeyset<CategoriaVista>> obtenerTodasLasCategorias(
+            @RequestParam(name = "after", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limite) {
+        log.info("GET /data/categorias?after={}&limit={} - Obteniendo página de categorías", cursor, limite);
+        PaginaKeyset<CategoriaVista> pagina = categoriaService.obtenerPagina(cursor, limite);
+        return ResponseEntity.ok(pagina);
     }
 
     @GetMapping("/categorias/{id}")
-    public ResponseEntity<Categoria> obtenerCategoriaPorId(@PathVariable Long id) {
+    @Versionado(colecciones = Coleccion.PRODUCTOS, filas = Coleccion.CATEGORIAS, id = "id")
+    public ResponseEntity<CategoriaVista> obtenerCategoriaPorId(@PathVariable Long id) {
         log.info("GET /data/categorias/{} - Obteniendo categoría por ID", id);
-        Categoria categoria = categoriaService.buscarPorId(id);
+        CategoriaVista categoria = categoriaService.buscarVistaPorId(id);
         return ResponseEntity.ok(categoria);
     }
 
     @GetMapping("/categorias/nombre/{nombre}")
-    public ResponseEntity<Categoria> obtenerCategoriaPorNombre(@PathVariable String nombre) {
+    @Versionado(colecciones = {Coleccion.CATEGORIAS, Coleccion.PRODUCTOS})
+    public ResponseEntity<CategoriaVista> obtenerCategoriaPorNombre(@PathVariable String nombre) {
         log.info("GET /data/categorias/nombre/{} - Obteniendo categoría por nombre", nombre);
-        Categoria categoria = categoriaService.buscarPorNombre(nombre);
+        CategoriaVista categoria = categoriaService.buscarVistaPorNombre(nombre);
         return ResponseEntity.ok(categoria);
     }
 
+    @GetMapping("/categorias/{id}/productos")
+    @Versionado(colecciones = {Coleccion.PRODUCTOS, Coleccion.CATEGORIAS, Coleccion.INVENTARIO})
+    public ResponseEntity<List<ProductoVista>> obtenerProductosDeCategoria(@PathVariable Long id) {
+        log.info("GET /data/categorias/{}/productos - Obteniendo productos de la categoría", id);
+        List<ProductoVista> productos = productoService.buscarPorCategoriaId(id);
+        return ResponseEntity.ok(productos);
+    }
+    
     @PostMapping("/categorias")
-    public ResponseEntity<Categoria> crearCategoria(@Valid @RequestBody Categoria categoria) {
+    public ResponseEntity<CategoriaVista> crearCategoria(@Valid @RequestBody Categoria categoria) {
         log.info("POST /data/categorias - Creando nueva categoría: {}", categoria.getNombre());
         Categoria nuevaCategoria = categoriaService.guardar(categoria);
-        return ResponseEntity.status(HttpStatus.CREATED).body(nuevaCategoria);
+        return ResponseEntity.status(HttpStatus.CREATED).body(CategoriaVista.desde(nuevaCategoria, 0));
     }
 
     @PutMapping("/categorias/{id}")
-    public ResponseEntity<Categoria> actualizarCategoria(@PathVariable Long id, 
-                                                         @Valid @RequestBody Categoria categoria) {
+    public ResponseEntity<CategoriaVista> actualizarCategoria(@PathVariable Long id, 
+                                                              @Valid @RequestBody Categoria categoria) {
         log.info("PUT /data/categorias/{} - Actualizando categoría", id);
-        Categoria categoriaActualizada = categoriaService.actualizar(id, categoria);
-        return ResponseEntity.ok(categoriaActualizada);
+        categoriaService.actualizar(id, categoria);
+        return ResponseEntity.ok(categoriaService.buscarVistaPorId(id));
     }
 
     @DeleteMapping("/categorias/{id}")
@@ -143,61 +232,146 @@ public class DataController {
     // ========== ENDPOINTS DE INVENTARIO ==========
 
     @GetMapping("/inventario")
-    public ResponseEntity<List<Inventario>> obtenerTodoElInventario() {
-        log.info("GET /data/inventario - Obteniendo todo el inventario");
-        List<Inventario> inventarios = inventarioService.obtenerTodos();
+    @Versionado(colecciones = {Coleccion.INVENTARIO, Coleccion.PRODUCTOS})
+    public ResponseEntity<PaginaKeyset<InventarioVista>> obtenerTodoElInventario(
+            @RequestParam(name = "after", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limite) {
+        log.info("GET /data/inventario?after={}&limit={} - Obteniendo página de inventario", cursor, limite);
+        PaginaKeyset<InventarioVista> pagina = inventarioService.obtenerPagina(cursor, limite);
+        return ResponseEntity.ok(pagina);
+    }
+
+    @GetMapping(value = "/inventario", params = "productoIds")
+    public ResponseEntity<List<InventarioVista>> obtenerInventarioPorProductoIds(@RequestParam Set<Long> productoIds) {
+        log.info("GET /data/inventario?productoIds= - Obteniendo inventario de {} productos", productoIds.size());
+        List<InventarioVista> inventarios = inventarioService.buscarVistasPorProductoIds(productoIds);
         return ResponseEntity.ok(inventarios);
     }
 
     @GetMapping("/inventario/{id}")
-    public ResponseEntity<Inventario> obtenerInventarioPorId(@PathVariable Long id) {
+    @Versionado(colecciones = {Coleccion.INVENTARIO, Coleccion.PRODUCTOS})
+    public ResponseEntity<InventarioVista> obtenerInventarioPorId(@PathVariable Long id) {
         log.info("GET /data/inventario/{} - Obteniendo inventario por ID", id);
-        Inventario inventario = inventarioService.buscarPorId(id);
+        InventarioVista inventario = inventarioService.buscarVistaPorId(id);
         return ResponseEntity.ok(inventario);
     }
 
     @GetMapping("/inventario/producto/{productoId}")
-    public ResponseEntity<Inventario> obtenerInventarioPorProductoId(@PathVariable Long productoId) {
+    @Versionado(filas = {Coleccion.INVENTARIO, Coleccion.PRODUCTOS}, id = "productoId")
+    public ResponseEntity<InventarioVista> obtenerInventarioPorProductoId(@PathVariable Long productoId) {
         log.info("GET /data/inventario/producto/{} - Obteniendo inventario por producto ID", productoId);
-        Inventario inventario = inventarioService.buscarPorProductoId(productoId);
+        InventarioVista inventario = inventarioService.buscarVistaPorProductoId(productoId);
         return ResponseEntity.ok(inventario);
     }
 
     @GetMapping("/inventario/stock-bajo")
-    public ResponseEntity<List<Inventario>> obtenerProductosConStockBajo() {
+    @Versionado(colecciones = {Coleccion.PRODUCTOS, Coleccion.CATEGORIAS, Coleccion.INVENTARIO})
+    public ResponseEntity<List<ProductoVista>> obtenerProductosConStockBajo() {
         log.info("GET /data/inventario/stock-bajo - Obteniendo productos con stock bajo");
-        List<Inventario> inventarios = inventarioService.obtenerProductosConStockBajo();
-        return ResponseEntity.ok(inventarios);
+        List<ProductoVista> productos = inventarioService.obtenerProductosConStockBajo();
+        return ResponseEntity.ok(productos);
     }
 
     @GetMapping("/inventario/sin-stock")
-    public ResponseEntity<List<Inventario>> obtenerProductosSinStock() {
+    @Versionado(colecciones = {Coleccion.PRODUCTOS, Coleccion.CATEGORIAS, Coleccion.INVENTARIO})
+    public ResponseEntity<List<ProductoVista>> obtenerProductosSinStock() {
         log.info("GET /data/inventario/sin-stock - Obteniendo productos sin stock");
-        List<Inventario> inventarios = inventarioService.obtenerProductosSinStock();
-        return ResponseEntity.ok(inventarios);
+        List<ProductoVista> productos = inventarioService.obtenerProductosSinStock();
+        return ResponseEntity.ok(productos);
+    }
+
+    /**
+     * Long polling de los cruces de umbral de stock: responde en cuanto hay eventos posteriores a
+     * {@code after}, o con un lote vacío cuando pasa {@code esperaMs}. Fuera de transacción a propósito,
+     * para no retener una conexión de la base mientras se espera.
+     */
+    @GetMapping("/inventario/eventos")
+    public ResponseEntity<LoteEventosStock> obtenerEventosStock(
+            @RequestParam(name = "after", required = false) Long despuesDeId,
+            @RequestParam(name = "limit", defaultValue = "100") int limite,
+            @RequestParam(name = "esperaMs", defaultValue = "0") long esperaMs) throws InterruptedException {
+        log.debug("GET /data/inventario/eventos?after={}&limit={}&esperaMs={} - Esperando eventos de stock",
+                despuesDeId, limite, esperaMs);
+        LoteEventosStock lote = registroEventosStock.obtenerDespuesDe(despuesDeId, limite,
+                Duration.ofMillis(Math.max(0, esperaMs)));
+        return ResponseEntity.ok(lote);
+    }
+
+    @GetMapping("/inventario/resumen")
+    @Versionado(colecciones = {Coleccion.INVENTARIO, Coleccion.PRODUCTOS})
+    public ResponseEntity<ResumenInventario> obtenerResumenInventario() {
+        log.info("GET /data/inventario/resumen - Obteniendo resumen agregado del inventario");
+        ResumenInventario resumen = inventarioService.obtenerResumen();
+        return ResponseEntity.ok(resumen);
+    }
+
+    @GetMapping("/inventario/valuaciones/ultima")
+    public ResponseEntity<ValuacionInventarioVista> obtenerUltimaValuacion() {
+        log.info("GET /data/inventario/valuaciones/ultima - Obteniendo la última valuación del inventario");
+        ValuacionInventarioVista valuacion = valuacionInventarioService.obtenerUltima();
+        return ResponseEntity.ok(valuacion);
+    }
+
+    /**
+     * Toma una valuación fuera de la programación, por ejemplo después de una importación del catálogo.
+     */
+    @PostMapping("/inventario/valuaciones")
+    public ResponseEntity<ValuacionInventarioVista> tomarValuacion() {
+        log.info("POST /data/inventario/valuaciones - Tomando una valuación del inventario");
+        ValuacionInventarioVista valuacion = valuacionInventarioService.tomar();
+        return ResponseEntity.status(HttpStatus.CREATED).body(valuacion);
+    }
+
+    @GetMapping("/inventario/valuaciones")
+    public ResponseEntity<List<PuntoValuacion>> obtenerHistorialValuaciones(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) Long categoriaId,
+            @RequestParam(name = "limit", defaultValue = "500") int limite) {
+        log.info("GET /data/inventario/valuaciones?desde={}&hasta={}&categoriaId={}&limit={} - Obteniendo historial de valuaciones",
+                desde, hasta, categoriaId, limite);
+        List<PuntoValuacion> historial = valuacionInventarioService.obtenerHistorial(desde, hasta, categoriaId, limite);
+        return ResponseEntity.ok(historial);
     }
 
     @PostMapping("/inventario")
-    public ResponseEntity<Inventario> crearInventario(@Valid @RequestBody Inventario inventario) {
+    public ResponseEntity<InventarioVista> crearInventario(@Valid @RequestBody Inventario inventario) {
         log.info("POST /data/inventario - Creando nuevo inventario");
         Inventario nuevoInventario = inventarioService.guardar(inventario);
-        return ResponseEntity.status(HttpStatus.CREATED).body(nuevoInventario);
+        return ResponseEntity.status(HttpStatus.CREATED).body(InventarioVista.desde(nuevoInventario));
     }
 
     @PutMapping("/inventario/{id}")
-    public ResponseEntity<Inventario> actualizarInventario(@PathVariable Long id, 
-                                                           @Valid @RequestBody Inventario inventario) {
+    public ResponseEntity<InventarioVista> actualizarInventario(@PathVariable Long id, 
+                                                                @Valid @RequestBody Inventario inventario) {
         log.info("PUT /data/inventario/{} - Actualizando inventario", id);
         Inventario inventarioActualizado = inventarioService.actualizar(id, inventario);
-        return ResponseEntity.ok(inventarioActualizado);
+        return ResponseEntity.ok(InventarioVista.desde(inventarioActualizado));
     }
 
     @PutMapping("/inventario/{id}/stock")
-    public ResponseEntity<Inventario> actualizarStock(@PathVariable Long id, 
-                                                      @RequestParam Integer cantidad) {
+    public ResponseEntity<InventarioVista> actualizarStock(@PathVariable Long id, 
+                                                           @RequestParam Integer cantidad,
+                                                           @RequestParam(required = false) Long version) {
         log.info("PUT /data/inventario/{}/stock?cantidad={} - Actualizando stock", id, cantidad);
-        Inventario inventarioActualizado = inventarioService.actualizarStock(id, cantidad);
-        return ResponseEntity.ok(inventarioActualizado);
+        Inventario inventarioActualizado = inventarioService.actualizarStock(id, cantidad, version);
+        return ResponseEntity.ok(InventarioVista.desde(inventarioActualizado));
+    }
+
+    @PostMapping("/inventario/producto/{productoId}/incrementar")
+    public ResponseEntity<InventarioVista> incrementarStock(@PathVariable Long productoId,
+                                                            @RequestParam Integer cantidad) {
+        log.info("POST /data/inventario/producto/{}/incrementar?cantidad={} - Incrementando stock", productoId, cantidad);
+        Inventario inventarioActualizado = inventarioService.incrementarStock(productoId, cantidad);
+        return ResponseEntity.ok(InventarioVista.desde(inventarioActualizado));
+    }
+
+    @PostMapping("/inventario/producto/{productoId}/decrementar")
+    public ResponseEntity<InventarioVista> decrementarStock(@PathVariable Long productoId,
+                                                            @RequestParam Integer cantidad) {
+        log.info("POST /data/inventario/producto/{}/decrementar?cantidad={} - Decrementando stock", productoId, cantidad);
+        Inventario inventarioActualizado = inventarioService.decrementarStock(productoId, cantidad);
+        return ResponseEntity.ok(InventarioVista.desde(inventarioActualizado));
     }
 
     @DeleteMapping("/inventario/{id}")
@@ -206,4 +380,35 @@ public class DataController {
         inventarioService.eliminar(id);
         return ResponseEntity.noContent().build();
     }
+
+    // ========== ENDPOINTS DE RESERVAS ==========
+
+    @PostMapping("/reservas")
+    public ResponseEntity<Reserva> reservarStock(@RequestParam Long productoId,
+                                                 @RequestParam Integer cantidad) {
+        log.info("POST /data/reservas?productoId={}&cantidad={} - Reservando stock", productoId, cantidad);
+        Reserva reserva = motorReservasStock.reservar(productoId, cantidad);
+        return ResponseEntity.status(HttpStatus.CREATED).body(reserva);
+    }
+
+    @PostMapping("/reservas/{id}/confirmar")
+    public ResponseEntity<Void> confirmarReserva(@PathVariable String id) {
+        log.info("POST /data/reservas/{}/confirmar - Confirmando reserva", id);
+        motorReservasStock.confirmar(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/reservas/{id}")
+    public ResponseEntity<Void> cancelarReserva(@PathVariable String id) {
+        log.info("DELETE /data/reservas/{} - Cancelando reserva", id);
+        motorReservasStock.cancelar(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/reservas/producto/{productoId}")
+    public ResponseEntity<DisponibilidadStock> consultarDisponibilidad(@PathVariable Long productoId) {
+        log.info("GET /data/reservas/producto/{} - Consultando disponibilidad en memoria", productoId);
+        DisponibilidadStock disponibilidad = motorReservasStock.consultarDisponibilidad(productoId);
+        return ResponseEntity.ok(disponibilidad);
+    }
 }
@@ -1,18 +1,21 @@
 package um.prog2.trabajo.dataservice.controller;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import um.prog2.trabajo.dataservice.exception.PlazoVencidoException;
 import um.prog2.trabajo.dataservice.exception.RecursoNoEncontradoException;
+import um.prog2.trabajo.dataservice.exception.StockInsuficienteException;
 
 import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-@RestControllerAdvice
+@RestControllerAdvice(basePackageClasses = DataController.class)
 @Slf4j
 public class GlobalExceptionHandler {
 
@@ -31,6 +34,51 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(StockInsuficienteException.class)
+    public ResponseEntity<Object> handleStockInsuficiente(
+            StockInsuficienteException ex, WebRequest request) {
+        log.error("Stock insuficiente: {}", ex.getMessage());
+        
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("error", "Conflict");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLocking(
+            OptimisticLockingFailureException ex, WebRequest request) {
+        log.error("Conflicto de concurrencia: {}", ex.getMessage());
+        
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("error", "Conflict");
+        body.put("message", "El recurso fue modificado por otra operación, vuelva a obtenerlo e intente nuevamente");
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(PlazoVencidoException.class)
+    public ResponseEntity<Object> handlePlazoVencido(
+            PlazoVencidoException ex, WebRequest request) {
+        log.warn("Plazo vencido: {}", ex.getMessage());
+        
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.GATEWAY_TIMEOUT.value());
+        body.put("error", "Gateway Timeout");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return new ResponseEntity<>(body, HttpStatus.GATEWAY_TIMEOUT);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Object> handleIllegalArgument(
             IllegalArgumentException ex, WebRequest request) {
@@ -0,0 +1,17 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import um.prog2.trabajo.dataservice.entity.Categoria;
+
+/**
+ * Proyección plana de una categoría: en lugar de sus productos lleva la cantidad.
+ */
+public record CategoriaVista(Long id,
+                             String nombre,
+                             String descripcion,
+                             Long cantidadProductos) {
+
+    public static CategoriaVista desde(Categoria categoria, long cantidadProductos) {
+        return new CategoriaVista(categoria.getId(), categoria.getNombre(), categoria.getDescripcion(),
+                cantidadProductos);
+    }
+}
@@ -0,0 +1,37 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor de los listados ordenados por precio: la clave (precio, id) del último producto entregado.
+ * Sin cursor, {@code precio} es {@code null} y la búsqueda empieza en el precio mínimo pedido.
+ */
+public record CursorPrecio(BigDecimal precio, Long id) {
+
+    private static final CursorPrecio INICIO = new CursorPrecio(null, 0L);
+
+    public static CursorPrecio de(ProductoVista producto) {
+        return new CursorPrecio(producto.precio(), producto.id());
+    }
+
+    public String codificar() {
+        String valor = precio.toPlainString() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorPrecio decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return INICIO;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.indexOf(':');
+            return new CursorPrecio(new BigDecimal(valor.substring(0, separador)),
+                    Long.parseLong(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor);
+        }
+    }
+}
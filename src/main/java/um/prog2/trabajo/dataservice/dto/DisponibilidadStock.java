@@ -0,0 +1,15 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DisponibilidadStock {
+    private Long productoId;
+    private Long disponible;
+    private Long reservado;
+    private Long pendienteDeVolcar;
+}
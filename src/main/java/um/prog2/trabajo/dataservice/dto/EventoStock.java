@@ -0,0 +1,14 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un cruce de umbral de stock. Los IDs son crecientes dentro de una misma ejecución del servicio de datos.
+ */
+public record EventoStock(long id,
+                          Long productoId,
+                          TipoEventoStock tipo,
+                          int cantidad,
+                          Integer stockMinimo,
+                          LocalDateTime fecha) {
+}
@@ -0,0 +1,28 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import um.prog2.trabajo.dataservice.entity.Inventario;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección plana de un registro de inventario con el nombre de su producto.
+ */
+public record InventarioVista(Long id,
+                              Long productoId,
+                              String productoNombre,
+                              Integer cantidad,
+                              Integer stockMinimo,
+                              LocalDateTime fechaActualizacion,
+                              Long version) {
+
+    public static InventarioVista desde(Inventario inventario) {
+        return new InventarioVista(
+                inventario.getId(),
+                inventario.getProducto() != null ? inventario.getProducto().getId() : null,
+                inventario.getProducto() != null ? inventario.getProducto().getNombre() : null,
+                inventario.getCantidad(),
+                inventario.getStockMinimo(),
+                inventario.getFechaActualizacion(),
+                inventario.getVersion());
+    }
+}
@@ -0,0 +1,13 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import java.util.List;
+
+/**
+ * Respuesta de la consulta de eventos de stock.
+ *
+ * @param ultimoId   valor a enviar como {@code after} en la próxima consulta
+ * @param incompleto {@code true} si se perdieron eventos posteriores al {@code after} pedido (ya no están
+ *                   en memoria o el servicio de datos se reinició); quien consume debe releer los reportes
+ */
+public record LoteEventosStock(List<EventoStock> eventos, long ultimoId, boolean incompleto) {
+}
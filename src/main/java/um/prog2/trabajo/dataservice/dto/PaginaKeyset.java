@@ -0,0 +1,75 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de resultados paginados por cursor (keyset) sobre el ID ascendente.
+ * El cursor es opaco para los clientes: sólo debe reenviarse tal cual en el parámetro {@code after}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaKeyset<T> {
+    public static final int LIMITE_MAXIMO = 500;
+
+    private List<T> contenido = new ArrayList<>();
+    private String siguienteCursor;
+    private boolean hayMas;
+
+    /**
+     * Arma la página a partir de una consulta que pidió {@code limite + 1} filas:
+     * la fila extra sólo indica que hay más resultados y no se devuelve.
+     */
+    public static <T> PaginaKeyset<T> desde(List<T> filas, int limite, Function<T, Long> obtenerId) {
+        return desdeOrdenadas(filas, limite, fila -> codificarCursor(obtenerId.apply(fila)));
+    }
+
+    /**
+     * Como {@link #desde}, para listados ordenados por otra clave: {@code cursorDe} arma el cursor
+     * a partir de la última fila de la página.
+     */
+    public static <T> PaginaKeyset<T> desdeOrdenadas(List<T> filas, int limite, Function<T, String> cursorDe) {
+        boolean hayMas = filas.size() > limite;
+        List<T> contenido = hayMas ? new ArrayList<>(filas.subList(0, limite)) : filas;
+        String siguienteCursor = hayMas ? cursorDe.apply(contenido.get(contenido.size() - 1)) : null;
+        return new PaginaKeyset<>(contenido, siguienteCursor, hayMas);
+    }
+
+    public static void validarLimite(int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El límite de la página debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+    }
+
+    public static void validarCantidadIds(Collection<?> ids) {
+        if (ids.isEmpty() || ids.size() > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("Se pueden consultar entre 1 y " + LIMITE_MAXIMO + " IDs por solicitud");
+        }
+    }
+
+    public static String codificarCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Long.parseLong(valor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor);
+        }
+    }
+}
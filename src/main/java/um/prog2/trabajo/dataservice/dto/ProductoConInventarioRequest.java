@@ -0,0 +1,40 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Datos para crear o actualizar un producto junto con su inventario en una sola transacción.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoConInventarioRequest {
+    @NotBlank(message = "El nombre del producto es obligatorio")
+    @Size(max = 100, message = "El nombre del producto no puede exceder los 100 caracteres")
+    private String nombre;
+
+    @Size(max = 500, message = "La descripción no puede exceder los 500 caracteres")
+    private String descripcion;
+
+    @NotNull(message = "El precio es obligatorio")
+    @DecimalMin(value = "0.01", message = "El precio debe ser mayor a cero")
+    private BigDecimal precio;
+
+    @NotNull(message = "La categoría es obligatoria")
+    private Long categoriaId;
+
+    @Min(value = 0, message = "El stock no puede ser negativo")
+    private Integer stock;
+
+    @Min(value = 0, message = "El stock mínimo no puede ser negativo")
+    private Integer stockMinimo;
+}
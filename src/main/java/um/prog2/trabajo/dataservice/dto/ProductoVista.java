@@ -0,0 +1,32 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import um.prog2.trabajo.dataservice.entity.Inventario;
+import um.prog2.trabajo.dataservice.entity.Producto;
+
+import java.math.BigDecimal;
+
+/**
+ * Proyección plana de un producto con su categoría y su stock, tal como viaja al servicio de negocio.
+ */
+public record ProductoVista(Long id,
+                            String nombre,
+                            String descripcion,
+                            BigDecimal precio,
+                            Long categoriaId,
+                            String categoriaNombre,
+                            Integer stock,
+                            Integer stockMinimo) {
+
+    public static ProductoVista desde(Producto producto) {
+        Inventario inventario = producto.getInventario();
+        return new ProductoVista(
+                producto.getId(),
+                producto.getNombre(),
+                producto.getDescripcion(),
+                producto.getPrecio(),
+                producto.getCategoria() != null ? producto.getCategoria().getId() : null,
+                producto.getCategoria() != null ? producto.getCategoria().getNombre() : null,
+                inventario != null ? inventario.getCantidad() : null,
+                inventario != null ? inventario.getStockMinimo() : null);
+    }
+}
@@ -0,0 +1,14 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Totales de una valuación (general o de una categoría) para armar la evolución en el tiempo.
+ */
+public record PuntoValuacion(LocalDateTime tomadaEn,
+                             long totalProductos,
+                             long productosConStockBajo,
+                             long productosSinStock,
+                             BigDecimal valorTotal) {
+}
@@ -0,0 +1,17 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Reserva {
+    private String id;
+    private Long productoId;
+    private Integer cantidad;
+    private LocalDateTime expiraEn;
+}
@@ -0,0 +1,23 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoFilaImportacion {
+    private Integer indice;
+    private boolean exito;
+    private Long productoId;
+    private String error;
+
+    public static ResultadoFilaImportacion exito(int indice, Long productoId) {
+        return new ResultadoFilaImportacion(indice, true, productoId, null);
+    }
+
+    public static ResultadoFilaImportacion fallo(int indice, String error) {
+        return new ResultadoFilaImportacion(indice, false, null, error);
+    }
+}
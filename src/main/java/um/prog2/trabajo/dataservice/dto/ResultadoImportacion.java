@@ -0,0 +1,18 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoImportacion {
+    private Integer total;
+    private Integer exitosos;
+    private Integer fallidos;
+    private List<ResultadoFilaImportacion> filas = new ArrayList<>();
+}
@@ -0,0 +1,20 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import java.time.Duration;
+
+/**
+ * Resultado de una corrida de la importación del catálogo desde CSV/TSV. Si la corrida retomó una ejecución
+ * interrumpida, {@code lineasRetomadas} son las que ya estaban confirmadas y los contadores son sólo los de
+ * esta corrida.
+ */
+public record ResumenImportacionCatalogo(Long ejecucionId,
+                                         long lineasRetomadas,
+                                         long filasImportadas,
+                                         long filasRechazadas,
+                                         Duration duracion) {
+
+    public double filasPorSegundo() {
+        double segundos = duracion.toNanos() / 1e9;
+        return segundos > 0 ? (filasImportadas + filasRechazadas) / segundos : 0;
+    }
+}
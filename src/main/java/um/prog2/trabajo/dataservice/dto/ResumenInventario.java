@@ -0,0 +1,27 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales del inventario calculados por la base de datos en una sola consulta agregada.
+ */
+@Data
+@NoArgsConstructor
+public class ResumenInventario {
+    private Long totalProductos;
+    private Long productosConStockBajo;
+    private Long productosSinStock;
+    private BigDecimal valorTotalInventario;
+
+    // Usado por la expresión constructora de InventarioRepository: las sumas llegan en null si no hay filas
+    public ResumenInventario(Long totalProductos, Long productosConStockBajo,
+                             Long productosSinStock, BigDecimal valorTotalInventario) {
+        this.totalProductos = totalProductos != null ? totalProductos : 0L;
+        this.productosConStockBajo = productosConStockBajo != null ? productosConStockBajo : 0L;
+        this.productosSinStock = productosSinStock != null ? productosSinStock : 0L;
+        this.valorTotalInventario = valorTotalInventario != null ? valorTotalInventario : BigDecimal.ZERO;
+    }
+}
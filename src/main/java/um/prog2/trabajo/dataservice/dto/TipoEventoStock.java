@@ -0,0 +1,15 @@
+package um.prog2.trabajo.dataservice.dto;
+
+/**
+ * Cruce de umbral de stock de un inventario.
+ */
+public enum TipoEventoStock {
+    /** La cantidad bajó hasta el stock mínimo o menos. */
+    STOCK_BAJO,
+    /** La cantidad volvió a superar el stock mínimo. */
+    STOCK_NORMALIZADO,
+    /** La cantidad llegó a cero. */
+    SIN_STOCK,
+    /** Se repuso un producto que estaba sin stock. */
+    STOCK_REPUESTO
+}
@@ -0,0 +1,35 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import um.prog2.trabajo.dataservice.entity.ValuacionCategoria;
+import um.prog2.trabajo.dataservice.entity.ValuacionInventario;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Una valuación del inventario con su antigüedad al momento de responder, calculada por el servicio de datos
+ * para no depender del reloj de quien la consulta.
+ */
+public record ValuacionInventarioVista(Long id,
+                                       LocalDateTime tomadaEn,
+                                       long antiguedadSegundos,
+                                       long totalProductos,
+                                       long productosConStockBajo,
+                                       long productosSinStock,
+                                       BigDecimal valorTotal,
+                                       List<ValuacionCategoria> categorias) {
+
+    public static ValuacionInventarioVista desde(ValuacionInventario valuacion, LocalDateTime ahora) {
+        return new ValuacionInventarioVista(
+                valuacion.getId(),
+                valuacion.getTomadaEn(),
+                Math.max(0, Duration.between(valuacion.getTomadaEn(), ahora).toSeconds()),
+                valuacion.getTotalProductos(),
+                valuacion.getProductosConStockBajo(),
+                valuacion.getProductosSinStock(),
+                valuacion.getValorTotal(),
+                List.copyOf(valuacion.getCategorias()));
+    }
+}
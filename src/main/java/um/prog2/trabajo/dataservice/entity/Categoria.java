@@ -1,21 +1,31 @@
 package um.prog2.trabajo.dataservice.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import um.prog2.trabajo.dataservice.cache.CacheSegundoNivelConfiguracion;
+import um.prog2.trabajo.dataservice.versiones.VersionesListener;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "categorias")
+@EntityListeners(VersionesListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheSegundoNivelConfiguracion.CATEGORIAS)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Categoria {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "categorias_generador")
+    @SequenceGenerator(name = "categorias_generador", sequenceName = "categorias_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 100, unique = true)
@@ -25,5 +35,7 @@ public class Categoria {
     private String descripcion;
 
     @OneToMany(mappedBy = "categoria", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheSegundoNivelConfiguracion.PRODUCTOS_DE_CATEGORIA)
+    @JsonIgnoreProperties(value = "categoria", allowSetters = true)
     private List<Producto> productos = new ArrayList<>();
 }
@@ -0,0 +1,29 @@
+package um.prog2.trabajo.dataservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Última secuencia del journal de reservas cuyo delta ya está aplicado en la tabla de inventario.
+ * Se actualiza en la misma transacción que el volcado, por eso la recuperación es idempotente.
+ */
+@Entity
+@Table(name = "reservas_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckpointReservas {
+    public static final Long ID_UNICO = 1L;
+
+    @Id
+    private Long id;
+
+    // Identifica la base de datos a la que pertenece el journal
+    @Column(nullable = false, length = 36)
+    private String epoca;
+
+    @Column(name = "ultima_secuencia", nullable = false)
+    private Long ultimaSecuencia;
+}
@@ -0,0 +1,66 @@
+package um.prog2.trabajo.dataservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Avance de una importación del catálogo desde un archivo CSV/TSV. Las líneas procesadas y los contadores
+ * se actualizan en la misma transacción que cada bloque importado, así una ejecución interrumpida se retoma
+ * después del último bloque confirmado. {@code tareaEjecucionId} es la ejecución de Spring Cloud Task
+ * ({@code TASK_EXECUTION}) de la última corrida que la tomó, con su inicio, fin, código de salida y error.
+ */
+@Entity
+@Table(name = "importaciones_catalogo")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EjecucionImportacion {
+
+    public enum Estado {
+        EN_CURSO, COMPLETADA, FALLIDA
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "importaciones_generador")
+    @SequenceGenerator(name = "importaciones_generador", sequenceName = "importaciones_catalogo_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(nullable = false, length = 500)
+    private String archivo;
+
+    // Tamaño y fecha de modificación: si el archivo cambió no se retoma la ejecución anterior
+    @Column(nullable = false, length = 100)
+    private String huella;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Estado estado;
+
+    // Líneas de datos ya confirmadas (importadas, rechazadas o vacías), sin contar el encabezado
+    @Column(name = "lineas_procesadas", nullable = false)
+    private long lineasProcesadas;
+
+    @Column(name = "filas_importadas", nullable = false)
+    private long filasImportadas;
+
+    @Column(name = "filas_rechazadas", nullable = false)
+    private long filasRechazadas;
+
+    @Column(nullable = false)
+    private LocalDateTime inicio;
+
+    @Column(nullable = false)
+    private LocalDateTime actualizacion;
+
+    @Column(name = "tarea_ejecucion_id")
+    private Long tareaEjecucionId;
+
+    public static EjecucionImportacion nueva(String archivo, String huella) {
+        LocalDateTime ahora = LocalDateTime.now();
+        return new EjecucionImportacion(null, archivo, huella, Estado.EN_CURSO, 0, 0, 0, ahora, ahora, null);
+    }
+}
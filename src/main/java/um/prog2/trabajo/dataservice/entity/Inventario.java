@@ -1,24 +1,35 @@
 package um.prog2.trabajo.dataservice.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import um.prog2.trabajo.dataservice.eventos.InventarioEventosListener;
+import um.prog2.trabajo.dataservice.versiones.VersionesListener;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "inventario")
+// Los reportes de stock bajo y sin stock leen sólo las filas marcadas en lugar de comparar columnas en toda la tabla
+@Table(name = "inventario", indexes = {
+        @Index(name = "idx_inventario_stock_bajo", columnList = "stock_bajo"),
+        @Index(name = "idx_inventario_sin_stock", columnList = "sin_stock")
+})
+@EntityListeners({InventarioEventosListener.class, VersionesListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Inventario {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventario_generador")
+    @SequenceGenerator(name = "inventario_generador", sequenceName = "inventario_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "producto_id")
+    @JsonIgnoreProperties(value = "inventario", allowSetters = true)
     private Producto producto;
 
     @Column(nullable = false)
@@ -29,4 +40,30 @@ public class Inventario {
 
     @Column(name = "fecha_actualizacion")
     private LocalDateTime fechaActualizacion;
+
+    /**
+     * {@code cantidad <= stockMinimo}. Se recalcula en cada escritura por JPA; las actualizaciones
+     * masivas ({@code InventarioRepository.ajustarStockPorProductoId} y el volcado de
+     * {@code MotorReservasStock}) lo recalculan en la misma sentencia.
+     */
+    @Column(name = "stock_bajo", nullable = false)
+    private boolean stockBajo;
+
+    /** {@code cantidad = 0}; se mantiene igual que {@link #stockBajo}. */
+    @Column(name = "sin_stock", nullable = false)
+    private boolean sinStock;
+
+    @Version
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    public void actualizarMarcasDeStock() {
+        stockBajo = esStockBajo(cantidad, stockMinimo);
+        sinStock = cantidad == 0;
+    }
+
+    public static boolean esStockBajo(int cantidad, Integer stockMinimo) {
+        return stockMinimo != null && cantidad <= stockMinimo;
+    }
 }
@@ -1,20 +1,32 @@
 package um.prog2.trabajo.dataservice.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import um.prog2.trabajo.dataservice.busqueda.ProductoIndiceListener;
+import um.prog2.trabajo.dataservice.cache.CacheSegundoNivelConfiguracion;
+import um.prog2.trabajo.dataservice.versiones.VersionesListener;
 
 import java.math.BigDecimal;
 
 @Entity
 @Table(name = "productos")
+@EntityListeners({ProductoIndiceListener.class, VersionesListener.class})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheSegundoNivelConfiguracion.PRODUCTOS)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+// Los proxies lazy de Hibernate agregan propiedades internas que no se deben serializar
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Producto {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "productos_generador")
+    @SequenceGenerator(name = "productos_generador", sequenceName = "productos_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 100)
@@ -28,8 +40,10 @@ public class Producto {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "categoria_id")
+    @JsonIgnoreProperties(value = "productos", allowSetters = true)
     private Categoria categoria;
 
     @OneToOne(mappedBy = "producto", cascade = CascadeType.ALL)
+    @JsonIgnoreProperties(value = "producto", allowSetters = true)
     private Inventario inventario;
 }
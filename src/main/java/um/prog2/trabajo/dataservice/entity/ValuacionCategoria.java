@@ -0,0 +1,47 @@
+package um.prog2.trabajo.dataservice.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales de una categoría dentro de una {@link ValuacionInventario}. Los productos sin categoría se agrupan
+ * con {@code categoriaId} en {@code null}. Se guarda el nombre que tenía la categoría al tomar la valuación.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+public class ValuacionCategoria {
+
+    @Column(name = "categoria_id")
+    private Long categoriaId;
+
+    @Column(name = "categoria_nombre", length = 100)
+    private String categoriaNombre;
+
+    @Column(name = "total_productos", nullable = false)
+    private long totalProductos;
+
+    @Column(name = "productos_stock_bajo", nullable = false)
+    private long productosConStockBajo;
+
+    @Column(name = "productos_sin_stock", nullable = false)
+    private long productosSinStock;
+
+    @Column(name = "valor_total", nullable = false, precision = 19, scale = 2)
+    private BigDecimal valorTotal;
+
+    // Usado por la expresión constructora de InventarioRepository: las sumas llegan en null si no hay filas
+    public ValuacionCategoria(Long categoriaId, String categoriaNombre, Long totalProductos,
+                              Long productosConStockBajo, Long productosSinStock, BigDecimal valorTotal) {
+        this.categoriaId = categoriaId;
+        this.categoriaNombre = categoriaNombre;
+        this.totalProductos = totalProductos != null ? totalProductos : 0L;
+        this.productosConStockBajo = productosConStockBajo != null ? productosConStockBajo : 0L;
+        this.productosSinStock = productosSinStock != null ? productosSinStock : 0L;
+        this.valorTotal = valorTotal != null ? valorTotal : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,54 @@
+package um.prog2.trabajo.dataservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Foto del valor del inventario en un momento: totales generales y por categoría. Los reportes responden con
+ * la última y el historial se lee de estas filas, sin recorrer la tabla de inventario.
+ */
+@Entity
+@Table(name = "valuaciones_inventario", indexes = @Index(name = "idx_valuaciones_tomada_en", columnList = "tomada_en"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValuacionInventario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "valuaciones_generador")
+    @SequenceGenerator(name = "valuaciones_generador", sequenceName = "valuaciones_inventario_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "tomada_en", nullable = false)
+    private LocalDateTime tomadaEn;
+
+    @Column(name = "total_productos", nullable = false)
+    private long totalProductos;
+
+    @Column(name = "productos_stock_bajo", nullable = false)
+    private long productosConStockBajo;
+
+    @Column(name = "productos_sin_stock", nullable = false)
+    private long productosSinStock;
+
+    @Column(name = "valor_total", nullable = false, precision = 19, scale = 2)
+    private BigDecimal valorTotal;
+
+    // Lo que tardó la consulta agregada, para ver cuánto cuesta recalcular a medida que crece el catálogo
+    @Column(name = "duracion_ms", nullable = false)
+    private long duracionMs;
+
+    @ElementCollection
+    @CollectionTable(name = "valuaciones_inventario_categorias",
+            joinColumns = @JoinColumn(name = "valuacion_id"),
+            indexes = @Index(name = "idx_valuaciones_categoria", columnList = "categoria_id, valuacion_id"))
+    @OrderBy("categoriaId")
+    private List<ValuacionCategoria> categorias = new ArrayList<>();
+}
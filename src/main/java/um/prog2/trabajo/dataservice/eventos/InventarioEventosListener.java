@@ -0,0 +1,27 @@
+package um.prog2.trabajo.dataservice.eventos;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import um.prog2.trabajo.dataservice.entity.Inventario;
+
+/**
+ * Registra los cruces de umbral de las escrituras de {@link Inventario} hechas por JPA. Corre antes que
+ * {@link Inventario#actualizarMarcasDeStock()}, así que las marcas del inventario todavía son las anteriores.
+ */
+public class InventarioEventosListener {
+
+    private final ObjectProvider<RegistroEventosStock> registroEventos;
+
+    public InventarioEventosListener(ObjectProvider<RegistroEventosStock> registroEventos) {
+        this.registroEventos = registroEventos;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void registrarCruces(Inventario inventario) {
+        Long productoId = inventario.getProducto() != null ? inventario.getProducto().getId() : null;
+        registroEventos.getObject().registrarCambio(productoId, inventario.isStockBajo(), inventario.isSinStock(),
+                inventario.getCantidad(), inventario.getStockMinimo());
+    }
+}
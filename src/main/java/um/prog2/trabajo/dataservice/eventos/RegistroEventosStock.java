@@ -0,0 +1,159 @@
+package um.prog2.trabajo.dataservice.eventos;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import um.prog2.trabajo.dataservice.dto.EventoStock;
+import um.prog2.trabajo.dataservice.dto.LoteEventosStock;
+import um.prog2.trabajo.dataservice.dto.PaginaKeyset;
+import um.prog2.trabajo.dataservice.dto.TipoEventoStock;
+import um.prog2.trabajo.dataservice.entity.Inventario;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Últimos cruces de umbral de stock (stock bajo y sin stock) en un buffer circular en memoria, para que
+ * el servicio de negocio los consulte con long polling en lugar de releer los reportes completos.
+ * <p>
+ * Los eventos se registran después del commit de la escritura que los produjo. Los IDs arrancan en un
+ * valor derivado de la hora de inicio, así un consumidor que siga con IDs de una ejecución anterior
+ * detecta la pérdida ({@link LoteEventosStock#incompleto()}) en lugar de recibir IDs repetidos.
+ */
+@Component
+@Slf4j
+public class RegistroEventosStock {
+
+    private final EventoStock[] eventos;
+    private final Duration esperaMaxima;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition nuevoEvento = lock.newCondition();
+    private final long primerId;
+    private long ultimoId;
+    private boolean cerrado;
+
+    public RegistroEventosStock(@Value("${data.eventos-stock.capacidad:10000}") int capacidad,
+                                @Value("${data.eventos-stock.espera-maxima-ms:30000}") long esperaMaximaMs) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad del registro de eventos debe ser mayor a cero");
+        }
+        this.eventos = new EventoStock[capacidad];
+        this.esperaMaxima = Duration.ofMillis(esperaMaximaMs);
+        this.primerId = System.currentTimeMillis() * 1000;
+        this.ultimoId = primerId;
+    }
+
+    /**
+     * Registra los cruces de umbral entre la cantidad anterior y la nueva de un producto.
+     */
+    public void registrarCambio(Long productoId, int cantidadAnterior, int cantidadNueva, Integer stockMinimo) {
+        registrarCambio(productoId, Inventario.esStockBajo(cantidadAnterior, stockMinimo), cantidadAnterior == 0,
+                cantidadNueva, stockMinimo);
+    }
+
+    /**
+     * Igual que {@link #registrarCambio(Long, int, int, Integer)}, para quien sólo conoce las marcas
+     * anteriores del inventario.
+     */
+    public void registrarCambio(Long productoId, boolean stockBajoAnterior, boolean sinStockAnterior,
+                                int cantidadNueva, Integer stockMinimo) {
+        boolean stockBajo = Inventario.esStockBajo(cantidadNueva, stockMinimo);
+        boolean sinStock = cantidadNueva == 0;
+        List<TipoEventoStock> tipos = new ArrayList<>(2);
+        if (stockBajo != stockBajoAnterior) {
+            tipos.add(stockBajo ? TipoEventoStock.STOCK_BAJO : TipoEventoStock.STOCK_NORMALIZADO);
+        }
+        if (sinStock != sinStockAnterior) {
+            tipos.add(sinStock ? TipoEventoStock.SIN_STOCK : TipoEventoStock.STOCK_REPUESTO);
+        }
+        if (tipos.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    agregar(productoId, tipos, cantidadNueva, stockMinimo);
+                }
+            });
+        } else {
+            agregar(productoId, tipos, cantidadNueva, stockMinimo);
+        }
+    }
+
+    /**
+     * Devuelve hasta {@code limite} eventos posteriores a {@code despuesDeId}, esperando como máximo
+     * {@code espera} a que llegue alguno. Sin {@code despuesDeId} se empieza por el próximo evento.
+     */
+    public LoteEventosStock obtenerDespuesDe(Long despuesDeId, int limite, Duration espera) throws InterruptedException {
+        PaginaKeyset.validarLimite(limite);
+        long plazo = System.nanoTime() + (espera.compareTo(esperaMaxima) > 0 ? esperaMaxima : espera).toNanos();
+        lock.lock();
+        try {
+            long primerDisponible = Math.max(primerId + 1, ultimoId - eventos.length + 1);
+            boolean incompleto = despuesDeId != null
+                    && (despuesDeId < primerDisponible - 1 || despuesDeId > ultimoId);
+            long desde = despuesDeId == null || despuesDeId > ultimoId ? ultimoId : Math.max(despuesDeId, primerDisponible - 1);
+
+            // Una pérdida se informa en el momento: quien consume tiene que resincronizar igual
+            long restante = plazo - System.nanoTime();
+            while (!incompleto && ultimoId == desde && restante > 0 && !cerrado) {
+                restante = nuevoEvento.awaitNanos(restante);
+            }
+
+            // Mientras se esperaba pudieron sobrescribirse eventos del buffer
+            long inicio = Math.max(desde, ultimoId - eventos.length);
+            incompleto |= inicio > desde;
+            long hasta = Math.min(ultimoId, inicio + limite);
+            List<EventoStock> resultado = new ArrayList<>((int) (hasta - inicio));
+            for (long id = inicio + 1; id <= hasta; id++) {
+                resultado.add(eventos[posicion(id)]);
+            }
+            return new LoteEventosStock(resultado, hasta, incompleto);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Libera las consultas en espera, para que el apagado ordenado del servidor no tenga que esperarlas.
+     */
+    @EventListener(ContextClosedEvent.class)
+    void cerrar() {
+        lock.lock();
+        try {
+            cerrado = true;
+            nuevoEvento.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void agregar(Long productoId, List<TipoEventoStock> tipos, int cantidad, Integer stockMinimo) {
+        LocalDateTime ahora = LocalDateTime.now();
+        lock.lock();
+        try {
+            for (TipoEventoStock tipo : tipos) {
+                ultimoId++;
+                eventos[posicion(ultimoId)] = new EventoStock(ultimoId, productoId, tipo, cantidad, stockMinimo, ahora);
+                log.debug("Evento de stock {}: producto {} {}", ultimoId, productoId, tipo);
+            }
+            nuevoEvento.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int posicion(long id) {
+        return (int) (id % eventos.length);
+    }
+}
@@ -0,0 +1,7 @@
+package um.prog2.trabajo.dataservice.exception;
+
+public class PlazoVencidoException extends RuntimeException {
+    public PlazoVencidoException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,7 @@
+package um.prog2.trabajo.dataservice.exception;
+
+public class StockInsuficienteException extends RuntimeException {
+    public StockInsuficienteException(String mensaje) {
+        super(mensaje);
+    }
+}
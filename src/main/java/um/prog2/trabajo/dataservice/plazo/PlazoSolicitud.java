@@ -0,0 +1,31 @@
+package um.prog2.trabajo.dataservice.plazo;
+
+import java.time.Instant;
+
+/**
+ * Plazo que el servicio de negocio le dio a la solicitud en curso, recibido en {@code X-Plazo-Restante-Ms}.
+ * Las operaciones largas lo consultan entre pasos para no seguir trabajando en una respuesta que ya nadie
+ * espera. Sin la cabecera la solicitud no tiene plazo.
+ */
+public final class PlazoSolicitud {
+
+    public static final String CABECERA_PLAZO_RESTANTE = "X-Plazo-Restante-Ms";
+
+    private static final ThreadLocal<Instant> PLAZO = new ThreadLocal<>();
+
+    private PlazoSolicitud() {
+    }
+
+    public static boolean vencido() {
+        Instant plazo = PLAZO.get();
+        return plazo != null && !Instant.now().isBefore(plazo);
+    }
+
+    static void fijar(Instant plazo) {
+        PLAZO.set(plazo);
+    }
+
+    static void limpiar() {
+        PLAZO.remove();
+    }
+}
@@ -0,0 +1,43 @@
+package um.prog2.trabajo.dataservice.plazo;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import um.prog2.trabajo.dataservice.exception.PlazoVencidoException;
+
+import java.time.Instant;
+
+/**
+ * Toma el plazo de la cabecera {@code X-Plazo-Restante-Ms}. Si llega vencido la solicitud se rechaza sin
+ * ejecutarse; si no, queda disponible en {@link PlazoSolicitud} mientras dura.
+ */
+@Component
+public class PlazoSolicitudInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String restante = request.getHeader(PlazoSolicitud.CABECERA_PLAZO_RESTANTE);
+        if (restante == null) {
+            return true;
+        }
+        long restanteMs;
+        try {
+            restanteMs = Long.parseLong(restante.trim());
+        } catch (NumberFormatException e) {
+            // Una cabecera ilegible se ignora: la solicitud sigue sin plazo
+            return true;
+        }
+        if (restanteMs <= 0) {
+            throw new PlazoVencidoException("La solicitud llegó con el plazo vencido");
+        }
+        PlazoSolicitud.fijar(Instant.now().plusMillis(restanteMs));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        PlazoSolicitud.limpiar();
+    }
+}
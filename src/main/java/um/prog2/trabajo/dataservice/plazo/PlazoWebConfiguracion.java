@@ -0,0 +1,20 @@
+package um.prog2.trabajo.dataservice.plazo;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class PlazoWebConfiguracion implements WebMvcConfigurer {
+
+    private final PlazoSolicitudInterceptor plazoSolicitudInterceptor;
+
+    public PlazoWebConfiguracion(PlazoSolicitudInterceptor plazoSolicitudInterceptor) {
+        this.plazoSolicitudInterceptor = plazoSolicitudInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(plazoSolicitudInterceptor).addPathPatterns("/data/**");
+    }
+}
@@ -1,13 +1,44 @@
 package um.prog2.trabajo.dataservice.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import um.prog2.trabajo.dataservice.dto.CategoriaVista;
 import um.prog2.trabajo.dataservice.entity.Categoria;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
+    String SELECT_VISTA = "SELECT new um.prog2.trabajo.dataservice.dto.CategoriaVista(" +
+            "c.id, c.nombre, c.descripcion, COUNT(p)) " +
+            "FROM Categoria c LEFT JOIN c.productos p ";
+    String AGRUPAR_VISTA = " GROUP BY c.id, c.nombre, c.descripcion";
+    
+    // Resultados en la caché de consultas; se descartan cuando cambia alguna de las tablas que leen
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Categoria> findByNombre(String nombre);
     boolean existsByNombre(String nombre);
+    
+    @Query(SELECT_VISTA + "WHERE c.id = :id" + AGRUPAR_VISTA)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<CategoriaVista> findVistaById(@Param("id") Long id);
+    
+    @Query(SELECT_VISTA + "WHERE c.nombre = :nombre" + AGRUPAR_VISTA)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<CategoriaVista> findVistaByNombre(@Param("nombre") String nombre);
+    
+    @Query(SELECT_VISTA + "WHERE c.id > :id" + AGRUPAR_VISTA + " ORDER BY c.id")
+    List<CategoriaVista> findVistasDespuesDe(@Param("id") Long id, Limit limit);
+    
+    @Query("SELECT c.id FROM Categoria c WHERE c.id IN :ids")
+    Set<Long> findIdsExistentes(@Param("ids") Collection<Long> ids);
 }
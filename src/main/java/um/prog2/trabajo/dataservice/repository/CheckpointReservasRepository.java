@@ -0,0 +1,15 @@
+package um.prog2.trabajo.dataservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import um.prog2.trabajo.dataservice.entity.CheckpointReservas;
+
+@Repository
+public interface CheckpointReservasRepository extends JpaRepository<CheckpointReservas, Long> {
+    @Modifying
+    @Query("UPDATE CheckpointReservas c SET c.ultimaSecuencia = :secuencia WHERE c.id = :id")
+    int actualizarSecuencia(@Param("id") Long id, @Param("secuencia") Long secuencia);
+}
@@ -0,0 +1,33 @@
+package um.prog2.trabajo.dataservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import um.prog2.trabajo.dataservice.entity.EjecucionImportacion;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface EjecucionImportacionRepository extends JpaRepository<EjecucionImportacion, Long> {
+    Optional<EjecucionImportacion> findFirstByArchivoAndHuellaAndEstadoNotOrderByIdDesc(String archivo, String huella,
+                                                                                       EjecucionImportacion.Estado estado);
+    
+    @Modifying
+    @Query("UPDATE EjecucionImportacion e SET e.lineasProcesadas = e.lineasProcesadas + :lineas, " +
+           "e.filasImportadas = e.filasImportadas + :importadas, e.filasRechazadas = e.filasRechazadas + :rechazadas, " +
+           "e.actualizacion = :fecha WHERE e.id = :id")
+    int registrarAvance(@Param("id") Long id,
+                        @Param("lineas") long lineas,
+                        @Param("importadas") long importadas,
+                        @Param("rechazadas") long rechazadas,
+                        @Param("fecha") LocalDateTime fecha);
+    
+    @Modifying
+    @Query("UPDATE EjecucionImportacion e SET e.estado = :estado, e.actualizacion = :fecha WHERE e.id = :id")
+    int cambiarEstado(@Param("id") Long id,
+                      @Param("estado") EjecucionImportacion.Estado estado,
+                      @Param("fecha") LocalDateTime fecha);
+}
@@ -1,20 +1,87 @@
 package um.prog2.trabajo.dataservice.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import um.prog2.trabajo.dataservice.dto.InventarioVista;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+import um.prog2.trabajo.dataservice.dto.ResumenInventario;
 import um.prog2.trabajo.dataservice.entity.Inventario;
+import um.prog2.trabajo.dataservice.entity.ValuacionCategoria;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface InventarioRepository extends JpaRepository<Inventario, Long> {
+    String SELECT_VISTA = "SELECT new um.prog2.trabajo.dataservice.dto.InventarioVista(" +
+            "i.id, p.id, p.nombre, i.cantidad, i.stockMinimo, i.fechaActualizacion, i.version) " +
+            "FROM Inventario i LEFT JOIN i.producto p ";
+    // Los listados de stock bajo y sin stock se consumen como productos
+    String SELECT_PRODUCTO_VISTA = "SELECT new um.prog2.trabajo.dataservice.dto.ProductoVista(" +
+            "p.id, p.nombre, p.descripcion, p.precio, c.id, c.nombre, i.cantidad, i.stockMinimo) " +
+            "FROM Inventario i JOIN i.producto p LEFT JOIN p.categoria c ";
+    
+    @Override
+    @EntityGraph(attributePaths = {"producto", "producto.categoria"})
+    Optional<Inventario> findById(Long id);
+    
+    @EntityGraph(attributePaths = {"producto", "producto.categoria"})
     Optional<Inventario> findByProductoId(Long productoId);
     
-    @Query("SELECT i FROM Inventario i WHERE i.cantidad <= i.stockMinimo")
-    List<Inventario> findProductosConStockBajo();
+    @Query(SELECT_VISTA + "WHERE i.id = :id")
+    Optional<InventarioVista> findVistaById(@Param("id") Long id);
+    
+    @Query(SELECT_VISTA + "WHERE p.id = :productoId")
+    Optional<InventarioVista> findVistaByProductoId(@Param("productoId") Long productoId);
+    
+    @Query(SELECT_VISTA + "WHERE p.id IN :productoIds ORDER BY p.id")
+    List<InventarioVista> findVistasByProductoIdIn(@Param("productoIds") Collection<Long> productoIds);
+    
+    @Query(SELECT_VISTA + "WHERE i.id > :id ORDER BY i.id")
+    List<InventarioVista> findVistasDespuesDe(@Param("id") Long id, Limit limit);
+    
+    @Query(SELECT_PRODUCTO_VISTA + "WHERE i.stockBajo = true ORDER BY p.id")
+    List<ProductoVista> findProductosConStockBajo();
+    
+    @Query(SELECT_PRODUCTO_VISTA + "WHERE i.sinStock = true ORDER BY p.id")
+    List<ProductoVista> findProductosSinStock();
+    
+    // Las marcas se asignan antes que la cantidad: MySQL evalúa el SET de izquierda a derecha con los valores nuevos
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventario i SET " +
+           "i.stockBajo = CASE WHEN i.cantidad + :delta <= i.stockMinimo THEN true ELSE false END, " +
+           "i.sinStock = CASE WHEN i.cantidad + :delta = 0 THEN true ELSE false END, " +
+           "i.cantidad = i.cantidad + :delta, i.fechaActualizacion = :fecha, " +
+           "i.version = i.version + 1 " +
+           "WHERE i.producto.id = :productoId AND i.cantidad + :delta >= :minimo")
+    int ajustarStockPorProductoId(@Param("productoId") Long productoId,
+                                  @Param("delta") int delta,
+                                  @Param("minimo") long minimo,
+                                  @Param("fecha") LocalDateTime fecha);
+    
+    // Cuenta con las marcas persistidas, las mismas que usan los listados de stock bajo y sin stock
+    @Query("SELECT new um.prog2.trabajo.dataservice.dto.ResumenInventario(" +
+           "COUNT(i), " +
+           "SUM(CASE WHEN i.stockBajo = true THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN i.sinStock = true THEN 1 ELSE 0 END), " +
+           "SUM(p.precio * i.cantidad)) " +
+           "FROM Inventario i LEFT JOIN i.producto p")
+    ResumenInventario obtenerResumen();
     
-    @Query("SELECT i FROM Inventario i WHERE i.cantidad = 0")
-    List<Inventario> findProductosSinStock();
+    // Los mismos totales que obtenerResumen, abiertos por categoría en una sola pasada
+    @Query("SELECT new um.prog2.trabajo.dataservice.entity.ValuacionCategoria(" +
+           "c.id, c.nombre, COUNT(i), " +
+           "SUM(CASE WHEN i.stockBajo = true THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN i.sinStock = true THEN 1 ELSE 0 END), " +
+           "SUM(p.precio * i.cantidad)) " +
+           "FROM Inventario i LEFT JOIN i.producto p LEFT JOIN p.categoria c " +
+           "GROUP BY c.id, c.nombre")
+    List<ValuacionCategoria> obtenerValuacionPorCategoria();
 }
@@ -1,21 +1,67 @@
 package um.prog2.trabajo.dataservice.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import um.prog2.trabajo.dataservice.busqueda.ProductoIndexado;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
 import um.prog2.trabajo.dataservice.entity.Producto;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
-    List<Producto> findByCategoriaNombre(String categoriaNombre);
+    // Las lecturas que se exponen devuelven la proyección plana, sin instanciar entidades
+    String SELECT_VISTA = "SELECT new um.prog2.trabajo.dataservice.dto.ProductoVista(" +
+            "p.id, p.nombre, p.descripcion, p.precio, c.id, c.nombre, i.cantidad, i.stockMinimo) " +
+            "FROM Producto p LEFT JOIN p.categoria c LEFT JOIN p.inventario i ";
     
-    @Query("SELECT p FROM Producto p WHERE p.precio BETWEEN :minPrecio AND :maxPrecio")
-    List<Producto> findByPrecioBetween(@Param("minPrecio") BigDecimal minPrecio, 
-                                       @Param("maxPrecio") BigDecimal maxPrecio);
+    // Las escrituras devuelven la entidad con categoría e inventario ya cargados
+    @Override
+    @EntityGraph(attributePaths = {"categoria", "inventario"})
+    Optional<Producto> findById(Long id);
     
-    List<Producto> findByNombreContainingIgnoreCase(String nombre);
+    @Query(SELECT_VISTA + "WHERE p.id = :id")
+    Optional<ProductoVista> findVistaById(@Param("id") Long id);
+    
+    @Query(SELECT_VISTA + "WHERE p.id IN :ids ORDER BY p.id")
+    List<ProductoVista> findVistasByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(SELECT_VISTA + "WHERE p.id > :id ORDER BY p.id")
+    List<ProductoVista> findVistasDespuesDe(@Param("id") Long id, Limit limit);
+    
+    // Cacheadas: cualquier cambio en productos, categorías o inventario las descarta
+    @Query(SELECT_VISTA + "WHERE c.nombre = :categoriaNombre ORDER BY p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<ProductoVista> findVistasByCategoriaNombre(@Param("categoriaNombre") String categoriaNombre);
+    
+    @Query(SELECT_VISTA + "WHERE c.id = :categoriaId ORDER BY p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<ProductoVista> findVistasByCategoriaId(@Param("categoriaId") Long categoriaId);
+    
+    // Recorre la tabla entera; se usa sólo si IndiceBusquedaProductos no está disponible
+    @Query(SELECT_VISTA + "WHERE p.precio BETWEEN :minPrecio AND :maxPrecio " +
+           "AND (p.precio > :precio OR (p.precio = :precio AND p.id > :id)) ORDER BY p.precio, p.id")
+    List<ProductoVista> findVistasByPrecioDespuesDe(@Param("minPrecio") BigDecimal minPrecio,
+                                                    @Param("maxPrecio") BigDecimal maxPrecio,
+                                                    @Param("precio") BigDecimal precio,
+                                                    @Param("id") Long id,
+                                                    Limit limit);
+    
+    // Alternativa a IndiceBusquedaProductos mientras el índice no está disponible
+    @Query(SELECT_VISTA + "WHERE LOWER(p.nombre) LIKE LOWER(CONCAT('%', :nombre, '%')) ORDER BY p.id")
+    List<ProductoVista> findVistasByNombre(@Param("nombre") String nombre, Limit limit);
+    
+    @Query("SELECT new um.prog2.trabajo.dataservice.busqueda.ProductoIndexado(p.id, p.nombre, p.descripcion, p.precio) " +
+           "FROM Producto p WHERE p.id > :id ORDER BY p.id")
+    List<ProductoIndexado> findIndexadosDespuesDe(@Param("id") Long id, Limit limit);
 }
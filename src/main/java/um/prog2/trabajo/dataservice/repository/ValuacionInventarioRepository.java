@@ -0,0 +1,40 @@
+package um.prog2.trabajo.dataservice.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import um.prog2.trabajo.dataservice.dto.PuntoValuacion;
+import um.prog2.trabajo.dataservice.entity.ValuacionInventario;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ValuacionInventarioRepository extends JpaRepository<ValuacionInventario, Long> {
+
+    @EntityGraph(attributePaths = "categorias")
+    Optional<ValuacionInventario> findFirstByOrderByTomadaEnDesc();
+
+    @Query("SELECT new um.prog2.trabajo.dataservice.dto.PuntoValuacion(" +
+           "v.tomadaEn, v.totalProductos, v.productosConStockBajo, v.productosSinStock, v.valorTotal) " +
+           "FROM ValuacionInventario v WHERE v.tomadaEn BETWEEN :desde AND :hasta ORDER BY v.tomadaEn")
+    List<PuntoValuacion> findHistorial(@Param("desde") LocalDateTime desde,
+                                       @Param("hasta") LocalDateTime hasta,
+                                       Limit limit);
+
+    @Query("SELECT new um.prog2.trabajo.dataservice.dto.PuntoValuacion(" +
+           "v.tomadaEn, c.totalProductos, c.productosConStockBajo, c.productosSinStock, c.valorTotal) " +
+           "FROM ValuacionInventario v JOIN v.categorias c " +
+           "WHERE c.categoriaId = :categoriaId AND v.tomadaEn BETWEEN :desde AND :hasta ORDER BY v.tomadaEn")
+    List<PuntoValuacion> findHistorialDeCategoria(@Param("categoriaId") Long categoriaId,
+                                                  @Param("desde") LocalDateTime desde,
+                                                  @Param("hasta") LocalDateTime hasta,
+                                                  Limit limit);
+
+    // Derivado a propósito: borra entidad por entidad para que Hibernate quite también las filas por categoría
+    long deleteByTomadaEnBefore(LocalDateTime fecha);
+}
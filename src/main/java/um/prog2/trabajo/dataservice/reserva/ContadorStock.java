@@ -0,0 +1,27 @@
+package um.prog2.trabajo.dataservice.reserva;
+
+/**
+ * Estado en memoria del stock de un producto. Sólo se modifica con el lock de su franja tomado.
+ */
+class ContadorStock {
+    // Último valor conocido de inventario.cantidad (incluye los deltas ya volcados)
+    long base;
+    // Ventas confirmadas que todavía no se escribieron en la base de datos
+    long pendiente;
+    // Reservado por reservas sin confirmar
+    long reservado;
+    // Otro camino de escritura cambió la fila: hay que releer la base antes de usar el contador
+    boolean desactualizado;
+    // Se quitó del mapa de contadores: quien lo tenga debe volver a buscarlo
+    boolean desalojado;
+    long ultimoAcceso;
+
+    ContadorStock(long base) {
+        this.base = base;
+        this.ultimoAcceso = System.nanoTime();
+    }
+
+    long disponible() {
+        return base + pendiente - reservado;
+    }
+}
@@ -0,0 +1,272 @@
+package um.prog2.trabajo.dataservice.reserva;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Journal de sólo-agregado con las ventas confirmadas que aún pueden no estar volcadas.
+ * Formato de texto, una línea por registro: {@code E <epoca>} como cabecera,
+ * {@code C <secuencia> <productoId> <delta>} por cada confirmación y
+ * {@code A <secuencia> <productoId> <delta> <volcado>} por cada delta que un volcado no pudo aplicar y sigue
+ * pendiente. Este último sólo vale si el volcado se confirmó, es decir, si el checkpoint llegó a {@code volcado};
+ * si no, las confirmaciones originales siguen en el journal y son ellas las que se reaplican.
+ * <p>
+ * Con {@code fsync} cada confirmación espera a que su registro llegue al disco, pero las que esperan a la vez
+ * comparten una sola sincronización.
+ */
+@Slf4j
+class JournalReservas {
+
+    record Movimiento(long secuencia, long productoId, long delta, long volcadoRequerido) {
+
+        Movimiento(long secuencia, long productoId, long delta) {
+            this(secuencia, productoId, delta, 0);
+        }
+
+        boolean vigente(long ultimaVolcada) {
+            return secuencia > ultimaVolcada && volcadoRequerido <= ultimaVolcada;
+        }
+    }
+
+    private final Path ruta;
+    private final boolean fsync;
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel canal;
+    private long ultimaSecuenciaEscrita;
+    private long ultimaSecuenciaSincronizada;
+
+    JournalReservas(Path ruta, boolean fsync) {
+        this.ruta = ruta;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Lee los movimientos del journal. Si pertenece a otra época (otra base de datos) se ignora.
+     * Una última línea incompleta, propia de una caída a mitad de escritura, se descarta.
+     */
+    List<Movimiento> leer(String epoca) {
+        lock.lock();
+        try {
+            if (!Files.exists(ruta)) {
+                return List.of();
+            }
+            List<String> lineas = Files.readAllLines(ruta, StandardCharsets.UTF_8);
+            if (lineas.isEmpty() || !lineas.get(0).equals("E " + epoca)) {
+                log.warn("El journal {} no corresponde a esta base de datos, se descarta", ruta);
+                return List.of();
+            }
+            List<Movimiento> movimientos = new ArrayList<>(lineas.size());
+            for (String linea : lineas.subList(1, lineas.size())) {
+                String[] partes = linea.split(" ");
+                boolean confirmacion = partes.length == 4 && partes[0].equals("C");
+                boolean arrastre = partes.length == 5 && partes[0].equals("A");
+                if (!confirmacion && !arrastre) {
+                    log.warn("Línea inválida en el journal de reservas, se ignora: {}", linea);
+                    continue;
+                }
+                try {
+                    movimientos.add(new Movimiento(Long.parseLong(partes[1]), Long.parseLong(partes[2]),
+                            Long.parseLong(partes[3]), arrastre ? Long.parseLong(partes[4]) : 0));
+                } catch (NumberFormatException e) {
+                    log.warn("Línea inválida en el journal de reservas, se ignora: {}", linea);
+                }
+            }
+            return movimientos;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el journal de reservas " + ruta, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Continúa el journal existente de la época indicada, o comienza uno vacío si no hay o es de otra época.
+     */
+    void abrir(String epoca) {
+        lock.lock();
+        try {
+            List<Movimiento> movimientos = leer(epoca);
+            if (!Files.exists(ruta) || !Files.readString(ruta, StandardCharsets.UTF_8).startsWith("E " + epoca + "\n")) {
+                reiniciar(epoca);
+                return;
+            }
+            cerrarCanal();
+            canal = FileChannel.open(ruta, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // Una línea incompleta al final se descarta para no pegarle el próximo registro
+            canal.truncate(finDeUltimaLinea());
+            canal.position(canal.size());
+            ultimaSecuenciaEscrita = movimientos.stream().mapToLong(Movimiento::secuencia).max().orElse(0);
+            ultimaSecuenciaSincronizada = ultimaSecuenciaEscrita;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el journal de reservas " + ruta, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Descarta el contenido y comienza un journal vacío para la época indicada.
+     */
+    void reiniciar(String epoca) {
+        lock.lock();
+        try {
+            cerrarCanal();
+            if (ruta.getParent() != null) {
+                Files.createDirectories(ruta.getParent());
+            }
+            canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            escribir("E " + epoca + "\n");
+            canal.force(true);
+            ultimaSecuenciaEscrita = 0;
+            ultimaSecuenciaSincronizada = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo inicializar el journal de reservas " + ruta, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Agrega una confirmación. No espera al disco: quien necesite que sea durable llama a {@link #sincronizar}.
+     */
+    void registrar(long secuencia, long productoId, long delta) throws IOException {
+        agregar(secuencia, "C " + secuencia + " " + productoId + " " + delta + "\n");
+    }
+
+    /**
+     * Agrega un delta que el volcado hasta {@code secuenciaVolcada} no pudo aplicar, y lo sincroniza.
+     */
+    void registrarArrastre(long secuencia, long productoId, long delta, long secuenciaVolcada) throws IOException {
+        agregar(secuencia, "A " + secuencia + " " + productoId + " " + delta + " " + secuenciaVolcada + "\n");
+        sincronizar(secuencia);
+    }
+
+    /**
+     * Espera a que los registros hasta {@code secuencia} estén en el disco. Quien encuentra la sincronización
+     * pendiente la hace para todos los registros escritos hasta ese momento, así las confirmaciones que
+     * llegan mientras tanto sólo esperan la siguiente.
+     */
+    void sincronizar(long secuencia) throws IOException {
+        if (!fsync) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (ultimaSecuenciaSincronizada >= secuencia) {
+                return;
+            }
+            canal.force(false);
+            ultimaSecuenciaSincronizada = ultimaSecuenciaEscrita;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void agregar(long secuencia, String linea) throws IOException {
+        lock.lock();
+        try {
+            escribir(linea);
+            ultimaSecuenciaEscrita = Math.max(ultimaSecuenciaEscrita, secuencia);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Quita del journal los movimientos ya volcados (secuencia menor o igual a {@code secuenciaVolcada}).
+     * Los posteriores se reescriben en un archivo nuevo que reemplaza al actual de forma atómica.
+     */
+    void compactar(long secuenciaVolcada, String epoca) {
+        lock.lock();
+        try {
+            if (ultimaSecuenciaEscrita <= secuenciaVolcada) {
+                if (ultimaSecuenciaEscrita > 0) {
+                    reiniciar(epoca);
+                }
+                return;
+            }
+            List<Movimiento> restantes = leer(epoca).stream()
+                    .filter(movimiento -> movimiento.secuencia() > secuenciaVolcada)
+                    .toList();
+            Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+            StringBuilder contenido = new StringBuilder("E ").append(epoca).append('\n');
+            restantes.forEach(movimiento -> {
+                contenido.append(movimiento.volcadoRequerido() > 0 ? "A " : "C ").append(movimiento.secuencia())
+                        .append(' ').append(movimiento.productoId()).append(' ').append(movimiento.delta());
+                if (movimiento.volcadoRequerido() > 0) {
+                    contenido.append(' ').append(movimiento.volcadoRequerido());
+                }
+                contenido.append('\n');
+            });
+            // El archivo nuevo llega al disco antes de reemplazar al actual
+            try (FileChannel nuevo = FileChannel.open(temporal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = StandardCharsets.UTF_8.encode(contenido.toString());
+                while (buffer.hasRemaining()) {
+                    nuevo.write(buffer);
+                }
+                nuevo.force(true);
+            }
+            cerrarCanal();
+            Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            canal = FileChannel.open(ruta, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            ultimaSecuenciaSincronizada = ultimaSecuenciaEscrita;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo compactar el journal de reservas " + ruta, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void cerrar() {
+        lock.lock();
+        try {
+            cerrarCanal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long finDeUltimaLinea() throws IOException {
+        ByteBuffer byteLeido = ByteBuffer.allocate(1);
+        for (long posicion = canal.size() - 1; posicion >= 0; posicion--) {
+            byteLeido.clear();
+            canal.read(byteLeido, posicion);
+            if (byteLeido.get(0) == '\n') {
+                return posicion + 1;
+            }
+        }
+        return 0;
+    }
+
+    private void escribir(String linea) throws IOException {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(linea);
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+
+    private void cerrarCanal() {
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                log.warn("No se pudo cerrar el journal de reservas {}", ruta, e);
+            }
+            canal = null;
+        }
+    }
+}
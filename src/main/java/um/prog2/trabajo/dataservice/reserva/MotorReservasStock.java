@@ -0,0 +1,646 @@
+package um.prog2.trabajo.dataservice.reserva;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import um.prog2.trabajo.dataservice.dto.DisponibilidadStock;
+import um.prog2.trabajo.dataservice.dto.Reserva;
+import um.prog2.trabajo.dataservice.entity.CheckpointReservas;
+import um.prog2.trabajo.dataservice.eventos.RegistroEventosStock;
+import um.prog2.trabajo.dataservice.exception.RecursoNoEncontradoException;
+import um.prog2.trabajo.dataservice.exception.StockInsuficienteException;
+import um.prog2.trabajo.dataservice.repository.CheckpointReservasRepository;
+import um.prog2.trabajo.dataservice.repository.InventarioRepository;
+import um.prog2.trabajo.dataservice.versiones.Coleccion;
+import um.prog2.trabajo.dataservice.versiones.VersionesCatalogo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Motor de reservas de stock en memoria para productos con mucha concurrencia.
+ * <p>
+ * Los contadores de cada producto se protegen con locks por franja, de modo que reservar y confirmar
+ * no toca la base de datos. Las ventas confirmadas se anotan en un journal local y se vuelcan
+ * periódicamente como deltas netos en un único batch. Las reservas sin confirmar viven sólo en memoria
+ * y se pierden ante una caída, las confirmaciones no.
+ * <p>
+ * Los demás caminos que bajan o fijan la cantidad de la fila pasan por {@link #comenzarEscritura}, así la
+ * fila nunca queda por debajo de lo reservado y lo vendido sin volcar. Si aun así un delta dejaría la fila en
+ * negativo, el volcado no lo aplica: queda pendiente, anotado otra vez en el journal, y se reintenta en los
+ * volcados siguientes. Si la fila ya no existe (se eliminó el producto o su inventario) el delta se descarta
+ * junto con el contador y las reservas del producto.
+ */
+@Component
+@Slf4j
+public class MotorReservasStock {
+
+    // Las marcas de stock van antes que la cantidad para que usen el valor anterior también en MySQL
+    private static final String SQL_APLICAR_DELTA = "UPDATE inventario SET "
+            + "stock_bajo = CASE WHEN cantidad + ? <= stock_minimo THEN TRUE ELSE FALSE END, "
+            + "sin_stock = CASE WHEN cantidad + ? = 0 THEN TRUE ELSE FALSE END, "
+            + "cantidad = cantidad + ?, fecha_actualizacion = ?, version = version + 1 "
+            + "WHERE producto_id = ? AND cantidad + ? >= 0";
+    // No cambia filas: sólo hace que Hibernate dé por modificada la tabla en la transacción del volcado
+    private static final String SQL_MARCAR_INVENTARIO = "UPDATE inventario SET version = version WHERE 1 = 0";
+    private static final String SQL_LEER_CANTIDADES = "SELECT producto_id, cantidad, stock_minimo FROM inventario "
+            + "WHERE producto_id IN (%s)";
+    private static final String SQL_LEER_EXISTENTES = "SELECT producto_id FROM inventario WHERE producto_id IN (%s)";
+    private static final int PRODUCTOS_POR_LECTURA = 500;
+    private static final long INACTIVIDAD_DESALOJO_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final InventarioRepository inventarioRepository;
+    private final CheckpointReservasRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final JournalReservas journal;
+    private final RegistroEventosStock registroEventos;
+    private final VersionesCatalogo versiones;
+    private final ReentrantLock[] franjas;
+    // Se señala al terminar una escritura externa, para las reservas que la esperan
+    private final Condition[] escriturasTerminadas;
+    // Orden de locks: primero lockVolcado, después la franja. Las operaciones en caliente sólo toman la franja.
+    private final ReentrantLock lockVolcado = new ReentrantLock();
+    private final Map<Long, ContadorStock> contadores = new ConcurrentHashMap<>();
+    private final Map<String, Reserva> reservas = new ConcurrentHashMap<>();
+    // Escrituras externas en curso por producto; se modifica con el lock de la franja tomado
+    private final Map<Long, Integer> escriturasEnCurso = new ConcurrentHashMap<>();
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Duration duracionReserva;
+    private final long intervaloVolcadoMs;
+    private String epoca;
+    private ScheduledExecutorService programador;
+
+    public MotorReservasStock(InventarioRepository inventarioRepository,
+                              CheckpointReservasRepository checkpointRepository,
+                              JdbcTemplate jdbcTemplate,
+                              EntityManager entityManager,
+                              TransactionTemplate transactionTemplate,
+                              RegistroEventosStock registroEventos,
+                              VersionesCatalogo versiones,
+                              @Value("${data.reservas.franjas:64}") int cantidadFranjas,
+                              @Value("${data.reservas.journal:./data/reservas-stock.journal}") String rutaJournal,
+                              @Value("${data.reservas.journal-fsync:true}") boolean fsync,
+                              @Value("${data.reservas.duracion-reserva-segundos:600}") long duracionReservaSegundos,
+                              @Value("${data.reservas.intervalo-volcado-ms:200}") long intervaloVolcadoMs) {
+        if (cantidadFranjas <= 0 || Integer.bitCount(cantidadFranjas) != 1) {
+            throw new IllegalArgumentException("data.reservas.franjas debe ser una potencia de dos");
+        }
+        this.inventarioRepository = inventarioRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.registroEventos = registroEventos;
+        this.versiones = versiones;
+        this.journal = new JournalReservas(Path.of(rutaJournal), fsync);
+        this.franjas = new ReentrantLock[cantidadFranjas];
+        this.escriturasTerminadas = new Condition[cantidadFranjas];
+        for (int i = 0; i < cantidadFranjas; i++) {
+            franjas[i] = new ReentrantLock();
+            escriturasTerminadas[i] = franjas[i].newCondition();
+        }
+        this.duracionReserva = Duration.ofSeconds(duracionReservaSegundos);
+        this.intervaloVolcadoMs = intervaloVolcadoMs;
+    }
+
+    @PostConstruct
+    void iniciar() {
+        CheckpointReservas checkpoint = transactionTemplate.execute(status ->
+                checkpointRepository.findById(CheckpointReservas.ID_UNICO)
+                        .orElseGet(() -> checkpointRepository.save(new CheckpointReservas(
+                                CheckpointReservas.ID_UNICO, UUID.randomUUID().toString(), 0L))));
+        epoca = checkpoint.getEpoca();
+        long ultimaVolcada = checkpoint.getUltimaSecuencia();
+
+        // Recuperación: se reaplican las confirmaciones que quedaron en el journal sin volcar
+        journal.abrir(epoca);
+        Map<Long, Long> deltas = new HashMap<>();
+        long ultimaEscrita = ultimaVolcada;
+        for (JournalReservas.Movimiento movimiento : journal.leer(epoca)) {
+            ultimaEscrita = Math.max(ultimaEscrita, movimiento.secuencia());
+            if (movimiento.vigente(ultimaVolcada)) {
+                deltas.merge(movimiento.productoId(), movimiento.delta(), Long::sum);
+            }
+        }
+        secuencia.set(ultimaEscrita);
+        if (!deltas.isEmpty()) {
+            log.info("Recuperando {} productos con confirmaciones sin volcar (secuencias {} a {})",
+                    deltas.size(), ultimaVolcada + 1, ultimaEscrita);
+            aplicarDeltas(deltas, ultimaEscrita).conflictos().forEach((productoId, delta) -> {
+                ContadorStock contador = new ContadorStock(0);
+                contador.pendiente = delta;
+                contador.desactualizado = true;
+                contadores.put(productoId, contador);
+            });
+        }
+        journal.compactar(ultimaEscrita, epoca);
+
+        programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "volcado-reservas-stock");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        programador.scheduleWithFixedDelay(this::volcadoProgramado, intervaloVolcadoMs, intervaloVolcadoMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        programador.shutdown();
+        try {
+            programador.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        volcar();
+        journal.cerrar();
+    }
+
+    public Reserva reservar(Long productoId, int cantidad) {
+        log.info("Reservando {} unidades del producto ID: {}", cantidad, productoId);
+        validarCantidadPositiva(cantidad);
+        ReentrantLock franja = franja(productoId);
+        while (true) {
+            ContadorStock contador = obtenerContador(productoId);
+            franja.lock();
+            try {
+                if (contador.desalojado || contador.desactualizado) {
+                    continue;
+                }
+                if (escriturasEnCurso.containsKey(productoId)) {
+                    // Se reserva contra el resultado de la escritura, no contra el valor que va a reemplazar
+                    escriturasTerminadas[indiceFranja(productoId)].awaitUninterruptibly();
+                    continue;
+                }
+                if (contador.disponible() < cantidad) {
+                    throw new StockInsuficienteException("Stock insuficiente para el producto ID: " + productoId
+                            + " (disponible: " + contador.disponible() + ", solicitado: " + cantidad + ")");
+                }
+                contador.reservado += cantidad;
+                contador.ultimoAcceso = System.nanoTime();
+                Reserva reserva = new Reserva(UUID.randomUUID().toString(), productoId, cantidad,
+                        LocalDateTime.now().plus(duracionReserva));
+                reservas.put(reserva.getId(), reserva);
+                return reserva;
+            } finally {
+                franja.unlock();
+            }
+        }
+    }
+
+    public void confirmar(String reservaId) {
+        log.info("Confirmando reserva ID: {}", reservaId);
+        Reserva reserva = buscarReserva(reservaId);
+        ReentrantLock franja = franja(reserva.getProductoId());
+        long siguiente;
+        while (true) {
+            // Si otro camino cambió la fila, el contador se relee para confirmar contra la cantidad actual
+            ContadorStock contador = obtenerContador(reserva.getProductoId());
+            franja.lock();
+            try {
+                if (contador.desalojado || contador.desactualizado) {
+                    continue;
+                }
+                if (reservas.get(reservaId) != reserva) {
+                    throw new RecursoNoEncontradoException("Reserva no encontrada con ID: " + reservaId);
+                }
+                if (contador.base + contador.pendiente < reserva.getCantidad()) {
+                    reservas.remove(reservaId);
+                    contador.reservado -= reserva.getCantidad();
+                    throw new StockInsuficienteException("Stock insuficiente para confirmar la reserva ID: "
+                            + reservaId + " (en stock: " + (contador.base + contador.pendiente)
+                            + ", reservado: " + reserva.getCantidad() + ")");
+                }
+                siguiente = secuencia.incrementAndGet();
+                try {
+                    journal.registrar(siguiente, reserva.getProductoId(), -reserva.getCantidad());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo registrar la confirmación de la reserva " + reservaId, e);
+                }
+                contador.reservado -= reserva.getCantidad();
+                contador.pendiente -= reserva.getCantidad();
+                contador.ultimoAcceso = System.nanoTime();
+                reservas.remove(reservaId);
+                break;
+            } finally {
+                franja.unlock();
+            }
+        }
+        // Fuera del lock de la franja: las confirmaciones simultáneas comparten la sincronización del journal
+        try {
+            journal.sincronizar(siguiente);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo sincronizar la confirmación de la reserva " + reservaId, e);
+        }
+    }
+
+    public void cancelar(String reservaId) {
+        log.info("Cancelando reserva ID: {}", reservaId);
+        Reserva reserva = buscarReserva(reservaId);
+        ReentrantLock franja = franja(reserva.getProductoId());
+        franja.lock();
+        try {
+            if (!reservas.remove(reservaId, reserva)) {
+                throw new RecursoNoEncontradoException("Reserva no encontrada con ID: " + reservaId);
+            }
+            contadores.get(reserva.getProductoId()).reservado -= reserva.getCantidad();
+        } finally {
+            franja.unlock();
+        }
+    }
+
+    public DisponibilidadStock consultarDisponibilidad(Long productoId) {
+        log.info("Consultando disponibilidad en memoria del producto ID: {}", productoId);
+        ReentrantLock franja = franja(productoId);
+        while (true) {
+            ContadorStock contador = obtenerContador(productoId);
+            franja.lock();
+            try {
+                if (contador.desalojado || contador.desactualizado) {
+                    continue;
+                }
+                return new DisponibilidadStock(productoId, contador.disponible(), contador.reservado,
+                        contador.pendiente);
+            } finally {
+                franja.unlock();
+            }
+        }
+    }
+
+    /**
+     * Marca el contador del producto para releerlo de la base de datos. Se llama desde los demás caminos
+     * de escritura del inventario; dentro de una transacción la marca se aplica recién después del commit.
+     */
+    public void invalidar(Long productoId) {
+        if (productoId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    marcarDesactualizado(productoId);
+                }
+            });
+        } else {
+            marcarDesactualizado(productoId);
+        }
+    }
+
+    /**
+     * Prepara una escritura de la cantidad del producto por fuera del motor (una cantidad absoluta o un
+     * descuento directo en la base) y devuelve las unidades comprometidas, reservadas o vendidas sin volcar,
+     * por debajo de las cuales la fila no puede quedar. Hasta que termine la transacción en curso no se
+     * otorgan reservas nuevas del producto; si se confirma, el contador se relee de la base.
+     */
+    public long comenzarEscritura(Long productoId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("La escritura del stock del producto ID: " + productoId
+                    + " debe hacerse dentro de una transacción");
+        }
+        ReentrantLock franja = franja(productoId);
+        franja.lock();
+        try {
+            escriturasEnCurso.merge(productoId, 1, Integer::sum);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    terminarEscritura(productoId, estado == STATUS_COMMITTED);
+                }
+            });
+            ContadorStock contador = contadores.get(productoId);
+            return contador == null ? 0 : contador.reservado - contador.pendiente;
+        } finally {
+            franja.unlock();
+        }
+    }
+
+    /**
+     * Escribe en la base de datos los deltas confirmados desde el último volcado, junto con el checkpoint
+     * del journal, en una sola transacción.
+     */
+    public void volcar() {
+        lockVolcado.lock();
+        try {
+            Map<Long, Long> deltas = new HashMap<>();
+            long hastaSecuencia;
+            bloquearFranjas();
+            try {
+                desalojarInactivos();
+                hastaSecuencia = secuencia.get();
+                contadores.forEach((productoId, contador) -> {
+                    if (contador.pendiente != 0) {
+                        deltas.put(productoId, contador.pendiente);
+                        contador.base += contador.pendiente;
+                        contador.pendiente = 0;
+                    }
+                });
+            } finally {
+                desbloquearFranjas();
+            }
+            if (deltas.isEmpty()) {
+                return;
+            }
+            ResultadoVolcado resultado;
+            try {
+                resultado = aplicarDeltas(deltas, hastaSecuencia);
+            } catch (RuntimeException e) {
+                // Se devuelven los deltas a pendiente; el journal sigue teniéndolos para el próximo intento
+                bloquearFranjas();
+                try {
+                    deltas.forEach((productoId, delta) -> {
+                        ContadorStock contador = contadores.get(productoId);
+                        contador.base -= delta;
+                        contador.pendiente += delta;
+                    });
+                } finally {
+                    desbloquearFranjas();
+                }
+                throw e;
+            }
+            if (!resultado.conflictos().isEmpty() || !resultado.descartados().isEmpty()) {
+                bloquearFranjas();
+                try {
+                    resultado.conflictos().forEach((productoId, delta) -> {
+                        ContadorStock contador = contadores.get(productoId);
+                        contador.base -= delta;
+                        contador.pendiente += delta;
+                        contador.desactualizado = true;
+                    });
+                    resultado.descartados().forEach(this::descartarProducto);
+                } finally {
+                    desbloquearFranjas();
+                }
+            }
+            journal.compactar(hastaSecuencia, epoca);
+            log.debug("Volcados {} productos hasta la secuencia {}", deltas.size(), hastaSecuencia);
+        } finally {
+            lockVolcado.unlock();
+        }
+    }
+
+    private void volcadoProgramado() {
+        try {
+            volcar();
+            expirarReservas();
+        } catch (RuntimeException e) {
+            log.error("Error al volcar las reservas de stock: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Aplica los deltas y avanza el checkpoint en una transacción. Devuelve como conflictos los que no se
+     * aplicaron porque dejaban la fila en negativo; antes de confirmar se anotan de nuevo en el journal, porque
+     * el checkpoint deja atrás a las confirmaciones que los originaron. Los de productos sin fila de inventario
+     * no se anotan: el checkpoint los deja atrás y se pierden, igual que la fila.
+     */
+    private ResultadoVolcado aplicarDeltas(Map<Long, Long> deltas, long hastaSecuencia) {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> productoIds = new ArrayList<>(deltas.keySet());
+        List<Object[]> parametros = new ArrayList<>(productoIds.size());
+        for (Long productoId : productoIds) {
+            long delta = deltas.get(productoId);
+            parametros.add(new Object[]{delta, delta, delta, ahora, productoId, delta});
+        }
+        return transactionTemplate.execute(status -> {
+            int[] filas = jdbcTemplate.batchUpdate(SQL_APLICAR_DELTA, parametros);
+            Map<Long, Long> aplicados = new HashMap<>();
+            Map<Long, Long> conflictos = new HashMap<>();
+            for (int i = 0; i < productoIds.size(); i++) {
+                Long productoId = productoIds.get(i);
+                (filas[i] == 0 ? conflictos : aplicados).put(productoId, deltas.get(productoId));
+            }
+            Set<Long> descartados = new HashSet<>(conflictos.keySet());
+            descartados.removeAll(leerExistentes(conflictos.keySet()));
+            descartados.forEach(productoId -> {
+                log.warn("El producto ID: {} ya no tiene inventario, se descarta su delta {} sin volcar",
+                        productoId, conflictos.get(productoId));
+                conflictos.remove(productoId);
+            });
+            conflictos.forEach((productoId, delta) -> {
+                log.error("El delta {} dejaría en negativo el stock del producto ID: {}, queda pendiente",
+                        delta, productoId);
+                try {
+                    journal.registrarArrastre(secuencia.incrementAndGet(), productoId, delta, hastaSecuencia);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo registrar el delta pendiente del producto "
+                            + productoId, e);
+                }
+            });
+            checkpointRepository.actualizarSecuencia(CheckpointReservas.ID_UNICO, hastaSecuencia);
+            if (!aplicados.isEmpty()) {
+                registrarCruces(aplicados);
+                versiones.registrarCambios(Coleccion.INVENTARIO, aplicados.keySet());
+                invalidarConsultasCacheadas();
+            }
+            return new ResultadoVolcado(conflictos, descartados);
+        });
+    }
+
+    private Set<Long> leerExistentes(Set<Long> productoIds) {
+        Set<Long> existentes = new HashSet<>();
+        List<Long> ids = new ArrayList<>(productoIds);
+        for (int desde = 0; desde < ids.size(); desde += PRODUCTOS_POR_LECTURA) {
+            List<Long> bloque = ids.subList(desde, Math.min(desde + PRODUCTOS_POR_LECTURA, ids.size()));
+            String sql = SQL_LEER_EXISTENTES.formatted(String.join(", ", Collections.nCopies(bloque.size(), "?")));
+            existentes.addAll(jdbcTemplate.queryForList(sql, Long.class, bloque.toArray()));
+        }
+        return existentes;
+    }
+
+    // Se invoca con todas las franjas tomadas: sin fila no hay stock que reservar ni ventas que volcar
+    private void descartarProducto(Long productoId) {
+        ContadorStock contador = contadores.remove(productoId);
+        if (contador != null) {
+            contador.desalojado = true;
+        }
+        reservas.values().removeIf(reserva -> reserva.getProductoId().equals(productoId));
+    }
+
+    private record ResultadoVolcado(Map<Long, Long> conflictos, Set<Long> descartados) {
+    }
+
+    // El batch por JDBC tampoco pasa por Hibernate: sin esto la caché de consultas seguiría devolviendo las
+    // cantidades anteriores de los listados que leen inventario
+    private void invalidarConsultasCacheadas() {
+        entityManager.createNativeQuery(SQL_MARCAR_INVENTARIO)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("inventario")
+                .executeUpdate();
+    }
+
+    // El UPDATE por JDBC no pasa por los callbacks de la entidad: se relee la cantidad resultante
+    private void registrarCruces(Map<Long, Long> deltas) {
+        List<Long> productoIds = new ArrayList<>(deltas.keySet());
+        for (int desde = 0; desde < productoIds.size(); desde += PRODUCTOS_POR_LECTURA) {
+            List<Long> bloque = productoIds.subList(desde, Math.min(desde + PRODUCTOS_POR_LECTURA, productoIds.size()));
+            String sql = SQL_LEER_CANTIDADES.formatted(String.join(", ", Collections.nCopies(bloque.size(), "?")));
+            jdbcTemplate.query(sql, fila -> {
+                long productoId = fila.getLong("producto_id");
+                int cantidad = fila.getInt("cantidad");
+                Integer stockMinimo = fila.getObject("stock_minimo", Integer.class);
+                registroEventos.registrarCambio(productoId, (int) (cantidad - deltas.get(productoId)), cantidad,
+                        stockMinimo);
+            }, bloque.toArray());
+        }
+    }
+
+    private ContadorStock obtenerContador(Long productoId) {
+        ContadorStock contador = contadores.get(productoId);
+        if (contador != null && !contador.desactualizado) {
+            return contador;
+        }
+        // Se lee la base fuera de un volcado en curso para no ver la fila a medio actualizar
+        lockVolcado.lock();
+        try {
+            ReentrantLock franja = franja(productoId);
+            franja.lock();
+            try {
+                contador = contadores.get(productoId);
+                if (contador != null && !contador.desactualizado) {
+                    return contador;
+                }
+                long cantidad = inventarioRepository.findByProductoId(productoId)
+                        .orElseThrow(() -> new RecursoNoEncontradoException(
+                                "Inventario no encontrado para producto ID: " + productoId))
+                        .getCantidad();
+                if (contador == null) {
+                    contador = new ContadorStock(cantidad);
+                    contadores.put(productoId, contador);
+                } else {
+                    // Lo pendiente se suma sobre el valor actual de la fila al volcar, por eso se conserva
+                    contador.base = cantidad;
+                    contador.desactualizado = false;
+                }
+                return contador;
+            } finally {
+                franja.unlock();
+            }
+        } finally {
+            lockVolcado.unlock();
+        }
+    }
+
+    private void terminarEscritura(Long productoId, boolean confirmada) {
+        int indice = indiceFranja(productoId);
+        franjas[indice].lock();
+        try {
+            escriturasEnCurso.computeIfPresent(productoId, (id, enCurso) -> enCurso > 1 ? enCurso - 1 : null);
+            ContadorStock contador = contadores.get(productoId);
+            if (confirmada && contador != null) {
+                contador.desactualizado = true;
+            }
+            escriturasTerminadas[indice].signalAll();
+        } finally {
+            franjas[indice].unlock();
+        }
+    }
+
+    private void marcarDesactualizado(Long productoId) {
+        ReentrantLock franja = franja(productoId);
+        franja.lock();
+        try {
+            ContadorStock contador = contadores.get(productoId);
+            if (contador != null) {
+                contador.desactualizado = true;
+            }
+        } finally {
+            franja.unlock();
+        }
+    }
+
+    // Se invoca con todas las franjas tomadas
+    private void desalojarInactivos() {
+        long limite = System.nanoTime() - INACTIVIDAD_DESALOJO_NANOS;
+        contadores.entrySet().removeIf(entrada -> {
+            ContadorStock contador = entrada.getValue();
+            boolean inactivo = contador.pendiente == 0 && contador.reservado == 0
+                    && contador.ultimoAcceso - limite < 0;
+            if (inactivo) {
+                contador.desalojado = true;
+            }
+            return inactivo;
+        });
+    }
+
+    private void expirarReservas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Reserva reserva : reservas.values()) {
+            if (reserva.getExpiraEn().isBefore(ahora)) {
+                ReentrantLock franja = franja(reserva.getProductoId());
+                franja.lock();
+                try {
+                    if (reservas.remove(reserva.getId(), reserva)) {
+                        contadores.get(reserva.getProductoId()).reservado -= reserva.getCantidad();
+                        log.info("Reserva ID: {} expirada", reserva.getId());
+                    }
+                } finally {
+                    franja.unlock();
+                }
+            }
+        }
+    }
+
+    private Reserva buscarReserva(String reservaId) {
+        Reserva reserva = reservas.get(reservaId);
+        if (reserva == null) {
+            throw new RecursoNoEncontradoException("Reserva no encontrada con ID: " + reservaId);
+        }
+        return reserva;
+    }
+
+    private ReentrantLock franja(Long productoId) {
+        return franjas[indiceFranja(productoId)];
+    }
+
+    private int indiceFranja(Long productoId) {
+        return Long.hashCode(productoId * 0x9E3779B97F4A7C15L) & (franjas.length - 1);
+    }
+
+    private void bloquearFranjas() {
+        for (ReentrantLock franja : franjas) {
+            franja.lock();
+        }
+    }
+
+    private void desbloquearFranjas() {
+        for (int i = franjas.length - 1; i >= 0; i--) {
+            franjas[i].unlock();
+        }
+    }
+
+    private void validarCantidadPositiva(int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a cero");
+        }
+    }
+}
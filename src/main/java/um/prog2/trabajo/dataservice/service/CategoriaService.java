@@ -1,8 +1,11 @@
 package um.prog2.trabajo.dataservice.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import um.prog2.trabajo.dataservice.dto.CategoriaVista;
+import um.prog2.trabajo.dataservice.dto.PaginaKeyset;
 import um.prog2.trabajo.dataservice.entity.Categoria;
 import um.prog2.trabajo.dataservice.exception.RecursoNoEncontradoException;
 import um.prog2.trabajo.dataservice.repository.CategoriaRepository;
@@ -21,9 +24,12 @@ public class CategoriaService {
     }
     
     @Transactional(readOnly = true)
-    public List<Categoria> obtenerTodas() {
-        log.info("Obteniendo todas las categorías");
-        return categoriaRepository.findAll();
+    public PaginaKeyset<CategoriaVista> obtenerPagina(String cursor, int limite) {
+        log.info("Obteniendo página de categorías después del cursor: {} (límite {})", cursor, limite);
+        PaginaKeyset.validarLimite(limite);
+        Long despuesDeId = PaginaKeyset.decodificarCursor(cursor);
+        List<CategoriaVista> categorias = categoriaRepository.findVistasDespuesDe(despuesDeId, Limit.of(limite + 1));
+        return PaginaKeyset.desde(categorias, limite, CategoriaVista::id);
     }
     
     @Transactional(readOnly = true)
@@ -34,9 +40,16 @@ public class CategoriaService {
     }
     
     @Transactional(readOnly = true)
-    public Categoria buscarPorNombre(String nombre) {
-        log.info("Buscando categoría por nombre: {}", nombre);
-        return categoriaRepository.findByNombre(nombre)
+    public CategoriaVista buscarVistaPorId(Long id) {
+        log.info("Buscando vista de categoría por ID: {}", id);
+        return categoriaRepository.findVistaById(id)
+            .orElseThrow(() -> new RecursoNoEncontradoException("Categoría no encontrada con ID: " + id));
+    }
+    
+    @Transactional(readOnly = true)
+    public CategoriaVista buscarVistaPorNombre(String nombre) {
+        log.info("Buscando vista de categoría por nombre: {}", nombre);
+        return categoriaRepository.findVistaByNombre(nombre)
             .orElseThrow(() -> new RecursoNoEncontradoException("Categoría no encontrada con nombre: " + nombre));
     }
     
@@ -0,0 +1,341 @@
+package um.prog2.trabajo.dataservice.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import um.prog2.trabajo.dataservice.dto.ResumenImportacionCatalogo;
+import um.prog2.trabajo.dataservice.entity.Categoria;
+import um.prog2.trabajo.dataservice.entity.EjecucionImportacion;
+import um.prog2.trabajo.dataservice.entity.Inventario;
+import um.prog2.trabajo.dataservice.entity.Producto;
+import um.prog2.trabajo.dataservice.repository.CategoriaRepository;
+import um.prog2.trabajo.dataservice.repository.EjecucionImportacionRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Importación del catálogo (categorías, productos y stock) desde un archivo CSV o TSV de cualquier tamaño.
+ * <p>
+ * El archivo se lee de a {@code data.importacion-csv.tamano-bloque} líneas, así la memoria no depende de su
+ * tamaño. Cada bloque se inserta con batching JDBC en su propia transacción, que también avanza el registro
+ * de {@link EjecucionImportacion}; si la corrida se interrumpe, la siguiente sobre el mismo archivo sin
+ * cambios saltea las líneas ya confirmadas. Las categorías se resuelven por nombre contra un mapa en memoria
+ * y las que no existen se crean con el primer producto que las nombra.
+ * <p>
+ * La primera línea es el encabezado, con las columnas {@code categoria}, {@code nombre}, {@code precio} y
+ * {@code stock} y opcionalmente {@code descripcion} y {@code stock_minimo}, en cualquier orden. Si contiene
+ * tabulaciones el archivo se lee como TSV; si no, como CSV con comillas dobles (sin saltos de línea dentro de
+ * un campo). Las filas inválidas se informan en el log y se cuentan como rechazadas.
+ */
+@Service
+@Slf4j
+public class ImportacionCatalogoService {
+
+    private final CategoriaRepository categoriaRepository;
+    private final EjecucionImportacionRepository ejecucionRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoBloque;
+
+    public ImportacionCatalogoService(CategoriaRepository categoriaRepository,
+                                      EjecucionImportacionRepository ejecucionRepository,
+                                      EntityManager entityManager,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${data.importacion-csv.tamano-bloque:1000}") int tamanoBloque) {
+        if (tamanoBloque < 1) {
+            throw new IllegalArgumentException("data.importacion-csv.tamano-bloque debe ser positivo");
+        }
+        this.categoriaRepository = categoriaRepository;
+        this.ejecucionRepository = ejecucionRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    public ResumenImportacionCatalogo importar(Path archivo) throws IOException {
+        return importar(archivo, null);
+    }
+
+    /**
+     * Como {@link #importar(Path)}, corriendo como la ejecución {@code tareaEjecucionId} de Spring Cloud Task:
+     * queda asociada al avance de la importación que crea o retoma.
+     */
+    public ResumenImportacionCatalogo importar(Path archivo, Long tareaEjecucionId) throws IOException {
+        Path ruta = archivo.toAbsolutePath().normalize();
+        String huella = Files.size(ruta) + "-" + Files.getLastModifiedTime(ruta).toMillis();
+        EjecucionImportacion ejecucion = transactionTemplate.execute(status -> {
+            EjecucionImportacion encontrada = ejecucionRepository
+                    .findFirstByArchivoAndHuellaAndEstadoNotOrderByIdDesc(ruta.toString(), huella,
+                            EjecucionImportacion.Estado.COMPLETADA)
+                    .orElseGet(() -> EjecucionImportacion.nueva(ruta.toString(), huella));
+            if (tareaEjecucionId != null) {
+                encontrada.setTareaEjecucionId(tareaEjecucionId);
+            }
+            return ejecucionRepository.save(encontrada);
+        });
+        Long ejecucionId = ejecucion.getId();
+        long retomadas = ejecucion.getLineasProcesadas();
+        if (retomadas > 0) {
+            log.info("Retomando la importación {} de {} después de {} líneas", ejecucionId, ruta, retomadas);
+        } else {
+            log.info("Importando el catálogo desde {} (ejecución {})", ruta, ejecucionId);
+        }
+        cambiarEstado(ejecucionId, EjecucionImportacion.Estado.EN_CURSO);
+
+        long inicio = System.nanoTime();
+        Avance avance = new Avance();
+        try (BufferedReader lector = Files.newBufferedReader(ruta, StandardCharsets.UTF_8)) {
+            Encabezado encabezado = Encabezado.leer(lector.readLine());
+            // Las líneas que ya confirmó la corrida anterior
+            for (long i = 0; i < retomadas; i++) {
+                if (lector.readLine() == null) {
+                    break;
+                }
+            }
+            Map<String, Long> categorias = categoriasPorNombre();
+            List<String> bloque = new ArrayList<>(tamanoBloque);
+            long primeraLinea = retomadas + 1;
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                bloque.add(linea);
+                if (bloque.size() == tamanoBloque) {
+                    importarBloque(ejecucionId, encabezado, bloque, primeraLinea, categorias, avance);
+                    primeraLinea += bloque.size();
+                    bloque.clear();
+                }
+            }
+            if (!bloque.isEmpty()) {
+                importarBloque(ejecucionId, encabezado, bloque, primeraLinea, categorias, avance);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("La importación {} se detuvo después de {} líneas confirmadas en esta corrida: {}",
+                    ejecucionId, avance.lineas, e.getMessage());
+            cambiarEstado(ejecucionId, EjecucionImportacion.Estado.FALLIDA);
+            throw e;
+        }
+        cambiarEstado(ejecucionId, EjecucionImportacion.Estado.COMPLETADA);
+
+        ResumenImportacionCatalogo resumen = new ResumenImportacionCatalogo(ejecucionId, retomadas,
+                avance.importadas, avance.rechazadas, Duration.ofNanos(System.nanoTime() - inicio));
+        log.info("Importación {} completada: {} filas importadas y {} rechazadas en {} ms ({} filas/s)",
+                ejecucionId, resumen.filasImportadas(), resumen.filasRechazadas(), resumen.duracion().toMillis(),
+                String.format(Locale.ROOT, "%.0f", resumen.filasPorSegundo()));
+        return resumen;
+    }
+
+    private void importarBloque(Long ejecucionId, Encabezado encabezado, List<String> lineas, long primeraLinea,
+                                Map<String, Long> categorias, Avance avance) {
+        List<FilaCatalogo> filas = new ArrayList<>(lineas.size());
+        int rechazadas = 0;
+        for (int i = 0; i < lineas.size(); i++) {
+            String linea = lineas.get(i);
+            if (linea.isBlank()) {
+                continue;
+            }
+            try {
+                filas.add(encabezado.fila(linea));
+            } catch (IllegalArgumentException e) {
+                log.warn("Línea {} rechazada: {}", primeraLinea + i, e.getMessage());
+                rechazadas++;
+            }
+        }
+        int filasRechazadas = rechazadas;
+        Map<String, Long> categoriasNuevas = transactionTemplate.execute(status -> {
+            Map<String, Long> nuevas = persistirFilas(filas, categorias);
+            ejecucionRepository.registrarAvance(ejecucionId, lineas.size(), filas.size(), filasRechazadas,
+                    LocalDateTime.now());
+            return nuevas;
+        });
+        // Recién confirmadas se agregan al mapa: si el bloque fallaba no existirían
+        categorias.putAll(categoriasNuevas);
+        avance.lineas += lineas.size();
+        avance.importadas += filas.size();
+        avance.rechazadas += filasRechazadas;
+    }
+
+    private Map<String, Long> persistirFilas(List<FilaCatalogo> filas, Map<String, Long> categorias) {
+        // Un catálogo importado no se está leyendo todavía: no tiene sentido llenar con él la caché de segundo nivel
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+        Map<String, Long> nuevas = new HashMap<>();
+        LocalDateTime ahora = LocalDateTime.now();
+        for (FilaCatalogo fila : filas) {
+            Long categoriaId = categorias.get(fila.categoria());
+            if (categoriaId == null) {
+                categoriaId = nuevas.get(fila.categoria());
+            }
+            if (categoriaId == null) {
+                Categoria categoria = new Categoria();
+                categoria.setNombre(fila.categoria());
+                entityManager.persist(categoria);
+                categoriaId = categoria.getId();
+                nuevas.put(fila.categoria(), categoriaId);
+            }
+
+            Producto producto = new Producto();
+            producto.setNombre(fila.nombre());
+            producto.setDescripcion(fila.descripcion());
+            producto.setPrecio(fila.precio());
+            producto.setCategoria(entityManager.getReference(Categoria.class, categoriaId));
+
+            Inventario inventario = new Inventario();
+            inventario.setProducto(producto);
+            inventario.setCantidad(fila.stock());
+            inventario.setStockMinimo(fila.stockMinimo() != null
+                    ? fila.stockMinimo() : ProductoService.STOCK_MINIMO_POR_DEFECTO);
+            inventario.setFechaActualizacion(ahora);
+            producto.setInventario(inventario);
+
+            entityManager.persist(producto);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return nuevas;
+    }
+
+    private Map<String, Long> categoriasPorNombre() {
+        Map<String, Long> categorias = new HashMap<>();
+        categoriaRepository.findAll().forEach(categoria -> categorias.put(categoria.getNombre(), categoria.getId()));
+        return categorias;
+    }
+
+    private void cambiarEstado(Long ejecucionId, EjecucionImportacion.Estado estado) {
+        transactionTemplate.executeWithoutResult(status ->
+                ejecucionRepository.cambiarEstado(ejecucionId, estado, LocalDateTime.now()));
+    }
+
+    private static final class Avance {
+        private long lineas;
+        private long importadas;
+        private long rechazadas;
+    }
+
+    private record FilaCatalogo(String categoria, String nombre, String descripcion, BigDecimal precio, int stock,
+                                Integer stockMinimo) {
+    }
+
+    /**
+     * Posición de cada columna según el encabezado, y el separador.
+     */
+    private record Encabezado(char separador, int categoria, int nombre, int descripcion, int precio, int stock,
+                              int stockMinimo) {
+
+        static Encabezado leer(String linea) {
+            if (linea == null) {
+                throw new IllegalArgumentException("El archivo está vacío");
+            }
+            // Las planillas suelen guardar el CSV en UTF-8 con BOM
+            String sinBom = linea.startsWith("\uFEFF") ? linea.substring(1) : linea;
+            char separador = sinBom.indexOf('\t') >= 0 ? '\t' : ',';
+            List<String> columnas = separar(sinBom, separador).stream()
+                    .map(columna -> columna.toLowerCase(Locale.ROOT))
+                    .toList();
+            return new Encabezado(separador, obligatoria(columnas, "categoria"), obligatoria(columnas, "nombre"),
+                    columnas.indexOf("descripcion"), obligatoria(columnas, "precio"), obligatoria(columnas, "stock"),
+                    columnas.indexOf("stock_minimo"));
+        }
+
+        FilaCatalogo fila(String linea) {
+            List<String> campos = separar(linea, separador);
+            String categoria = texto(campos, categoria(), "categoria", 100);
+            String nombre = texto(campos, nombre(), "nombre", 100);
+            String descripcion = descripcion() >= 0 ? campo(campos, descripcion()) : null;
+            if (descripcion != null && descripcion.length() > 500) {
+                throw new IllegalArgumentException("descripcion supera los 500 caracteres");
+            }
+            BigDecimal precio;
+            try {
+                precio = new BigDecimal(texto(campos, precio(), "precio", 20));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("precio no es un número");
+            }
+            if (precio.signum() <= 0 || precio.scale() > 2 || precio.precision() - precio.scale() > 8) {
+                throw new IllegalArgumentException("precio debe ser positivo, con hasta 8 enteros y 2 decimales");
+            }
+            int stock = entero(campos, stock(), "stock");
+            Integer stockMinimo = stockMinimo() >= 0 && campo(campos, stockMinimo()) != null
+                    ? entero(campos, stockMinimo(), "stock_minimo") : null;
+            return new FilaCatalogo(categoria, nombre, descripcion, precio, stock, stockMinimo);
+        }
+
+        private static int obligatoria(List<String> columnas, String nombre) {
+            int indice = columnas.indexOf(nombre);
+            if (indice < 0) {
+                throw new IllegalArgumentException("Falta la columna " + nombre + " en el encabezado");
+            }
+            return indice;
+        }
+
+        private static String campo(List<String> campos, int indice) {
+            String valor = indice < campos.size() ? campos.get(indice) : "";
+            return valor.isEmpty() ? null : valor;
+        }
+
+        private static String texto(List<String> campos, int indice, String nombre, int largoMaximo) {
+            String valor = campo(campos, indice);
+            if (valor == null) {
+                throw new IllegalArgumentException(nombre + " es obligatorio");
+            }
+            if (valor.length() > largoMaximo) {
+                throw new IllegalArgumentException(nombre + " supera los " + largoMaximo + " caracteres");
+            }
+            return valor;
+        }
+
+        private static int entero(List<String> campos, int indice, String nombre) {
+            try {
+                int valor = Integer.parseInt(texto(campos, indice, nombre, 10));
+                if (valor < 0) {
+                    throw new IllegalArgumentException(nombre + " no puede ser negativo");
+                }
+                return valor;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(nombre + " no es un número entero");
+            }
+        }
+
+        private static List<String> separar(String linea, char separador) {
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreComillas = false;
+            for (int i = 0; i < linea.length(); i++) {
+                char c = linea.charAt(i);
+                if (entreComillas) {
+                    if (c != '"') {
+                        campo.append(c);
+                    } else if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        campo.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else if (c == '"' && separador == ',') {
+                    entreComillas = true;
+                } else if (c == separador) {
+                    campos.add(campo.toString().strip());
+                    campo.setLength(0);
+                } else {
+                    campo.append(c);
+                }
+            }
+            campos.add(campo.toString().strip());
+            return campos;
+        }
+    }
+}
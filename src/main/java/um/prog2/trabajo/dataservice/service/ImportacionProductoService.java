@@ -0,0 +1,184 @@
+package um.prog2.trabajo.dataservice.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import um.prog2.trabajo.dataservice.dto.ProductoConInventarioRequest;
+import um.prog2.trabajo.dataservice.dto.ResultadoFilaImportacion;
+import um.prog2.trabajo.dataservice.dto.ResultadoImportacion;
+import um.prog2.trabajo.dataservice.entity.Inventario;
+import um.prog2.trabajo.dataservice.entity.Producto;
+import um.prog2.trabajo.dataservice.plazo.PlazoSolicitud;
+import um.prog2.trabajo.dataservice.repository.CategoriaRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de productos con su inventario.
+ * Las filas válidas se insertan en bloques, cada uno en su propia transacción y con batching JDBC;
+ * si un bloque falla se reintenta fila por fila para que una fila problemática no descarte las demás.
+ */
+@Service
+@Slf4j
+public class ImportacionProductoService {
+
+    private final CategoriaRepository categoriaRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final int tamanoLote;
+    private final int filasMaximas;
+
+    public ImportacionProductoService(CategoriaRepository categoriaRepository,
+                                      EntityManager entityManager,
+                                      PlatformTransactionManager transactionManager,
+                                      Validator validator,
+                                      @Value("${data.importacion.tamano-lote:500}") int tamanoLote,
+                                      @Value("${data.importacion.filas-maximas:5000}") int filasMaximas) {
+        this.categoriaRepository = categoriaRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.tamanoLote = tamanoLote;
+        this.filasMaximas = filasMaximas;
+    }
+
+    public ResultadoImportacion importar(List<ProductoConInventarioRequest> filas) {
+        if (filas.size() > filasMaximas) {
+            throw new IllegalArgumentException("Se pueden importar hasta " + filasMaximas + " productos por solicitud");
+        }
+        log.info("Importando {} productos en bloques de {}", filas.size(), tamanoLote);
+        ResultadoFilaImportacion[] resultados = new ResultadoFilaImportacion[filas.size()];
+
+        List<Integer> filasValidas = validarFilas(filas, resultados);
+
+        for (int inicio = 0; inicio < filasValidas.size(); inicio += tamanoLote) {
+            List<Integer> bloque = filasValidas.subList(inicio, Math.min(inicio + tamanoLote, filasValidas.size()));
+            if (PlazoSolicitud.vencido()) {
+                // El servicio de negocio ya dejó de esperar: los bloques restantes no se guardan
+                log.warn("Se venció el plazo de la solicitud, quedan {} filas sin importar", filasValidas.size() - inicio);
+                for (Integer indice : filasValidas.subList(inicio, filasValidas.size())) {
+                    resultados[indice] = ResultadoFilaImportacion.fallo(indice,
+                            "Se venció el plazo de la solicitud antes de guardar la fila");
+                }
+                break;
+            }
+            try {
+                List<Producto> productos = transactionTemplate.execute(status -> persistirBloque(filas, bloque));
+                registrarExitos(bloque, productos, resultados);
+            } catch (RuntimeException e) {
+                log.warn("Falló el bloque que empieza en la fila {}, reintentando fila por fila: {}",
+                        bloque.get(0), e.getMessage());
+                for (Integer indice : bloque) {
+                    importarFila(filas, indice, resultados);
+                }
+            }
+        }
+
+        int exitosos = (int) Arrays.stream(resultados).filter(ResultadoFilaImportacion::isExito).count();
+        log.info("Importación finalizada: {} exitosos, {} fallidos", exitosos, filas.size() - exitosos);
+        return new ResultadoImportacion(filas.size(), exitosos, filas.size() - exitosos, Arrays.asList(resultados));
+    }
+
+    private List<Integer> validarFilas(List<ProductoConInventarioRequest> filas, ResultadoFilaImportacion[] resultados) {
+        // Una sola consulta para verificar todas las categorías referenciadas
+        Set<Long> categoriasSolicitadas = filas.stream()
+                .filter(Objects::nonNull)
+                .map(ProductoConInventarioRequest::getCategoriaId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> categoriasExistentes = categoriasSolicitadas.isEmpty()
+                ? Set.of()
+                : categoriaRepository.findIdsExistentes(categoriasSolicitadas);
+
+        List<Integer> filasValidas = new ArrayList<>(filas.size());
+        for (int i = 0; i < filas.size(); i++) {
+            String error = validarFila(filas.get(i), categoriasExistentes);
+            if (error != null) {
+                resultados[i] = ResultadoFilaImportacion.fallo(i, error);
+            } else {
+                filasValidas.add(i);
+            }
+        }
+        return filasValidas;
+    }
+
+    private String validarFila(ProductoConInventarioRequest fila, Set<Long> categoriasExistentes) {
+        if (fila == null) {
+            return "La fila está vacía";
+        }
+        Set<ConstraintViolation<ProductoConInventarioRequest>> violaciones = validator.validate(fila);
+        if (!violaciones.isEmpty()) {
+            return violaciones.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (fila.getStock() == null) {
+            return "El stock inicial es obligatorio";
+        }
+        if (!categoriasExistentes.contains(fila.getCategoriaId())) {
+            return "Categoría no encontrada con ID: " + fila.getCategoriaId();
+        }
+        return null;
+    }
+
+    private void importarFila(List<ProductoConInventarioRequest> filas, int indice, ResultadoFilaImportacion[] resultados) {
+        try {
+            List<Producto> productos = transactionTemplate.execute(status -> persistirBloque(filas, List.of(indice)));
+            registrarExitos(List.of(indice), productos, resultados);
+        } catch (RuntimeException e) {
+            String causa = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("No se pudo importar la fila {}: {}", indice, causa);
+            resultados[indice] = ResultadoFilaImportacion.fallo(indice, "Error al guardar el producto: " + causa);
+        }
+    }
+
+    private List<Producto> persistirBloque(List<ProductoConInventarioRequest> filas, List<Integer> indices) {
+        List<Producto> productos = new ArrayList<>(indices.size());
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Integer indice : indices) {
+            ProductoConInventarioRequest fila = filas.get(indice);
+
+            Producto producto = new Producto();
+            producto.setNombre(fila.getNombre());
+            producto.setDescripcion(fila.getDescripcion());
+            producto.setPrecio(fila.getPrecio());
+            producto.setCategoria(categoriaRepository.getReferenceById(fila.getCategoriaId()));
+
+            Inventario inventario = new Inventario();
+            inventario.setProducto(producto);
+            inventario.setCantidad(fila.getStock());
+            inventario.setStockMinimo(fila.getStockMinimo() != null
+                    ? fila.getStockMinimo() : ProductoService.STOCK_MINIMO_POR_DEFECTO);
+            inventario.setFechaActualizacion(ahora);
+            producto.setInventario(inventario);
+
+            entityManager.persist(producto);
+            productos.add(producto);
+        }
+        // Envía los INSERT agrupados y libera el contexto de persistencia antes del siguiente bloque
+        entityManager.flush();
+        entityManager.clear();
+        return productos;
+    }
+
+    private void registrarExitos(List<Integer> indices, List<Producto> productos, ResultadoFilaImportacion[] resultados) {
+        for (int i = 0; i < indices.size(); i++) {
+            int indice = indices.get(i);
+            resultados[indice] = ResultadoFilaImportacion.exito(indice, productos.get(i).getId());
+        }
+    }
+}
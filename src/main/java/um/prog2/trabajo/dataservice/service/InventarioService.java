@@ -1,13 +1,25 @@
 package um.prog2.trabajo.dataservice.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import um.prog2.trabajo.dataservice.dto.InventarioVista;
+import um.prog2.trabajo.dataservice.dto.PaginaKeyset;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+import um.prog2.trabajo.dataservice.dto.ResumenInventario;
 import um.prog2.trabajo.dataservice.entity.Inventario;
+import um.prog2.trabajo.dataservice.eventos.RegistroEventosStock;
 import um.prog2.trabajo.dataservice.exception.RecursoNoEncontradoException;
+import um.prog2.trabajo.dataservice.exception.StockInsuficienteException;
 import um.prog2.trabajo.dataservice.repository.InventarioRepository;
+import um.prog2.trabajo.dataservice.reserva.MotorReservasStock;
+import um.prog2.trabajo.dataservice.versiones.Coleccion;
+import um.prog2.trabajo.dataservice.versiones.VersionesCatalogo;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -16,15 +28,27 @@ import java.util.List;
 public class InventarioService {
     
     private final InventarioRepository inventarioRepository;
+    private final MotorReservasStock motorReservasStock;
+    private final RegistroEventosStock registroEventos;
+    private final VersionesCatalogo versiones;
     
-    public InventarioService(InventarioRepository inventarioRepository) {
+    public InventarioService(InventarioRepository inventarioRepository,
+                             MotorReservasStock motorReservasStock,
+                             RegistroEventosStock registroEventos,
+                             VersionesCatalogo versiones) {
         this.inventarioRepository = inventarioRepository;
+        this.motorReservasStock = motorReservasStock;
+        this.registroEventos = registroEventos;
+        this.versiones = versiones;
     }
     
     @Transactional(readOnly = true)
-    public List<Inventario> obtenerTodos() {
-        log.info("Obteniendo todo el inventario");
-        return inventarioRepository.findAll();
+    public PaginaKeyset<InventarioVista> obtenerPagina(String cursor, int limite) {
+        log.info("Obteniendo página de inventario después del cursor: {} (límite {})", cursor, limite);
+        PaginaKeyset.validarLimite(limite);
+        Long despuesDeId = PaginaKeyset.decodificarCursor(cursor);
+        List<InventarioVista> inventarios = inventarioRepository.findVistasDespuesDe(despuesDeId, Limit.of(limite + 1));
+        return PaginaKeyset.desde(inventarios, limite, InventarioVista::id);
     }
     
     @Transactional(readOnly = true)
@@ -42,37 +66,95 @@ public class InventarioService {
     }
     
     @Transactional(readOnly = true)
-    public List<Inventario> obtenerProductosConStockBajo() {
+    public InventarioVista buscarVistaPorId(Long id) {
+        log.info("Buscando vista de inventario por ID: {}", id);
+        return inventarioRepository.findVistaById(id)
+            .orElseThrow(() -> new RecursoNoEncontradoException("Inventario no encontrado con ID: " + id));
+    }
+    
+    @Transactional(readOnly = true)
+    public InventarioVista buscarVistaPorProductoId(Long productoId) {
+        log.info("Buscando vista de inventario por producto ID: {}", productoId);
+        return inventarioRepository.findVistaByProductoId(productoId)
+            .orElseThrow(() -> new RecursoNoEncontradoException("Inventario no encontrado para producto ID: " + productoId));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<InventarioVista> buscarVistasPorProductoIds(Collection<Long> productoIds) {
+        log.info("Buscando inventario de {} productos", productoIds.size());
+        PaginaKeyset.validarCantidadIds(productoIds);
+        return inventarioRepository.findVistasByProductoIdIn(productoIds);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<ProductoVista> obtenerProductosConStockBajo() {
         log.info("Obteniendo productos con stock bajo");
         return inventarioRepository.findProductosConStockBajo();
     }
     
     @Transactional(readOnly = true)
-    public List<Inventario> obtenerProductosSinStock() {
+    public List<ProductoVista> obtenerProductosSinStock() {
         log.info("Obteniendo productos sin stock");
         return inventarioRepository.findProductosSinStock();
     }
     
+    @Transactional(readOnly = true)
+    public ResumenInventario obtenerResumen() {
+        log.info("Calculando resumen agregado del inventario");
+        return inventarioRepository.obtenerResumen();
+    }
+    
     public Inventario guardar(Inventario inventario) {
         log.info("Guardando nuevo inventario para producto ID: {}", inventario.getProducto().getId());
         inventario.setFechaActualizacion(LocalDateTime.now());
+        motorReservasStock.invalidar(inventario.getProducto().getId());
         return inventarioRepository.save(inventario);
     }
     
     public Inventario actualizarStock(Long id, Integer nuevaCantidad) {
+        return actualizarStock(id, nuevaCantidad, null);
+    }
+    
+    public Inventario actualizarStock(Long id, Integer nuevaCantidad, Long versionLeida) {
         log.info("Actualizando stock del inventario ID: {} a cantidad: {}", id, nuevaCantidad);
         Inventario inventario = buscarPorId(id);
         
+        // Una cantidad absoluta calculada sobre una lectura vieja pisaría los movimientos posteriores
+        if (versionLeida != null && !versionLeida.equals(inventario.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Inventario.class, id);
+        }
+        validarSobreComprometido(inventario.getProducto().getId(), nuevaCantidad);
+        
         inventario.setCantidad(nuevaCantidad);
         inventario.setFechaActualizacion(LocalDateTime.now());
         
         return inventarioRepository.save(inventario);
     }
     
+    public Inventario incrementarStock(Long productoId, int cantidad) {
+        log.info("Incrementando en {} el stock del producto ID: {}", cantidad, productoId);
+        validarCantidadPositiva(cantidad);
+        return ajustarStock(productoId, cantidad);
+    }
+    
+    public Inventario decrementarStock(Long productoId, int cantidad) {
+        log.info("Decrementando en {} el stock del producto ID: {}", cantidad, productoId);
+        validarCantidadPositiva(cantidad);
+        return ajustarStock(productoId, -cantidad);
+    }
+    
     public Inventario actualizar(Long id, Inventario inventarioActualizado) {
         log.info("Actualizando inventario con ID: {}", id);
         Inventario inventarioExistente = buscarPorId(id);
         
+        // Si el cliente envía la versión que leyó, se rechaza la escritura cuando otro la modificó antes
+        if (inventarioActualizado.getVersion() != null
+                && !inventarioActualizado.getVersion().equals(inventarioExistente.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Inventario.class, id);
+        }
+        
+        validarSobreComprometido(inventarioExistente.getProducto().getId(), inventarioActualizado.getCantidad());
+        
         inventarioExistente.setCantidad(inventarioActualizado.getCantidad());
         inventarioExistente.setStockMinimo(inventarioActualizado.getStockMinimo());
         inventarioExistente.setFechaActualizacion(LocalDateTime.now());
@@ -83,6 +165,42 @@ public class InventarioService {
     public void eliminar(Long id) {
         log.info("Eliminando inventario con ID: {}", id);
         Inventario inventario = buscarPorId(id);
+        motorReservasStock.invalidar(inventario.getProducto().getId());
         inventarioRepository.delete(inventario);
     }
+    
+    private Inventario ajustarStock(Long productoId, int delta) {
+        // UPDATE condicional: un descuento no puede tomar las unidades que el motor ya reservó o vendió
+        long comprometido = delta < 0 ? motorReservasStock.comenzarEscritura(productoId) : 0;
+        int filasActualizadas = inventarioRepository.ajustarStockPorProductoId(productoId, delta, comprometido,
+                LocalDateTime.now());
+        if (filasActualizadas == 0) {
+            Inventario inventario = buscarPorProductoId(productoId);
+            throw new StockInsuficienteException("Stock insuficiente para el producto ID: " + productoId
+                    + " (disponible: " + (inventario.getCantidad() - comprometido) + ", solicitado: " + -delta + ")");
+        }
+        if (delta > 0) {
+            motorReservasStock.invalidar(productoId);
+        }
+        Inventario inventario = buscarPorProductoId(productoId);
+        // El UPDATE masivo no pasa por los callbacks de la entidad
+        registroEventos.registrarCambio(productoId, inventario.getCantidad() - delta, inventario.getCantidad(),
+                inventario.getStockMinimo());
+        versiones.registrarCambio(Coleccion.INVENTARIO, productoId);
+        return inventario;
+    }
+    
+    private void validarSobreComprometido(Long productoId, Integer nuevaCantidad) {
+        long comprometido = motorReservasStock.comenzarEscritura(productoId);
+        if (nuevaCantidad != null && nuevaCantidad < comprometido) {
+            throw new StockInsuficienteException("No se puede fijar el stock del producto ID: " + productoId
+                    + " en " + nuevaCantidad + ": hay " + comprometido + " unidades reservadas o vendidas sin volcar");
+        }
+    }
+    
+    private void validarCantidadPositiva(int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a cero");
+        }
+    }
 }
@@ -1,30 +1,62 @@
 package um.prog2.trabajo.dataservice.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import um.prog2.trabajo.dataservice.busqueda.IndiceBusquedaProductos;
+import um.prog2.trabajo.dataservice.dto.CursorPrecio;
+import um.prog2.trabajo.dataservice.dto.PaginaKeyset;
+import um.prog2.trabajo.dataservice.dto.ProductoConInventarioRequest;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+import um.prog2.trabajo.dataservice.entity.Categoria;
+import um.prog2.trabajo.dataservice.entity.Inventario;
 import um.prog2.trabajo.dataservice.entity.Producto;
 import um.prog2.trabajo.dataservice.exception.RecursoNoEncontradoException;
+import um.prog2.trabajo.dataservice.exception.StockInsuficienteException;
+import um.prog2.trabajo.dataservice.repository.CategoriaRepository;
 import um.prog2.trabajo.dataservice.repository.ProductoRepository;
+import um.prog2.trabajo.dataservice.reserva.MotorReservasStock;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @Transactional
 public class ProductoService {
     
+    static final int STOCK_MINIMO_POR_DEFECTO = 10;
+    
     private final ProductoRepository productoRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final MotorReservasStock motorReservasStock;
+    private final IndiceBusquedaProductos indiceBusqueda;
     
-    public ProductoService(ProductoRepository productoRepository) {
+    public ProductoService(ProductoRepository productoRepository,
+                           CategoriaRepository categoriaRepository,
+                           MotorReservasStock motorReservasStock,
+                           IndiceBusquedaProductos indiceBusqueda) {
         this.productoRepository = productoRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.motorReservasStock = motorReservasStock;
+        this.indiceBusqueda = indiceBusqueda;
     }
     
     @Transactional(readOnly = true)
-    public List<Producto> obtenerTodos() {
-        log.info("Obteniendo todos los productos");
-        return productoRepository.findAll();
+    public PaginaKeyset<ProductoVista> obtenerPagina(String cursor, int limite) {
+        log.info("Obteniendo página de productos después del cursor: {} (límite {})", cursor, limite);
+        PaginaKeyset.validarLimite(limite);
+        Long despuesDeId = PaginaKeyset.decodificarCursor(cursor);
+        List<ProductoVista> productos = productoRepository.findVistasDespuesDe(despuesDeId, Limit.of(limite + 1));
+        return PaginaKeyset.desde(productos, limite, ProductoVista::id);
     }
     
     @Transactional(readOnly = true)
@@ -35,21 +67,80 @@ public class ProductoService {
     }
     
     @Transactional(readOnly = true)
-    public List<Producto> buscarPorCategoria(String categoriaNombre) {
+    public ProductoVista buscarVistaPorId(Long id) {
+        log.info("Buscando vista de producto por ID: {}", id);
+        return productoRepository.findVistaById(id)
+            .orElseThrow(() -> new RecursoNoEncontradoException("Producto no encontrado con ID: " + id));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<ProductoVista> buscarVistasPorIds(Collection<Long> ids) {
+        log.info("Buscando {} productos por ID", ids.size());
+        PaginaKeyset.validarCantidadIds(ids);
+        return productoRepository.findVistasByIdIn(ids);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<ProductoVista> buscarPorCategoria(String categoriaNombre) {
         log.info("Buscando productos por categoría: {}", categoriaNombre);
-        return productoRepository.findByCategoriaNombre(categoriaNombre);
+        return productoRepository.findVistasByCategoriaNombre(categoriaNombre);
     }
     
     @Transactional(readOnly = true)
-    public List<Producto> buscarPorRangoPrecio(BigDecimal minPrecio, BigDecimal maxPrecio) {
-        log.info("Buscando productos por rango de precio: {} - {}", minPrecio, maxPrecio);
-        return productoRepository.findByPrecioBetween(minPrecio, maxPrecio);
+    public List<ProductoVista> buscarPorCategoriaId(Long categoriaId) {
+        log.info("Buscando productos por categoría ID: {}", categoriaId);
+        return productoRepository.findVistasByCategoriaId(categoriaId);
     }
     
     @Transactional(readOnly = true)
-    public List<Producto> buscarPorNombre(String nombre) {
-        log.info("Buscando productos por nombre: {}", nombre);
-        return productoRepository.findByNombreContainingIgnoreCase(nombre);
+    public PaginaKeyset<ProductoVista> buscarPorRangoPrecio(BigDecimal minPrecio, BigDecimal maxPrecio,
+                                                            String cursor, int limite) {
+        log.info("Buscando productos por rango de precio: {} - {} después del cursor: {} (límite {})",
+                minPrecio, maxPrecio, cursor, limite);
+        PaginaKeyset.validarLimite(limite);
+        CursorPrecio despuesDe = CursorPrecio.decodificar(cursor);
+        if (!indiceBusqueda.disponible()) {
+            BigDecimal despuesDePrecio = despuesDe.precio() != null ? despuesDe.precio() : minPrecio;
+            List<ProductoVista> productos = productoRepository.findVistasByPrecioDespuesDe(
+                    minPrecio, maxPrecio, despuesDePrecio, despuesDe.id(), Limit.of(limite + 1));
+            return PaginaKeyset.desdeOrdenadas(productos, limite, producto -> CursorPrecio.de(producto).codificar());
+        }
+        long[] ids = new long[limite + 1];
+        int encontrados = indiceBusqueda.buscarPorPrecio(minPrecio, maxPrecio, despuesDe, ids);
+        return PaginaKeyset.desdeOrdenadas(buscarEnOrden(ids, encontrados), limite,
+                producto -> CursorPrecio.de(producto).codificar());
+    }
+    
+    @Transactional(readOnly = true)
+    public List<ProductoVista> buscarPorNombre(String nombre, int limite) {
+        log.info("Buscando productos por nombre: {} (límite {})", nombre, limite);
+        PaginaKeyset.validarLimite(limite);
+        if (!indiceBusqueda.disponible()) {
+            return productoRepository.findVistasByNombre(nombre, Limit.of(limite));
+        }
+        // Se respeta el orden por relevancia del índice
+        long[] ids = indiceBusqueda.buscar(nombre, limite).stream().mapToLong(Long::longValue).toArray();
+        return buscarEnOrden(ids, ids.length);
+    }
+    
+    /**
+     * Lee las vistas de los IDs que devolvió un índice en memoria, en el mismo orden. Un producto
+     * borrado entre la búsqueda y la lectura simplemente no aparece.
+     */
+    private List<ProductoVista> buscarEnOrden(long[] ids, int cantidad) {
+        if (cantidad == 0) {
+            return List.of();
+        }
+        List<Long> idsBuscados = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            idsBuscados.add(ids[i]);
+        }
+        Map<Long, ProductoVista> productosPorId = productoRepository.findVistasByIdIn(idsBuscados).stream()
+            .collect(Collectors.toMap(ProductoVista::id, Function.identity()));
+        return idsBuscados.stream()
+            .map(productosPorId::get)
+            .filter(Objects::nonNull)
+            .toList();
     }
     
     public Producto guardar(Producto producto) {
@@ -69,9 +160,74 @@ public class ProductoService {
         return productoRepository.save(productoExistente);
     }
     
+    public Producto crearConInventario(ProductoConInventarioRequest request) {
+        log.info("Creando producto con inventario: {}", request.getNombre());
+        if (request.getStock() == null) {
+            throw new IllegalArgumentException("El stock inicial es obligatorio");
+        }
+        
+        Producto producto = new Producto();
+        aplicarDatos(producto, request);
+        
+        Inventario inventario = new Inventario();
+        inventario.setProducto(producto);
+        inventario.setCantidad(request.getStock());
+        inventario.setStockMinimo(request.getStockMinimo() != null ? request.getStockMinimo() : STOCK_MINIMO_POR_DEFECTO);
+        inventario.setFechaActualizacion(LocalDateTime.now());
+        producto.setInventario(inventario);
+        
+        // El inventario se persiste en cascada junto con el producto
+        return productoRepository.save(producto);
+    }
+    
+    public Producto actualizarConInventario(Long id, ProductoConInventarioRequest request) {
+        log.info("Actualizando producto con inventario, ID: {}", id);
+        Producto productoExistente = buscarPorId(id);
+        aplicarDatos(productoExistente, request);
+        
+        if (request.getStock() != null) {
+            Inventario inventario = productoExistente.getInventario();
+            if (inventario == null) {
+                inventario = new Inventario();
+                inventario.setProducto(productoExistente);
+                inventario.setStockMinimo(STOCK_MINIMO_POR_DEFECTO);
+                productoExistente.setInventario(inventario);
+            }
+            // La cantidad nueva no puede quedar por debajo de lo que el motor ya reservó o vendió
+            long comprometido = motorReservasStock.comenzarEscritura(id);
+            if (request.getStock() < comprometido) {
+                throw new StockInsuficienteException("No se puede fijar el stock del producto ID: " + id + " en "
+                        + request.getStock() + ": hay " + comprometido + " unidades reservadas o vendidas sin volcar");
+            }
+            inventario.setCantidad(request.getStock());
+            if (request.getStockMinimo() != null) {
+                inventario.setStockMinimo(request.getStockMinimo());
+            }
+            inventario.setFechaActualizacion(LocalDateTime.now());
+        }
+        
+        return productoRepository.save(productoExistente);
+    }
+    
     public void eliminar(Long id) {
         log.info("Eliminando producto con ID: {}", id);
         Producto producto = buscarPorId(id);
+        motorReservasStock.invalidar(id);
         productoRepository.delete(producto);
     }
+    
+    private void aplicarDatos(Producto producto, ProductoConInventarioRequest request) {
+        producto.setNombre(request.getNombre());
+        producto.setDescripcion(request.getDescripcion());
+        producto.setPrecio(request.getPrecio());
+        producto.setCategoria(obtenerReferenciaCategoria(request.getCategoriaId()));
+    }
+    
+    private Categoria obtenerReferenciaCategoria(Long categoriaId) {
+        // Se usa una referencia para no cargar la categoría completa, sólo se verifica que exista
+        if (!categoriaRepository.existsById(categoriaId)) {
+            throw new RecursoNoEncontradoException("Categoría no encontrada con ID: " + categoriaId);
+        }
+        return categoriaRepository.getReferenceById(categoriaId);
+    }
 }
@@ -0,0 +1,100 @@
+package um.prog2.trabajo.dataservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import um.prog2.trabajo.dataservice.dto.PaginaKeyset;
+import um.prog2.trabajo.dataservice.dto.PuntoValuacion;
+import um.prog2.trabajo.dataservice.dto.ValuacionInventarioVista;
+import um.prog2.trabajo.dataservice.entity.ValuacionCategoria;
+import um.prog2.trabajo.dataservice.entity.ValuacionInventario;
+import um.prog2.trabajo.dataservice.repository.InventarioRepository;
+import um.prog2.trabajo.dataservice.repository.ValuacionInventarioRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Valuaciones del inventario precalculadas. {@link #tomar()} recorre el inventario una vez con una consulta
+ * agregada por categoría y guarda el resultado; los reportes y el historial leen sólo lo guardado. Las
+ * valuaciones más viejas que {@code data.valuaciones-inventario.retencion-dias} se borran con {@link #depurar()}.
+ */
+@Service
+@Slf4j
+@Transactional
+public class ValuacionInventarioService {
+
+    private final InventarioRepository inventarioRepository;
+    private final ValuacionInventarioRepository valuacionRepository;
+    private final Duration retencion;
+
+    public ValuacionInventarioService(InventarioRepository inventarioRepository,
+                                      ValuacionInventarioRepository valuacionRepository,
+                                      @Value("${data.valuaciones-inventario.retencion-dias:30}") long retencionDias) {
+        this.inventarioRepository = inventarioRepository;
+        this.valuacionRepository = valuacionRepository;
+        this.retencion = Duration.ofDays(retencionDias);
+    }
+
+    public ValuacionInventarioVista tomar() {
+        long inicio = System.nanoTime();
+        List<ValuacionCategoria> categorias = inventarioRepository.obtenerValuacionPorCategoria();
+
+        ValuacionInventario valuacion = new ValuacionInventario();
+        valuacion.setTomadaEn(LocalDateTime.now());
+        valuacion.setTotalProductos(categorias.stream().mapToLong(ValuacionCategoria::getTotalProductos).sum());
+        valuacion.setProductosConStockBajo(categorias.stream()
+                .mapToLong(ValuacionCategoria::getProductosConStockBajo).sum());
+        valuacion.setProductosSinStock(categorias.stream().mapToLong(ValuacionCategoria::getProductosSinStock).sum());
+        valuacion.setValorTotal(categorias.stream()
+                .map(ValuacionCategoria::getValorTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        valuacion.setDuracionMs(Duration.ofNanos(System.nanoTime() - inicio).toMillis());
+        valuacion.getCategorias().addAll(categorias);
+        valuacionRepository.save(valuacion);
+
+        log.info("Valuación del inventario {} tomada en {} ms: {} productos, valor total {}",
+                valuacion.getId(), valuacion.getDuracionMs(), valuacion.getTotalProductos(), valuacion.getValorTotal());
+        return ValuacionInventarioVista.desde(valuacion, valuacion.getTomadaEn());
+    }
+
+    /**
+     * La valuación más reciente; si todavía no se tomó ninguna (recién desplegado) la toma en el momento.
+     */
+    public ValuacionInventarioVista obtenerUltima() {
+        log.info("Obteniendo la última valuación del inventario");
+        return valuacionRepository.findFirstByOrderByTomadaEnDesc()
+                .map(valuacion -> ValuacionInventarioVista.desde(valuacion, LocalDateTime.now()))
+                .orElseGet(this::tomar);
+    }
+
+    /**
+     * Evolución entre {@code desde} y {@code hasta}, de la más vieja a la más nueva. Con {@code categoriaId}
+     * son los totales de esa categoría en cada valuación.
+     */
+    @Transactional(readOnly = true)
+    public List<PuntoValuacion> obtenerHistorial(LocalDateTime desde, LocalDateTime hasta, Long categoriaId,
+                                                 int limite) {
+        log.info("Obteniendo historial de valuaciones entre {} y {} (categoría {}, límite {})",
+                desde, hasta, categoriaId, limite);
+        PaginaKeyset.validarLimite(limite);
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a hasta");
+        }
+        return categoriaId != null
+                ? valuacionRepository.findHistorialDeCategoria(categoriaId, desde, hasta, Limit.of(limite))
+                : valuacionRepository.findHistorial(desde, hasta, Limit.of(limite));
+    }
+
+    public long depurar() {
+        long borradas = valuacionRepository.deleteByTomadaEnBefore(LocalDateTime.now().minus(retencion));
+        if (borradas > 0) {
+            log.info("Borradas {} valuaciones del inventario anteriores a {} días", borradas, retencion.toDays());
+        }
+        return borradas;
+    }
+}
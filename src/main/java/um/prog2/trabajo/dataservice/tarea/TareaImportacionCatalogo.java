@@ -0,0 +1,87 @@
+package um.prog2.trabajo.dataservice.tarea;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.task.configuration.EnableTask;
+import org.springframework.cloud.task.listener.TaskExecutionListener;
+import org.springframework.cloud.task.repository.TaskExecution;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import um.prog2.trabajo.dataservice.dto.ResumenImportacionCatalogo;
+import um.prog2.trabajo.dataservice.service.ImportacionCatalogoService;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Corre la importación del catálogo al arrancar cuando se indica {@code data.importacion-csv.archivo}, por
+ * ejemplo {@code java -jar app.jar --spring.profiles.active=postgres --data.importacion-csv.archivo=catalogo.tsv}.
+ * Con {@code data.importacion-csv.cerrar-al-terminar} (por defecto {@code true}) la aplicación se cierra al
+ * terminar, como una tarea. Si falla, relanzarla con el mismo archivo retoma desde el último bloque confirmado.
+ * <p>
+ * Cada corrida es una ejecución de Spring Cloud Task: {@code TASK_EXECUTION} guarda sus argumentos, inicio,
+ * fin, código de salida y error, y el resumen de lo importado como mensaje de salida. El avance por bloque, que
+ * se confirma junto con las filas, queda en {@code importaciones_catalogo} con el id de esa ejecución.
+ */
+@Component
+@EnableTask
+@ConditionalOnProperty("data.importacion-csv.archivo")
+@Slf4j
+public class TareaImportacionCatalogo implements ApplicationRunner, TaskExecutionListener {
+
+    private final ImportacionCatalogoService importacionCatalogoService;
+    private final ConfigurableApplicationContext contexto;
+    private final Path archivo;
+    private final boolean cerrarAlTerminar;
+
+    // Los deja onTaskStartup antes de que corra run() y los lee onTaskEnd al registrar el fin de la ejecución
+    private volatile Long tareaEjecucionId;
+    private volatile ResumenImportacionCatalogo resumen;
+
+    public TareaImportacionCatalogo(ImportacionCatalogoService importacionCatalogoService,
+                                    ConfigurableApplicationContext contexto,
+                                    @Value("${data.importacion-csv.archivo}") String archivo,
+                                    @Value("${data.importacion-csv.cerrar-al-terminar:true}") boolean cerrarAlTerminar) {
+        this.importacionCatalogoService = importacionCatalogoService;
+        this.contexto = contexto;
+        this.archivo = Path.of(archivo);
+        this.cerrarAlTerminar = cerrarAlTerminar;
+    }
+
+    @Override
+    public void onTaskStartup(TaskExecution taskExecution) {
+        tareaEjecucionId = taskExecution.getExecutionId();
+        log.info("Importación del catálogo registrada como la ejecución {} de la tarea {}",
+                tareaEjecucionId, taskExecution.getTaskName());
+    }
+
+    @Override
+    public void onTaskEnd(TaskExecution taskExecution) {
+        if (resumen != null) {
+            taskExecution.setExitMessage(String.format(Locale.ROOT,
+                    "Importación %d: %d líneas retomadas, %d filas importadas y %d rechazadas en %d ms",
+                    resumen.ejecucionId(), resumen.lineasRetomadas(), resumen.filasImportadas(),
+                    resumen.filasRechazadas(), resumen.duracion().toMillis()));
+        }
+    }
+
+    @Override
+    public void onTaskFailed(TaskExecution taskExecution, Throwable throwable) {
+        taskExecution.setExitMessage("Importación interrumpida; relanzarla con el mismo archivo retoma desde el "
+                + "último bloque confirmado");
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        // Si falla, la excepción hace fallar el arranque, la tarea queda con error y la aplicación termina
+        resumen = importacionCatalogoService.importar(archivo, tareaEjecucionId);
+        if (cerrarAlTerminar) {
+            log.info("Importación del catálogo terminada, cerrando la aplicación");
+            SpringApplication.exit(contexto);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package um.prog2.trabajo.dataservice.tarea;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import um.prog2.trabajo.dataservice.service.ValuacionInventarioService;
+
+/**
+ * Toma una valuación del inventario al arrancar y después cada {@code data.valuaciones-inventario.intervalo},
+ * contado desde que termina la anterior, y borra las que superan la retención. Con varias instancias del
+ * servicio de datos cada una toma las suyas; el historial las intercala y el reporte usa la más reciente.
+ * Se desactiva con {@code data.valuaciones-inventario.programadas=false}.
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "data.valuaciones-inventario.programadas", havingValue = "true", matchIfMissing = true)
+public class TareaValuacionInventario {
+
+    private final ValuacionInventarioService valuacionService;
+
+    public TareaValuacionInventario(ValuacionInventarioService valuacionService) {
+        this.valuacionService = valuacionService;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${data.valuaciones-inventario.intervalo:PT5M}")
+    public void tomarValuacion() {
+        valuacionService.tomar();
+        valuacionService.depurar();
+    }
+}
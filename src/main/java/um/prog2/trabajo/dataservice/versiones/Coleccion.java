@@ -0,0 +1,11 @@
+package um.prog2.trabajo.dataservice.versiones;
+
+/**
+ * Colecciones del catálogo con contador de modificaciones propio.
+ */
+public enum Coleccion {
+    PRODUCTOS,
+    CATEGORIAS,
+    /** Las filas de inventario se identifican por el ID del producto, que es como se las consulta. */
+    INVENTARIO
+}
@@ -0,0 +1,68 @@
+package um.prog2.trabajo.dataservice.versiones;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Resuelve los GET condicionales de los endpoints {@link Versionado} antes de ejecutarlos: si el
+ * {@code If-None-Match} coincide con las versiones actuales responde 304 sin consultar la base de datos;
+ * si no, agrega el ETag a la respuesta.
+ * <p>
+ * El ETag se calcula antes de leer los datos. Si una escritura se confirma en el medio, el cliente se queda
+ * con un ETag más viejo que el cuerpo y la próxima consulta le devuelve el cuerpo de nuevo; nunca al revés.
+ * Mientras alguna de las colecciones tiene escrituras sin terminar no hay ETag: la respuesta sale completa
+ * y sin validador.
+ * <p>
+ * Es débil y no fuerte: identifica la versión de los datos, no los bytes, que cambian según el formato
+ * negociado (JSON, CBOR o Smile) y la compresión; Tomcat además no comprime las respuestas con ETag fuerte.
+ * {@code If-None-Match} compara de forma débil, así que los 304 funcionan igual. Lo que un ETag débil no
+ * permite es reanudar descargas con {@code If-Range}, que estos endpoints no necesitan.
+ */
+@Component
+public class EtagInterceptor implements HandlerInterceptor {
+
+    private final VersionesCatalogo versiones;
+
+    public EtagInterceptor(VersionesCatalogo versiones) {
+        this.versiones = versiones;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod metodo)) {
+            return true;
+        }
+        Versionado versionado = metodo.getMethodAnnotation(Versionado.class);
+        if (versionado == null) {
+            return true;
+        }
+
+        Long id = null;
+        if (versionado.filas().length > 0) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> variables =
+                    (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            try {
+                id = Long.valueOf(variables.get(versionado.id()));
+            } catch (NumberFormatException e) {
+                // El controlador responde el error de conversión como siempre
+                return true;
+            }
+        }
+
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        String version = versiones.etag(versionado.colecciones(), versionado.filas(), id);
+        if (version == null) {
+            return true;
+        }
+        return !new ServletWebRequest(request, response).checkNotModified("W/\"" + version + "\"");
+    }
+}
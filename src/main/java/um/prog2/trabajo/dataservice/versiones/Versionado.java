@@ -0,0 +1,27 @@
+package um.prog2.trabajo.dataservice.versiones;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca un endpoint GET cuya respuesta depende sólo de las colecciones indicadas. {@link EtagInterceptor}
+ * le agrega un ETag armado con sus versiones y responde 304 sin ejecutarlo si el cliente ya lo tiene.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Versionado {
+
+    /**
+     * Colecciones de las que cualquier cambio invalida la respuesta.
+     */
+    Coleccion[] colecciones() default {};
+
+    /**
+     * Colecciones de las que sólo importa la fila identificada por la variable de ruta {@link #id()}.
+     */
+    Coleccion[] filas() default {};
+
+    String id() default "";
+}
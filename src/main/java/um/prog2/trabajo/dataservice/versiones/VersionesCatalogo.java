@@ -0,0 +1,140 @@
+package um.prog2.trabajo.dataservice.versiones;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de modificaciones en memoria por colección y por fila, con los que se arman los ETags de las
+ * lecturas sin consultar la base de datos.
+ * <p>
+ * Cada cambio confirmado incrementa el contador de su colección y le asigna ese valor como versión a la
+ * fila. Sólo se recuerdan las filas modificadas desde el arranque: las demás tienen la versión base de la
+ * colección, que se adelanta (invalidando los ETags de todas sus filas) cuando se supera
+ * {@code data.versiones.filas-maximas}. Los ETags llevan la hora de arranque, así no coinciden entre
+ * ejecuciones. Como el índice de búsqueda, sólo ve las escrituras de esta instancia.
+ * <p>
+ * El contador avanza después del commit, así que entre el commit y el {@code afterCommit} la base ya tiene
+ * los datos nuevos con la versión vieja. Para no responder 304 en ese intervalo, cada colección cuenta las
+ * escrituras registradas dentro de una transacción que todavía no terminó, y mientras haya alguna no se
+ * arman ETags con ella (ver {@link #etag}). La espera es por colección: una escritura en curso sobre un
+ * producto deja sin 304 momentáneamente a todas las lecturas que dependen de productos. Las escrituras
+ * fuera de transacción se registran cuando ya están confirmadas, con el mismo intervalo sin cubrir.
+ */
+@Component
+public class VersionesCatalogo {
+
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+    private final int filasMaximas;
+    private final Map<Coleccion, Contadores> contadores = new EnumMap<>(Coleccion.class);
+
+    public VersionesCatalogo(@Value("${data.versiones.filas-maximas:100000}") int filasMaximas) {
+        this.filasMaximas = filasMaximas;
+        for (Coleccion coleccion : Coleccion.values()) {
+            contadores.put(coleccion, new Contadores());
+        }
+    }
+
+    /**
+     * Registra el cambio de una fila; si hay una transacción en curso, cuando se confirma.
+     */
+    public void registrarCambio(Coleccion coleccion, Long id) {
+        registrarCambios(coleccion, id != null ? List.of(id) : List.of());
+    }
+
+    public void registrarCambios(Coleccion coleccion, Collection<Long> ids) {
+        List<Long> copia = List.copyOf(ids);
+        Contadores contadoresColeccion = contadores.get(coleccion);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            contadoresColeccion.escriturasEnCurso.incrementAndGet();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    contadoresColeccion.incrementar(copia);
+                }
+
+                // Después de afterCommit: cuando se deja de contar la escritura, la versión ya avanzó
+                @Override
+                public void afterCompletion(int estado) {
+                    contadoresColeccion.escriturasEnCurso.decrementAndGet();
+                }
+            });
+        } else {
+            contadoresColeccion.incrementar(copia);
+        }
+    }
+
+    /**
+     * ETag (sin comillas) con los contadores de {@code colecciones} y la versión de la fila {@code id} en
+     * cada una de {@code filas}, o {@code null} si alguna de ellas tiene escrituras sin terminar.
+     */
+    public String etag(Coleccion[] colecciones, Coleccion[] filas, Long id) {
+        long[] generaciones = generaciones(colecciones, filas);
+        StringBuilder etag = new StringBuilder(arranque);
+        for (int i = 0; i < colecciones.length; i++) {
+            etag.append('-').append(Long.toString(generaciones[i], 36));
+        }
+        for (Coleccion coleccion : filas) {
+            etag.append('-').append(Long.toString(contadores.get(coleccion).version(id), 36));
+        }
+        // Si ninguna escritura estaba en curso ni terminó mientras se armaba, el ETag es el de lo confirmado
+        for (Coleccion coleccion : colecciones) {
+            if (contadores.get(coleccion).escriturasEnCurso.get() > 0) {
+                return null;
+            }
+        }
+        for (Coleccion coleccion : filas) {
+            if (contadores.get(coleccion).escriturasEnCurso.get() > 0) {
+                return null;
+            }
+        }
+        return Arrays.equals(generaciones, generaciones(colecciones, filas)) ? etag.toString() : null;
+    }
+
+    private long[] generaciones(Coleccion[] colecciones, Coleccion[] filas) {
+        long[] generaciones = new long[colecciones.length + filas.length];
+        for (int i = 0; i < colecciones.length; i++) {
+            generaciones[i] = contadores.get(colecciones[i]).generacion.get();
+        }
+        for (int i = 0; i < filas.length; i++) {
+            generaciones[colecciones.length + i] = contadores.get(filas[i]).generacion.get();
+        }
+        return generaciones;
+    }
+
+    private final class Contadores {
+        private final AtomicLong generacion = new AtomicLong();
+        private final AtomicInteger escriturasEnCurso = new AtomicInteger();
+        private final Map<Long, Long> versionPorFila = new ConcurrentHashMap<>();
+        private volatile long base;
+
+        void incrementar(List<Long> ids) {
+            long version = generacion.incrementAndGet();
+            if (versionPorFila.size() + ids.size() > filasMaximas) {
+                synchronized (this) {
+                    // Primero la base: una fila que se deja de recordar nunca vuelve a una versión anterior
+                    base = version;
+                    versionPorFila.clear();
+                }
+                return;
+            }
+            for (Long id : ids) {
+                versionPorFila.put(id, version);
+            }
+        }
+
+        long version(Long id) {
+            return versionPorFila.getOrDefault(id, base);
+        }
+    }
+}
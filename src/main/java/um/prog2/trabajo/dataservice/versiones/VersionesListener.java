@@ -0,0 +1,36 @@
+package um.prog2.trabajo.dataservice.versiones;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import um.prog2.trabajo.dataservice.entity.Categoria;
+import um.prog2.trabajo.dataservice.entity.Inventario;
+import um.prog2.trabajo.dataservice.entity.Producto;
+
+/**
+ * Lleva a {@link VersionesCatalogo} las escrituras de productos, categorías e inventario hechas por JPA.
+ * Las actualizaciones masivas y por JDBC las registra quien las ejecuta.
+ */
+public class VersionesListener {
+
+    private final ObjectProvider<VersionesCatalogo> versiones;
+
+    public VersionesListener(ObjectProvider<VersionesCatalogo> versiones) {
+        this.versiones = versiones;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void registrarCambio(Object entidad) {
+        switch (entidad) {
+            case Producto producto -> versiones.getObject().registrarCambio(Coleccion.PRODUCTOS, producto.getId());
+            case Categoria categoria -> versiones.getObject().registrarCambio(Coleccion.CATEGORIAS, categoria.getId());
+            case Inventario inventario -> versiones.getObject().registrarCambio(Coleccion.INVENTARIO,
+                    inventario.getProducto() != null ? inventario.getProducto().getId() : null);
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package um.prog2.trabajo.dataservice.versiones;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class VersionesWebConfiguracion implements WebMvcConfigurer {
+
+    private final EtagInterceptor etagInterceptor;
+
+    public VersionesWebConfiguracion(EtagInterceptor etagInterceptor) {
+        this.etagInterceptor = etagInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(etagInterceptor).addPathPatterns("/data/**");
+    }
+}
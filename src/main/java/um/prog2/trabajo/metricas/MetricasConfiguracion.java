@@ -0,0 +1,99 @@
+package um.prog2.trabajo.metricas;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Service;
+import um.prog2.trabajo.businessservice.client.DataServiceClient;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.function.Predicate;
+
+/**
+ * Tiempos de cada método público de los servicios (de negocio y de datos) y de cada llamada de
+ * {@link DataServiceClient}, etiquetados con la clase, el método y el resultado ({@code EXITO} o
+ * {@code ERROR}, con la excepción). El conteo por resultado da la tasa de errores.
+ * <p>
+ * Junto con las métricas que registra Spring Boot, una solicitud se sigue salto por salto:
+ * {@code http.server.requests} de {@code /api}, {@code servicio.llamadas} del servicio de negocio,
+ * {@code cliente.datos.llamadas} (red, serialización y resiliencia), {@code http.server.requests} de
+ * {@code /data}, {@code servicio.llamadas} del servicio de datos y {@code spring.data.repository.invocations}
+ * para el SQL de los repositorios. Los percentiles se configuran en {@code management.metrics.distribution}.
+ */
+@Configuration
+public class MetricasConfiguracion {
+
+    private static final String PAQUETE = "um.prog2.trabajo";
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor metricasServicios(ObjectProvider<MeterRegistry> registro) {
+        return new DefaultPointcutAdvisor(metodosPublicos(clase -> clase.getName().startsWith(PAQUETE)
+                && AnnotatedElementUtils.hasAnnotation(clase, Service.class)),
+                new TiempoMetodos("servicio.llamadas", registro));
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor metricasClienteDatos(ObjectProvider<MeterRegistry> registro) {
+        return new DefaultPointcutAdvisor(metodosPublicos(DataServiceClient.class::isAssignableFrom),
+                new TiempoMetodos("cliente.datos.llamadas", registro));
+    }
+
+    private static Pointcut metodosPublicos(Predicate<Class<?>> clases) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+            }
+        };
+        pointcut.setClassFilter(clases::test);
+        return pointcut;
+    }
+
+    private record TiempoMetodos(String nombre, ObjectProvider<MeterRegistry> registro) implements MethodInterceptor {
+
+        @Override
+        public Object invoke(MethodInvocation invocacion) throws Throwable {
+            MeterRegistry meterRegistry = registro.getIfAvailable();
+            if (meterRegistry == null) {
+                return invocacion.proceed();
+            }
+            Timer.Sample muestra = Timer.start(meterRegistry);
+            String excepcion = null;
+            try {
+                return invocacion.proceed();
+            } catch (Throwable e) {
+                excepcion = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                muestra.stop(Timer.builder(nombre)
+                        .tag("clase", clase(invocacion).getSimpleName())
+                        .tag("metodo", invocacion.getMethod().getName())
+                        .tag("resultado", excepcion == null ? "EXITO" : "ERROR")
+                        .tag("excepcion", excepcion == null ? "ninguna" : excepcion)
+                        .register(meterRegistry));
+            }
+        }
+
+        // El cliente Feign es un proxy: se etiqueta con su interfaz
+        private static Class<?> clase(MethodInvocation invocacion) {
+            Object destino = invocacion.getThis();
+            return destino == null || Proxy.isProxyClass(destino.getClass())
+                    ? invocacion.getMethod().getDeclaringClass() : destino.getClass();
+        }
+    }
+}
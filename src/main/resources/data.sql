@@ -1,25 +1,31 @@
-# Datos de prueba para H2
-INSERT INTO categorias (nombre, descripcion) VALUES ('Electrónica', 'Dispositivos electrónicos y gadgets');
-INSERT INTO categorias (nombre, descripcion) VALUES ('Ropa', 'Prendas de vestir y accesorios');
-INSERT INTO categorias (nombre, descripcion) VALUES ('Alimentos', 'Productos alimenticios');
-INSERT INTO categorias (nombre, descripcion) VALUES ('Libros', 'Libros y material de lectura');
+-- Datos de prueba para H2 (spring.sql.init sólo ejecuta este script con bases embebidas)
+INSERT INTO categorias (id, nombre, descripcion) VALUES (1, 'Electrónica', 'Dispositivos electrónicos y gadgets');
+INSERT INTO categorias (id, nombre, descripcion) VALUES (2, 'Ropa', 'Prendas de vestir y accesorios');
+INSERT INTO categorias (id, nombre, descripcion) VALUES (3, 'Alimentos', 'Productos alimenticios');
+INSERT INTO categorias (id, nombre, descripcion) VALUES (4, 'Libros', 'Libros y material de lectura');
 
-INSERT INTO productos (nombre, descripcion, precio, categoria_id) VALUES ('Laptop Dell', 'Laptop Dell XPS 15 con 16GB RAM', 1200.00, 1);
-INSERT INTO productos (nombre, descripcion, precio, categoria_id) VALUES ('Mouse Logitech', 'Mouse inalámbrico Logitech MX Master 3', 99.99, 1);
-INSERT INTO productos (nombre, descripcion, precio, categoria_id) VALUES ('Teclado Mecánico', 'Teclado mecánico RGB para gaming', 150.00, 1);
-INSERT INTO productos (nombre, descripcion, precio, categoria_id) VALUES ('Camiseta Nike', 'Camiseta deportiva Nike Dri-FIT', 35.00, 2);
-INSERT INTO productos (nombre, descripcion, precio, categoria_id) VALUES ('Jeans Levis', 'Jeans Levis 501 Original Fit', 80.00, 2);
-INSERT INTO productos (nombre, descripcion, precio, categoria_id) VALUES ('Café Premium', 'Café en grano 1kg Premium', 25.50, 3);
-INSERT INTO productos (nombre, descripcion, precio, categoria_id) VALUES ('Chocolate Lindt', 'Chocolate suizo Lindt Excellence 70%', 8.99, 3);
-INSERT INTO productos (nombre, descripcion, precio, categoria_id) VALUES ('El Quijote', 'Don Quijote de la Mancha - Edición completa', 45.00, 4);
-INSERT INTO productos (nombre, descripcion, precio, categoria_id) VALUES ('Cien Años de Soledad', 'Gabriel García Márquez', 32.00, 4);
+INSERT INTO productos (id, nombre, descripcion, precio, categoria_id) VALUES (1, 'Laptop Dell', 'Laptop Dell XPS 15 con 16GB RAM', 1200.00, 1);
+INSERT INTO productos (id, nombre, descripcion, precio, categoria_id) VALUES (2, 'Mouse Logitech', 'Mouse inalámbrico Logitech MX Master 3', 99.99, 1);
+INSERT INTO productos (id, nombre, descripcion, precio, categoria_id) VALUES (3, 'Teclado Mecánico', 'Teclado mecánico RGB para gaming', 150.00, 1);
+INSERT INTO productos (id, nombre, descripcion, precio, categoria_id) VALUES (4, 'Camiseta Nike', 'Camiseta deportiva Nike Dri-FIT', 35.00, 2);
+INSERT INTO productos (id, nombre, descripcion, precio, categoria_id) VALUES (5, 'Jeans Levis', 'Jeans Levis 501 Original Fit', 80.00, 2);
+INSERT INTO productos (id, nombre, descripcion, precio, categoria_id) VALUES (6, 'Café Premium', 'Café en grano 1kg Premium', 25.50, 3);
+INSERT INTO productos (id, nombre, descripcion, precio, categoria_id) VALUES (7, 'Chocolate Lindt', 'Chocolate suizo Lindt Excellence 70%', 8.99, 3);
+INSERT INTO productos (id, nombre, descripcion, precio, categoria_id) VALUES (8, 'El Quijote', 'Don Quijote de la Mancha - Edición completa', 45.00, 4);
+INSERT INTO productos (id, nombre, descripcion, precio, categoria_id) VALUES (9, 'Cien Años de Soledad', 'Gabriel García Márquez', 32.00, 4);
 
-INSERT INTO inventario (producto_id, cantidad, stock_minimo, fecha_actualizacion) VALUES (1, 15, 5, CURRENT_TIMESTAMP());
-INSERT INTO inventario (producto_id, cantidad, stock_minimo, fecha_actualizacion) VALUES (2, 50, 10, CURRENT_TIMESTAMP());
-INSERT INTO inventario (producto_id, cantidad, stock_minimo, fecha_actualizacion) VALUES (3, 8, 10, CURRENT_TIMESTAMP());
-INSERT INTO inventario (producto_id, cantidad, stock_minimo, fecha_actualizacion) VALUES (4, 100, 20, CURRENT_TIMESTAMP());
-INSERT INTO inventario (producto_id, cantidad, stock_minimo, fecha_actualizacion) VALUES (5, 45, 15, CURRENT_TIMESTAMP());
-INSERT INTO inventario (producto_id, cantidad, stock_minimo, fecha_actualizacion) VALUES (6, 200, 50, CURRENT_TIMESTAMP());
-INSERT INTO inventario (producto_id, cantidad, stock_minimo, fecha_actualizacion) VALUES (7, 3, 10, CURRENT_TIMESTAMP());
-INSERT INTO inventario (producto_id, cantidad, stock_minimo, fecha_actualizacion) VALUES (8, 25, 5, CURRENT_TIMESTAMP());
-INSERT INTO inventario (producto_id, cantidad, stock_minimo, fecha_actualizacion) VALUES (9, 18, 5, CURRENT_TIMESTAMP());
+INSERT INTO inventario (id, producto_id, cantidad, stock_minimo, stock_bajo, sin_stock, fecha_actualizacion, version) VALUES (1, 1, 15, 5, FALSE, FALSE, CURRENT_TIMESTAMP(), 0);
+INSERT INTO inventario (id, producto_id, cantidad, stock_minimo, stock_bajo, sin_stock, fecha_actualizacion, version) VALUES (2, 2, 50, 10, FALSE, FALSE, CURRENT_TIMESTAMP(), 0);
+INSERT INTO inventario (id, producto_id, cantidad, stock_minimo, stock_bajo, sin_stock, fecha_actualizacion, version) VALUES (3, 3, 8, 10, TRUE, FALSE, CURRENT_TIMESTAMP(), 0);
+INSERT INTO inventario (id, producto_id, cantidad, stock_minimo, stock_bajo, sin_stock, fecha_actualizacion, version) VALUES (4, 4, 100, 20, FALSE, FALSE, CURRENT_TIMESTAMP(), 0);
+INSERT INTO inventario (id, producto_id, cantidad, stock_minimo, stock_bajo, sin_stock, fecha_actualizacion, version) VALUES (5, 5, 45, 15, FALSE, FALSE, CURRENT_TIMESTAMP(), 0);
+INSERT INTO inventario (id, producto_id, cantidad, stock_minimo, stock_bajo, sin_stock, fecha_actualizacion, version) VALUES (6, 6, 200, 50, FALSE, FALSE, CURRENT_TIMESTAMP(), 0);
+INSERT INTO inventario (id, producto_id, cantidad, stock_minimo, stock_bajo, sin_stock, fecha_actualizacion, version) VALUES (7, 7, 3, 10, TRUE, FALSE, CURRENT_TIMESTAMP(), 0);
+INSERT INTO inventario (id, producto_id, cantidad, stock_minimo, stock_bajo, sin_stock, fecha_actualizacion, version) VALUES (8, 8, 25, 5, FALSE, FALSE, CURRENT_TIMESTAMP(), 0);
+INSERT INTO inventario (id, producto_id, cantidad, stock_minimo, stock_bajo, sin_stock, fecha_actualizacion, version) VALUES (9, 9, 18, 5, FALSE, FALSE, CURRENT_TIMESTAMP(), 0);
+
+-- Los IDs se generan con secuencias (pooled-lo): continuar después de los datos de prueba.
+-- Sintaxis de H2; para MySQL y PostgreSQL ver db/secuencias-mysql.sql y db/secuencias-postgresql.sql
+ALTER SEQUENCE categorias_seq RESTART WITH 5;
+ALTER SEQUENCE productos_seq RESTART WITH 10;
+ALTER SEQUENCE inventario_seq RESTART WITH 10;
@@ -0,0 +1,18 @@
+-- Migración a IDs por secuencia (pooled-lo, de a 50) sobre un esquema MySQL existente.
+-- Ejecutar una vez antes de desplegar la versión con secuencias sobre una base que ya tiene filas.
+--
+-- MySQL no tiene secuencias: Hibernate las emula con una tabla de una fila por generador, cuyo next_val es
+-- el primer ID del próximo bloque. ddl-auto: update crea esas tablas empezando en 1, lo que choca con los
+-- IDs existentes; este script las deja en MAX(id) + 1. Las columnas id AUTO_INCREMENT aceptan IDs explícitos.
+
+CREATE TABLE IF NOT EXISTS categorias_seq (next_val BIGINT);
+DELETE FROM categorias_seq;
+INSERT INTO categorias_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM categorias;
+
+CREATE TABLE IF NOT EXISTS productos_seq (next_val BIGINT);
+DELETE FROM productos_seq;
+INSERT INTO productos_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM productos;
+
+CREATE TABLE IF NOT EXISTS inventario_seq (next_val BIGINT);
+DELETE FROM inventario_seq;
+INSERT INTO inventario_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM inventario;
@@ -0,0 +1,15 @@
+-- Migración a IDs por secuencia (pooled-lo, de a 50) sobre un esquema PostgreSQL existente.
+-- Ejecutar una vez antes de desplegar la versión con secuencias sobre una base que ya tiene filas.
+--
+-- Con pooled-lo el valor que devuelve nextval es el primer ID del bloque, así que la próxima llamada debe
+-- devolver MAX(id) + 1 (setval con is_called = false). Las columnas id IDENTITY existentes son
+-- "GENERATED BY DEFAULT" y aceptan IDs explícitos.
+
+CREATE SEQUENCE IF NOT EXISTS categorias_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('categorias_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM categorias), false);
+
+CREATE SEQUENCE IF NOT EXISTS productos_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('productos_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM productos), false);
+
+CREATE SEQUENCE IF NOT EXISTS inventario_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('inventario_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM inventario), false);
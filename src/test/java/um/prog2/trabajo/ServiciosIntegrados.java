@@ -0,0 +1,78 @@
+package um.prog2.trabajo;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Levanta la aplicación con el servicio de negocio apuntando al de datos de la misma instancia, así los
+ * tests recorren también el salto Feign. El puerto se elige antes de crear el contexto porque la URL del
+ * cliente Feign se resuelve al arrancar; las subclases comparten el contexto (y la base de datos).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+@ActiveProfiles("test")
+public abstract class ServiciosIntegrados {
+
+    protected static final int PUERTO = puertoLibre();
+    protected static final ObjectMapper JSON = JsonMapper.builder().build();
+
+    protected final HttpClient cliente = HttpClient.newHttpClient();
+
+    @DynamicPropertySource
+    static void apuntarAlServicioDeDatosLocal(DynamicPropertyRegistry registry) {
+        registry.add("server.port", () -> PUERTO);
+        registry.add("data.service.url", () -> "http://localhost:" + PUERTO);
+    }
+
+    protected HttpResponse<String> get(String ruta) {
+        return enviar(HttpRequest.newBuilder(uri(ruta)).build());
+    }
+
+    protected HttpResponse<String> enviar(String metodo, String ruta, String cuerpoJson) {
+        return enviar(HttpRequest.newBuilder(uri(ruta))
+                .header("Content-Type", "application/json")
+                .method(metodo, cuerpoJson == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(cuerpoJson))
+                .build());
+    }
+
+    protected HttpResponse<String> enviar(HttpRequest peticion) {
+        try {
+            return cliente.send(peticion, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    protected static JsonNode json(HttpResponse<String> respuesta) {
+        return JSON.readTree(respuesta.body());
+    }
+
+    protected static URI uri(String ruta) {
+        return URI.create("http://localhost:" + PUERTO + ruta);
+    }
+
+    private static int puertoLibre() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
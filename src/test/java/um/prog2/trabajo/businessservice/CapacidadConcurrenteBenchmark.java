@@ -0,0 +1,123 @@
+package um.prog2.trabajo.businessservice;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mide cuántas peticiones simultáneas atiende el servicio de negocio cuando el servicio de datos
+ * responde lento. El servicio de datos se reemplaza por un stub que demora cada respuesta.
+ * Las subclases fijan el modo de ejecución (hilos de plataforma o virtuales).
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+abstract class CapacidadConcurrenteBenchmark {
+
+    static final int HILOS_TOMCAT = 50;
+    private static final int PETICIONES_SIMULTANEAS = 400;
+    private static final int RONDAS_CALENTAMIENTO = 5;
+    private static final Duration DEMORA_SERVICIO_DATOS = Duration.ofMillis(200);
+    private static final String VALUACION_JSON = "{\"id\":1,\"tomadaEn\":\"2025-01-01T00:00:00\","
+            + "\"antiguedadSegundos\":60,\"totalProductos\":3,\"productosConStockBajo\":1,"
+            + "\"productosSinStock\":0,\"valorTotal\":62.50,\"categorias\":[]}";
+
+    // Compartido por las subclases; se detiene junto con la JVM de los tests
+    private static final HttpServer servicioDatosLento = iniciarServicioDatosLento();
+
+    @LocalServerPort
+    private int puerto;
+
+    @DynamicPropertySource
+    static void apuntarAlServicioDatosLento(DynamicPropertyRegistry registry) {
+        registry.add("data.service.url",
+                () -> "http://localhost:" + servicioDatosLento.getAddress().getPort());
+    }
+
+    abstract String modo();
+
+    @Test
+    void medirCapacidadConServicioDatosLento() {
+        HttpClient cliente = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest peticion = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + puerto + "/api/reportes/inventario-completo")).build();
+
+        // Rondas de calentamiento para que el JIT no penalice al primer modo medido
+        for (int ronda = 0; ronda < RONDAS_CALENTAMIENTO; ronda++) {
+            enviarSimultaneas(cliente, peticion, new long[PETICIONES_SIMULTANEAS]);
+        }
+
+        long[] latencias = new long[PETICIONES_SIMULTANEAS];
+        long comienzo = System.nanoTime();
+        List<Integer> estados = enviarSimultaneas(cliente, peticion, latencias);
+        double segundos = (System.nanoTime() - comienzo) / 1e9;
+
+        Arrays.sort(latencias);
+        System.out.printf("[%s] %d peticiones simultáneas con el servicio de datos demorado %d ms: "
+                        + "%.0f req/s, p50 %d ms, p99 %d ms%n",
+                modo(), PETICIONES_SIMULTANEAS, DEMORA_SERVICIO_DATOS.toMillis(), PETICIONES_SIMULTANEAS / segundos,
+                latencias[latencias.length / 2] / 1_000_000, latencias[(int) (latencias.length * 0.99)] / 1_000_000);
+        assertThat(estados).allMatch(estado -> estado == 200);
+    }
+
+    private static List<Integer> enviarSimultaneas(HttpClient cliente, HttpRequest peticion, long[] latencias) {
+        List<CompletableFuture<Integer>> respuestas = new ArrayList<>(latencias.length);
+        for (int i = 0; i < latencias.length; i++) {
+            int indice = i;
+            long enviada = System.nanoTime();
+            respuestas.add(cliente.sendAsync(peticion, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(respuesta -> {
+                        latencias[indice] = System.nanoTime() - enviada;
+                        return respuesta.statusCode();
+                    }));
+        }
+        return respuestas.stream().map(CompletableFuture::join).toList();
+    }
+
+    private static HttpServer iniciarServicioDatosLento() {
+        try {
+            HttpServer servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+            servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            servidor.createContext("/data/inventario/valuaciones/ultima", intercambio -> {
+                try {
+                    Thread.sleep(DEMORA_SERVICIO_DATOS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                byte[] cuerpo = VALUACION_JSON.getBytes(StandardCharsets.UTF_8);
+                intercambio.getResponseHeaders().add("Content-Type", "application/json");
+                intercambio.sendResponseHeaders(200, cuerpo.length);
+                try (OutputStream salida = intercambio.getResponseBody()) {
+                    salida.write(cuerpo);
+                }
+            });
+            servidor.start();
+            return servidor;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
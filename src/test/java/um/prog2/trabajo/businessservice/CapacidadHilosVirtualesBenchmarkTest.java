@@ -0,0 +1,15 @@
+package um.prog2.trabajo.businessservice;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "server.tomcat.threads.max=" + CapacidadConcurrenteBenchmark.HILOS_TOMCAT
+})
+class CapacidadHilosVirtualesBenchmarkTest extends CapacidadConcurrenteBenchmark {
+
+    @Override
+    String modo() {
+        return "hilos virtuales";
+    }
+}
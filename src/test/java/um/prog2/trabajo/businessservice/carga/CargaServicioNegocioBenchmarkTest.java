@@ -0,0 +1,84 @@
+package um.prog2.trabajo.businessservice.carga;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga del servicio de negocio solo: {@code /api} corre en proceso (perfil {@code test}, sin
+ * servicios externos) contra {@link ServicioDatosSimulado}, con la mezcla de {@link Operacion} en modelo
+ * abierto. Deja los histogramas y {@code resumen.csv} en {@code target/carga}.
+ * <p>
+ * Todo se ajusta con propiedades del sistema, por ejemplo
+ * {@code mvn test -Pbenchmark -Dtest=CargaServicioNegocioBenchmarkTest -Dcarga.tasa=500 -Dcarga.datos.errores=0.01}:
+ * {@code carga.tasa} (solicitudes por segundo), {@code carga.duracion-s}, {@code carga.calentamiento-s},
+ * {@code carga.objetivo-p99-ms}, y del servicio simulado {@code carga.datos.latencia-ms},
+ * {@code carga.datos.variacion-ms}, {@code carga.datos.errores} y {@code carga.datos.productos}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class CargaServicioNegocioBenchmarkTest {
+
+    private static final double TASA = Double.parseDouble(System.getProperty("carga.tasa", "100"));
+    private static final Duration DURACION = Duration.ofSeconds(Long.getLong("carga.duracion-s", 30));
+    private static final Duration CALENTAMIENTO = Duration.ofSeconds(Long.getLong("carga.calentamiento-s", 10));
+    private static final Duration OBJETIVO_P99 = Duration.ofMillis(Long.getLong("carga.objetivo-p99-ms", 250));
+    private static final double TASA_ERRORES = Double.parseDouble(System.getProperty("carga.datos.errores", "0"));
+    private static final int PRODUCTOS = Integer.getInteger("carga.datos.productos", 100_000);
+    private static final Path REPORTES = Path.of("target", "carga");
+
+    private static final ServicioDatosSimulado servicioDatos = new ServicioDatosSimulado(
+            new ServicioDatosSimulado.Configuracion(
+                    Long.getLong("carga.datos.latencia-ms", 20),
+                    Long.getLong("carga.datos.variacion-ms", 10),
+                    TASA_ERRORES,
+                    PRODUCTOS));
+
+    @LocalServerPort
+    private int puerto;
+
+    @DynamicPropertySource
+    static void apuntarAlServicioDatosSimulado(DynamicPropertyRegistry registry) {
+        registry.add("data.service.url", servicioDatos::url);
+    }
+
+    @AfterAll
+    static void detenerServicioDatos() {
+        servicioDatos.close();
+    }
+
+    @Test
+    void mezclaAbiertaContraElServicioDeDatosSimulado() throws IOException {
+        ResultadoCarga resultado;
+        try (GeneradorCarga generador = new GeneradorCarga(URI.create("http://localhost:" + puerto), TASA, PRODUCTOS)) {
+            // El calentamiento compila los caminos calientes y llena los pools; no se informa
+            generador.ejecutar(CALENTAMIENTO);
+            resultado = generador.ejecutar(DURACION);
+        }
+        resultado.escribir(REPORTES, OBJETIVO_P99);
+        resultado.imprimir(System.out);
+        System.out.printf("Servicio de datos simulado: %d solicitudes, %d errores inyectados%n",
+                servicioDatos.atendidas(), servicioDatos.errores());
+        System.out.printf("Operaciones con p99 sobre %d ms: %s%n", OBJETIVO_P99.toMillis(),
+                resultado.fueraDeObjetivo(OBJETIVO_P99));
+
+        // En modelo abierto el caudal lo fija el generador: si no se sostiene, el servicio se saturó
+        assertThat(resultado.solicitudesPorSegundo()).isGreaterThan(TASA * 0.8);
+        if (TASA_ERRORES == 0) {
+            assertThat(resultado.fallidas()).isZero();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package um.prog2.trabajo.businessservice.carga;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Carga de modelo abierto: las solicitudes llegan como un proceso de Poisson de {@code tasa} por segundo
+ * y se envían a su hora aunque las anteriores no hayan terminado, como llegan los usuarios reales. La
+ * latencia se mide desde la hora prevista de cada llegada, así que si el generador o el servidor se atrasan
+ * la espera queda en el histograma (no hay omisión coordinada).
+ */
+class GeneradorCarga implements AutoCloseable {
+
+    // Latencias en microsegundos, con tres dígitos significativos y hasta un minuto
+    private static final long LATENCIA_MAXIMA_US = TimeUnit.MINUTES.toMicros(1);
+    private static final Duration ESPERA_FINAL = Duration.ofSeconds(60);
+
+    private final URI base;
+    private final double tasa;
+    private final int productos;
+    private final Random random = new Random(42);
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // HTTP/1.1 como un navegador o balanceador frente a Tomcat, sin el intento de upgrade a h2c
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(ejecutor)
+            .build();
+
+    GeneradorCarga(URI base, double tasa, int productos) {
+        this.base = base;
+        this.tasa = tasa;
+        this.productos = productos;
+    }
+
+    ResultadoCarga ejecutar(Duration duracion) {
+        Map<Operacion, Histogram> latencias = new EnumMap<>(Operacion.class);
+        Map<Operacion, AtomicLong> errores = new EnumMap<>(Operacion.class);
+        for (Operacion operacion : Operacion.values()) {
+            latencias.put(operacion, new ConcurrentHistogram(LATENCIA_MAXIMA_US, 3));
+            errores.put(operacion, new AtomicLong());
+        }
+        List<CompletableFuture<Void>> enviadas = new ArrayList<>();
+        long inicio = System.nanoTime();
+        long fin = inicio + duracion.toNanos();
+        long prevista = inicio;
+        while ((prevista += intervalo()) < fin) {
+            esperarHasta(prevista);
+            Operacion operacion = Operacion.sortear(random);
+            long llegada = prevista;
+            enviadas.add(cliente.sendAsync(operacion.peticion(base, random, productos),
+                            HttpResponse.BodyHandlers.discarding())
+                    .handle((respuesta, error) -> {
+                        long microsegundos = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - llegada);
+                        if (error == null && respuesta.statusCode() < 400) {
+                            latencias.get(operacion).recordValue(Math.min(microsegundos, LATENCIA_MAXIMA_US));
+                        } else {
+                            errores.get(operacion).incrementAndGet();
+                        }
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(enviadas.toArray(CompletableFuture[]::new))
+                .orTimeout(ESPERA_FINAL.toSeconds(), TimeUnit.SECONDS)
+                .join();
+        return new ResultadoCarga(tasa, Duration.ofNanos(System.nanoTime() - inicio), latencias, errores);
+    }
+
+    @Override
+    public void close() {
+        cliente.close();
+        ejecutor.close();
+    }
+
+    // Tiempo entre llegadas de un proceso de Poisson: exponencial con media 1 / tasa
+    private long intervalo() {
+        return (long) (-Math.log(1 - random.nextDouble()) / tasa * 1e9);
+    }
+
+    private static void esperarHasta(long nanoTime) {
+        long restante;
+        while ((restante = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(restante);
+        }
+    }
+}
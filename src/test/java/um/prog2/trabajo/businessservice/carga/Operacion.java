@@ -0,0 +1,113 @@
+package um.prog2.trabajo.businessservice.carga;
+
+import um.prog2.trabajo.dataservice.dto.PaginaKeyset;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.Random;
+
+/**
+ * Solicitudes a {@code /api} que componen la carga, agrupadas por mezcla (navegación del catálogo,
+ * búsqueda, movimientos de stock y reportes). El peso es la proporción de la operación en la mezcla total.
+ */
+enum Operacion {
+
+    LISTAR_PRODUCTOS(Mezcla.CATALOGO, 20) {
+        @Override
+        String ruta(Random random, int productos) {
+            long despuesDe = random.nextInt(Math.max(1, productos - 50));
+            return "/api/productos?limit=50" + (despuesDe == 0 ? "" : "&after=" + PaginaKeyset.codificarCursor(despuesDe));
+        }
+    },
+    PRODUCTO_POR_ID(Mezcla.CATALOGO, 25) {
+        @Override
+        String ruta(Random random, int productos) {
+            return "/api/productos/" + (1 + random.nextInt(productos));
+        }
+    },
+    CATEGORIA_CON_PRODUCTOS(Mezcla.CATALOGO, 5) {
+        @Override
+        String ruta(Random random, int productos) {
+            return "/api/categorias/" + (1 + random.nextInt(Math.max(1, productos / 100)));
+        }
+    },
+    BUSCAR_POR_NOMBRE(Mezcla.BUSQUEDA, 15) {
+        @Override
+        String ruta(Random random, int productos) {
+            return "/api/productos/buscar?limit=20&nombre=modelo%20" + random.nextInt(1000);
+        }
+    },
+    RANGO_DE_PRECIO(Mezcla.BUSQUEDA, 10) {
+        @Override
+        String ruta(Random random, int productos) {
+            int minimo = random.nextInt(9_000);
+            return "/api/productos/precio?limit=50&min=" + minimo + "&max=" + (minimo + 1_000);
+        }
+    },
+    INCREMENTAR_STOCK(Mezcla.STOCK, 10) {
+        @Override
+        String ruta(Random random, int productos) {
+            return "/api/inventario/producto/" + (1 + random.nextInt(productos)) + "/stock/incrementar?cantidad=1";
+        }
+    },
+    DECREMENTAR_STOCK(Mezcla.STOCK, 10) {
+        @Override
+        String ruta(Random random, int productos) {
+            return "/api/inventario/producto/" + (1 + random.nextInt(productos)) + "/stock/decrementar?cantidad=1";
+        }
+    },
+    INVENTARIO_COMPLETO(Mezcla.REPORTES, 3) {
+        @Override
+        String ruta(Random random, int productos) {
+            return "/api/reportes/inventario-completo";
+        }
+    },
+    STOCK_BAJO(Mezcla.REPORTES, 2) {
+        @Override
+        String ruta(Random random, int productos) {
+            return "/api/reportes/stock-bajo";
+        }
+    };
+
+    enum Mezcla {
+        CATALOGO, BUSQUEDA, STOCK, REPORTES
+    }
+
+    private static final Operacion[] OPERACIONES = values();
+    private static final int PESO_TOTAL = 100;
+
+    private final Mezcla mezcla;
+    private final int peso;
+
+    Operacion(Mezcla mezcla, int peso) {
+        this.mezcla = mezcla;
+        this.peso = peso;
+    }
+
+    Mezcla mezcla() {
+        return mezcla;
+    }
+
+    abstract String ruta(Random random, int productos);
+
+    HttpRequest peticion(URI base, Random random, int productos) {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(base.resolve(ruta(random, productos)));
+        return mezcla == Mezcla.STOCK
+                ? peticion.POST(HttpRequest.BodyPublishers.noBody()).build()
+                : peticion.GET().build();
+    }
+
+    /**
+     * Elige una operación según los pesos.
+     */
+    static Operacion sortear(Random random) {
+        int valor = random.nextInt(PESO_TOTAL);
+        for (Operacion operacion : OPERACIONES) {
+            valor -= operacion.peso;
+            if (valor < 0) {
+                return operacion;
+            }
+        }
+        return OPERACIONES[OPERACIONES.length - 1];
+    }
+}
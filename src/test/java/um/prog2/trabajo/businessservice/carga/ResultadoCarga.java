@@ -0,0 +1,110 @@
+package um.prog2.trabajo.businessservice.carga;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencias (en microsegundos) y errores de una corrida de {@link GeneradorCarga}, por operación.
+ */
+record ResultadoCarga(double tasa, Duration duracion, Map<Operacion, Histogram> latencias,
+                      Map<Operacion, AtomicLong> errores) {
+
+    private static final double MICROS_POR_MILI = 1000.0;
+
+    Histogram total() {
+        Histogram total = new Histogram(3);
+        latencias.values().forEach(total::add);
+        return total;
+    }
+
+    long respondidas() {
+        return total().getTotalCount();
+    }
+
+    long fallidas() {
+        return errores.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    double solicitudesPorSegundo() {
+        return (respondidas() + fallidas()) / (duracion.toNanos() / 1e9);
+    }
+
+    /**
+     * Operaciones cuyo p99 supera el objetivo.
+     */
+    List<Operacion> fueraDeObjetivo(Duration p99Objetivo) {
+        List<Operacion> fuera = new ArrayList<>();
+        latencias.forEach((operacion, histograma) -> {
+            if (histograma.getTotalCount() > 0
+                    && histograma.getValueAtPercentile(99) > p99Objetivo.toNanos() / 1000) {
+                fuera.add(operacion);
+            }
+        });
+        return fuera;
+    }
+
+    /**
+     * Deja en {@code directorio} un {@code .hgrm} por operación y otro del total (distribución de percentiles
+     * en milisegundos, el formato que grafica HdrHistogram) y {@code resumen.csv} con el caudal y los
+     * percentiles de cada operación frente al objetivo de p99.
+     */
+    void escribir(Path directorio, Duration p99Objetivo) throws IOException {
+        Files.createDirectories(directorio);
+        for (Map.Entry<Operacion, Histogram> entrada : latencias.entrySet()) {
+            escribirHistograma(directorio.resolve(entrada.getKey().name().toLowerCase(Locale.ROOT) + ".hgrm"),
+                    entrada.getValue());
+        }
+        escribirHistograma(directorio.resolve("total.hgrm"), total());
+
+        List<String> filas = new ArrayList<>();
+        filas.add("operacion,mezcla,solicitudes,errores,solicitudes_por_segundo,p50_ms,p95_ms,p99_ms,p999_ms,max_ms,"
+                + "objetivo_p99_ms,cumple");
+        List<Operacion> fuera = fueraDeObjetivo(p99Objetivo);
+        latencias.forEach((operacion, histograma) -> filas.add(fila(operacion.name(), operacion.mezcla().name(),
+                histograma, errores.get(operacion).get(), p99Objetivo, !fuera.contains(operacion))));
+        filas.add(fila("TOTAL", "", total(), fallidas(), p99Objetivo, fuera.isEmpty()));
+        Files.write(directorio.resolve("resumen.csv"), filas, StandardCharsets.UTF_8);
+    }
+
+    void imprimir(PrintStream salida) {
+        salida.printf("Carga abierta de %.0f solicitudes/s durante %.1f s: %.1f solicitudes/s, %d errores%n",
+                tasa, duracion.toNanos() / 1e9, solicitudesPorSegundo(), fallidas());
+        salida.printf("  %-24s %8s %8s %9s %9s %9s %9s%n", "", "ok", "errores", "p50 ms", "p95 ms", "p99 ms", "máx ms");
+        latencias.forEach((operacion, histograma) -> salida.printf(Locale.ROOT,
+                "  %-24s %8d %8d %9.1f %9.1f %9.1f %9.1f%n", operacion, histograma.getTotalCount(),
+                errores.get(operacion).get(), ms(histograma.getValueAtPercentile(50)),
+                ms(histograma.getValueAtPercentile(95)), ms(histograma.getValueAtPercentile(99)),
+                ms(histograma.getMaxValue())));
+    }
+
+    private String fila(String operacion, String mezcla, Histogram histograma, long fallidas, Duration p99Objetivo,
+                        boolean cumple) {
+        long solicitudes = histograma.getTotalCount() + fallidas;
+        return String.format(Locale.ROOT, "%s,%s,%d,%d,%.2f,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%s", operacion, mezcla,
+                solicitudes, fallidas, solicitudes / (duracion.toNanos() / 1e9),
+                ms(histograma.getValueAtPercentile(50)), ms(histograma.getValueAtPercentile(95)),
+                ms(histograma.getValueAtPercentile(99)), ms(histograma.getValueAtPercentile(99.9)),
+                ms(histograma.getMaxValue()), p99Objetivo.toMillis(), cumple);
+    }
+
+    private static void escribirHistograma(Path archivo, Histogram histograma) throws IOException {
+        try (PrintStream salida = new PrintStream(Files.newOutputStream(archivo), false, StandardCharsets.UTF_8)) {
+            histograma.outputPercentileDistribution(salida, MICROS_POR_MILI);
+        }
+    }
+
+    private static double ms(long microsegundos) {
+        return microsegundos / MICROS_POR_MILI;
+    }
+}
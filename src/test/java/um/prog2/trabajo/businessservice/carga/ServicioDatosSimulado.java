@@ -0,0 +1,233 @@
+package um.prog2.trabajo.businessservice.carga;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import um.prog2.trabajo.dataservice.dto.CategoriaVista;
+import um.prog2.trabajo.dataservice.dto.InventarioVista;
+import um.prog2.trabajo.dataservice.dto.PaginaKeyset;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+import um.prog2.trabajo.dataservice.dto.ValuacionInventarioVista;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servicio de datos simulado para medir el servicio de negocio por separado: atiende en proceso las rutas
+ * de {@code /data/**} que usan los escenarios de carga, con una latencia fija más una variación aleatoria,
+ * una proporción de errores 503 y un catálogo sintético de {@code productos} filas (IDs de 1 a
+ * {@code productos}, cien productos por categoría). Las filas se generan a partir del ID, así que el tamaño
+ * del catálogo no ocupa memoria.
+ */
+class ServicioDatosSimulado implements AutoCloseable {
+
+    private static final int PRODUCTOS_POR_CATEGORIA = 100;
+    private static final LocalDateTime ACTUALIZACION = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private static final Pattern PRODUCTO = Pattern.compile("/data/productos/(\\d+)");
+    private static final Pattern CATEGORIA = Pattern.compile("/data/categorias/(\\d+)");
+    private static final Pattern PRODUCTOS_DE_CATEGORIA = Pattern.compile("/data/categorias/(\\d+)/productos");
+    private static final Pattern MOVIMIENTO_STOCK =
+            Pattern.compile("/data/inventario/producto/(\\d+)/(incrementar|decrementar)");
+
+    /**
+     * @param latenciaMs demora mínima de cada respuesta
+     * @param variacionMs demora adicional, uniforme entre 0 y este valor
+     * @param tasaErrores proporción de respuestas 503, entre 0 y 1
+     * @param productos filas del catálogo simulado
+     */
+    record Configuracion(long latenciaMs, long variacionMs, double tasaErrores, int productos) {
+    }
+
+    private final Configuracion configuracion;
+    private final ObjectMapper mapper = JsonMapper.builder().build();
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer servidor;
+    private final AtomicLong atendidas = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+
+    ServicioDatosSimulado(Configuracion configuracion) {
+        this.configuracion = configuracion;
+        try {
+            servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        servidor.setExecutor(ejecutor);
+        servidor.createContext("/data", this::atender);
+        servidor.start();
+    }
+
+    String url() {
+        return "http://localhost:" + servidor.getAddress().getPort();
+    }
+
+    long atendidas() {
+        return atendidas.get();
+    }
+
+    long errores() {
+        return errores.get();
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+        ejecutor.close();
+    }
+
+    private void atender(HttpExchange intercambio) throws IOException {
+        try (intercambio) {
+            atendidas.incrementAndGet();
+            demorar();
+            if (ThreadLocalRandom.current().nextDouble() < configuracion.tasaErrores()) {
+                errores.incrementAndGet();
+                intercambio.sendResponseHeaders(503, -1);
+                return;
+            }
+            Object cuerpo = responder(intercambio.getRequestURI().getPath(),
+                    parametros(intercambio.getRequestURI().getRawQuery()));
+            if (cuerpo == null) {
+                intercambio.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] bytes = mapper.writeValueAsBytes(cuerpo);
+            intercambio.getResponseHeaders().add("Content-Type", "application/json");
+            intercambio.sendResponseHeaders(200, bytes.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(bytes);
+            }
+        }
+    }
+
+    private Object responder(String ruta, Map<String, String> parametros) {
+        Matcher coincidencia;
+        if (ruta.equals("/data/productos") || ruta.equals("/data/productos/precio")) {
+            if (parametros.containsKey("ids")) {
+                return Arrays.stream(parametros.get("ids").split(","))
+                        .map(Long::parseLong)
+                        .filter(this::existe)
+                        .map(this::producto)
+                        .toList();
+            }
+            return pagina(PaginaKeyset.decodificarCursor(parametros.get("after")) + 1, limite(parametros));
+        }
+        if (ruta.equals("/data/productos/buscar")) {
+            // Las coincidencias se reparten por el catálogo según el término buscado
+            long desde = 1 + Math.floorMod(parametros.getOrDefault("nombre", "").hashCode(), configuracion.productos());
+            return pagina(desde, limite(parametros)).getContenido();
+        }
+        if (ruta.equals("/data/inventario/valuaciones/ultima")) {
+            long productos = configuracion.productos();
+            return new ValuacionInventarioVista(1L, ACTUALIZACION, 60, productos, productos / 10, productos / 50,
+                    BigDecimal.valueOf(productos).multiply(BigDecimal.valueOf(1_234_567, 2)), List.of());
+        }
+        if (ruta.equals("/data/inventario/stock-bajo")) {
+            List<ProductoVista> stockBajo = new ArrayList<>();
+            for (long id = 10; id <= configuracion.productos() && stockBajo.size() < PaginaKeyset.LIMITE_MAXIMO; id += 10) {
+                stockBajo.add(producto(id));
+            }
+            return stockBajo;
+        }
+        if ((coincidencia = PRODUCTO.matcher(ruta)).matches()) {
+            long id = Long.parseLong(coincidencia.group(1));
+            return existe(id) ? producto(id) : null;
+        }
+        if ((coincidencia = PRODUCTOS_DE_CATEGORIA.matcher(ruta)).matches()) {
+            long desde = (Long.parseLong(coincidencia.group(1)) - 1) * PRODUCTOS_POR_CATEGORIA + 1;
+            return existe(desde) ? pagina(desde, PRODUCTOS_POR_CATEGORIA).getContenido() : null;
+        }
+        if ((coincidencia = CATEGORIA.matcher(ruta)).matches()) {
+            long id = Long.parseLong(coincidencia.group(1));
+            return existe((id - 1) * PRODUCTOS_POR_CATEGORIA + 1) ? categoria(id) : null;
+        }
+        if ((coincidencia = MOVIMIENTO_STOCK.matcher(ruta)).matches()) {
+            long id = Long.parseLong(coincidencia.group(1));
+            return existe(id) ? inventario(id) : null;
+        }
+        return null;
+    }
+
+    private PaginaKeyset<ProductoVista> pagina(long desde, int limite) {
+        List<ProductoVista> filas = new ArrayList<>(limite);
+        for (long id = desde; id < desde + limite && existe(id); id++) {
+            filas.add(producto(id));
+        }
+        boolean hayMas = existe(desde + limite);
+        return new PaginaKeyset<>(filas,
+                hayMas ? PaginaKeyset.codificarCursor(desde + limite - 1) : null, hayMas);
+    }
+
+    private boolean existe(long id) {
+        return id >= 1 && id <= configuracion.productos();
+    }
+
+    private ProductoVista producto(long id) {
+        long categoria = (id - 1) / PRODUCTOS_POR_CATEGORIA + 1;
+        return new ProductoVista(id, "Producto " + id, "Descripción del producto " + id,
+                BigDecimal.valueOf(100 + id * 7919 % 1_000_000, 2), categoria, "Categoría " + categoria,
+                cantidad(id), 10);
+    }
+
+    private InventarioVista inventario(long id) {
+        return new InventarioVista(id, id, "Producto " + id, cantidad(id), 10, ACTUALIZACION, 0L);
+    }
+
+    private static CategoriaVista categoria(long id) {
+        return new CategoriaVista(id, "Categoría " + id, "Descripción de la categoría " + id,
+                (long) PRODUCTOS_POR_CATEGORIA);
+    }
+
+    private static int cantidad(long id) {
+        return (int) (id * 31 % 500);
+    }
+
+    private void demorar() {
+        long variacion = configuracion.variacionMs() > 0
+                ? ThreadLocalRandom.current().nextLong(configuracion.variacionMs() + 1) : 0;
+        try {
+            Thread.sleep(configuracion.latenciaMs() + variacion);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int limite(Map<String, String> parametros) {
+        return Integer.parseInt(parametros.getOrDefault("limit", "50"));
+    }
+
+    private static Map<String, String> parametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual > 0) {
+                // Una colección puede llegar repetida (ids=1&ids=2) o separada por comas: queda siempre con comas
+                parametros.merge(URLDecoder.decode(par.substring(0, igual), StandardCharsets.UTF_8),
+                        URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8),
+                        (anterior, valor) -> anterior + "," + valor);
+            }
+        }
+        return parametros;
+    }
+}
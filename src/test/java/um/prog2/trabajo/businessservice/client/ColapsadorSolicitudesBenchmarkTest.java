@@ -0,0 +1,135 @@
+package um.prog2.trabajo.businessservice.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Consultas concurrentes de productos por ID contra el servicio de datos real, con y sin colapsado:
+ * mide consultas atendidas por segundo y cuántas peticiones HTTP recibe el servicio de datos.
+ * Se ejecuta con {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT, properties = {
+        "server.port=18092",
+        "data.service.url=http://localhost:18092"
+})
+@ActiveProfiles("test")
+class ColapsadorSolicitudesBenchmarkTest {
+
+    private static final int HILOS = 64;
+    private static final int CONSULTAS_POR_HILO = 300;
+    private static final long PRODUCTOS_DISTINTOS = 9;
+
+    @Autowired
+    private DataServiceClient dataServiceClient;
+
+    @Autowired
+    private AtomicLong peticionesServicioDatos;
+
+    @TestConfiguration
+    static class ContadorPeticiones {
+
+        @Bean
+        AtomicLong peticionesServicioDatos() {
+            return new AtomicLong();
+        }
+
+        @Bean
+        Filter contarPeticionesServicioDatos(AtomicLong peticionesServicioDatos) {
+            return (peticion, respuesta, cadena) -> {
+                peticionesServicioDatos.incrementAndGet();
+                cadena.doFilter(peticion, respuesta);
+            };
+        }
+    }
+
+    @Test
+    void compararConYSinColapsado() throws InterruptedException {
+        ColapsadorSolicitudes<Long, ProductoVista> sinColapsado = crear(false);
+        ColapsadorSolicitudes<Long, ProductoVista> conColapsado = crear(true);
+
+        // Calentamiento de ambos caminos
+        medir(sinColapsado);
+        medir(conColapsado);
+
+        Resultado sin = medir(sinColapsado);
+        Resultado con = medir(conColapsado);
+
+        System.out.printf("sin colapsado: %6.0f consultas/s, %6d peticiones al servicio de datos (%5.0f req/s)%n",
+                sin.consultasPorSegundo(), sin.peticiones(), sin.peticionesPorSegundo());
+        System.out.printf("con colapsado: %6.0f consultas/s, %6d peticiones al servicio de datos (%5.0f req/s), "
+                        + "%.1f consultas por petición%n",
+                con.consultasPorSegundo(), con.peticiones(), con.peticionesPorSegundo(),
+                (double) HILOS * CONSULTAS_POR_HILO / con.peticiones());
+
+        assertThat(sin.errores()).isZero();
+        assertThat(con.errores()).isZero();
+        assertThat(con.peticiones()).isLessThan(sin.peticiones());
+    }
+
+    private ColapsadorSolicitudes<Long, ProductoVista> crear(boolean habilitado) {
+        return new ColapsadorSolicitudes<>("benchmark", habilitado, Duration.ofMillis(2), 100,
+                dataServiceClient::obtenerProductoPorId,
+                ids -> dataServiceClient.obtenerProductosPorIds(ids).stream()
+                        .collect(Collectors.toMap(ProductoVista::id, Function.identity())),
+                new SimpleMeterRegistry());
+    }
+
+    private Resultado medir(ColapsadorSolicitudes<Long, ProductoVista> colapsador) throws InterruptedException {
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch inicio = new CountDownLatch(1);
+        CountDownLatch fin = new CountDownLatch(HILOS);
+        AtomicInteger errores = new AtomicInteger();
+        for (int i = 0; i < HILOS; i++) {
+            hilos.execute(() -> {
+                try {
+                    inicio.await();
+                    for (int j = 0; j < CONSULTAS_POR_HILO; j++) {
+                        long id = ThreadLocalRandom.current().nextLong(1, PRODUCTOS_DISTINTOS + 1);
+                        if (colapsador.obtener(id) == null) {
+                            errores.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    errores.incrementAndGet();
+                } finally {
+                    fin.countDown();
+                }
+            });
+        }
+        long peticionesAntes = peticionesServicioDatos.get();
+        long comienzo = System.nanoTime();
+        inicio.countDown();
+        assertThat(fin.await(5, TimeUnit.MINUTES)).isTrue();
+        double segundos = (System.nanoTime() - comienzo) / 1e9;
+        long peticiones = peticionesServicioDatos.get() - peticionesAntes;
+        hilos.shutdown();
+        return new Resultado(HILOS * CONSULTAS_POR_HILO / segundos, peticiones, peticiones / segundos, errores.get());
+    }
+
+    private record Resultado(double consultasPorSegundo, long peticiones, double peticionesPorSegundo, int errores) {
+    }
+}
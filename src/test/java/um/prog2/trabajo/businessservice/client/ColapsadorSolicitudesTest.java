@@ -0,0 +1,112 @@
+package um.prog2.trabajo.businessservice.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Las solicitudes de una misma ventana se resuelven con una sola consulta por lote: las claves repetidas
+ * comparten resultado y un error de la consulta llega a todos los hilos del lote.
+ */
+class ColapsadorSolicitudesTest {
+
+    private static final Duration VENTANA = Duration.ofMillis(300);
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    private final List<List<Long>> lotesConsultados = new CopyOnWriteArrayList<>();
+    private final ExecutorService hilos = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void detener() {
+        hilos.shutdownNow();
+    }
+
+    @Test
+    void lasClavesRepetidasSeConsultanUnaVezYCompartenElResultado() throws Exception {
+        ColapsadorSolicitudes<Long, String> colapsador = colapsador(100, ids -> {
+            lotesConsultados.add(ids);
+            return ids.stream().filter(id -> id != 4L).collect(Collectors.toMap(Function.identity(), id -> "p" + id));
+        });
+
+        List<Long> claves = List.of(1L, 2L, 1L, 3L, 2L, 1L, 4L);
+        List<Future<String>> resultados = new ArrayList<>();
+        for (Long clave : claves) {
+            resultados.add(hilos.submit(() -> colapsador.obtener(clave)));
+        }
+
+        for (int i = 0; i < claves.size(); i++) {
+            String esperado = claves.get(i) == 4L ? null : "p" + claves.get(i);
+            assertThat(resultados.get(i).get()).isEqualTo(esperado);
+        }
+        assertThat(lotesConsultados).hasSize(1);
+        assertThat(lotesConsultados.get(0)).containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+        assertThat(registro.get("colapsador.duplicadas").counter().count()).isEqualTo(3);
+        assertThat(registro.get("colapsador.solicitudes").counter().count()).isEqualTo(claves.size());
+    }
+
+    @Test
+    void unErrorDeLaConsultaLlegaATodosLosHilosDelLote() throws Exception {
+        IllegalStateException falla = new IllegalStateException("servicio de datos caído");
+        ColapsadorSolicitudes<Long, String> colapsador = colapsador(100, ids -> {
+            lotesConsultados.add(ids);
+            throw falla;
+        });
+
+        List<Future<String>> resultados = new ArrayList<>();
+        for (long clave = 1; clave <= 5; clave++) {
+            long id = clave % 3;
+            resultados.add(hilos.submit(() -> colapsador.obtener(id)));
+        }
+
+        for (Future<String> resultado : resultados) {
+            assertThatThrownBy(resultado::get)
+                    .isInstanceOf(ExecutionException.class)
+                    .cause().isSameAs(falla);
+        }
+        assertThat(lotesConsultados).hasSize(1);
+    }
+
+    @Test
+    void unLoteLlenoSeConsultaSinEsperarLaVentana() throws Exception {
+        ColapsadorSolicitudes<Long, String> colapsador = new ColapsadorSolicitudes<>("prueba", true,
+                Duration.ofSeconds(30), 3, id -> "p" + id, this::consultar, registro);
+        long inicio = System.nanoTime();
+
+        List<Future<String>> resultados = new ArrayList<>();
+        for (long clave = 1; clave <= 3; clave++) {
+            long id = clave;
+            resultados.add(hilos.submit(() -> colapsador.obtener(id)));
+        }
+
+        for (Future<String> resultado : resultados) {
+            assertThat(resultado.get()).startsWith("p");
+        }
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofSeconds(10));
+        assertThat(lotesConsultados).hasSize(1);
+    }
+
+    private ColapsadorSolicitudes<Long, String> colapsador(int tamanoMaximo,
+                                                          Function<List<Long>, Map<Long, String>> consulta) {
+        return new ColapsadorSolicitudes<>("prueba", true, VENTANA, tamanoMaximo, id -> "p" + id, consulta, registro);
+    }
+
+    private Map<Long, String> consultar(List<Long> ids) {
+        lotesConsultados.add(ids);
+        return ids.stream().collect(Collectors.toMap(Function.identity(), id -> "p" + id));
+    }
+}
@@ -0,0 +1,80 @@
+package um.prog2.trabajo.businessservice.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import um.prog2.trabajo.businessservice.exception.MicroserviceCommunicationException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * El plazo de las llamadas en paralelo se respeta aunque el pool esté saturado: con un hilo y una cola de
+ * un lugar, la tercera llamada se rechaza en vez de ejecutarse en el hilo que espera los resultados.
+ */
+class LlamadasParalelasTest {
+
+    private static final Duration PLAZO = Duration.ofMillis(200);
+
+    private final LlamadasParalelas llamadas = new LlamadasParalelas(1, 1, PLAZO.toMillis(), false);
+
+    @AfterEach
+    void detener() {
+        llamadas.detener();
+    }
+
+    @Test
+    void conElPoolSaturadoFallaSinEsperarALasLlamadas() {
+        long inicio = System.nanoTime();
+
+        assertThatThrownBy(() -> llamadas.ejecutar(List.of(lenta(), lenta(), lenta()), PLAZO))
+                .isInstanceOf(MicroserviceCommunicationException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void venceElPlazoAunqueLaLlamadaNoTermine() {
+        long inicio = System.nanoTime();
+
+        assertThatThrownBy(() -> llamadas.ejecutar(List.of(lenta()), PLAZO))
+                .isInstanceOf(MicroserviceCommunicationException.class)
+                .hasMessageContaining("tiempo de espera");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio))
+                .isGreaterThanOrEqualTo(PLAZO)
+                .isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void cadaLlamadaRechazadaOVencidaTieneSuPropioResultado() {
+        long inicio = System.nanoTime();
+
+        List<String> resultados = llamadas.ejecutarCadaUna(
+                List.of(() -> "rápida", lenta(), lenta(), () -> {
+                    throw new IllegalStateException("falla");
+                }),
+                PLAZO,
+                e -> e.getClass().getSimpleName());
+
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofSeconds(1));
+        assertThat(resultados).hasSize(4);
+        assertThat(resultados.get(0)).isEqualTo("rápida");
+        // Las lentas vencen en el pool o en la cola, o se rechazan; la cuarta ya no entra en la cola
+        assertThat(resultados.subList(1, 4)).containsOnly("MicroserviceCommunicationException");
+    }
+
+    private static Supplier<String> lenta() {
+        return () -> {
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "lenta";
+        };
+    }
+}
@@ -0,0 +1,216 @@
+package um.prog2.trabajo.businessservice.client;
+
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link ResilienciaDatos} frente a un servicio de datos simulado que agrega latencia y errores.
+ */
+class ResilienciaDatosTest {
+
+    private static final List<MethodMetadata> METODOS =
+            new SpringMvcContract().parseAndValidateMetadata(DataServiceClient.class);
+    private static final Request.Options OPCIONES =
+            new Request.Options(1, TimeUnit.SECONDS, 5, TimeUnit.SECONDS, true);
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    private final AtomicInteger llamadas = new AtomicInteger();
+
+    @Test
+    void unaConsultaLentaSeDuplicaYGanaLaPrimeraRespuesta() throws IOException {
+        Client datos = cliente(50, servidor(llamada -> llamada == 1 ? 2_000 : 5, llamada -> 200));
+
+        long inicio = System.nanoTime();
+        Response respuesta = datos.execute(get("obtenerProductoPorId", "/data/productos/1"), OPCIONES);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofMillis(1_000));
+        assertThat(cuerpo(respuesta)).isEqualTo("respuesta 2");
+        assertThat(llamadas).hasValue(2);
+        assertThat(registro.counter("feign.llamadas.duplicadas").count()).isEqualTo(1);
+    }
+
+    @Test
+    void laLatenciaDeColaQuedaAcotadaConLasConsultasDuplicadas() throws IOException {
+        // Una de cada veinte llamadas tarda un segundo; el resto, 2 ms
+        Client servidorLento = servidor(llamada -> llamada % 20 == 0 ? 1_000 : 2, llamada -> 200);
+
+        long[] sinDuplicar = latencias(cliente(0, servidorLento));
+        long[] duplicando = latencias(cliente(50, servidorLento));
+
+        assertThat(percentil(sinDuplicar, 0.99)).isGreaterThanOrEqualTo(1_000);
+        assertThat(percentil(duplicando, 0.99)).isLessThan(500);
+        assertThat(duplicando[duplicando.length - 1]).isLessThan(500);
+    }
+
+    @Test
+    void conElCircuitoAbiertoSeRespondeConLaUltimaRespuestaBuena() throws IOException {
+        Client datos = cliente(0, servidor(llamada -> 0, llamada -> llamada == 1 ? 200 : 500));
+        Request request = get("obtenerProductoPorId", "/data/productos/1");
+        assertThat(cuerpo(datos.execute(request, OPCIONES))).isEqualTo("respuesta 1");
+
+        // Los errores se cubren con la respuesta guardada hasta que el circuito se abre
+        for (int i = 0; i < 4; i++) {
+            assertThat(cuerpo(datos.execute(request, OPCIONES))).isEqualTo("respuesta 1");
+        }
+        int enviadas = llamadas.get();
+        assertThat(cuerpo(datos.execute(request, OPCIONES))).isEqualTo("respuesta 1");
+
+        assertThat(llamadas).hasValue(enviadas);
+        assertThat(registro.counter("feign.respuestas.respaldo").count()).isEqualTo(5);
+        // El circuito es por endpoint: otra consulta se sigue enviando
+        datos.execute(get("obtenerCategoriaPorId", "/data/categorias/1"), OPCIONES).close();
+        assertThat(llamadas).hasValue(enviadas + 1);
+    }
+
+    @Test
+    void sinRespuestaGuardadaElErrorLlegaAlLlamador() throws IOException {
+        Client datos = cliente(0, servidor(llamada -> 0, llamada -> 500));
+
+        assertThat(datos.execute(get("obtenerProductoPorId", "/data/productos/1"), OPCIONES).status()).isEqualTo(500);
+        for (int i = 0; i < 3; i++) {
+            datos.execute(get("obtenerProductoPorId", "/data/productos/1"), OPCIONES).close();
+        }
+        assertThatThrownBy(() -> datos.execute(get("obtenerProductoPorId", "/data/productos/1"), OPCIONES))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Circuito abierto");
+    }
+
+    @Test
+    void losReportesNoOcupanElLugarDeLasConsultas() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        Client datos = cliente(0, (request, options) -> {
+            llamadas.incrementAndGet();
+            if (request.url().contains("resumen")) {
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return respuesta(request, 200, "ok");
+        });
+        CompletableFuture<Response> enCurso = CompletableFuture.supplyAsync(() -> {
+            try {
+                return datos.execute(get("obtenerResumenInventario", "/data/inventario/resumen"), OPCIONES);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (llamadas.get() == 0 && !enCurso.isDone()) {
+            Thread.onSpinWait();
+        }
+
+        try {
+            assertThatThrownBy(() -> datos.execute(get("obtenerResumenInventario", "/data/inventario/resumen"), OPCIONES))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("REPORTES");
+            assertThat(datos.execute(get("obtenerProductoPorId", "/data/productos/1"), OPCIONES).status()).isEqualTo(200);
+        } finally {
+            liberar.countDown();
+        }
+        assertThat(enCurso.get().status()).isEqualTo(200);
+    }
+
+    @Test
+    void elLongPollingNoPasaPorElCircuito() throws IOException {
+        Client datos = cliente(0, servidor(llamada -> 0, llamada -> 500));
+
+        for (int i = 0; i < 20; i++) {
+            datos.execute(get("obtenerEventosStock", "/data/inventario/eventos"), OPCIONES).close();
+        }
+
+        assertThat(llamadas).hasValue(20);
+    }
+
+    private Client cliente(long duplicarDespuesMs, Client servidor) {
+        CircuitBreakerRegistry circuitos = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        ResilienciaDatos resiliencia = new ResilienciaDatos(true, circuitos, ResilienciaConfiguracion.limites(Map.of(
+                Aislamiento.Grupo.CONSULTAS, 8,
+                Aislamiento.Grupo.REPORTES, 1,
+                Aislamiento.Grupo.ESCRITURAS, 8)),
+                duplicarDespuesMs, 100, 1 << 20, registro);
+        return resiliencia.enrich(servidor);
+    }
+
+    // Servicio de datos simulado: latencia y estado según el número de llamada
+    private Client servidor(IntUnaryOperator latenciaMs, IntUnaryOperator estado) {
+        return (request, options) -> {
+            int llamada = llamadas.incrementAndGet();
+            try {
+                Thread.sleep(latenciaMs.applyAsInt(llamada));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Cancelada");
+            }
+            return respuesta(request, estado.applyAsInt(llamada), "respuesta " + llamada);
+        };
+    }
+
+    private long[] latencias(Client datos) throws IOException {
+        long[] milisegundos = new long[200];
+        for (int i = 0; i < milisegundos.length; i++) {
+            long inicio = System.nanoTime();
+            datos.execute(get("obtenerProductoPorId", "/data/productos/" + i), OPCIONES).close();
+            milisegundos[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        }
+        Arrays.sort(milisegundos);
+        return milisegundos;
+    }
+
+    private static long percentil(long[] ordenados, double percentil) {
+        return ordenados[(int) Math.ceil(percentil * ordenados.length) - 1];
+    }
+
+    private static Request get(String metodo, String ruta) {
+        MethodMetadata metadata = METODOS.stream()
+                .filter(candidato -> candidato.method().getName().equals(metodo))
+                .findFirst()
+                .orElseThrow();
+        return Request.create(Request.HttpMethod.GET, "http://datos" + ruta, Map.of(), null,
+                StandardCharsets.UTF_8, metadata.template());
+    }
+
+    private static Response respuesta(Request request, int estado, String cuerpo) {
+        return Response.builder()
+                .status(estado)
+                .reason(estado == 200 ? "OK" : "Error")
+                .request(request)
+                .headers(Map.of())
+                .body(cuerpo, StandardCharsets.UTF_8)
+                .build();
+    }
+
+    private static String cuerpo(Response respuesta) throws IOException {
+        try (respuesta) {
+            return Util.toString(respuesta.body().asReader(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package um.prog2.trabajo.businessservice.controller;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import um.prog2.trabajo.ServiciosIntegrados;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Un consumidor que pide eventos que ya no se pueden reconstruir recibe el aviso de pérdida en el momento:
+ * el long polling responde {@code incompleto} y la suscripción SSE envía {@code resincronizar}.
+ */
+class EventosStockTest extends ServiciosIntegrados {
+
+    @Test
+    void elLongPollingInformaLaPerdidaSinEsperar() {
+        long ultimo = json(get("/data/inventario/eventos?esperaMs=0")).get("ultimoId").asLong();
+
+        JsonNode alDia = json(get("/data/inventario/eventos?after=" + ultimo + "&esperaMs=0"));
+        JsonNode otraEjecucion = json(get("/data/inventario/eventos?after=" + (ultimo + 1_000) + "&esperaMs=20000"));
+        JsonNode historialAgotado = json(get("/data/inventario/eventos?after=1&esperaMs=20000"));
+
+        assertThat(alDia.get("incompleto").asBoolean()).isFalse();
+        assertThat(otraEjecucion.get("incompleto").asBoolean()).isTrue();
+        assertThat(historialAgotado.get("incompleto").asBoolean()).isTrue();
+    }
+
+    @Test
+    void unaSuscripcionConUnEventoPerdidoRecibeResincronizar() throws Exception {
+        HttpRequest peticion = HttpRequest.newBuilder(uri("/api/reportes/eventos-stock"))
+                .header("Accept", "text/event-stream")
+                .header("Last-Event-ID", "1")
+                .build();
+        HttpResponse<Stream<String>> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.ofLines());
+
+        try (Stream<String> lineas = respuesta.body()) {
+            assertThat(respuesta.statusCode()).isEqualTo(200);
+            Iterator<String> iterador = lineas.iterator();
+            CompletableFuture<String> evento = CompletableFuture.supplyAsync(() -> {
+                while (iterador.hasNext()) {
+                    String linea = iterador.next();
+                    if (linea.startsWith("event:")) {
+                        return linea.substring("event:".length()).trim();
+                    }
+                }
+                return null;
+            });
+
+            assertThat(evento.get(Duration.ofSeconds(10).toMillis(), TimeUnit.MILLISECONDS))
+                    .isEqualTo("resincronizar");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package um.prog2.trabajo.businessservice.controller;
+
+import org.junit.jupiter.api.Test;
+import um.prog2.trabajo.ServiciosIntegrados;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Un GET con el ETag vigente recibe 304 sin cuerpo, y después de una escritura el mismo ETag ya no coincide,
+ * tanto en {@code /data} (versiones en memoria) como en {@code /api} (hash del cuerpo sobre el salto
+ * condicional).
+ */
+class GetCondicionalesTest extends ServiciosIntegrados {
+
+    private static final long PRODUCTO = 4;
+
+    @Test
+    void elServicioDeDatosRespondeNoModificadoHastaQueCambiaLaFila() {
+        HttpResponse<String> primera = get("/data/productos/" + PRODUCTO);
+        String etag = primera.headers().firstValue("ETag").orElseThrow();
+        assertThat(etag).startsWith("W/\"");
+
+        HttpResponse<String> condicional = getCondicional("/data/productos/" + PRODUCTO, etag);
+        assertThat(condicional.statusCode()).isEqualTo(304);
+        assertThat(condicional.body()).isEmpty();
+
+        assertThat(enviar("POST", "/data/inventario/producto/" + PRODUCTO + "/incrementar?cantidad=1", null)
+                .statusCode()).isEqualTo(200);
+
+        HttpResponse<String> despues = getCondicional("/data/productos/" + PRODUCTO, etag);
+        assertThat(despues.statusCode()).isEqualTo(200);
+        assertThat(despues.headers().firstValue("ETag")).isPresent().get().isNotEqualTo(etag);
+        assertThat(json(despues).get("stock").asInt()).isEqualTo(json(primera).get("stock").asInt() + 1);
+    }
+
+    @Test
+    void laApiRespondeNoModificadoYNoDevuelveUnCuerpoViejo() {
+        HttpResponse<String> primera = get("/api/productos/" + PRODUCTO);
+        String etag = primera.headers().firstValue("ETag").orElseThrow();
+
+        // El salto Feign de esta consulta ya es condicional y se resuelve con el cuerpo guardado
+        assertThat(getCondicional("/api/productos/" + PRODUCTO, etag).statusCode()).isEqualTo(304);
+        assertThat(get("/api/productos/" + PRODUCTO).body()).isEqualTo(primera.body());
+
+        assertThat(enviar("POST", "/api/inventario/producto/" + PRODUCTO + "/stock/incrementar?cantidad=1", null)
+                .statusCode()).isEqualTo(200);
+
+        HttpResponse<String> despues = getCondicional("/api/productos/" + PRODUCTO, etag);
+        assertThat(despues.statusCode()).isEqualTo(200);
+        assertThat(json(despues).get("stock").asInt()).isEqualTo(json(primera).get("stock").asInt() + 1);
+    }
+
+    private HttpResponse<String> getCondicional(String ruta, String etag) {
+        return enviar(HttpRequest.newBuilder(uri(ruta)).header("If-None-Match", etag).build());
+    }
+}
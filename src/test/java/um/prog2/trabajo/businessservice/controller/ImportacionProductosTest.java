@@ -0,0 +1,71 @@
+package um.prog2.trabajo.businessservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.annotation.DirtiesContext;
+import tools.jackson.databind.JsonNode;
+import um.prog2.trabajo.ServiciosIntegrados;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La importación masiva informa el resultado de cada fila: las filas inválidas no descartan a las demás.
+ * Descarta el contexto al terminar: los productos importados cambiarían los listados que comparan las demás
+ * pruebas contra el servicio de datos.
+ */
+@DirtiesContext
+class ImportacionProductosTest extends ServiciosIntegrados {
+
+    private static final int FILAS = 1200;
+
+    @Test
+    void unaFilaInvalidaNoDescartaElLote() {
+        List<Map<String, Object>> filas = new ArrayList<>();
+        for (int i = 0; i < FILAS; i++) {
+            // Cada 100 filas un precio negativo (lo rechaza el negocio) y cada 150 una categoría inexistente
+            // (la rechaza el servicio de datos)
+            filas.add(Map.of("nombre", "Importado " + i, "descripcion", "d",
+                    "precio", i % 100 == 0 ? -1 : 5, "categoriaId", i % 150 == 0 ? 999 : 2,
+                    "stock", 3, "stockMinimo", 1));
+        }
+
+        HttpResponse<String> respuesta = enviar("POST", "/api/productos/batch", JSON.writeValueAsString(filas));
+
+        assertThat(respuesta.statusCode()).isEqualTo(200);
+        JsonNode resultado = json(respuesta);
+        int fallidas = 0;
+        for (int i = 0; i < FILAS; i++) {
+            JsonNode fila = resultado.get("filas").get(i);
+            boolean invalida = i % 100 == 0 || i % 150 == 0;
+            fallidas += invalida ? 1 : 0;
+            assertThat(fila.get("indice").asInt()).isEqualTo(i);
+            assertThat(fila.get("exito").asBoolean()).as("fila %d", i).isEqualTo(!invalida);
+            assertThat(fila.get("error").isNull()).as("fila %d", i).isEqualTo(!invalida);
+        }
+        assertThat(resultado.get("total").asInt()).isEqualTo(FILAS);
+        assertThat(resultado.get("fallidos").asInt()).isEqualTo(fallidas);
+        assertThat(resultado.get("exitosos").asInt()).isEqualTo(FILAS - fallidas);
+
+        long creada = resultado.get("filas").get(1).get("productoId").asLong();
+        JsonNode producto = json(get("/api/productos/" + creada));
+        assertThat(producto.get("nombre").asString()).isEqualTo("Importado 1");
+        assertThat(producto.get("stock").asInt()).isEqualTo(3);
+    }
+
+    @Test
+    void elServicioDeDatosRechazaLotesDemasiadoGrandes() {
+        List<Map<String, Object>> filas = new ArrayList<>();
+        for (int i = 0; i <= 5000; i++) {
+            filas.add(Map.of("nombre", "Excedente " + i));
+        }
+
+        HttpResponse<String> respuesta = enviar("POST", "/data/productos/batch", JSON.writeValueAsString(filas));
+
+        assertThat(respuesta.statusCode()).isEqualTo(400);
+        assertThat(json(get("/data/productos/buscar?nombre=Excedente&limit=1")).size()).isZero();
+    }
+}
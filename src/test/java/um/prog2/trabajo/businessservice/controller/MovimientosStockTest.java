@@ -0,0 +1,54 @@
+package um.prog2.trabajo.businessservice.controller;
+
+import org.junit.jupiter.api.Test;
+import um.prog2.trabajo.ServiciosIntegrados;
+
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Los movimientos de stock no pisan escrituras concurrentes: el descuento es un UPDATE condicional y la
+ * cantidad absoluta viaja con la versión leída.
+ */
+class MovimientosStockTest extends ServiciosIntegrados {
+
+    private static final long PRODUCTO = 7;
+
+    @Test
+    void unDescuentoMayorAlStockEsUnConflictoYNoModificaNada() {
+        int stock = stock();
+
+        HttpResponse<String> respuesta = enviar("POST",
+                "/api/inventario/producto/" + PRODUCTO + "/stock/decrementar?cantidad=" + (stock + 1), null);
+
+        assertThat(respuesta.statusCode()).isEqualTo(409);
+        assertThat(stock()).isEqualTo(stock);
+    }
+
+    @Test
+    void unaCantidadConVersionViejaEsUnConflicto() {
+        long id = json(get("/data/inventario/producto/" + PRODUCTO)).get("id").asLong();
+        long version = json(get("/data/inventario/producto/" + PRODUCTO)).get("version").asLong();
+        enviar("POST", "/data/inventario/producto/" + PRODUCTO + "/incrementar?cantidad=1", null);
+        int stock = stock();
+
+        HttpResponse<String> respuesta = enviar("PUT",
+                "/data/inventario/" + id + "/stock?cantidad=100&version=" + version, null);
+
+        assertThat(respuesta.statusCode()).isEqualTo(409);
+        assertThat(stock()).isEqualTo(stock);
+    }
+
+    @Test
+    void sinEscriturasConcurrentesLaCantidadSeActualiza() {
+        HttpResponse<String> respuesta = enviar("PUT", "/api/inventario/producto/" + PRODUCTO + "/stock?cantidad=40", null);
+
+        assertThat(respuesta.statusCode()).isEqualTo(200);
+        assertThat(stock()).isEqualTo(40);
+    }
+
+    private int stock() {
+        return json(get("/data/inventario/producto/" + PRODUCTO)).get("cantidad").asInt();
+    }
+}
@@ -0,0 +1,60 @@
+package um.prog2.trabajo.businessservice.controller;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import tools.jackson.databind.JsonNode;
+import um.prog2.trabajo.ServiciosIntegrados;
+
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recorre los listados del servicio de negocio página por página siguiendo el cursor.
+ */
+class PaginacionKeysetTest extends ServiciosIntegrados {
+
+    private static final int LIMITE = 2;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"productos", "categorias", "inventario"})
+    void elCursorRecorreTodasLasFilasSinRepetirHastaLaUltimaPagina(String listado) {
+        List<Long> esperados = ids(json(get("/data/" + listado + "?limit=500")).get("contenido"));
+
+        List<Long> recorridos = new ArrayList<>();
+        String cursor = null;
+        JsonNode pagina;
+        do {
+            String ruta = "/api/" + listado + "?limit=" + LIMITE
+                    + (cursor != null ? "&after=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8) : "");
+            HttpResponse<String> respuesta = get(ruta);
+            assertThat(respuesta.statusCode()).as("GET %s", ruta).isEqualTo(200);
+            pagina = json(respuesta);
+            assertThat(pagina.get("contenido").size()).isBetween(1, LIMITE);
+            recorridos.addAll(ids(pagina.get("contenido")));
+            cursor = pagina.get("siguienteCursor").isNull() ? null : pagina.get("siguienteCursor").asString();
+        } while (pagina.get("hayMas").asBoolean());
+
+        assertThat(cursor).as("la última página no tiene cursor").isNull();
+        assertThat(recorridos).isSortedAccordingTo(Long::compare).containsExactlyElementsOf(esperados);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"productos", "categorias", "inventario"})
+    void unCursorAlteradoEsUnErrorDeValidacion(String listado) {
+        HttpResponse<String> respuesta = get("/api/" + listado + "?limit=" + LIMITE + "&after=no-es-un-cursor");
+
+        assertThat(respuesta.statusCode()).isEqualTo(400);
+        assertThat(json(respuesta).get("message").asString()).isEqualTo("El cursor de la página no es válido");
+    }
+
+    private static List<Long> ids(JsonNode filas) {
+        List<Long> ids = new ArrayList<>();
+        filas.forEach(fila -> ids.add(fila.get("id").asLong()));
+        return ids;
+    }
+}
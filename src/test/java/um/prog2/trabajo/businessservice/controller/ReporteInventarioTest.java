@@ -0,0 +1,91 @@
+package um.prog2.trabajo.businessservice.controller;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import um.prog2.trabajo.ServiciosIntegrados;
+
+import java.math.BigDecimal;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La valuación que arma la consulta agregada coincide con lo que se obtiene sumando los listados fila por fila,
+ * y los reportes responden con la última valuación tomada aunque el stock haya cambiado después.
+ */
+class ReporteInventarioTest extends ServiciosIntegrados {
+
+    @Test
+    void elReporteCoincideConLosListados() {
+        assertThat(enviar("POST", "/api/inventario/producto/8/stock/decrementar?cantidad=1", null).statusCode())
+                .isEqualTo(200);
+        assertThat(enviar("POST", "/data/inventario/valuaciones", null).statusCode()).isEqualTo(201);
+
+        int conInventario = 0;
+        int stockBajo = 0;
+        int sinStock = 0;
+        BigDecimal valor = BigDecimal.ZERO;
+        for (JsonNode producto : json(get("/data/productos?limit=500")).get("contenido")) {
+            if (producto.get("stock").isNull()) {
+                continue;
+            }
+            int stock = producto.get("stock").asInt();
+            conInventario++;
+            stockBajo += stock <= producto.get("stockMinimo").asInt() ? 1 : 0;
+            sinStock += stock == 0 ? 1 : 0;
+            valor = valor.add(producto.get("precio").decimalValue().multiply(BigDecimal.valueOf(stock)));
+        }
+
+        HttpResponse<String> respuesta = get("/api/reportes/inventario-completo");
+        assertThat(respuesta.statusCode()).isEqualTo(200);
+        JsonNode reporte = json(respuesta);
+        assertThat(reporte.get("totalProductos").asInt()).isEqualTo(conInventario);
+        assertThat(reporte.get("productosConStockBajo").asInt()).isEqualTo(stockBajo);
+        assertThat(reporte.get("productosSinStock").asInt()).isEqualTo(sinStock);
+        assertThat(reporte.get("valorTotalInventario").decimalValue()).isEqualByComparingTo(valor);
+        assertThat(reporte.get("fechaValuacion").isNull()).isFalse();
+        assertThat(respuesta.headers().firstValue("Age")).hasValue(reporte.get("antiguedadSegundos").asText());
+        BigDecimal valorCategorias = BigDecimal.ZERO;
+        for (JsonNode categoria : reporte.get("categorias")) {
+            valorCategorias = valorCategorias.add(categoria.get("valorTotalInventario").decimalValue());
+        }
+        assertThat(valorCategorias).isEqualByComparingTo(valor);
+
+        HttpResponse<String> valorInventario = get("/api/reportes/valor-inventario");
+        assertThat(new BigDecimal(valorInventario.body())).isEqualByComparingTo(valor);
+        assertThat(valorInventario.headers().firstValue("Age")).isPresent();
+    }
+
+    @Test
+    void losReportesUsanLaUltimaValuacionYElHistorialMuestraLaEvolucion() {
+        String desde = LocalDateTime.now().toString();
+        JsonNode producto = json(get("/data/productos/9"));
+        long categoriaId = producto.get("categoriaId").asLong();
+        BigDecimal aumento = producto.get("precio").decimalValue().multiply(BigDecimal.valueOf(3));
+
+        BigDecimal antes = json(enviar("POST", "/data/inventario/valuaciones", null)).get("valorTotal").decimalValue();
+        assertThat(enviar("POST", "/api/inventario/producto/9/stock/incrementar?cantidad=3", null).statusCode())
+                .isEqualTo(200);
+        // Hasta la próxima valuación el reporte sigue mostrando la anterior
+        assertThat(json(get("/api/reportes/inventario-completo")).get("valorTotalInventario").decimalValue())
+                .isEqualByComparingTo(antes);
+
+        assertThat(enviar("POST", "/data/inventario/valuaciones", null).statusCode()).isEqualTo(201);
+        assertThat(new BigDecimal(get("/api/reportes/valor-inventario").body()))
+                .isEqualByComparingTo(antes.add(aumento));
+
+        JsonNode historial = json(get("/api/reportes/valor-inventario/historial?desde=" + desde));
+        assertThat(historial).hasSize(2);
+        assertThat(historial.get(0).get("valorTotalInventario").decimalValue()).isEqualByComparingTo(antes);
+        assertThat(historial.get(1).get("valorTotalInventario").decimalValue())
+                .isEqualByComparingTo(antes.add(aumento));
+
+        JsonNode historialCategoria = json(get("/api/reportes/valor-inventario/historial?desde=" + desde
+                + "&categoriaId=" + categoriaId));
+        assertThat(historialCategoria).hasSize(2);
+        assertThat(historialCategoria.get(1).get("valorTotalInventario").decimalValue()
+                .subtract(historialCategoria.get(0).get("valorTotalInventario").decimalValue()))
+                .isEqualByComparingTo(aumento);
+    }
+}
@@ -0,0 +1,192 @@
+package um.prog2.trabajo.businessservice.service;
+
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import um.prog2.trabajo.businessservice.client.CacheCategorias;
+import um.prog2.trabajo.businessservice.client.DataServiceClient;
+import um.prog2.trabajo.businessservice.client.LlamadasParalelas;
+import um.prog2.trabajo.businessservice.dto.CategoriaRequest;
+import um.prog2.trabajo.businessservice.exception.CategoriaNoEncontradaException;
+import um.prog2.trabajo.dataservice.dto.CategoriaVista;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+import um.prog2.trabajo.dataservice.entity.Categoria;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Las categorías se resuelven una vez y después salen de {@link CacheCategorias}; los fallos simultáneos de
+ * una clave comparten una consulta, los 404 no se guardan y actualizar o eliminar una categoría la descarta
+ * por ID y por nombre. Los productos sin stock mínimo se listan sin marca de stock bajo.
+ */
+class CategoriaBusinessServiceTest {
+
+    private final DataServiceClient dataServiceClient = mock(DataServiceClient.class);
+    private final LlamadasParalelas llamadasParalelas = mock(LlamadasParalelas.class);
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    private final CacheCategorias cacheCategorias = new CacheCategorias(dataServiceClient, 100, 60, registro);
+    private final CategoriaBusinessService servicio = new CategoriaBusinessService(
+            dataServiceClient, llamadasParalelas, cacheCategorias);
+    private final ExecutorService hilos = Executors.newFixedThreadPool(8);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void combinarEnElMismoHilo() {
+        when(llamadasParalelas.combinar(any(Supplier.class), any(Supplier.class), any(BiFunction.class)))
+                .thenAnswer(invocacion -> invocacion.<BiFunction<Object, Object, Object>>getArgument(2).apply(
+                        invocacion.<Supplier<?>>getArgument(0).get(),
+                        invocacion.<Supplier<?>>getArgument(1).get()));
+        when(dataServiceClient.obtenerProductosDeCategoria(1L)).thenReturn(List.of(producto()));
+        when(dataServiceClient.obtenerProductosPorCategoria("Electrónica")).thenReturn(List.of(producto()));
+    }
+
+    @AfterEach
+    void detener() {
+        hilos.shutdownNow();
+    }
+
+    @Test
+    void laCategoriaSeConsultaUnaSolaVez() {
+        when(dataServiceClient.obtenerCategoriaPorId(1L)).thenReturn(categoria("Electrónica"));
+
+        servicio.obtenerCategoriaPorId(1L);
+        servicio.obtenerProductosPorCategoria(1L);
+        assertThat(servicio.obtenerCategoriaPorId(1L).getCantidadProductos()).isEqualTo(1);
+
+        verify(dataServiceClient, times(1)).obtenerCategoriaPorId(1L);
+        verify(dataServiceClient, times(3)).obtenerProductosDeCategoria(1L);
+        assertThat(registro.get("cache.tasa.aciertos").tag("cache", "categorias.por-id").gauge().value())
+                .isEqualTo(2.0 / 3);
+        assertThat(registro.get("cache.load").tag("cache", "categorias.por-id").tag("result", "success")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(registro.get("cache.load.duration").tag("cache", "categorias.por-id").timeGauge()
+                .value(TimeUnit.NANOSECONDS)).isPositive();
+    }
+
+    @Test
+    void losFallosSimultaneosCompartenUnaConsulta() throws Exception {
+        CountDownLatch consultando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(dataServiceClient.obtenerCategoriaPorId(1L)).thenAnswer(invocacion -> {
+            consultando.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return categoria("Electrónica");
+        });
+
+        List<Future<CategoriaVista>> lecturas = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            lecturas.add(hilos.submit(() -> cacheCategorias.porId(1L)));
+        }
+        assertThat(consultando.await(5, TimeUnit.SECONDS)).isTrue();
+        // Da tiempo a que las demás lecturas lleguen a la clave que se está cargando
+        Thread.sleep(100);
+        liberar.countDown();
+
+        for (Future<CategoriaVista> lectura : lecturas) {
+            assertThat(lectura.get(5, TimeUnit.SECONDS).nombre()).isEqualTo("Electrónica");
+        }
+        verify(dataServiceClient, times(1)).obtenerCategoriaPorId(1L);
+    }
+
+    @Test
+    void unaCategoriaInexistenteNoQuedaGuardada() {
+        when(dataServiceClient.obtenerCategoriaPorId(1L))
+                .thenThrow(noEncontrada())
+                .thenReturn(categoria("Electrónica"));
+
+        assertThatThrownBy(() -> servicio.obtenerCategoriaPorId(1L))
+                .isInstanceOf(CategoriaNoEncontradaException.class);
+        assertThat(servicio.obtenerCategoriaPorId(1L).getNombre()).isEqualTo("Electrónica");
+    }
+
+    @Test
+    void actualizarLaDescartaPorIdYPorNombre() {
+        when(dataServiceClient.obtenerCategoriaPorId(1L))
+                .thenReturn(categoria("Electrónica"), categoria("Tecnología"));
+        when(dataServiceClient.obtenerCategoriaPorNombre("Electrónica"))
+                .thenReturn(categoria("Electrónica"))
+                .thenThrow(noEncontrada());
+        when(dataServiceClient.actualizarCategoria(any(Long.class), any(Categoria.class)))
+                .thenReturn(categoria("Tecnología"));
+        servicio.obtenerCategoriaPorId(1L);
+        servicio.obtenerCategoriaPorNombre("Electrónica");
+
+        servicio.actualizarCategoria(1L, new CategoriaRequest("Tecnología", "Renombrada"));
+
+        assertThat(servicio.obtenerCategoriaPorId(1L).getNombre()).isEqualTo("Tecnología");
+        assertThatThrownBy(() -> servicio.obtenerCategoriaPorNombre("Electrónica"))
+                .isInstanceOf(CategoriaNoEncontradaException.class);
+        verify(dataServiceClient, times(2)).obtenerCategoriaPorId(1L);
+        verify(dataServiceClient, times(2)).obtenerCategoriaPorNombre("Electrónica");
+    }
+
+    @Test
+    void eliminarLaDescarta() {
+        CategoriaVista vacia = new CategoriaVista(1L, "Electrónica", null, 0L);
+        // La lectura que se guarda, la verificación previa a eliminar y la lectura posterior
+        when(dataServiceClient.obtenerCategoriaPorId(1L))
+                .thenReturn(vacia, vacia)
+                .thenThrow(noEncontrada());
+        when(dataServiceClient.obtenerProductosDeCategoria(1L)).thenReturn(List.of());
+        servicio.obtenerCategoriaPorId(1L);
+
+        servicio.eliminarCategoria(1L);
+
+        assertThatThrownBy(() -> servicio.obtenerProductosPorCategoria(1L))
+                .isInstanceOf(CategoriaNoEncontradaException.class);
+    }
+
+    private static CategoriaVista categoria(String nombre) {
+        return new CategoriaVista(1L, nombre, "Descripción", 1L);
+    }
+
+    @Test
+    void unProductoSinStockMinimoNoEsStockBajo() {
+        ProductoVista sinMinimo = new ProductoVista(11L, "Mouse", null, new BigDecimal("20.00"), 1L, "Electrónica",
+                0, null);
+        when(dataServiceClient.obtenerCategoriaPorId(1L)).thenReturn(categoria("Electrónica"));
+        when(dataServiceClient.obtenerProductosDeCategoria(1L)).thenReturn(List.of(sinMinimo));
+
+        assertThat(servicio.obtenerProductosPorCategoria(1L)).singleElement()
+                .satisfies(producto -> assertThat(producto.getStockBajo()).isFalse());
+        assertThat(ProductoBusinessService.convertirAProductoDTO(sinMinimo).getStockBajo()).isFalse();
+    }
+
+    private static ProductoVista producto() {
+        return new ProductoVista(10L, "Notebook", null, new BigDecimal("1000.00"), 1L, "Electrónica", 5, 2);
+    }
+
+    private static FeignException noEncontrada() {
+        Request request = Request.create(Request.HttpMethod.GET, "http://datos/data/categorias/1",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        return FeignException.errorStatus("obtenerCategoriaPorId", Response.builder()
+                .status(404)
+                .reason("Not Found")
+                .request(request)
+                .headers(Map.of())
+                .build());
+    }
+}
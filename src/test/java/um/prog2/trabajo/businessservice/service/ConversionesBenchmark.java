@@ -0,0 +1,134 @@
+package um.prog2.trabajo.businessservice.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import um.prog2.trabajo.businessservice.dto.CategoriaDTO;
+import um.prog2.trabajo.businessservice.dto.InventarioDTO;
+import um.prog2.trabajo.businessservice.dto.ProductoDTO;
+import um.prog2.trabajo.dataservice.dto.CategoriaVista;
+import um.prog2.trabajo.dataservice.dto.InventarioVista;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: lo que hace el servicio de negocio con cada fila que recibe, con 1.000, 100.000 y 1.000.000 de filas
+ * sintéticas: las conversiones a DTO, la valorización del inventario como reducción de {@link BigDecimal}
+ * (precio × cantidad, como se calculaba antes de que el servicio de datos la sumara en SQL) y el JSON de las
+ * vistas que decodifica el cliente Feign y de los DTO que devuelve {@code /api}.
+ * Se ejecuta con {@code mvn test -Pbenchmark} a través de {@link ConversionesBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionesBenchmark {
+
+    // Productos por categoría en la conversión de categorías con sus productos
+    private static final int PRODUCTOS_POR_CATEGORIA = 100;
+    private static final TypeReference<List<ProductoVista>> TIPO_VISTAS = new TypeReference<>() {
+    };
+
+    @Param({"1000", "100000", "1000000"})
+    public int filas;
+
+    private final ObjectMapper mapper = JsonMapper.builder().build();
+    private List<ProductoVista> productos;
+    private List<InventarioVista> inventarios;
+    private List<CategoriaVista> categorias;
+    private List<ProductoDTO> productosDto;
+    private byte[] productosJson;
+
+    @Setup
+    public void iniciar() {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        int cantidadCategorias = Math.max(1, filas / PRODUCTOS_POR_CATEGORIA);
+        productos = new ArrayList<>(filas);
+        inventarios = new ArrayList<>(filas);
+        categorias = new ArrayList<>(cantidadCategorias);
+        for (long c = 1; c <= cantidadCategorias; c++) {
+            categorias.add(new CategoriaVista(c, "Categoría " + c, "Descripción de la categoría " + c,
+                    (long) PRODUCTOS_POR_CATEGORIA));
+        }
+        for (long id = 1; id <= filas; id++) {
+            long categoria = 1 + (id - 1) % cantidadCategorias;
+            int cantidad = random.nextInt(500);
+            int stockMinimo = 5 + random.nextInt(20);
+            String nombre = "Producto " + id + " modelo " + random.nextInt(1000);
+            productos.add(new ProductoVista(id, nombre, "Descripción del producto " + id,
+                    BigDecimal.valueOf(100 + random.nextInt(1_000_000), 2), categoria, "Categoría " + categoria,
+                    cantidad, stockMinimo));
+            inventarios.add(new InventarioVista(id, id, nombre, cantidad, stockMinimo,
+                    base.plusSeconds(random.nextInt(31_536_000)), (long) random.nextInt(10)));
+        }
+        productosDto = convertirProductos();
+        productosJson = mapper.writeValueAsBytes(productos);
+    }
+
+    @Benchmark
+    public List<ProductoDTO> convertirProductos() {
+        List<ProductoDTO> dtos = new ArrayList<>(productos.size());
+        for (ProductoVista producto : productos) {
+            dtos.add(ProductoBusinessService.convertirAProductoDTO(producto));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<InventarioDTO> convertirInventarios() {
+        List<InventarioDTO> dtos = new ArrayList<>(inventarios.size());
+        for (InventarioVista inventario : inventarios) {
+            dtos.add(InventarioBusinessService.convertirAInventarioDTO(inventario));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<CategoriaDTO> convertirCategoriasConProductos() {
+        List<CategoriaDTO> dtos = new ArrayList<>(categorias.size());
+        int desde = 0;
+        for (CategoriaVista categoria : categorias) {
+            int hasta = Math.min(productos.size(), desde + PRODUCTOS_POR_CATEGORIA);
+            dtos.add(CategoriaBusinessService.convertirACategoriaDTO(categoria, productos.subList(desde, hasta)));
+            desde = hasta;
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public BigDecimal valorizarInventario() {
+        return productos.stream()
+                .map(producto -> producto.precio().multiply(BigDecimal.valueOf(producto.stock())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public byte[] serializarProductosDto() {
+        return mapper.writeValueAsBytes(productosDto);
+    }
+
+    @Benchmark
+    public List<ProductoVista> deserializarProductosVista() {
+        return mapper.readValue(productosJson, TIPO_VISTAS);
+    }
+}
@@ -0,0 +1,54 @@
+package um.prog2.trabajo.businessservice.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lanza {@link ConversionesBenchmark} con JMH (en una JVM aparte), deja los resultados en
+ * {@code target/jmh/conversiones.json} para comparar entre ejecuciones e informa el costo por fila.
+ */
+@Tag("benchmark")
+class ConversionesBenchmarkTest {
+
+    private static final Path RESULTADOS = Path.of("target", "jmh", "conversiones.json");
+
+    @Test
+    void medirConversionesYValorizacion() throws RunnerException, IOException {
+        Files.createDirectories(RESULTADOS.getParent());
+        Collection<RunResult> resultados = new Runner(new OptionsBuilder()
+                .include(ConversionesBenchmark.class.getName())
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULTADOS.toString())
+                .build()).run();
+
+        // Benchmark -> filas -> nanosegundos por fila
+        Map<String, Map<Integer, Double>> porFila = new TreeMap<>();
+        for (RunResult resultado : resultados) {
+            int filas = Integer.parseInt(resultado.getParams().getParam("filas"));
+            porFila.computeIfAbsent(resultado.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                            benchmark -> new TreeMap<>())
+                    .put(filas, resultado.getPrimaryResult().getScore() * 1_000_000 / filas);
+        }
+
+        System.out.printf("  %-32s %14s %14s %14s%n", "ns por fila", "1.000", "100.000", "1.000.000");
+        porFila.forEach((benchmark, filas) -> System.out.printf("  %-32s %14.1f %14.1f %14.1f%n", benchmark,
+                filas.get(1_000), filas.get(100_000), filas.get(1_000_000)));
+
+        assertThat(porFila).hasSize(6).allSatisfy((benchmark, filas) -> assertThat(filas).hasSize(3));
+        assertThat(Files.readString(RESULTADOS)).contains("convertirProductos", "\"filas\" : \"1000000\"");
+    }
+}
@@ -0,0 +1,79 @@
+package um.prog2.trabajo.businessservice.service;
+
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.Test;
+import um.prog2.trabajo.businessservice.client.ColapsadorSolicitudes;
+import um.prog2.trabajo.businessservice.client.DataServiceClient;
+import um.prog2.trabajo.businessservice.exception.ConflictoConcurrenciaException;
+import um.prog2.trabajo.dataservice.dto.InventarioVista;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * La cantidad absoluta se envía con la versión leída, y si otro movimiento la cambió en el medio el
+ * conflicto del servicio de datos llega al cliente como tal y no como una falla de comunicación. Un
+ * inventario sin stock mínimo nunca se marca como stock bajo.
+ */
+class InventarioBusinessServiceTest {
+
+    private final DataServiceClient dataServiceClient = mock(DataServiceClient.class);
+
+    @SuppressWarnings("unchecked")
+    private final InventarioBusinessService servicio = new InventarioBusinessService(
+            dataServiceClient, mock(ColapsadorSolicitudes.class));
+
+    @Test
+    void enviaLaVersionLeida() {
+        when(dataServiceClient.obtenerInventarioPorProductoId(7L)).thenReturn(inventario(12, 3L));
+        when(dataServiceClient.actualizarStock(70L, 20, 3L)).thenReturn(inventario(20, 4L));
+
+        assertThat(servicio.actualizarStock(7L, 20).getCantidad()).isEqualTo(20);
+    }
+
+    @Test
+    void unaEscrituraIntermediaEsUnConflicto() {
+        when(dataServiceClient.obtenerInventarioPorProductoId(7L)).thenReturn(inventario(12, 3L));
+        when(dataServiceClient.actualizarStock(70L, 20, 3L)).thenThrow(conflicto());
+
+        assertThatThrownBy(() -> servicio.actualizarStock(7L, 20))
+                .isInstanceOf(ConflictoConcurrenciaException.class);
+    }
+
+    @Test
+    void unInventarioSinStockMinimoNoEsStockBajo() {
+        when(dataServiceClient.obtenerProductosSinStock())
+                .thenReturn(List.of(new ProductoVista(7L, "Producto", null, BigDecimal.TEN, 1L, "Categoría", 0, null)));
+
+        assertThat(InventarioBusinessService.convertirAInventarioDTO(
+                new InventarioVista(70L, 7L, "Producto", 0, null, LocalDateTime.now(), 1L)).getStockBajo()).isFalse();
+        assertThat(servicio.obtenerProductosSinStock()).singleElement()
+                .satisfies(producto -> assertThat(producto.getStockBajo()).isFalse());
+    }
+
+    private static InventarioVista inventario(int cantidad, long version) {
+        return new InventarioVista(70L, 7L, "Producto", cantidad, 5, LocalDateTime.now(), version);
+    }
+
+    private static FeignException conflicto() {
+        Request request = Request.create(Request.HttpMethod.PUT, "http://datos/data/inventario/70/stock",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        return FeignException.errorStatus("actualizarStock", Response.builder()
+                .status(409)
+                .reason("Conflict")
+                .request(request)
+                .headers(Map.of())
+                .build());
+    }
+}
@@ -0,0 +1,106 @@
+package um.prog2.trabajo.dataservice.busqueda;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import um.prog2.trabajo.dataservice.repository.ProductoRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latencia de la búsqueda por texto con el índice de trigramas frente al {@code LIKE} sobre H2, con
+ * 10^5 y 10^6 productos. Se ejecuta con {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class IndiceBusquedaProductosBenchmarkTest {
+
+    private static final int[] TAMANOS = {100_000, 1_000_000};
+    private static final long PRIMER_ID = 1_000_000L;
+    private static final int LIMITE = 50;
+    private static final int RONDAS = 20;
+
+    private static final String[] TIPOS = {"Teclado", "Mouse", "Monitor", "Auriculares", "Cable", "Cargador",
+            "Notebook", "Parlante", "Camiseta", "Zapatillas", "Mochila", "Cafetera", "Licuadora", "Lámpara"};
+    private static final String[] MARCAS = {"Logitech", "Samsung", "Dell", "Lenovo", "Nike", "Adidas",
+            "Philips", "Sony", "Xiaomi", "Razer", "Genius", "Atma"};
+    private static final String[] ATRIBUTOS = {"inalámbrico", "mecánico", "deportiva", "portátil", "USB C",
+            "RGB", "ergonómico", "compacto", "profesional", "de algodón", "de acero", "con Bluetooth"};
+    private static final String[] CONSULTAS = {"teclado", "mouse logitech", "inalambrico", "sony 1234", "zzqx"};
+
+    @Autowired
+    private IndiceBusquedaProductos indiceBusqueda;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compararIndiceConLike() {
+        Random random = new Random(42);
+        int cargados = 0;
+        for (int tamano : TAMANOS) {
+            insertarProductos(cargados, tamano, random);
+            cargados = tamano;
+            indiceBusqueda.reconstruir();
+
+            System.out.printf("%,d productos%n", tamano);
+            for (String consulta : CONSULTAS) {
+                double like = medir(() -> productoRepository.findVistasByNombre(consulta, Limit.of(LIMITE)).size());
+                double indice = medir(() -> indiceBusqueda.buscar(consulta, LIMITE).size());
+                int encontrados = indiceBusqueda.buscar(consulta, LIMITE).size();
+                System.out.printf("  %-16s LIKE %9.3f ms   índice %7.3f ms   (%d resultados)%n",
+                        consulta, like, indice, encontrados);
+                // Con menos resultados que el límite el LIKE recorre la tabla entera; con términos muy comunes
+                // corta en las primeras filas por ID, mientras que el índice ordena todas las coincidencias
+                if (encontrados < LIMITE) {
+                    assertThat(indice).isLessThan(like);
+                }
+            }
+        }
+    }
+
+    private double medir(IntSupplier busqueda) {
+        for (int i = 0; i < 10; i++) {
+            busqueda.getAsInt();
+        }
+        long comienzo = System.nanoTime();
+        for (int i = 0; i < RONDAS; i++) {
+            busqueda.getAsInt();
+        }
+        return (System.nanoTime() - comienzo) / 1e6 / RONDAS;
+    }
+
+    private void insertarProductos(int desde, int hasta, Random random) {
+        String sql = "INSERT INTO productos (id, nombre, descripcion, precio, categoria_id) VALUES (?, ?, ?, ?, 1)";
+        List<Object[]> filas = new ArrayList<>(10_000);
+        for (int i = desde; i < hasta; i++) {
+            String tipo = TIPOS[random.nextInt(TIPOS.length)];
+            String marca = MARCAS[random.nextInt(MARCAS.length)];
+            String nombre = tipo + " " + marca + " " + random.nextInt(10_000);
+            String descripcion = tipo + " " + ATRIBUTOS[random.nextInt(ATRIBUTOS.length)] + " "
+                    + ATRIBUTOS[random.nextInt(ATRIBUTOS.length)] + " marca " + marca;
+            filas.add(new Object[]{PRIMER_ID + i, nombre, descripcion, new BigDecimal("10.00")});
+            if (filas.size() == 10_000) {
+                jdbcTemplate.batchUpdate(sql, filas);
+                filas.clear();
+            }
+        }
+        if (!filas.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, filas);
+        }
+    }
+}
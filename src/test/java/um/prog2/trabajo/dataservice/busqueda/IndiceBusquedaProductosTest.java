@@ -0,0 +1,108 @@
+package um.prog2.trabajo.dataservice.busqueda;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import um.prog2.trabajo.dataservice.dto.CursorPrecio;
+import um.prog2.trabajo.dataservice.entity.Producto;
+import um.prog2.trabajo.dataservice.repository.ProductoRepository;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Búsqueda por rango de precio: los extremos en pesos se redondean hacia adentro del rango, el cursor
+ * continúa después de la última clave entregada aunque los precios cambien entre páginas, y las escrituras
+ * dentro de una transacción se ven recién después del commit.
+ */
+class IndiceBusquedaProductosTest {
+
+    private final IndiceBusquedaProductos indice = new IndiceBusquedaProductos(mock(ProductoRepository.class), true);
+
+    @AfterEach
+    void limpiarSincronizacion() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void incluyeLosExtremosDelRango() {
+        indice.indexar(producto(1L, "10.00"));
+        indice.indexar(producto(2L, "10.01"));
+        indice.indexar(producto(3L, "19.99"));
+        indice.indexar(producto(4L, "20.00"));
+
+        assertThat(buscar("10.00", "20.00", null, 10)).containsExactly(1L, 2L, 3L, 4L);
+        // Un mínimo o máximo con más decimales no incluye precios fuera del rango pedido
+        assertThat(buscar("10.001", "19.999", null, 10)).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void unCambioDePrecioAtraviesaElCursor() {
+        indice.indexar(producto(1L, "10.00"));
+        indice.indexar(producto(2L, "20.00"));
+        indice.indexar(producto(3L, "30.00"));
+        indice.indexar(producto(4L, "40.00"));
+
+        long[] primera = buscar("0", "100", null, 2);
+        assertThat(primera).containsExactly(1L, 2L);
+        CursorPrecio cursor = new CursorPrecio(new BigDecimal("20.00"), 2L);
+
+        // El 1, ya entregado, pasa a estar después del cursor; el 3, todavía no entregado, queda antes
+        indice.indexar(producto(1L, "35.00"));
+        indice.indexar(producto(3L, "15.00"));
+
+        assertThat(buscar("0", "100", cursor, 10)).containsExactly(1L, 4L);
+        assertThat(buscar("0", "100", null, 10)).containsExactly(3L, 2L, 1L, 4L);
+    }
+
+    @Test
+    void lasEscriturasSeVenDespuesDelCommit() {
+        indice.indexar(producto(1L, "10.00"));
+        indice.indexar(producto(2L, "20.00"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        indice.indexar(producto(1L, "25.00"));
+        indice.quitar(2L);
+        indice.indexar(producto(3L, "15.00"));
+        assertThat(buscar("0", "100", null, 10)).containsExactly(1L, 2L);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+        assertThat(buscar("0", "100", null, 10)).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void unaTransaccionRevertidaNoCambiaElIndice() {
+        indice.indexar(producto(1L, "10.00"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        indice.indexar(producto(1L, "50.00"));
+        indice.quitar(1L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(buscar("10.00", "10.00", null, 10)).containsExactly(1L);
+    }
+
+    private long[] buscar(String min, String max, CursorPrecio despuesDe, int limite) {
+        long[] destino = new long[limite];
+        int cantidad = indice.buscarPorPrecio(new BigDecimal(min), new BigDecimal(max),
+                despuesDe != null ? despuesDe : CursorPrecio.decodificar(null), destino);
+        return Arrays.copyOf(destino, cantidad);
+    }
+
+    private static Producto producto(Long id, String precio) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre("Producto " + id);
+        producto.setPrecio(new BigDecimal(precio));
+        return producto;
+    }
+}
@@ -0,0 +1,61 @@
+package um.prog2.trabajo.dataservice.busqueda;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceTrigramasTest {
+
+    @Test
+    void ignoraMayusculasYAcentos() {
+        IndiceTrigramas indice = new IndiceTrigramas();
+        indice.poner(1L, "Teclado Mecánico", "Teclado mecánico RGB para gaming");
+        indice.poner(2L, "Café de Colombia", "Grano tostado");
+
+        assertThat(indice.buscar("MECANICO", 10)).containsExactly(1L);
+        assertThat(indice.buscar("cafe", 10)).containsExactly(2L);
+        assertThat(indice.buscar("Café", 10)).containsExactly(2L);
+    }
+
+    @Test
+    void ordenaPorRelevanciaYRespetaElLimite() {
+        IndiceTrigramas indice = new IndiceTrigramas();
+        indice.poner(1L, "Funda para mouse", "Accesorio");
+        indice.poner(2L, "Mouse Logitech", "Mouse inalámbrico");
+        indice.poner(3L, "Alfombrilla", "Ideal para el mouse");
+        indice.poner(4L, "Mousepad XL", "Superficie amplia");
+
+        assertThat(indice.buscar("mouse", 10)).containsExactly(4L, 2L, 1L, 3L);
+        assertThat(indice.buscar("mouse", 2)).containsExactly(4L, 2L);
+        assertThat(indice.buscar("mouse logitech", 10)).containsExactly(2L);
+    }
+
+    @Test
+    void reflejaActualizacionesYBajas() {
+        IndiceTrigramas indice = new IndiceTrigramas();
+        indice.poner(1L, "Laptop Dell", "XPS 15");
+        indice.poner(2L, "Laptop Lenovo", "ThinkPad");
+
+        indice.poner(1L, "Notebook Dell", "XPS 15");
+        indice.quitar(2L);
+
+        assertThat(indice.buscar("laptop", 10)).isEmpty();
+        assertThat(indice.buscar("notebook", 10)).containsExactly(1L);
+        assertThat(indice.tamano()).isEqualTo(1);
+
+        // La posición liberada se reutiliza sin arrastrar trigramas del producto anterior
+        indice.poner(3L, "Monitor", "Pantalla");
+        assertThat(indice.buscar("lenovo", 10)).isEmpty();
+        assertThat(indice.buscar("monitor", 10)).containsExactly(3L);
+    }
+
+    @Test
+    void terminosCortosRecorrenTodosLosProductos() {
+        IndiceTrigramas indice = new IndiceTrigramas();
+        indice.poner(1L, "Cable HDMI", "2 metros");
+        indice.poner(2L, "Cable USB C", "1 metro");
+
+        assertThat(indice.buscar("c", 10)).containsExactly(1L, 2L);
+        assertThat(indice.buscar("usb c", 10)).containsExactly(2L);
+    }
+}
@@ -0,0 +1,118 @@
+package um.prog2.trabajo.dataservice.busqueda;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreciosOrdenadosTest {
+
+    @Test
+    void incluyeAmbosExtremosYOrdenaPorPrecioEId() {
+        PreciosOrdenados precios = new PreciosOrdenados();
+        precios.poner(1L, 1999);
+        precios.poner(5L, 2000);
+        precios.poner(3L, 2000);
+        precios.poner(2L, 2500);
+        precios.poner(4L, 3000);
+        precios.poner(6L, 3001);
+
+        assertThat(buscar(precios, 2000, 3000, 10)).containsExactly(3L, 5L, 2L, 4L);
+        assertThat(buscar(precios, 2000, 2000, 10)).containsExactly(3L, 5L);
+        assertThat(buscar(precios, 0, 1999, 10)).containsExactly(1L);
+        assertThat(buscar(precios, 3001, Long.MAX_VALUE, 10)).containsExactly(6L);
+        assertThat(buscar(precios, 2001, 2499, 10)).isEmpty();
+        assertThat(buscar(precios, 3002, 9999, 10)).isEmpty();
+        assertThat(buscar(precios, 3000, 2000, 10)).isEmpty();
+        assertThat(buscar(precios, 2000, 3000, 3)).containsExactly(3L, 5L, 2L);
+        assertThat(buscar(new PreciosOrdenados(), 0, Long.MAX_VALUE, 10)).isEmpty();
+    }
+
+    @Test
+    void continuaDespuesDelCursor() {
+        PreciosOrdenados precios = new PreciosOrdenados();
+        precios.poner(1L, 1000);
+        precios.poner(2L, 2000);
+        precios.poner(3L, 2000);
+        precios.poner(4L, 3000);
+
+        assertThat(buscar(precios, 0, 9999, 2000, 2L, 10)).containsExactly(3L, 4L);
+        assertThat(buscar(precios, 0, 9999, 2000, 3L, 10)).containsExactly(4L);
+        assertThat(buscar(precios, 0, 9999, 3000, 4L, 10)).isEmpty();
+        // Una clave que ya no está en el índice (el producto cambió o se borró) sigue siendo una cota válida
+        assertThat(buscar(precios, 0, 9999, 1500, 9L, 10)).containsExactly(2L, 3L, 4L);
+        assertThat(buscar(precios, 0, 9999, 2000, 0L, 10)).containsExactly(2L, 3L, 4L);
+        // Un cursor por debajo del mínimo no adelanta el comienzo del rango
+        assertThat(buscar(precios, 2000, 9999, 500, 1L, 10)).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    void reflejaCambiosDePrecioYBajas() {
+        PreciosOrdenados precios = new PreciosOrdenados();
+        precios.poner(1L, 1000);
+        precios.poner(2L, 2000);
+        precios.poner(3L, 3000);
+
+        precios.poner(1L, 2500);
+        precios.poner(2L, 2000);
+        precios.quitar(3L);
+        precios.quitar(99L);
+
+        assertThat(precios.tamano()).isEqualTo(2);
+        assertThat(buscar(precios, 0, 9999, 10)).containsExactly(2L, 1L);
+        assertThat(buscar(precios, 0, 1999, 10)).isEmpty();
+    }
+
+    @Test
+    void coincideConUnRecorridoCompletoAlCrecer() {
+        Random random = new Random(42);
+        int cantidad = 5000;
+        long[] ids = new long[cantidad];
+        long[] centavos = new long[cantidad];
+        Map<Long, Long> esperado = new HashMap<>();
+        for (int i = 0; i < cantidad; i++) {
+            ids[i] = i + 1;
+            centavos[i] = random.nextInt(500) * 100L;
+            esperado.put(ids[i], centavos[i]);
+        }
+        PreciosOrdenados insertados = new PreciosOrdenados();
+        for (int i = 0; i < cantidad; i++) {
+            insertados.poner(ids[i], centavos[i]);
+        }
+        PreciosOrdenados ordenados = PreciosOrdenados.ordenar(ids, centavos, cantidad);
+
+        for (int prueba = 0; prueba < 50; prueba++) {
+            long min = random.nextInt(500) * 100L;
+            long max = min + random.nextInt(5000);
+            long[] enRango = esperado.entrySet().stream()
+                    .filter(entrada -> entrada.getValue() >= min && entrada.getValue() <= max)
+                    .sorted(Map.Entry.<Long, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                    .mapToLong(Map.Entry::getKey)
+                    .toArray();
+            assertThat(buscar(insertados, min, max, cantidad)).containsExactly(enRango);
+            assertThat(buscar(ordenados, min, max, cantidad)).containsExactly(enRango);
+        }
+        long[] todos = LongStream.rangeClosed(1, cantidad).boxed()
+                .sorted(Comparator.<Long, Long>comparing(esperado::get).thenComparingLong(Long::longValue))
+                .mapToLong(Long::longValue)
+                .toArray();
+        assertThat(buscar(ordenados, Long.MIN_VALUE + 1, Long.MAX_VALUE - 1, cantidad)).containsExactly(todos);
+    }
+
+    private static long[] buscar(PreciosOrdenados precios, long min, long max, int limite) {
+        return buscar(precios, min, max, Long.MIN_VALUE, 0L, limite);
+    }
+
+    private static long[] buscar(PreciosOrdenados precios, long min, long max, long despuesDeCentavos,
+                                 long despuesDeId, int limite) {
+        long[] destino = new long[limite];
+        int cantidad = precios.buscar(min, max, despuesDeCentavos, despuesDeId, destino);
+        return Arrays.copyOf(destino, cantidad);
+    }
+}
@@ -0,0 +1,121 @@
+package um.prog2.trabajo.dataservice.busqueda;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import um.prog2.trabajo.TrabajoPractico6Application;
+import um.prog2.trabajo.dataservice.dto.CursorPrecio;
+import um.prog2.trabajo.dataservice.dto.PaginaKeyset;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+import um.prog2.trabajo.dataservice.repository.ProductoRepository;
+import um.prog2.trabajo.dataservice.service.ProductoService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: una página de 50 productos por rango de precio con la consulta JPQL (recorre y ordena la tabla)
+ * frente al índice de precios, sólo los IDs y con la lectura de las vistas que hace el servicio.
+ * Se ejecuta con {@code mvn test -Pbenchmark} a través de {@link RangoPrecioBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RangoPrecioBenchmark {
+
+    private static final int PRODUCTOS = 100_000;
+    private static final long PRIMER_ID = 1_000_000L;
+    private static final int LIMITE = 50;
+    // Rangos de 10 pesos que se van alternando: H2 reutiliza el resultado de una consulta repetida
+    private static final int RANGOS = 64;
+
+    private ConfigurableApplicationContext contexto;
+    private ProductoRepository productoRepository;
+    private ProductoService productoService;
+    private IndiceBusquedaProductos indiceBusqueda;
+    private final long[] destino = new long[LIMITE + 1];
+    private final BigDecimal[] minimos = new BigDecimal[RANGOS];
+    private final BigDecimal[] maximos = new BigDecimal[RANGOS];
+    private int siguiente;
+
+    @Setup
+    public void iniciar() {
+        contexto = new SpringApplicationBuilder(TrabajoPractico6Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.docker.compose.enabled=false",
+                        "data.reservas.journal=./target/reservas-stock-jmh.journal")
+                .run();
+        productoRepository = contexto.getBean(ProductoRepository.class);
+        productoService = contexto.getBean(ProductoService.class);
+        indiceBusqueda = contexto.getBean(IndiceBusquedaProductos.class);
+        insertarProductos(contexto.getBean(JdbcTemplate.class));
+        indiceBusqueda.reconstruir();
+        for (int i = 0; i < RANGOS; i++) {
+            minimos[i] = BigDecimal.valueOf(10 + i * 15L);
+            maximos[i] = minimos[i].add(BigDecimal.TEN);
+        }
+    }
+
+    @TearDown
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public List<ProductoVista> consultaJpql() {
+        int rango = siguienteRango();
+        return productoRepository.findVistasByPrecioDespuesDe(minimos[rango], maximos[rango], minimos[rango], 0L,
+                Limit.of(LIMITE + 1));
+    }
+
+    @Benchmark
+    public int indiceSoloIds() {
+        int rango = siguienteRango();
+        return indiceBusqueda.buscarPorPrecio(minimos[rango], maximos[rango], CursorPrecio.decodificar(null), destino);
+    }
+
+    @Benchmark
+    public PaginaKeyset<ProductoVista> servicioConIndice() {
+        int rango = siguienteRango();
+        return productoService.buscarPorRangoPrecio(minimos[rango], maximos[rango], null, LIMITE);
+    }
+
+    private int siguienteRango() {
+        siguiente = (siguiente + 1) % RANGOS;
+        return siguiente;
+    }
+
+    private void insertarProductos(JdbcTemplate jdbcTemplate) {
+        String sql = "INSERT INTO productos (id, nombre, descripcion, precio, categoria_id) VALUES (?, ?, ?, ?, 1)";
+        Random random = new Random(42);
+        List<Object[]> filas = new ArrayList<>(10_000);
+        for (int i = 0; i < PRODUCTOS; i++) {
+            BigDecimal precio = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+            filas.add(new Object[]{PRIMER_ID + i, "Producto " + i, "Descripción " + i, precio});
+            if (filas.size() == 10_000) {
+                jdbcTemplate.batchUpdate(sql, filas);
+                filas.clear();
+            }
+        }
+    }
+}
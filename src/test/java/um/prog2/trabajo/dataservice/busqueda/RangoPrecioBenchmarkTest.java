@@ -0,0 +1,34 @@
+package um.prog2.trabajo.dataservice.busqueda;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lanza {@link RangoPrecioBenchmark} con JMH (en una JVM aparte) y compara los promedios.
+ */
+@Tag("benchmark")
+class RangoPrecioBenchmarkTest {
+
+    @Test
+    void compararIndiceConJpql() throws RunnerException {
+        Collection<RunResult> resultados = new Runner(new OptionsBuilder()
+                .include(RangoPrecioBenchmark.class.getName())
+                .build()).run();
+
+        Map<String, Double> microsegundos = resultados.stream().collect(Collectors.toMap(
+                resultado -> resultado.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                resultado -> resultado.getPrimaryResult().getScore()));
+        assertThat(microsegundos.get("servicioConIndice")).isLessThan(microsegundos.get("consultaJpql"));
+        assertThat(microsegundos.get("indiceSoloIds")).isLessThan(microsegundos.get("servicioConIndice"));
+    }
+}
@@ -0,0 +1,167 @@
+package um.prog2.trabajo.dataservice.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import um.prog2.trabajo.dataservice.dto.ProductoConInventarioRequest;
+import um.prog2.trabajo.dataservice.dto.ProductoVista;
+import um.prog2.trabajo.dataservice.entity.Categoria;
+import um.prog2.trabajo.dataservice.entity.Producto;
+import um.prog2.trabajo.dataservice.exception.RecursoNoEncontradoException;
+import um.prog2.trabajo.dataservice.reserva.MotorReservasStock;
+import um.prog2.trabajo.dataservice.service.CategoriaService;
+import um.prog2.trabajo.dataservice.service.InventarioService;
+import um.prog2.trabajo.dataservice.service.ProductoService;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.groups.Tuple.tuple;
+
+/**
+ * Lo que se escribe por los servicios (y por el volcado JDBC del motor de reservas) descarta las entidades,
+ * colecciones y consultas cacheadas que lo contenían, mientras que las lecturas repetidas sí salen de la caché.
+ * Cada prueba trabaja sobre una categoría propia, porque el contexto se comparte.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CacheSegundoNivelTest {
+
+    private static final String CONSULTAS = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+
+    @Autowired
+    private CategoriaService categoriaService;
+    @Autowired
+    private ProductoService productoService;
+    @Autowired
+    private InventarioService inventarioService;
+    @Autowired
+    private MotorReservasStock motorReservasStock;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry registro;
+
+    private Categoria categoria;
+    private Producto producto;
+
+    @BeforeEach
+    void crearCategoriaConProducto() {
+        categoria = categoriaService.guardar(new Categoria(null, "Cache " + UUID.randomUUID(), "Categoría de prueba", null));
+        producto = productoService.crearConInventario(new ProductoConInventarioRequest("Producto cacheado",
+                "Antes de actualizar", new BigDecimal("10.00"), categoria.getId(), 50, 5));
+    }
+
+    @Test
+    void lasLecturasRepetidasSalenDeLaCache() {
+        double aciertosCategorias = aciertos(CacheSegundoNivelConfiguracion.CATEGORIAS);
+        double aciertosConsultas = aciertos(CONSULTAS);
+
+        categoriaService.buscarPorId(categoria.getId());
+        categoriaService.buscarPorId(categoria.getId());
+        productoService.buscarPorCategoria(categoria.getNombre());
+        productoService.buscarPorCategoria(categoria.getNombre());
+
+        assertThat(entityManagerFactory.getCache().contains(Categoria.class, categoria.getId())).isTrue();
+        assertThat(aciertos(CacheSegundoNivelConfiguracion.CATEGORIAS)).isGreaterThan(aciertosCategorias);
+        assertThat(aciertos(CONSULTAS)).isGreaterThan(aciertosConsultas);
+        assertThat(registro.get("cache.entradas.maximas").tag("cache", CacheSegundoNivelConfiguracion.PRODUCTOS)
+                .gauge().value()).isEqualTo(100_000);
+        assertThat(registro.get("cache.entradas").tag("cache", CacheSegundoNivelConfiguracion.CATEGORIAS)
+                .gauge().value()).isPositive();
+    }
+
+    @Test
+    void renombrarUnaCategoriaDescartaLaEntidadYLasConsultasPorNombre() {
+        String nombreAnterior = categoria.getNombre();
+        String nombreNuevo = "Renombrada " + UUID.randomUUID();
+        categoriaService.buscarPorId(categoria.getId());
+        categoriaService.buscarVistaPorNombre(nombreAnterior);
+        productoService.buscarPorCategoria(nombreAnterior);
+
+        categoriaService.actualizar(categoria.getId(), new Categoria(null, nombreNuevo, "Renombrada", null));
+
+        assertThat(categoriaService.buscarPorId(categoria.getId()).getNombre()).isEqualTo(nombreNuevo);
+        assertThat(categoriaService.buscarVistaPorNombre(nombreNuevo).id()).isEqualTo(categoria.getId());
+        assertThatThrownBy(() -> categoriaService.buscarVistaPorNombre(nombreAnterior))
+                .isInstanceOf(RecursoNoEncontradoException.class);
+        assertThat(productoService.buscarPorCategoria(nombreAnterior)).isEmpty();
+        assertThat(productoService.buscarPorCategoria(nombreNuevo)).extracting(ProductoVista::categoriaNombre)
+                .containsExactly(nombreNuevo);
+    }
+
+    @Test
+    void actualizarUnProductoDescartaLaEntidadYLosListadosDeSuCategoria() {
+        productoService.buscarPorId(producto.getId());
+        productoService.buscarPorCategoria(categoria.getNombre());
+        productoService.buscarPorCategoriaId(categoria.getId());
+
+        productoService.actualizar(producto.getId(), new Producto(null, "Producto actualizado", "Después",
+                new BigDecimal("12.50"), categoria, null));
+
+        Producto releido = productoService.buscarPorId(producto.getId());
+        assertThat(releido.getNombre()).isEqualTo("Producto actualizado");
+        assertThat(releido.getPrecio()).isEqualByComparingTo("12.50");
+        assertThat(productoService.buscarPorCategoria(categoria.getNombre()))
+                .extracting(ProductoVista::nombre, ProductoVista::precio)
+                .containsExactly(tuple("Producto actualizado", new BigDecimal("12.50")));
+        assertThat(productoService.buscarPorCategoriaId(categoria.getId())).extracting(ProductoVista::nombre)
+                .containsExactly("Producto actualizado");
+    }
+
+    @Test
+    void moverUnProductoDeCategoriaActualizaLasDosColecciones() {
+        Categoria destino = categoriaService.guardar(new Categoria(null, "Destino " + UUID.randomUUID(), null, null));
+        assertThat(idsDeProductos(categoria.getId())).containsExactly(producto.getId());
+        assertThat(idsDeProductos(destino.getId())).isEmpty();
+        assertThat(entityManagerFactory.getCache().contains(Categoria.class, categoria.getId())).isTrue();
+
+        productoService.actualizar(producto.getId(), new Producto(null, producto.getNombre(),
+                producto.getDescripcion(), producto.getPrecio(), destino, null));
+
+        assertThat(idsDeProductos(categoria.getId())).isEmpty();
+        assertThat(idsDeProductos(destino.getId())).containsExactly(producto.getId());
+        assertThat(categoriaService.buscarVistaPorId(destino.getId()).cantidadProductos()).isEqualTo(1);
+        assertThat(categoriaService.buscarVistaPorId(categoria.getId()).cantidadProductos()).isZero();
+    }
+
+    @Test
+    void losMovimientosDeStockDescartanLosListadosQueLeenInventario() {
+        assertThat(stockEnListado()).isEqualTo(50);
+
+        // UPDATE masivo de JPQL
+        inventarioService.decrementarStock(producto.getId(), 10);
+        assertThat(stockEnListado()).isEqualTo(40);
+
+        // Batch JDBC del volcado del motor de reservas
+        motorReservasStock.confirmar(motorReservasStock.reservar(producto.getId(), 15).getId());
+        motorReservasStock.volcar();
+        assertThat(stockEnListado()).isEqualTo(25);
+    }
+
+    private int stockEnListado() {
+        return productoService.buscarPorCategoria(categoria.getNombre()).getFirst().stock();
+    }
+
+    // La colección se recorre dentro de una transacción, como haría un servicio
+    private List<Long> idsDeProductos(Long categoriaId) {
+        return transactionTemplate.execute(status -> categoriaService.buscarPorId(categoriaId).getProductos().stream()
+                .map(Producto::getId)
+                .toList());
+    }
+
+    private double aciertos(String region) {
+        return registro.get("cache.gets").tag("cache", region).tag("result", "hit").functionCounter().count();
+    }
+}
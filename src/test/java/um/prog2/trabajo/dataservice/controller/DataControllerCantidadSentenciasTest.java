@@ -0,0 +1,110 @@
+package um.prog2.trabajo.dataservice.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import um.prog2.trabajo.dataservice.entity.Categoria;
+import um.prog2.trabajo.dataservice.entity.Inventario;
+import um.prog2.trabajo.dataservice.entity.Producto;
+import um.prog2.trabajo.dataservice.repository.CategoriaRepository;
+import um.prog2.trabajo.dataservice.repository.ProductoRepository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cada listado del servicio de datos debe ejecutar la misma cantidad de sentencias SQL sin importar
+ * cuántas filas devuelva, incluida la serialización de la respuesta.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class DataControllerCantidadSentenciasTest {
+
+    private static final int FILAS_AGREGADAS = 20;
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/data/productos?limit=500",
+            "/data/productos/categoria/Libros",
+            "/data/productos/buscar?nombre=o",
+            "/data/productos/precio?min=0&max=100000&limit=500",
+            "/data/inventario?limit=500",
+            "/data/inventario/stock-bajo",
+            "/data/inventario/sin-stock",
+            "/data/categorias?limit=500"
+    })
+    void laCantidadDeSentenciasNoCreceConLasFilas(String ruta) throws Exception {
+        Respuesta antes = consultar(ruta);
+        agregarProductosSinStock();
+        Respuesta despues = consultar(ruta);
+
+        // Las categorías no anidan productos: las filas nuevas solo cambian su cantidad
+        assertThat(despues.cuerpo()).as("la respuesta debe reflejar las filas nuevas")
+                .isNotEqualTo(antes.cuerpo());
+        assertThat(despues.sentencias()).as("sentencias SQL de GET %s", ruta).isEqualTo(antes.sentencias());
+    }
+
+    private Respuesta consultar(String ruta) throws IOException, InterruptedException {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        HttpResponse<String> respuesta = cliente.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(respuesta.statusCode()).as("GET %s", ruta).isEqualTo(200);
+        return new Respuesta(respuesta.body(), estadisticas.getPrepareStatementCount());
+    }
+
+    private void agregarProductosSinStock() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Categoria libros = categoriaRepository.findByNombre("Libros").orElseThrow();
+            for (int i = 0; i < FILAS_AGREGADAS; i++) {
+                Producto producto = new Producto();
+                producto.setNombre("Libro agotado " + i);
+                producto.setPrecio(new BigDecimal("10.00"));
+                producto.setCategoria(libros);
+                Inventario inventario = new Inventario();
+                inventario.setProducto(producto);
+                inventario.setCantidad(0);
+                inventario.setStockMinimo(5);
+                inventario.setFechaActualizacion(LocalDateTime.now());
+                producto.setInventario(inventario);
+                productoRepository.save(producto);
+            }
+        });
+    }
+
+    private record Respuesta(String cuerpo, long sentencias) {
+    }
+}
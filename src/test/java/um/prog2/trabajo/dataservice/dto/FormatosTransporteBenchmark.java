@@ -0,0 +1,142 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JMH: CPU de serializar y deserializar el listado completo de inventario (100.000 filas, en las páginas de
+ * 500 que recorre el servicio de negocio) en JSON, CBOR y Smile, sin comprimir y con gzip. Los bytes que
+ * viajan por la red los calcula {@link FormatosTransporteBenchmarkTest}, que lo lanza con
+ * {@code mvn test -Pbenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatosTransporteBenchmark {
+
+    static final int FILAS = 100_000;
+    private static final TypeReference<PaginaKeyset<InventarioVista>> TIPO_PAGINA = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile"})
+    public String formato;
+
+    private ObjectMapper mapper;
+    private List<PaginaKeyset<InventarioVista>> paginas;
+    private List<byte[]> serializadas;
+
+    @Setup
+    public void iniciar() {
+        mapper = mapper(formato);
+        paginas = inventarioCompleto();
+        serializadas = new ArrayList<>(paginas.size());
+        for (PaginaKeyset<InventarioVista> pagina : paginas) {
+            serializadas.add(mapper.writeValueAsBytes(pagina));
+        }
+    }
+
+    @Benchmark
+    public long serializar() {
+        long bytes = 0;
+        for (PaginaKeyset<InventarioVista> pagina : paginas) {
+            bytes += mapper.writeValueAsBytes(pagina).length;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public long serializarConGzip() {
+        long bytes = 0;
+        for (PaginaKeyset<InventarioVista> pagina : paginas) {
+            bytes += comprimir(mapper.writeValueAsBytes(pagina)).length;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public int deserializar() {
+        int filas = 0;
+        for (byte[] pagina : serializadas) {
+            filas += mapper.readValue(pagina, TIPO_PAGINA).getContenido().size();
+        }
+        return filas;
+    }
+
+    static ObjectMapper mapper(String formato) {
+        return switch (formato) {
+            case "json" -> JsonMapper.builder().build();
+            case "cbor" -> CBORMapper.builder().build();
+            case "smile" -> SmileMapper.builder().build();
+            default -> throw new IllegalArgumentException("Formato desconocido: " + formato);
+        };
+    }
+
+    /**
+     * Bytes del listado completo en {@code formato}, sumando las páginas, con o sin gzip.
+     */
+    static long bytesEnElCable(String formato, boolean gzip) {
+        ObjectMapper mapper = mapper(formato);
+        long bytes = 0;
+        for (PaginaKeyset<InventarioVista> pagina : inventarioCompleto()) {
+            byte[] cuerpo = mapper.writeValueAsBytes(pagina);
+            bytes += gzip ? comprimir(cuerpo).length : cuerpo.length;
+        }
+        return bytes;
+    }
+
+    static List<PaginaKeyset<InventarioVista>> inventarioCompleto() {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<PaginaKeyset<InventarioVista>> paginas = new ArrayList<>();
+        List<InventarioVista> filas = new ArrayList<>(PaginaKeyset.LIMITE_MAXIMO);
+        for (long id = 1; id <= FILAS; id++) {
+            filas.add(new InventarioVista(id, 1_000_000L + id, "Producto " + id + " modelo " + random.nextInt(1000),
+                    random.nextInt(500), 5 + random.nextInt(20),
+                    base.plusSeconds(random.nextInt(31_536_000)).plusNanos(random.nextInt(1_000_000) * 1000L),
+                    (long) random.nextInt(10)));
+            if (filas.size() == PaginaKeyset.LIMITE_MAXIMO || id == FILAS) {
+                boolean hayMas = id < FILAS;
+                paginas.add(new PaginaKeyset<>(filas, hayMas ? PaginaKeyset.codificarCursor(id) : null, hayMas));
+                filas = new ArrayList<>(PaginaKeyset.LIMITE_MAXIMO);
+            }
+        }
+        return paginas;
+    }
+
+    private static byte[] comprimir(byte[] cuerpo) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(cuerpo.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(cuerpo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+}
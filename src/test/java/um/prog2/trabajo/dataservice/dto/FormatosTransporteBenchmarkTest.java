@@ -0,0 +1,54 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lanza {@link FormatosTransporteBenchmark} con JMH (en una JVM aparte) e informa, por formato, los bytes
+ * del listado completo de inventario junto con los tiempos de serialización y deserialización.
+ */
+@Tag("benchmark")
+class FormatosTransporteBenchmarkTest {
+
+    private static final String[] FORMATOS = {"json", "cbor", "smile"};
+
+    @Test
+    void compararFormatos() throws RunnerException {
+        Collection<RunResult> resultados = new Runner(new OptionsBuilder()
+                .include(FormatosTransporteBenchmark.class.getName())
+                .build()).run();
+
+        Map<String, Double> milisegundos = resultados.stream().collect(Collectors.toMap(
+                resultado -> resultado.getParams().getParam("formato") + " "
+                        + resultado.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                resultado -> resultado.getPrimaryResult().getScore()));
+
+        System.out.printf("Listado completo de inventario (%,d filas en páginas de %d)%n",
+                FormatosTransporteBenchmark.FILAS, PaginaKeyset.LIMITE_MAXIMO);
+        System.out.printf("  %-6s %12s %12s %14s %14s %16s%n",
+                "", "bytes", "bytes gzip", "serializar ms", "con gzip ms", "deserializar ms");
+        Map<String, Long> bytes = new HashMap<>();
+        for (String formato : FORMATOS) {
+            long crudos = FormatosTransporteBenchmark.bytesEnElCable(formato, false);
+            long comprimidos = FormatosTransporteBenchmark.bytesEnElCable(formato, true);
+            bytes.put(formato, crudos);
+            System.out.printf("  %-6s %,12d %,12d %14.1f %14.1f %16.1f%n", formato, crudos, comprimidos,
+                    milisegundos.get(formato + " serializar"), milisegundos.get(formato + " serializarConGzip"),
+                    milisegundos.get(formato + " deserializar"));
+        }
+
+        assertThat(bytes.get("smile")).isLessThan(bytes.get("json"));
+        assertThat(bytes.get("cbor")).isLessThan(bytes.get("json"));
+    }
+}
@@ -0,0 +1,116 @@
+package um.prog2.trabajo.dataservice.dto;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+import um.prog2.trabajo.dataservice.entity.Categoria;
+import um.prog2.trabajo.dataservice.entity.Inventario;
+import um.prog2.trabajo.dataservice.entity.Producto;
+import um.prog2.trabajo.dataservice.repository.CategoriaRepository;
+import um.prog2.trabajo.dataservice.repository.ProductoRepository;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compara, por producto listado, el JSON de la entidad con su grafo frente al de {@link ProductoVista}:
+ * bytes en el cable, memoria asignada y tiempo de serializar y volver a leer la respuesta.
+ * Se ejecuta con {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class ProyeccionesBenchmarkTest {
+
+    private static final int FILAS_AGREGADAS = 2_000;
+    private static final int RONDAS = 50;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Test
+    void compararEntidadesConProyeccion() {
+        agregarProductos();
+        List<Producto> entidades = transactionTemplate.execute(status -> {
+            List<Producto> productos = productoRepository.findAll();
+            productos.forEach(producto -> Hibernate.initialize(producto.getCategoria()));
+            return productos;
+        });
+        List<ProductoVista> vistas = productoRepository.findVistasDespuesDe(0L, Limit.unlimited());
+        assertThat(vistas).hasSameSizeAs(entidades);
+
+        Medicion entidad = medir(entidades, Producto[].class);
+        Medicion proyeccion = medir(vistas, ProductoVista[].class);
+
+        System.out.printf("entidad:    %6.1f bytes/ítem, %7.0f bytes asignados/ítem, %6.0f ns/ítem%n",
+                entidad.bytesPorItem(), entidad.asignadoPorItem(), entidad.nanosPorItem());
+        System.out.printf("proyección: %6.1f bytes/ítem, %7.0f bytes asignados/ítem, %6.0f ns/ítem%n",
+                proyeccion.bytesPorItem(), proyeccion.asignadoPorItem(), proyeccion.nanosPorItem());
+
+        assertThat(proyeccion.bytesPorItem()).isLessThan(entidad.bytesPorItem());
+    }
+
+    private Medicion medir(List<?> filas, Class<?> tipoRespuesta) {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        byte[] json = jsonMapper.writeValueAsBytes(filas);
+        for (int i = 0; i < RONDAS; i++) {
+            jsonMapper.readValue(jsonMapper.writeValueAsBytes(filas), tipoRespuesta);
+        }
+
+        long asignadoAntes = hilos.getCurrentThreadAllocatedBytes();
+        long comienzo = System.nanoTime();
+        for (int i = 0; i < RONDAS; i++) {
+            jsonMapper.readValue(jsonMapper.writeValueAsBytes(filas), tipoRespuesta);
+        }
+        long nanos = System.nanoTime() - comienzo;
+        long asignado = hilos.getCurrentThreadAllocatedBytes() - asignadoAntes;
+
+        double items = (double) filas.size() * RONDAS;
+        return new Medicion((double) json.length / filas.size(), asignado / items, nanos / items);
+    }
+
+    private void agregarProductos() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Categoria> categorias = categoriaRepository.findAll();
+            List<Producto> productos = new ArrayList<>(FILAS_AGREGADAS);
+            for (int i = 0; i < FILAS_AGREGADAS; i++) {
+                Producto producto = new Producto();
+                producto.setNombre("Producto de prueba " + i);
+                producto.setDescripcion("Descripción del producto de prueba número " + i);
+                producto.setPrecio(new BigDecimal("19.99"));
+                producto.setCategoria(categorias.get(i % categorias.size()));
+                Inventario inventario = new Inventario();
+                inventario.setProducto(producto);
+                inventario.setCantidad(i % 40);
+                inventario.setStockMinimo(10);
+                inventario.setFechaActualizacion(LocalDateTime.now());
+                producto.setInventario(inventario);
+                productos.add(producto);
+            }
+            productoRepository.saveAll(productos);
+        });
+    }
+
+    private record Medicion(double bytesPorItem, double asignadoPorItem, double nanosPorItem) {
+    }
+}
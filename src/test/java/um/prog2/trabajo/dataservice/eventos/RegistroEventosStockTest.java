@@ -0,0 +1,95 @@
+package um.prog2.trabajo.dataservice.eventos;
+
+import org.junit.jupiter.api.Test;
+import um.prog2.trabajo.dataservice.dto.EventoStock;
+import um.prog2.trabajo.dataservice.dto.LoteEventosStock;
+import um.prog2.trabajo.dataservice.dto.TipoEventoStock;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El registro marca el lote como incompleto cuando los eventos posteriores al {@code after} pedido ya no
+ * están en el buffer o el {@code after} es de otra ejecución, y en ese caso no hace esperar al consumidor.
+ */
+class RegistroEventosStockTest {
+
+    private static final int CAPACIDAD = 4;
+    private static final Duration SIN_ESPERA = Duration.ZERO;
+    private static final Duration ESPERA_LARGA = Duration.ofSeconds(20);
+
+    private final RegistroEventosStock registro = new RegistroEventosStock(CAPACIDAD, 30_000);
+
+    @Test
+    void unConsumidorAlDiaRecibeLosEventosSinPerdida() throws InterruptedException {
+        long inicio = registro.obtenerDespuesDe(null, 10, SIN_ESPERA).ultimoId();
+        cruzarUmbrales(1);
+
+        LoteEventosStock lote = registro.obtenerDespuesDe(inicio, 10, SIN_ESPERA);
+
+        assertThat(lote.incompleto()).isFalse();
+        assertThat(lote.eventos()).extracting(EventoStock::tipo)
+                .containsExactly(TipoEventoStock.STOCK_BAJO, TipoEventoStock.SIN_STOCK);
+        assertThat(lote.ultimoId()).isEqualTo(inicio + 2);
+    }
+
+    @Test
+    void eventosSobrescritosEnElBufferDejanElLoteIncompleto() throws InterruptedException {
+        long inicio = registro.obtenerDespuesDe(null, 10, SIN_ESPERA).ultimoId();
+        cruzarUmbrales(3);
+
+        LoteEventosStock lote = registro.obtenerDespuesDe(inicio, 10, SIN_ESPERA);
+
+        assertThat(lote.incompleto()).isTrue();
+        assertThat(lote.eventos()).hasSize(CAPACIDAD);
+        assertThat(lote.eventos().getFirst().id()).isEqualTo(inicio + 6 - CAPACIDAD + 1);
+        assertThat(lote.ultimoId()).isEqualTo(inicio + 6);
+    }
+
+    @Test
+    void unIdDeOtraEjecucionDejaElLoteIncompletoSinEsperar() throws InterruptedException {
+        long ultimo = registro.obtenerDespuesDe(null, 10, SIN_ESPERA).ultimoId();
+
+        long antes = System.nanoTime();
+        LoteEventosStock posterior = registro.obtenerDespuesDe(ultimo + 1_000, 10, ESPERA_LARGA);
+        LoteEventosStock anterior = registro.obtenerDespuesDe(1L, 10, ESPERA_LARGA);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - antes)).isLessThan(Duration.ofSeconds(5));
+        assertThat(posterior.incompleto()).isTrue();
+        assertThat(posterior.ultimoId()).isEqualTo(ultimo);
+        assertThat(anterior.incompleto()).isTrue();
+        assertThat(anterior.eventos()).isEmpty();
+    }
+
+    @Test
+    void laEsperaTerminaConElPrimerEvento() throws Exception {
+        long inicio = registro.obtenerDespuesDe(null, 10, SIN_ESPERA).ultimoId();
+
+        CompletableFuture<LoteEventosStock> consulta = CompletableFuture.supplyAsync(() -> {
+            try {
+                return registro.obtenerDespuesDe(inicio, 10, ESPERA_LARGA);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        registro.registrarCambio(1L, 20, 5, 10);
+
+        LoteEventosStock lote = consulta.get();
+        assertThat(lote.incompleto()).isFalse();
+        assertThat(lote.eventos()).extracting(EventoStock::tipo).containsExactly(TipoEventoStock.STOCK_BAJO);
+    }
+
+    // Cada vuelta cruza los dos umbrales, alternando entre vaciar y reponer: dos eventos por vuelta
+    private void cruzarUmbrales(int vueltas) {
+        for (int i = 0; i < vueltas; i++) {
+            if (i % 2 == 0) {
+                registro.registrarCambio(1L, 20, 0, 10);
+            } else {
+                registro.registrarCambio(1L, 0, 20, 10);
+            }
+        }
+    }
+}
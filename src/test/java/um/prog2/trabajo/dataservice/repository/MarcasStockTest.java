@@ -0,0 +1,109 @@
+package um.prog2.trabajo.dataservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import um.prog2.trabajo.dataservice.dto.ResumenInventario;
+import um.prog2.trabajo.dataservice.reserva.MotorReservasStock;
+import um.prog2.trabajo.dataservice.service.InventarioService;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Las marcas {@code stock_bajo} y {@code sin_stock} acompañan a la cantidad por los tres caminos de escritura:
+ * los callbacks de la entidad, el UPDATE masivo de JPQL y el volcado por JDBC del motor de reservas. El
+ * resumen del inventario cuenta con ellas.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MarcasStockTest {
+
+    @Autowired
+    private InventarioService inventarioService;
+    @Autowired
+    private InventarioRepository inventarioRepository;
+    @Autowired
+    private MotorReservasStock motorReservasStock;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void porLosCallbacksDeLaEntidad() {
+        Long inventarioId = inventarioRepository.findByProductoId(9L).orElseThrow().getId();
+        int stockMinimo = marcas(9L).stockMinimo();
+
+        for (int cantidad : new int[]{stockMinimo, 0, stockMinimo + 1}) {
+            inventarioService.actualizarStock(inventarioId, cantidad);
+            verificarMarcas(9L, cantidad);
+        }
+    }
+
+    @Test
+    void porElUpdateMasivo() {
+        Marcas inicial = marcas(1L);
+
+        inventarioService.decrementarStock(1L, inicial.cantidad() - inicial.stockMinimo());
+        verificarMarcas(1L, inicial.stockMinimo());
+        inventarioService.decrementarStock(1L, inicial.stockMinimo());
+        verificarMarcas(1L, 0);
+        inventarioService.incrementarStock(1L, inicial.cantidad());
+        verificarMarcas(1L, inicial.cantidad());
+    }
+
+    @Test
+    void porElVolcadoDelMotorDeReservas() {
+        Marcas inicial = marcas(2L);
+
+        vender(2L, inicial.cantidad() - inicial.stockMinimo());
+        verificarMarcas(2L, inicial.stockMinimo());
+        vender(2L, inicial.stockMinimo());
+        verificarMarcas(2L, 0);
+        inventarioService.incrementarStock(2L, inicial.cantidad());
+        verificarMarcas(2L, inicial.cantidad());
+    }
+
+    @Test
+    void elResumenCuentaLasMarcas() {
+        int cantidad = marcas(8L).cantidad();
+        inventarioService.decrementarStock(8L, cantidad);
+
+        ResumenInventario resumen = inventarioRepository.obtenerResumen();
+
+        Map<String, Object> esperado = jdbcTemplate.queryForMap("SELECT "
+                + "SUM(CASE WHEN cantidad <= stock_minimo THEN 1 ELSE 0 END) AS bajos, "
+                + "SUM(CASE WHEN cantidad = 0 THEN 1 ELSE 0 END) AS vacios FROM inventario");
+        assertThat(resumen.getProductosConStockBajo()).isEqualTo(((Number) esperado.get("bajos")).longValue());
+        assertThat(resumen.getProductosSinStock()).isEqualTo(((Number) esperado.get("vacios")).longValue());
+        assertThat(resumen.getProductosSinStock()).isPositive();
+        inventarioService.incrementarStock(8L, cantidad);
+    }
+
+    private void vender(Long productoId, int cantidad) {
+        motorReservasStock.confirmar(motorReservasStock.reservar(productoId, cantidad).getId());
+        motorReservasStock.volcar();
+    }
+
+    private void verificarMarcas(Long productoId, int cantidadEsperada) {
+        Marcas marcas = marcas(productoId);
+        assertThat(marcas.cantidad()).isEqualTo(cantidadEsperada);
+        assertThat(marcas.stockBajo()).as("stock_bajo con cantidad %d", cantidadEsperada)
+                .isEqualTo(cantidadEsperada <= marcas.stockMinimo());
+        assertThat(marcas.sinStock()).as("sin_stock con cantidad %d", cantidadEsperada)
+                .isEqualTo(cantidadEsperada == 0);
+    }
+
+    private Marcas marcas(Long productoId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT cantidad, stock_minimo, stock_bajo, sin_stock FROM inventario WHERE producto_id = ?",
+                (fila, numero) -> new Marcas(fila.getInt("cantidad"), fila.getInt("stock_minimo"),
+                        fila.getBoolean("stock_bajo"), fila.getBoolean("sin_stock")),
+                productoId);
+    }
+
+    private record Marcas(int cantidad, int stockMinimo, boolean stockBajo, boolean sinStock) {
+    }
+}
@@ -0,0 +1,96 @@
+package um.prog2.trabajo.dataservice.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import um.prog2.trabajo.TrabajoPractico6Application;
+import um.prog2.trabajo.dataservice.dto.ResumenInventario;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: la consulta agregada de {@link InventarioRepository#obtenerResumen()} (totales, marcas de stock y
+ * valorización con {@code SUM(precio * cantidad)}) sobre H2 con 1.000, 100.000 y 1.000.000 de productos con
+ * inventario. Es el costo del reporte de inventario del lado del servicio de datos.
+ * Se ejecuta con {@code mvn test -Pbenchmark} a través de {@link ResumenInventarioBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResumenInventarioBenchmark {
+
+    private static final long PRIMER_ID = 1_000_000L;
+    private static final int LOTE = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int filas;
+
+    private ConfigurableApplicationContext contexto;
+    private InventarioRepository inventarioRepository;
+
+    @Setup
+    public void iniciar() {
+        contexto = new SpringApplicationBuilder(TrabajoPractico6Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.docker.compose.enabled=false",
+                        "data.reservas.journal=./target/reservas-stock-jmh.journal")
+                // Sin esto H2 devuelve el resultado anterior de la misma consulta si las tablas no cambiaron
+                .run("--spring.datasource.url=jdbc:h2:mem:resumen-jmh;OPTIMIZE_REUSE_RESULTS=FALSE");
+        inventarioRepository = contexto.getBean(InventarioRepository.class);
+        insertarProductosConInventario(contexto.getBean(JdbcTemplate.class));
+    }
+
+    @TearDown
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public ResumenInventario resumen() {
+        return inventarioRepository.obtenerResumen();
+    }
+
+    private void insertarProductosConInventario(JdbcTemplate jdbcTemplate) {
+        String productoSql = "INSERT INTO productos (id, nombre, descripcion, precio, categoria_id) VALUES (?, ?, ?, ?, 1)";
+        String inventarioSql = "INSERT INTO inventario (id, producto_id, cantidad, stock_minimo, stock_bajo, sin_stock, "
+                + "fecha_actualizacion, version) VALUES (?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP(), 0)";
+        Random random = new Random(42);
+        List<Object[]> productos = new ArrayList<>(LOTE);
+        List<Object[]> inventarios = new ArrayList<>(LOTE);
+        for (int i = 0; i < filas; i++) {
+            long id = PRIMER_ID + i;
+            int cantidad = random.nextInt(500);
+            int stockMinimo = 5 + random.nextInt(20);
+            productos.add(new Object[]{id, "Producto " + i, "Descripción " + i,
+                    BigDecimal.valueOf(100 + random.nextInt(1_000_000), 2)});
+            inventarios.add(new Object[]{id, id, cantidad, stockMinimo, cantidad <= stockMinimo, cantidad == 0});
+            if (productos.size() == LOTE || i == filas - 1) {
+                jdbcTemplate.batchUpdate(productoSql, productos);
+                jdbcTemplate.batchUpdate(inventarioSql, inventarios);
+                productos.clear();
+                inventarios.clear();
+            }
+        }
+    }
+}
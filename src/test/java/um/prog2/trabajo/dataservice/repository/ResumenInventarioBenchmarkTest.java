@@ -0,0 +1,51 @@
+package um.prog2.trabajo.dataservice.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lanza {@link ResumenInventarioBenchmark} con JMH (en una JVM aparte) y deja los resultados en
+ * {@code target/jmh/resumen-inventario.json}.
+ */
+@Tag("benchmark")
+class ResumenInventarioBenchmarkTest {
+
+    private static final Path RESULTADOS = Path.of("target", "jmh", "resumen-inventario.json");
+
+    @Test
+    void medirResumenSegunFilas() throws RunnerException, IOException {
+        Files.createDirectories(RESULTADOS.getParent());
+        Collection<RunResult> resultados = new Runner(new OptionsBuilder()
+                .include(ResumenInventarioBenchmark.class.getName())
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULTADOS.toString())
+                .build()).run();
+
+        Map<Integer, Double> milisegundos = new TreeMap<>();
+        for (RunResult resultado : resultados) {
+            milisegundos.put(Integer.parseInt(resultado.getParams().getParam("filas")),
+                    resultado.getPrimaryResult().getScore());
+        }
+        milisegundos.forEach((filas, ms) -> System.out.printf("  %,10d filas %10.2f ms%n", filas, ms));
+
+        assertThat(milisegundos).containsOnlyKeys(1_000, 100_000, 1_000_000);
+        // La consulta recorre la tabla: con mil veces más filas no puede costar lo mismo (si lo hace, se está
+        // midiendo un resultado reutilizado por H2)
+        assertThat(milisegundos.get(1_000_000)).isGreaterThan(milisegundos.get(1_000) * 10);
+        assertThat(Files.readString(RESULTADOS)).contains("ResumenInventarioBenchmark.resumen", "\"filas\" : \"1000000\"");
+    }
+}
@@ -0,0 +1,96 @@
+package um.prog2.trabajo.dataservice.reserva;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import um.prog2.trabajo.dataservice.entity.Inventario;
+import um.prog2.trabajo.dataservice.service.InventarioService;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compara el camino actual (leer y save() por pedido) con el motor en memoria sobre un mismo producto.
+ * Se ejecuta con {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class MotorReservasStockBenchmarkTest {
+
+    private static final long PRODUCTO_ID = 1L;
+    private static final int HILOS = 16;
+    private static final int OPERACIONES_POR_HILO = 500;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private MotorReservasStock motorReservasStock;
+
+    @BeforeEach
+    void reponerStock() {
+        Inventario inventario = inventarioService.buscarPorProductoId(PRODUCTO_ID);
+        inventarioService.actualizarStock(inventario.getId(), 1_000_000);
+    }
+
+    @Test
+    void compararConSavePorPedido() throws Exception {
+        AtomicInteger conflictos = new AtomicInteger();
+        double opsSave = medir("save() por pedido", () -> {
+            try {
+                Inventario inventario = inventarioService.buscarPorProductoId(PRODUCTO_ID);
+                inventarioService.actualizarStock(inventario.getId(), inventario.getCantidad() - 1);
+            } catch (OptimisticLockingFailureException e) {
+                conflictos.incrementAndGet();
+            }
+        });
+
+        int antesDelMotor = inventarioService.buscarPorProductoId(PRODUCTO_ID).getCantidad();
+        double opsMotor = medir("motor en memoria", () ->
+                motorReservasStock.confirmar(motorReservasStock.reservar(PRODUCTO_ID, 1).getId()));
+        motorReservasStock.volcar();
+
+        System.out.printf("save() por pedido: %.0f ops/s (%d conflictos de versión)%n", opsSave, conflictos.get());
+        System.out.printf("motor en memoria:  %.0f ops/s (%.1fx)%n", opsMotor, opsMotor / opsSave);
+
+        // Todas las confirmaciones del motor quedan reflejadas en la base de datos tras el volcado
+        int despuesDelMotor = inventarioService.buscarPorProductoId(PRODUCTO_ID).getCantidad();
+        assertThat(antesDelMotor - despuesDelMotor).isEqualTo(HILOS * OPERACIONES_POR_HILO);
+    }
+
+    private double medir(String nombre, Runnable operacion) throws InterruptedException {
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch inicio = new CountDownLatch(1);
+        CountDownLatch fin = new CountDownLatch(HILOS);
+        for (int i = 0; i < HILOS; i++) {
+            hilos.execute(() -> {
+                try {
+                    inicio.await();
+                    for (int j = 0; j < OPERACIONES_POR_HILO; j++) {
+                        operacion.run();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    fin.countDown();
+                }
+            });
+        }
+        long comienzo = System.nanoTime();
+        inicio.countDown();
+        assertThat(fin.await(5, TimeUnit.MINUTES)).as(nombre).isTrue();
+        long duracion = System.nanoTime() - comienzo;
+        hilos.shutdown();
+        return HILOS * OPERACIONES_POR_HILO / (duracion / 1e9);
+    }
+}
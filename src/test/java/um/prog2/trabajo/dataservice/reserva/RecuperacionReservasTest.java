@@ -0,0 +1,181 @@
+package um.prog2.trabajo.dataservice.reserva;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import um.prog2.trabajo.dataservice.dto.Reserva;
+import um.prog2.trabajo.dataservice.entity.CheckpointReservas;
+import um.prog2.trabajo.dataservice.eventos.RegistroEventosStock;
+import um.prog2.trabajo.dataservice.exception.RecursoNoEncontradoException;
+import um.prog2.trabajo.dataservice.exception.StockInsuficienteException;
+import um.prog2.trabajo.dataservice.repository.CheckpointReservasRepository;
+import um.prog2.trabajo.dataservice.repository.InventarioRepository;
+import um.prog2.trabajo.dataservice.service.InventarioService;
+import um.prog2.trabajo.dataservice.versiones.VersionesCatalogo;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Las confirmaciones sobreviven a una caída: un motor nuevo sobre el mismo journal las vuelca y deja el
+ * checkpoint en la última secuencia; las de productos cuya fila de inventario se eliminó se descartan en lugar
+ * de reintentarse. Los motores de prueba comparten el checkpoint con el del contexto, por
+ * eso el contexto se descarta al terminar.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+class RecuperacionReservasTest {
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+    @Autowired
+    private CheckpointReservasRepository checkpointRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private RegistroEventosStock registroEventos;
+    @Autowired
+    private VersionesCatalogo versiones;
+    @Autowired
+    private MotorReservasStock motorReservasStock;
+    @Autowired
+    private InventarioService inventarioService;
+
+    @TempDir
+    private Path directorio;
+
+    @Test
+    void reaplicaLasConfirmacionesSinVolcarTrasUnaCaida() {
+        Path journal = directorio.resolve("caida.journal");
+        long checkpointInicial = ultimaSecuencia();
+        int stock = cantidad(3L);
+
+        MotorReservasStock caido = nuevoMotor(journal);
+        caido.iniciar();
+        caido.confirmar(caido.reservar(3L, 2).getId());
+        caido.confirmar(caido.reservar(3L, 1).getId());
+        caido.reservar(4L, 1);
+        // Sin detener(): el motor se pierde con las confirmaciones sólo en el journal
+        assertThat(cantidad(3L)).isEqualTo(stock);
+        assertThat(ultimaSecuencia()).isEqualTo(checkpointInicial);
+
+        MotorReservasStock recuperado = nuevoMotor(journal);
+        try {
+            recuperado.iniciar();
+
+            assertThat(cantidad(3L)).isEqualTo(stock - 3);
+            assertThat(ultimaSecuencia()).isEqualTo(checkpointInicial + 2);
+            // La reserva sin confirmar se perdió con el motor
+            assertThat(recuperado.consultarDisponibilidad(4L).getReservado()).isZero();
+        } finally {
+            recuperado.detener();
+        }
+    }
+
+    @Test
+    void unDeltaQueDejariaLaFilaEnNegativoQuedaPendienteAunTrasUnaCaida() throws Exception {
+        Path journal = directorio.resolve("conflicto.journal");
+        MotorReservasStock caido = nuevoMotor(journal);
+        caido.iniciar();
+        caido.confirmar(caido.reservar(5L, 2).getId());
+        // Una escritura que no pasa por el motor deja la fila por debajo de lo vendido
+        jdbcTemplate.update("UPDATE inventario SET cantidad = 1 WHERE producto_id = 5");
+
+        caido.volcar();
+
+        assertThat(cantidad(5L)).isEqualTo(1);
+        assertThat(Files.readAllLines(journal)).anyMatch(linea -> linea.startsWith("A "));
+
+        MotorReservasStock recuperado = nuevoMotor(journal);
+        try {
+            recuperado.iniciar();
+            assertThat(cantidad(5L)).isEqualTo(1);
+            assertThat(recuperado.consultarDisponibilidad(5L).getPendienteDeVolcar()).isEqualTo(-2);
+
+            jdbcTemplate.update("UPDATE inventario SET cantidad = 10 WHERE producto_id = 5");
+            recuperado.volcar();
+
+            assertThat(cantidad(5L)).isEqualTo(8);
+            assertThat(Files.readAllLines(journal)).noneMatch(linea -> linea.startsWith("A "));
+        } finally {
+            recuperado.detener();
+        }
+    }
+
+    @Test
+    void lasVentasDeUnProductoSinInventarioSeDescartan() throws Exception {
+        Path journal = directorio.resolve("eliminado.journal");
+        MotorReservasStock motor = nuevoMotor(journal);
+        motor.iniciar();
+        motor.confirmar(motor.reservar(7L, 2).getId());
+        Reserva sinConfirmar = motor.reservar(7L, 1);
+        jdbcTemplate.update("DELETE FROM inventario WHERE producto_id = 7");
+
+        motor.volcar();
+
+        assertThat(Files.readAllLines(journal)).noneMatch(linea -> linea.startsWith("A ") || linea.startsWith("C "));
+        assertThatThrownBy(() -> motor.cancelar(sinConfirmar.getId())).isInstanceOf(RecursoNoEncontradoException.class);
+        assertThatThrownBy(() -> motor.consultarDisponibilidad(7L)).isInstanceOf(RecursoNoEncontradoException.class);
+
+        // Tampoco vuelven al recuperar una confirmación cuya fila se eliminó antes de volcarla
+        motor.confirmar(motor.reservar(2L, 1).getId());
+        jdbcTemplate.update("DELETE FROM inventario WHERE producto_id = 2");
+        MotorReservasStock recuperado = nuevoMotor(journal);
+        try {
+            recuperado.iniciar();
+            assertThat(Files.readAllLines(journal)).noneMatch(linea -> linea.startsWith("A ") || linea.startsWith("C "));
+            assertThatThrownBy(() -> recuperado.consultarDisponibilidad(2L))
+                    .isInstanceOf(RecursoNoEncontradoException.class);
+        } finally {
+            recuperado.detener();
+        }
+    }
+
+    @Test
+    void lasEscriturasDirectasNoTomanLoReservado() {
+        long inventarioId = inventarioRepository.findByProductoId(6L).orElseThrow().getId();
+        int stock = cantidad(6L);
+        Reserva reserva = motorReservasStock.reservar(6L, stock - 1);
+        try {
+            assertThatThrownBy(() -> inventarioService.actualizarStock(inventarioId, stock - 2))
+                    .isInstanceOf(StockInsuficienteException.class);
+            assertThatThrownBy(() -> inventarioService.decrementarStock(6L, 2))
+                    .isInstanceOf(StockInsuficienteException.class);
+            inventarioService.decrementarStock(6L, 1);
+
+            assertThat(cantidad(6L)).isEqualTo(stock - 1);
+            assertThat(motorReservasStock.consultarDisponibilidad(6L).getDisponible()).isZero();
+        } finally {
+            motorReservasStock.cancelar(reserva.getId());
+        }
+    }
+
+    private MotorReservasStock nuevoMotor(Path journal) {
+        // Sin volcados programados: sólo vuelca lo que la prueba pide
+        return new MotorReservasStock(inventarioRepository, checkpointRepository, jdbcTemplate, entityManager,
+                transactionTemplate, registroEventos, versiones, 8, journal.toString(), true, 600, 3_600_000);
+    }
+
+    private int cantidad(Long productoId) {
+        return jdbcTemplate.queryForObject("SELECT cantidad FROM inventario WHERE producto_id = ?", Integer.class,
+                productoId);
+    }
+
+    private long ultimaSecuencia() {
+        return checkpointRepository.findById(CheckpointReservas.ID_UNICO).orElseThrow().getUltimaSecuencia();
+    }
+}
@@ -0,0 +1,121 @@
+package um.prog2.trabajo.dataservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import um.prog2.trabajo.dataservice.dto.ResumenImportacionCatalogo;
+import um.prog2.trabajo.dataservice.entity.EjecucionImportacion;
+import um.prog2.trabajo.dataservice.repository.EjecucionImportacionRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * La importación desde CSV/TSV crea las categorías que faltan una sola vez, rechaza las filas inválidas sin
+ * frenar las demás y, si un bloque falla, la corrida siguiente sobre el mismo archivo retoma después del último
+ * bloque confirmado sin duplicar productos.
+ */
+@SpringBootTest(properties = "data.importacion-csv.tamano-bloque=100")
+@ActiveProfiles("test")
+class ImportacionCatalogoServiceTest {
+
+    @Autowired
+    private ImportacionCatalogoService importacionCatalogoService;
+    @Autowired
+    private EjecucionImportacionRepository ejecucionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path directorio;
+
+    @Test
+    void importaCategoriasProductosYStockDeUnCsv() throws Exception {
+        String categoriaNueva = "Jardín " + UUID.randomUUID();
+        List<String> lineas = new ArrayList<>();
+        lineas.add("﻿categoria,nombre,descripcion,precio,stock,stock_minimo");
+        for (int i = 0; i < 250; i++) {
+            String categoria = i % 2 == 0 ? "Electrónica" : categoriaNueva;
+            lineas.add(categoria + ",Importado " + categoriaNueva + " " + i + ",\"Con \"\"comillas\"\", y coma\","
+                    + (10 + i) + ".50," + i + ",5");
+        }
+        lineas.add("");
+        lineas.add(categoriaNueva + ",Sin precio,,abc,3,");
+
+        ResumenImportacionCatalogo resumen = importacionCatalogoService.importar(escribir("catalogo.csv", lineas));
+
+        assertThat(resumen.filasImportadas()).isEqualTo(250);
+        assertThat(resumen.filasRechazadas()).isEqualTo(1);
+        assertThat(resumen.filasPorSegundo()).isPositive();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM categorias WHERE nombre = ?", Integer.class,
+                categoriaNueva)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM productos p JOIN categorias c "
+                + "ON c.id = p.categoria_id WHERE c.nombre = ?", Integer.class, categoriaNueva)).isEqualTo(125);
+        assertThat(jdbcTemplate.queryForMap("SELECT p.descripcion, p.precio, i.cantidad, i.stock_minimo, i.stock_bajo "
+                        + "FROM productos p JOIN inventario i ON i.producto_id = p.id WHERE p.nombre = ?",
+                "Importado " + categoriaNueva + " 3"))
+                .containsEntry("DESCRIPCION", "Con \"comillas\", y coma")
+                .containsEntry("CANTIDAD", 3)
+                .containsEntry("STOCK_MINIMO", 5)
+                .containsEntry("STOCK_BAJO", true);
+        EjecucionImportacion ejecucion = ejecucionRepository.findById(resumen.ejecucionId()).orElseThrow();
+        assertThat(ejecucion.getEstado()).isEqualTo(EjecucionImportacion.Estado.COMPLETADA);
+        assertThat(ejecucion.getLineasProcesadas()).isEqualTo(252);
+    }
+
+    @Test
+    void retomaDespuesDelUltimoBloqueConfirmado() throws Exception {
+        String prefijo = "Retomado " + UUID.randomUUID();
+        List<String> lineas = new ArrayList<>();
+        lineas.add("nombre\tcategoria\tprecio\tstock");
+        for (int i = 0; i < 1000; i++) {
+            lineas.add(prefijo + " " + i + "\tLibros\t" + (1 + i % 50) + "\t" + (i % 30));
+        }
+        Path archivo = escribir("catalogo.tsv", lineas);
+        // Una falla de la base a mitad del archivo: el sexto bloque no se confirma
+        String restriccion = "CHK_" + UUID.randomUUID().toString().replace("-", "");
+        jdbcTemplate.execute("ALTER TABLE productos ADD CONSTRAINT " + restriccion
+                + " CHECK (nombre <> '" + prefijo + " 550')");
+
+        assertThatThrownBy(() -> importacionCatalogoService.importar(archivo)).isInstanceOf(RuntimeException.class);
+        EjecucionImportacion interrumpida = ejecucionRepository
+                .findFirstByArchivoAndHuellaAndEstadoNotOrderByIdDesc(archivo.toAbsolutePath().normalize().toString(),
+                        Files.size(archivo) + "-" + Files.getLastModifiedTime(archivo).toMillis(),
+                        EjecucionImportacion.Estado.COMPLETADA)
+                .orElseThrow();
+        assertThat(interrumpida.getEstado()).isEqualTo(EjecucionImportacion.Estado.FALLIDA);
+        assertThat(interrumpida.getLineasProcesadas()).isEqualTo(500);
+        assertThat(productosConPrefijo(prefijo)).isEqualTo(500);
+
+        jdbcTemplate.execute("ALTER TABLE productos DROP CONSTRAINT " + restriccion);
+        ResumenImportacionCatalogo resumen = importacionCatalogoService.importar(archivo);
+
+        assertThat(resumen.ejecucionId()).isEqualTo(interrumpida.getId());
+        assertThat(resumen.lineasRetomadas()).isEqualTo(500);
+        assertThat(resumen.filasImportadas()).isEqualTo(500);
+        assertThat(productosConPrefijo(prefijo)).isEqualTo(1000);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT nombre) FROM productos WHERE nombre LIKE ?",
+                Integer.class, prefijo + "%")).isEqualTo(1000);
+        assertThat(ejecucionRepository.findById(resumen.ejecucionId()).orElseThrow().getEstado())
+                .isEqualTo(EjecucionImportacion.Estado.COMPLETADA);
+    }
+
+    private int productosConPrefijo(String prefijo) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM productos WHERE nombre LIKE ?", Integer.class,
+                prefijo + "%");
+    }
+
+    private Path escribir(String nombre, List<String> lineas) throws Exception {
+        return Files.write(directorio.resolve(nombre), lineas, StandardCharsets.UTF_8);
+    }
+}
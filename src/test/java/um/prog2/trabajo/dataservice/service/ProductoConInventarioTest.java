@@ -0,0 +1,81 @@
+package um.prog2.trabajo.dataservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import um.prog2.trabajo.dataservice.dto.ProductoConInventarioRequest;
+import um.prog2.trabajo.dataservice.entity.Producto;
+import um.prog2.trabajo.dataservice.versiones.Coleccion;
+import um.prog2.trabajo.dataservice.versiones.VersionesCatalogo;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * El producto y su inventario se crean en la misma transacción: si falla el inventario no queda el producto.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductoConInventarioTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Se registra después del INSERT del inventario (@PostPersist): sirve para fallar con ambas filas escritas
+    @MockitoSpyBean
+    private VersionesCatalogo versiones;
+
+    private volatile boolean fallarInventario;
+
+    @AfterEach
+    void restaurar() {
+        fallarInventario = false;
+    }
+
+    @Test
+    void creaElProductoConSuInventario() {
+        Producto producto = productoService.crearConInventario(solicitud("Compuesto correcto", 7));
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT cantidad FROM inventario WHERE producto_id = ?", Integer.class, producto.getId()))
+                .isEqualTo(7);
+    }
+
+    @Test
+    void siFallaElInventarioNoQuedaElProducto() {
+        doAnswer(invocacion -> {
+            if (fallarInventario) {
+                throw new IllegalStateException("falla simulada del inventario");
+            }
+            return invocacion.callRealMethod();
+        }).when(versiones).registrarCambio(eq(Coleccion.INVENTARIO), any());
+        int inventariosAntes = contar("SELECT COUNT(*) FROM inventario");
+        fallarInventario = true;
+
+        assertThatThrownBy(() -> productoService.crearConInventario(solicitud("Compuesto fallido", 7)))
+                .hasRootCauseMessage("falla simulada del inventario");
+
+        assertThat(contar("SELECT COUNT(*) FROM productos WHERE nombre = 'Compuesto fallido'")).isZero();
+        assertThat(contar("SELECT COUNT(*) FROM inventario")).isEqualTo(inventariosAntes);
+    }
+
+    private int contar(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+
+    private static ProductoConInventarioRequest solicitud(String nombre, int stock) {
+        return new ProductoConInventarioRequest(nombre, "d", new BigDecimal("10.00"), 1L, stock, 2);
+    }
+}
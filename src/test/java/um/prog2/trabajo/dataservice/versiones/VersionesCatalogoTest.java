@@ -0,0 +1,60 @@
+package um.prog2.trabajo.dataservice.versiones;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mientras una escritura registrada en una transacción no terminó no hay ETag para las colecciones que toca,
+ * así un cliente con la versión anterior no recibe 304 entre el commit y el avance del contador.
+ */
+class VersionesCatalogoTest {
+
+    private static final Coleccion[] PRODUCTOS = {Coleccion.PRODUCTOS};
+    private static final Coleccion[] NINGUNA = {};
+
+    private final VersionesCatalogo versiones = new VersionesCatalogo(100);
+
+    @BeforeEach
+    void abrirTransaccion() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void cerrarTransaccion() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void sinEtagDesdeLaEscrituraHastaQueAvanzaLaVersion() {
+        String anterior = versiones.etag(PRODUCTOS, NINGUNA, null);
+
+        versiones.registrarCambio(Coleccion.PRODUCTOS, 1L);
+        assertThat(versiones.etag(PRODUCTOS, NINGUNA, null)).isNull();
+        assertThat(versiones.etag(NINGUNA, PRODUCTOS, 2L)).isNull();
+        assertThat(versiones.etag(new Coleccion[]{Coleccion.CATEGORIAS}, NINGUNA, null)).isNotNull();
+
+        // El commit ya ocurrió: la base tiene los datos nuevos pero el contador todavía no avanzó
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(versiones.etag(PRODUCTOS, NINGUNA, null)).isNull();
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertThat(versiones.etag(PRODUCTOS, NINGUNA, null)).isNotNull().isNotEqualTo(anterior);
+    }
+
+    @Test
+    void unRollbackDejaLaVersionAnterior() {
+        String anterior = versiones.etag(NINGUNA, PRODUCTOS, 1L);
+
+        versiones.registrarCambio(Coleccion.PRODUCTOS, 1L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(versiones.etag(NINGUNA, PRODUCTOS, 1L)).isEqualTo(anterior);
+    }
+}
@@ -0,0 +1,44 @@
+package um.prog2.trabajo.metricas;
+
+import org.junit.jupiter.api.Test;
+import um.prog2.trabajo.ServiciosIntegrados;
+
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Después de una escritura por {@code /api}, {@code /actuator/prometheus} tiene los tiempos de cada salto
+ * (servicio de negocio, cliente Feign, servicio de datos y repositorios) con los buckets de su histograma, y
+ * las métricas de HikariCP y de la JVM.
+ */
+class MetricasPrometheusTest extends ServiciosIntegrados {
+
+    @Test
+    void cadaSaltoQuedaMedidoConSuHistograma() {
+        assertThat(enviar("POST", "/api/inventario/producto/6/stock/incrementar?cantidad=1", null)
+                .statusCode()).isEqualTo(200);
+        assertThat(get("/api/productos/6").statusCode()).isEqualTo(200);
+
+        HttpResponse<String> prometheus = get("/actuator/prometheus");
+
+        assertThat(prometheus.statusCode()).isEqualTo(200);
+        assertThat(prometheus.body())
+                .containsPattern("servicio_llamadas_seconds_count\\{[^}]*clase=\"InventarioBusinessService\"")
+                .containsPattern("servicio_llamadas_seconds_count\\{[^}]*clase=\"InventarioService\"")
+                .containsPattern("cliente_datos_llamadas_seconds_bucket\\{[^}]*metodo=\"incrementarStock\"")
+                .containsPattern("servicio_llamadas_seconds_bucket\\{[^}]*clase=\"ProductoBusinessService\"")
+                .containsPattern("spring_data_repository_invocations_seconds_bucket\\{")
+                .containsPattern("http_server_requests_seconds_bucket\\{[^}]*uri=\"/api/productos/\\{id}\"")
+                .contains("hikaricp_connections")
+                .contains("jvm_memory_used_bytes");
+    }
+
+    @Test
+    void losErroresQuedanEtiquetadosConSuExcepcion() {
+        assertThat(get("/api/productos/999999").statusCode()).isGreaterThanOrEqualTo(400);
+
+        assertThat(get("/actuator/prometheus").body())
+                .containsPattern("servicio_llamadas_seconds_count\\{[^}]*excepcion=\"ProductoNoEncontradoException\"[^}]*resultado=\"ERROR\"");
+    }
+}